@@ -77,6 +77,20 @@ public class MainControllerUtilities
         spinner2.setValueFactory(vf2);
     }
 
+    /**
+     * This function configures the tables spinner
+     * It is an integer spinner which cannot go below 1 and starts at 1 (Games are played one at a time)
+     * @param tablesSpinner The spinner for the number of tables
+     */
+    public static void configureTablesSpinner(Spinner<Integer> tablesSpinner)
+    {
+        SpinnerValueFactory.IntegerSpinnerValueFactory vf =
+                new SpinnerValueFactory.IntegerSpinnerValueFactory(
+                        1, Integer.MAX_VALUE, 1
+                );
+        tablesSpinner.setValueFactory(vf);
+    }
+
     /**
      * This function configures the behaviour of the games each spinner
      * @param gamesEachSpinner       The games each spinner UI element
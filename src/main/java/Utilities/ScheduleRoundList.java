@@ -0,0 +1,122 @@
+package utilities;
+
+import data_classes.Game;
+
+import java.util.List;
+import javafx.collections.ObservableListBase;
+
+/**
+ * This class adapts a round view of the schedule into the observable list the schedule list-view is bound to (See Schedule.getRoundView)
+ * The list-view reads the games straight from the schedule, so changing the page, reordering or renaming only sends change events instead of rebuilding the items
+ * The list is read-only. It changes when a different round is shown, and tells the list-view about changes the controller made to the schedule
+ * Every change to the schedule under the round being shown must be reported (See gameMoved, gamesAppended and gamesUpdated), or the round cleared before it, so the round view always holds what the list-view shows
+ * @author William Shaw
+ */
+public class ScheduleRoundList extends ObservableListBase<Game>
+{
+    private List<Game> round = List.of(); // The round being shown (A view backed by the schedule)
+    private int numGamesShown = 0;        // The number of games the list-view was last told about
+
+    /**
+     * Gets a game in the round being shown
+     * @param index The index of the game within the round
+     * @return The game
+     */
+    @Override
+    public Game get(int index)
+    {
+        return round.get(index);
+    }
+
+    /**
+     * Gets the number of games in the round being shown
+     * @return The number of games
+     */
+    @Override
+    public int size()
+    {
+        return round.size();
+    }
+
+    /**
+     * Shows a different round in the list-view
+     * Sends a single change that replaces every game shown
+     * The removed games are the old round view itself, which still holds what the list-view shows since every change to it was reported, so nothing is copied
+     * @param newRound The round to show (A view backed by the schedule)
+     */
+    public void showRound(List<Game> newRound)
+    {
+        List<Game> removed = round;
+        int numGamesRemoved = numGamesShown;
+        round = newRound;
+        numGamesShown = round.size();
+        if(numGamesRemoved == 0 && numGamesShown == 0)
+            return;
+        beginChange();
+        nextReplace(0, numGamesShown, removed);
+        endChange();
+    }
+
+    /**
+     * Stops showing a round
+     * Also called before a change to the schedule that cannot be reported game by game (Such as a repair), while the round view still holds what the list-view shows
+     */
+    public void clearRound()
+    {
+        showRound(List.of());
+    }
+
+    /**
+     * Tells the list-view a game in the round being shown was moved
+     * Sends a permutation of the games between the old and new index, so only those cells are updated
+     * @param oldIndex The index of the game within the round before the move
+     * @param newIndex The index of the game within the round after the move
+     */
+    public void gameMoved(int oldIndex, int newIndex)
+    {
+        if(oldIndex == newIndex)
+            return;
+        int from = Math.min(oldIndex, newIndex);
+        int to = Math.max(oldIndex, newIndex) + 1;
+        int shift = (oldIndex < newIndex) ? -1 : 1; // Where the games between the old and new index move to
+        int[] permutation = new int[to - from];
+        for(int i = from; i < to; i++)
+        {
+            permutation[i - from] = (i == oldIndex) ? newIndex : i + shift;
+        }
+        beginChange();
+        nextPermutation(from, to, permutation);
+        endChange();
+    }
+
+    /**
+     * Tells the list-view games were appended to the schedule
+     * The round being shown only changes if it was the last round and had room for some of the new games, which are added to the end of it
+     */
+    public void gamesAppended()
+    {
+        if(round.size() <= numGamesShown)
+            return;
+        int from = numGamesShown;
+        numGamesShown = round.size();
+        beginChange();
+        nextAdd(from, numGamesShown);
+        endChange();
+    }
+
+    /**
+     * Tells the list-view every game in the round being shown was updated (A player was renamed or a game was played)
+     * The cells redraw their games without the items being rebuilt
+     */
+    public void gamesUpdated()
+    {
+        if(round.isEmpty())
+            return;
+        beginChange();
+        for(int i = 0; i < round.size(); i++)
+        {
+            nextUpdate(i);
+        }
+        endChange();
+    }
+}
@@ -1,5 +1,6 @@
 package app;
 
+import controllers.MainController;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -14,6 +15,8 @@ import javafx.scene.image.Image;
  */
 public class App extends Application 
 {
+    private MainController controller; // The controller of the main-view (Flushes the tournament to disk on exit)
+
     /**
      * Overide of the start method in scene builder
      * It is called when scene builder starts
@@ -25,6 +28,7 @@ public class App extends Application
     {
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/main-view.fxml") );
         Parent root = loader.load();
+        controller = loader.getController();
         Scene scene = new Scene(root);
         stage.setScene(scene);
         stage.setTitle("Tournament Manager");
@@ -35,6 +39,17 @@ public class App extends Application
         root.requestFocus();
     }
     
+    /**
+     * Overide of the stop method in javaFX
+     * It is called when the app closes, and waits for the tournament to be saved
+     */
+    @Override
+    public void stop()
+    {
+        if(controller != null)
+            controller.shutdown();
+    }
+
     /**
      * Standard java main function
      * Passes control to JavaFX by calling lanuch
@@ -2,20 +2,41 @@ package controllers;
 
 // Custom imports
 import data_classes.Player;
+import data_classes.Bracket;
 import data_classes.Game;
+import data_classes.CancellationToken;
+import data_classes.ResultJournal;
 import data_classes.Schedule;
 import data_classes.ScheduleBuilder;
+import data_classes.SchedulePortfolio;
+import data_classes.ScheduleTemplateCache;
+import data_classes.ScheduleBuildException;
+import data_classes.ScheduleRepairer;
+import data_classes.SwissPairer;
+import data_classes.TournamentExporter;
+import data_classes.TournamentFile;
 import utilities.MainControllerUtilities;
 import utilities.DragDropUtilities;
 import utilities.DynamicColouringUtilities;
+import utilities.ScheduleRoundList;
 
 // Java imports
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 // Javafx imports
 import javafx.fxml.FXML;
@@ -25,6 +46,7 @@ import javafx.scene.control.Pagination;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Button;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TableColumn;
@@ -39,10 +61,13 @@ import javafx.scene.layout.Region;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.CornerRadii;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.scene.paint.Color;
+import javafx.stage.FileChooser;
 
 /**
  * This is the main controller class for the main-view fxml file
@@ -52,6 +77,16 @@ import javafx.scene.paint.Color;
  */
 public class MainController 
 {
+    private static final long TEMPLATE_IMPROVEMENT_MILLIS = 5000; // Budget of each background template improvement
+    private static final long PORTFOLIO_MILLIS = 1000;            // How long the strategies race before the fairest schedule is kept
+    private static final int STREAMING_MIN_PLAYERS = 200;         // Rosters this large stream their schedule a chunk at a time
+    private static final Path TOURNAMENT_FILE = Path.of(          // Where the tournament is saved so it outlives the app
+        System.getProperty("user.home"), ".tournament-master", "tournament.tmf");
+    private static final Path JOURNAL_FILE = Path.of(             // Results since the tournament was last saved
+        System.getProperty("user.home"), ".tournament-master", "results.journal");
+    private static final int SNAPSHOT_INTERVAL = 50;              // The most results journaled before the tournament is saved again
+    private static final long SHUTDOWN_SAVE_MILLIS = 5000;        // The longest the app waits on exit for the last save to reach the disk
+
     // UI objects
     @FXML private StackPane root;
     @FXML private Spinner<Integer> gamesEachSpinner;
@@ -65,10 +100,14 @@ public class MainController
     @FXML private ToggleButton hideScheduleToggle;
     @FXML private HBox roundsHBox;
     @FXML private ToggleButton editScheduleToggle;
+    @FXML private ChoiceBox<TournamentFormat> formatChoiceBox;
     @FXML private Button generateScheduleButton;
     @FXML private Button startEndTournamentButton;
     @FXML private Label numGamesRemainingLabel;
     @FXML private HBox scheduleConfigHBox;
+    @FXML private HBox tablesHBox;
+    @FXML private Spinner<Integer> tablesSpinner;
+    @FXML private HBox generateProgressHBox;
     @FXML private Button addPlayerButton;
     @FXML private TableView<Player> playersTableView;
     @FXML private TableColumn<Player, String> nameColumn;
@@ -85,15 +124,27 @@ public class MainController
     @FXML private Spinner<Integer> player2Spinner;
     @FXML private Button endGameButton;
     @FXML private TextField scoreToWinTextField;
+    @FXML private Label slotLabel;
 
     // Data objects
     private ArrayList<Player> players = new ArrayList<>();
     private Schedule schedule; 
+    private ScheduleRoundList scheduleRoundList = new ScheduleRoundList(); // The round shown in the schedule list view (Backed by the schedule)
     private Player selectedPlayer; 
     private Queue<Color> cachedColours = new ArrayDeque<>();
     private Game currentGame;
     private Player playerA;
     private Player playerB;
+    private Task<Schedule> scheduleTask;                  // The schedule build in flight (null if there is none)
+    private CancellationToken scheduleCancellationToken;  // Cancels the schedule build in flight
+    private ExecutorService scheduleExecutor = Executors.newVirtualThreadPerTaskExecutor(); // Runs schedule builds off the FX thread
+    private CancellationToken templateImprovementToken;   // Cancels the template improvement in flight (null if there is none)
+    private SwissPairer swissPairer;                      // Pairs the next round of a Swiss tournament (null if the schedule is not Swiss)
+    private Bracket bracket;                              // Hands out the games of an elimination tournament (null if the schedule is not a bracket)
+    private ResultJournal resultJournal;                  // Journals each result until the tournament is next saved (null if it cannot be opened)
+    private CompletableFuture<Void> persistence = CompletableFuture.completedFuture(null); // Every save and journaled result, written one at a time in the order they were made
+    private ScheduleTemplateCache templateCache = new ScheduleTemplateCache(   // Fairest schedule found so far for each roster size and games each
+        Path.of(System.getProperty("user.home"), ".tournament-master", "templates"), 32);
 
     // Primatives
     private AtomicBoolean dragDropEnabled = new AtomicBoolean(false);
@@ -101,9 +152,40 @@ public class MainController
     private AtomicInteger numGamesInFullRound = new AtomicInteger(0);
     private BooleanProperty tournamentIsActive = new SimpleBooleanProperty(false);
     private int numGamesRemaining = 0;
+    private int scheduledNumGamesEach = 0; // The number of games each player plays in the displayed schedule
+    private int numSwissRounds = 0;        // The number of rounds in the Swiss tournament
     private int numColoursGenerated;
+    private boolean unsavedChanges = false;   // True if the tournament has changed since the last snapshot was taken
+    private boolean saveQueued = false;       // True while a snapshot is waiting to be written (Later saves wait for it, so saves coalesce)
+    private boolean saveFailed = false;       // True if the last save failed (So the user is only alerted once)
+    private boolean scheduleDeferred = false; // True if the last snapshot left out a schedule that was still streaming
+    private int numResultsJournaled = 0;      // The number of results journaled since the last snapshot
     private int scoreToWin;
 
+    /**
+     * The formats a tournament can be played in
+     */
+    private enum TournamentFormat
+    {
+        ROUND_ROBIN("Round Robin"),
+        SWISS("Swiss"),
+        SINGLE_ELIMINATION("Single Elim"),
+        DOUBLE_ELIMINATION("Double Elim");
+
+        private final String label;
+
+        TournamentFormat(String label)
+        {
+            this.label = label;
+        }
+
+        @Override
+        public String toString()
+        {
+            return label;
+        }
+    }
+
     /**
      * This is the initialize functiton for the main controller
      * JavaFX calls it when the main-view loads
@@ -118,7 +200,12 @@ public class MainController
         player1Spinner.setDisable(true);
         player2Spinner.setDisable(true);
         root.setFocusTraversable(true);
+        formatChoiceBox.getItems().setAll(TournamentFormat.values());
+        formatChoiceBox.setValue(TournamentFormat.ROUND_ROBIN);
         MainControllerUtilities.configurePlayerSpinners(player1Spinner, player2Spinner);
+        // The number of tables is part of the schedule config, so it is locked with it
+        MainControllerUtilities.configureTablesSpinner(tablesSpinner);
+        tablesHBox.disableProperty().bind(scheduleConfigHBox.disableProperty());
         // Configures the behaviour of the ganes each spinner
         MainControllerUtilities.configureGamesEachSpinner( 
             gamesEachSpinner, 
@@ -134,6 +221,7 @@ public class MainController
         );
         // Configures the dynamic behaviour of the schedule list view
         MainControllerUtilities.configureScheduleListView(scheduleListView, root, editScheduleToggle);
+        scheduleListView.setItems(scheduleRoundList);
         rightVBox.heightProperty().addListener((obs, o, n) -> 
             MainControllerUtilities.resizeSchedule(scheduleListView, rightVBox, rightTopVBox, roundsPagination, paginationVSpacer));
         rightTopVBox.heightProperty().addListener((obs, o, n) -> 
@@ -170,6 +258,16 @@ public class MainController
             }
             scoreToWin = Integer.parseInt(newText);
         });
+        // Picks up the tournament where it was left
+        try
+        {
+            resultJournal = new ResultJournal(JOURNAL_FILE);
+        }
+        catch(IOException e)
+        {
+            resultJournal = null;
+        }
+        restoreTournament();
     }
 
 
@@ -185,11 +283,33 @@ public class MainController
     @FXML
     private void generateSchedule(ActionEvent e)
     {
+        // Drops the build in flight (Its result would be stale) and the template improvement (So it does not slow the new build down)
+        cancelScheduleTask();
+        cancelTemplateImprovement();
         int numGamesEach = gamesEachSpinner.getValue();
+        int numTables = tablesSpinner.getValue();
+        switch(formatChoiceBox.getValue())
+        {
+            // Swiss tournaments pair one round at a time from the standings (Games each is the number of rounds)
+            case SWISS:
+                generateSwissSchedule(numGamesEach);
+                return;
+            // Elimination tournaments hand out games as the bracket advances
+            case SINGLE_ELIMINATION:
+                generateBracketSchedule(false);
+                return;
+            case DOUBLE_ELIMINATION:
+                generateBracketSchedule(true);
+                return;
+            default:
+                break;
+        }
         if(numGamesEach % 2 == 1 && players.size() % 2 == 1)
         {
+            swissPairer = null;
+            bracket = null;
+            scheduleRoundList.clearRound();
             if (schedule != null) schedule.clear();
-            scheduleListView.getItems().clear();
             generateScheduleButton.setText("Generate");
             numGamesRemaining = 0;
             numGamesRemainingLabel.setText(Integer.toString(numGamesRemaining));
@@ -201,31 +321,90 @@ public class MainController
                 "If the number of players is odd, then each player must play an even number of games. Please select an even number of games each").showAndWait();
             return;
         }
-        generateScheduleButton.setText("Regenerate");
-        roundsPagination.setCurrentPageIndex(0);
-        ScheduleBuilder sb = new ScheduleBuilder(players, numGamesEach);
-        schedule = sb.build(); 
-        numGamesInFullRound.set(schedule.getNumGamesInFullRound());
-        displayRound();  
-        MainControllerUtilities.resizeSchedule(scheduleListView, rightVBox, rightTopVBox, roundsPagination, paginationVSpacer);
-        numGamesRemaining = (players.size() * numGamesEach) / 2;
-        numGamesRemainingLabel.setText(Integer.toString(numGamesRemaining));
-        roundsPagination.setPageCount(schedule.getNumRounds());
-        startEndTournamentButton.setDisable(false);
-        if(hideScheduleToggle.isSelected())
-        {
-            int numGamesTotal = (players.size() * numGamesEach) / 2;
-            int numRounds = schedule.getNumRounds();
+        // Builds the schedule on a background thread with a copy of the roster
+        ArrayList<Player> roster = new ArrayList<>(players);
+        CancellationToken cancellationToken = new CancellationToken();
+        Task<Schedule> task = new Task<>() {
+            @Override
+            protected Schedule call()
+            {
+                // Templates and streaming schedules are played one game at a time, so several tables always go to the portfolio
+                if(numTables == 1)
+                {
+                    // Relabels the cached template for this roster size if there is one
+                    Schedule templateSchedule = templateCache.build(roster, numGamesEach);
+                    if(templateSchedule != null)
+                        return templateSchedule;
+                    // Large rosters only schedule the first chunk of games up front
+                    if(roster.size() >= STREAMING_MIN_PLAYERS)
+                        return new ScheduleBuilder(roster, numGamesEach)
+                            .setCancellationToken(cancellationToken)
+                            .buildStreaming();
+                }
+                // Races several strategies so no single slow search holds up the build
+                SchedulePortfolio sp = new SchedulePortfolio(roster, numGamesEach)
+                    .setNumTables(numTables)
+                    .setTimeBudget(PORTFOLIO_MILLIS)
+                    .setCancellationToken(cancellationToken);
+                Schedule builtSchedule = sp.build();
+                if(numTables == 1)
+                    templateCache.offer(roster, numGamesEach, builtSchedule);
+                return builtSchedule;
+            }
+        };
+        // Results are only used if the task is still the latest build
+        task.setOnSucceeded(event -> {
+            if(task != scheduleTask)
+                return;
+            finishScheduleTask();
+            swissPairer = null;
+            bracket = null;
+            displayNewSchedule(task.getValue(), numGamesEach);
+            if(numTables == 1 && roster.size() < STREAMING_MIN_PLAYERS)
+                improveTemplate(roster, numGamesEach);
+        });
+        task.setOnFailed(event -> {
+            if(task != scheduleTask)
+                return;
+            finishScheduleTask();
             MainControllerUtilities.createBasicAlert(
-                Alert.AlertType.INFORMATION, "Success", 
-                "Schedule Generated Successfully!", 
-                "Games Each: " + numGamesEach + "\n" + 
-                "Games Total: " + numGamesTotal + "\n" + 
-                "Rounds Needed: " + numRounds + "\n").showAndWait();
-            return;    
-        }
+                Alert.AlertType.ERROR, "Error", 
+                "Unable to generate schedule", 
+                task.getException().getMessage()).showAndWait();
+        });
+        scheduleTask = task;
+        scheduleCancellationToken = cancellationToken;
+        startEndTournamentButton.setDisable(true);
+        generateProgressHBox.setManaged(true);
+        generateProgressHBox.setVisible(true);
+        scheduleExecutor.execute(task);
     }  
 
+    /**
+     * This function regenerates the schedule in the newly selected format when the user picks a format
+     * Elimination brackets decide the number of games themselves, so the games each spinner is disabled for them
+     * @param e The action-event that triggered the handler
+     */
+    @FXML
+    private void changeFormat(ActionEvent e)
+    {
+        TournamentFormat format = formatChoiceBox.getValue();
+        boolean elimination = format == TournamentFormat.SINGLE_ELIMINATION || format == TournamentFormat.DOUBLE_ELIMINATION;
+        gamesEachSpinner.setDisable(elimination || players.size() < 2);
+        if(schedule != null && !schedule.isEmpty())
+            generateSchedule(e);
+    }
+
+    /**
+     * This function cancels the schedule build in flight when the user clicks the cancel button
+     * @param e The action-event that triggered the handler
+     */
+    @FXML
+    private void cancelGenerateSchedule(ActionEvent e)
+    {
+        cancelScheduleTask();
+    }
+
     /**
      * This function hides or shows the schedule when the user clicks the toggle schedule button
      * @param e The action-event that triggered the handler
@@ -283,6 +462,7 @@ public class MainController
     @FXML
     private void addPlayer(ActionEvent e)
     {
+        cancelScheduleTask();
         playersTableView.setVisible(true);
         statsLabel.setVisible(true);
         String name = "Player " + (players.size()+1);
@@ -298,14 +478,33 @@ public class MainController
         Player newPlayer = new Player(name, colour);
         players.add(newPlayer);
         playersTableView.getItems().add(newPlayer); 
+        // Repairs the schedule to include the new player (It is left as it is if the new player cannot fit in)
+        if(schedule != null && !schedule.isEmpty() && scheduleIsRepairable())
+        {
+            try
+            {
+                int oldNumGames = schedule.getNumGames();
+                // The repair can change every round, so the round is cleared while its view still holds what is shown
+                scheduleRoundList.clearRound();
+                new ScheduleRepairer(schedule, players).addPlayer(newPlayer, scheduledNumGamesEach);
+                displayRepairedSchedule(oldNumGames);
+            }
+            catch(ScheduleBuildException ex)
+            {
+                // The new player is left out of the current schedule
+                displayRound();
+            }
+        }
         MainControllerUtilities.resizePlayersTable(playersTableView, rightVBox, rightTopVBox); 
         if(players.size() >= 2)
         {
             gamesEachSpinner.getValueFactory().setValue(players.size()-1);
             gamesEachSpinner.getEditor().setText(String.valueOf(players.size()-1));
-            gamesEachSpinner.setDisable(false);
+            gamesEachSpinner.setDisable(formatChoiceBox.getValue() == TournamentFormat.SINGLE_ELIMINATION
+                || formatChoiceBox.getValue() == TournamentFormat.DOUBLE_ELIMINATION);
             generateScheduleButton.setDisable(false);
         }
+        saveTournament();
     }
 
     /**
@@ -317,16 +516,27 @@ public class MainController
     @FXML
     private void removePlayer(ActionEvent e)
     {
+        cancelScheduleTask();
         players.remove(selectedPlayer);
         cachedColours.offer(selectedPlayer.getColour());
         playersTableView.getItems().setAll(players);
         MainControllerUtilities.resizePlayersTable(playersTableView, rightVBox, rightTopVBox);
         gamesEachSpinner.getValueFactory().setValue(players.size()-1);
         gamesEachSpinner.getEditor().setText(String.valueOf(players.size()-1));
-        if(schedule != null && !schedule.isEmpty())
+        // Repairs the schedule without the removed player (It is cleared if there are not enough players left)
+        if(schedule != null && !schedule.isEmpty() && players.size() >= 2 && scheduleIsRepairable())
+        {
+            int oldNumGames = schedule.getNumGames();
+            scheduleRoundList.clearRound();
+            new ScheduleRepairer(schedule, players).removePlayer(selectedPlayer);
+            displayRepairedSchedule(oldNumGames);
+        }
+        else if(schedule != null && !schedule.isEmpty())
         {
+            swissPairer = null;
+            bracket = null;
+            scheduleRoundList.clearRound();
             schedule.clear();
-            scheduleListView.getItems().clear();
             generateScheduleButton.setText("Generate");
             numGamesRemaining = 0;
             numGamesRemainingLabel.setText(Integer.toString(numGamesRemaining));
@@ -339,6 +549,7 @@ public class MainController
             generateScheduleButton.setDisable(true);
             gamesEachSpinner.getEditor().clear();
         }
+        saveTournament();
     }
 
     /**
@@ -352,10 +563,12 @@ public class MainController
         Player player = e.getRowValue();
         player.setName(e.getNewValue());
         playersTableView.refresh();
-        if(schedule == null || schedule.isEmpty())
-            return;
-        schedule.updatePlayerName(player);
-        displayRound();
+        if(schedule != null && !schedule.isEmpty())
+        {
+            schedule.updatePlayerName(player);
+            scheduleRoundList.gamesUpdated();
+        }
+        saveTournament();
     }
 
 
@@ -399,12 +612,19 @@ public class MainController
         playersTableView.getItems().setAll(players);
         playersTableView.refresh();
 
-        schedule.markGamePlayed(currentGameIndex.get());
-        scheduleListView.refresh();
+        schedule.markGamePlayed(currentGameIndex.get(), player1Score, player2Score);
+        scheduleRoundList.gamesUpdated();
+        recordResult(currentGameIndex.get(), player1Score, player2Score);
+
+        // Advances the bracket and adds any games that became ready
+        if(bracket != null)
+            advanceBracket((player1Score > player2Score) ? playerA : playerB);
 
         // Pulls next game
         currentGameIndex.set(currentGameIndex.get() + 1);
         currentGame = schedule.getGame(currentGameIndex.get());
+        if(currentGame == null && swissPairer != null && swissPairer.getNumRoundsPaired() < numSwissRounds)
+            currentGame = pairNextSwissRound();
         if(currentGame == null)
         {
             clearScoreboard();
@@ -414,19 +634,549 @@ public class MainController
     }
 
 
+    /**
+     * This function is called when the user presses the export button
+     * It exports the schedule and results, the standings, or both to a file chosen by the user (See TournamentExporter)
+     * @param e The action-event that triggered the handler
+     */
+    @FXML
+    private void exportTournament(ActionEvent e)
+    {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Tournament");
+        FileChooser.ExtensionFilter scheduleFilter = new FileChooser.ExtensionFilter("Schedule and Results (CSV)", "*.csv");
+        FileChooser.ExtensionFilter standingsFilter = new FileChooser.ExtensionFilter("Standings (CSV)", "*.csv");
+        FileChooser.ExtensionFilter jsonFilter = new FileChooser.ExtensionFilter("Schedule, Results and Standings (JSON)", "*.json");
+        fileChooser.getExtensionFilters().addAll(scheduleFilter, standingsFilter, jsonFilter);
+        File file = fileChooser.showSaveDialog(root.getScene().getWindow());
+        if(file == null)
+            return;
+        TournamentExporter.Format format = TournamentExporter.Format.SCHEDULE_CSV;
+        if(fileChooser.getSelectedExtensionFilter() == standingsFilter)
+            format = TournamentExporter.Format.STANDINGS_CSV;
+        else if(fileChooser.getSelectedExtensionFilter() == jsonFilter)
+            format = TournamentExporter.Format.JSON;
+        try
+        {
+            TournamentExporter.export(file.toPath(), format, players, schedule);
+        }
+        catch(IOException ex)
+        {
+            MainControllerUtilities.createBasicAlert(
+                Alert.AlertType.ERROR, "Error", 
+                "Unable to export tournament", 
+                ex.getMessage()).showAndWait();
+        }
+    }
+
+
     // ===========================================================================================================================================
     // Internal controller methods
     // ===========================================================================================================================================
     
 
+    /**
+     * This function displays a newly generated schedule
+     * @param newSchedule The generated schedule
+     * @param numGamesEach The number of games each player plays in the schedule
+     */
+    private void displayNewSchedule(Schedule newSchedule, int numGamesEach)
+    {
+        schedule = newSchedule;
+        scheduledNumGamesEach = numGamesEach;
+        generateScheduleButton.setText("Regenerate");
+        roundsPagination.setCurrentPageIndex(0);
+        numGamesInFullRound.set(schedule.getNumGamesInFullRound());
+        displayRound();  
+        MainControllerUtilities.resizeSchedule(scheduleListView, rightVBox, rightTopVBox, roundsPagination, paginationVSpacer);
+        numGamesRemaining = numGamesTotal(numGamesEach);
+        numGamesRemainingLabel.setText(Integer.toString(numGamesRemaining));
+        roundsPagination.setPageCount(schedule.getNumRounds());
+        startEndTournamentButton.setDisable(false);
+        saveTournament();
+        if(hideScheduleToggle.isSelected())
+        {
+            int numRounds = (swissPairer != null) ? numSwissRounds : schedule.getNumRounds();
+            String details = (bracket != null) 
+                ? "Format: " + formatChoiceBox.getValue() + "\n" + 
+                  "Games Total: " + numGamesTotal(numGamesEach) + "\n"
+                : "Games Each: " + numGamesEach + "\n" + 
+                  "Games Total: " + numGamesTotal(numGamesEach) + "\n" + 
+                  "Rounds Needed: " + numRounds + "\n";
+            MainControllerUtilities.createBasicAlert(
+                Alert.AlertType.INFORMATION, "Success", 
+                "Schedule Generated Successfully!", 
+                details).showAndWait();
+        }
+    }
+
+    /**
+     * This function starts a Swiss schedule by pairing its first round
+     * Later rounds are paired from the standings as each round finishes (See pairNextSwissRound)
+     * @param numRounds The number of rounds in the Swiss tournament
+     */
+    private void generateSwissSchedule(int numRounds)
+    {
+        try
+        {
+            SwissPairer pairer = new SwissPairer(players);
+            ArrayList<Game> firstRound = pairer.pairNextRound();
+            swissPairer = pairer;
+            numSwissRounds = numRounds;
+            displayNewSchedule(new Schedule(firstRound, pairer.getNumGamesInRound()), numRounds);
+            showSwissBye();
+        }
+        catch(ScheduleBuildException ex)
+        {
+            MainControllerUtilities.createBasicAlert(
+                Alert.AlertType.ERROR, "Error", 
+                "Unable to generate schedule", 
+                ex.getMessage()).showAndWait();
+        }
+    }
+
+    /**
+     * This function pairs the next round of a Swiss tournament from the current standings and adds it to the schedule
+     * @return The first game of the new round (null if the round could not be paired)
+     */
+    private Game pairNextSwissRound()
+    {
+        int firstGameIndex = schedule.getNumGames();
+        try
+        {
+            schedule.appendGames(swissPairer.pairNextRound());
+        }
+        catch(ScheduleBuildException ex)
+        {
+            numGamesRemaining = 0;
+            numGamesRemainingLabel.setText(Integer.toString(numGamesRemaining));
+            MainControllerUtilities.createBasicAlert(
+                Alert.AlertType.WARNING, "Warning", 
+                "Unable to pair the next round", 
+                ex.getMessage()).showAndWait();
+            return null;
+        }
+        roundsPagination.setPageCount(schedule.getNumRounds());
+        // Shows the new round if the page changed, otherwise adds its games to the round being shown
+        roundsPagination.setCurrentPageIndex(schedule.getNumRounds() - 1);
+        scheduleRoundList.gamesAppended();
+        saveTournament();
+        showSwissBye();
+        return schedule.getGame(firstGameIndex);
+    }
+
+    /**
+     * This function tells the user which player has a bye in the Swiss round just paired (If there is one)
+     */
+    private void showSwissBye()
+    {
+        if(swissPairer.getBye() == null)
+            return;
+        MainControllerUtilities.createBasicAlert(
+            Alert.AlertType.INFORMATION, "Bye", 
+            "Round " + swissPairer.getNumRoundsPaired(), 
+            swissPairer.getBye().getName() + " has a bye this round").showAndWait();
+    }
+
+    /**
+     * This function starts an elimination schedule with the first games of a bracket seeded from the current standings
+     * Later games are added as the bracket advances (See advanceBracket)
+     * @param doubleElimination True for a double elimination bracket, false for single elimination
+     */
+    private void generateBracketSchedule(boolean doubleElimination)
+    {
+        try
+        {
+            Bracket newBracket = new Bracket(players, doubleElimination);
+            ArrayList<Game> firstGames = newBracket.takeReadyGames();
+            swissPairer = null;
+            bracket = newBracket;
+            displayNewSchedule(new Schedule(firstGames, Math.max(1, players.size() / 2)), 0);
+        }
+        catch(ScheduleBuildException ex)
+        {
+            MainControllerUtilities.createBasicAlert(
+                Alert.AlertType.ERROR, "Error", 
+                "Unable to generate schedule", 
+                ex.getMessage()).showAndWait();
+        }
+    }
+
+    /**
+     * This function records the result of the current game in the bracket and adds the games that became ready to the schedule
+     * @param winner The player who won the current game
+     */
+    private void advanceBracket(Player winner)
+    {
+        bracket.recordResult(currentGame, winner);
+        ArrayList<Game> readyGames = bracket.takeReadyGames();
+        if(!readyGames.isEmpty())
+        {
+            schedule.appendGames(readyGames);
+            roundsPagination.setPageCount(schedule.getNumRounds());
+            scheduleRoundList.gamesAppended();
+            saveTournament();
+        }
+        numGamesRemaining = bracket.getNumGamesRemaining();
+        numGamesRemainingLabel.setText(Integer.toString(numGamesRemaining));
+        if(bracket.isFinished())
+        {
+            MainControllerUtilities.createBasicAlert(
+                Alert.AlertType.INFORMATION, "Champion", 
+                "Tournament Finished", 
+                bracket.getChampion().getName() + " has won the tournament").showAndWait();
+        }
+    }
+
+    /**
+     * This function gets the total number of games in a newly generated schedule
+     * @param numGamesEach The number of games each player plays in the schedule (The number of rounds for Swiss)
+     * @return The number of games in the schedule once every round has been played
+     */
+    private int numGamesTotal(int numGamesEach)
+    {
+        if(bracket != null)
+            return bracket.getNumGamesRemaining();
+        if(swissPairer != null)
+            return numGamesEach * swissPairer.getNumGamesInRound();
+        return (players.size() * numGamesEach) / 2;
+    }
+
+    /**
+     * This function keeps improving the cached template for the roster size in the background
+     * The displayed schedule is not changed, but later schedules of the same size start from a fairer template
+     * Only one improvement runs at a time, so the improvement in flight is cancelled first
+     * @param roster The players the schedule was built for
+     * @param numGamesEach The number of games each player plays in the schedule
+     */
+    private void improveTemplate(ArrayList<Player> roster, int numGamesEach)
+    {
+        cancelTemplateImprovement();
+        CancellationToken cancellationToken = new CancellationToken();
+        templateImprovementToken = cancellationToken;
+        scheduleExecutor.execute(() -> {
+            try
+            {
+                templateCache.improve(roster, numGamesEach, TEMPLATE_IMPROVEMENT_MILLIS, cancellationToken);
+            }
+            catch(ScheduleBuildException ex)
+            {
+                // The template is left as it is
+            }
+        });
+    }
+
+    /**
+     * This function cancels the template improvement in flight (If there is one)
+     */
+    private void cancelTemplateImprovement()
+    {
+        if(templateImprovementToken == null)
+            return;
+        templateImprovementToken.cancel();
+        templateImprovementToken = null;
+    }
+
+    /**
+     * This function checks if the schedule can be repaired in place for a roster change
+     * Swiss rounds and elimination brackets are paired from the roster they started with, so only round robin schedules can be repaired
+     * @return True if the schedule can be repaired, false otherwise
+     */
+    private boolean scheduleIsRepairable()
+    {
+        return swissPairer == null && bracket == null;
+    }
+
+    /**
+     * This function displays the schedule after it has been repaired for a roster change
+     * @param oldNumGames The number of games in the schedule before the repair
+     */
+    private void displayRepairedSchedule(int oldNumGames)
+    {
+        numGamesRemaining += schedule.getNumGames() - oldNumGames;
+        numGamesRemainingLabel.setText(Integer.toString(numGamesRemaining));
+        numGamesInFullRound.set(schedule.getNumGamesInFullRound());
+        roundsPagination.setPageCount(schedule.getNumRounds());
+        if(roundsPagination.getCurrentPageIndex() >= schedule.getNumRounds())
+            roundsPagination.setCurrentPageIndex(schedule.getNumRounds() - 1);
+        displayRound();
+    }
+
+    /**
+     * This function saves the roster, the schedule and the results so they outlive the app (See TournamentFile)
+     * The save runs in the background, and saves asked for while one is waiting are coalesced into a single save once it is written
+     */
+    private void saveTournament()
+    {
+        unsavedChanges = true;
+        if(!saveQueued)
+            queueSave();
+    }
+
+    /**
+     * This function takes a snapshot of the tournament and queues it to be written in the background
+     * Taking the snapshot only encodes the tournament into memory, so the FX thread never waits on the disk
+     * A schedule that is still streaming would have to generate every round first, so only the roster is saved until it has finished
+     * Every journaled result is in the saved tournament, so the journal is truncated once the snapshot is written
+     */
+    private void queueSave()
+    {
+        boolean deferSchedule = schedule != null && schedule.isStreaming();
+        Schedule savedSchedule = (schedule != null && !schedule.isEmpty() && !deferSchedule) ? schedule : null;
+        TournamentFile.Snapshot snapshot = TournamentFile.snapshot(players, savedSchedule, scheduledNumGamesEach, 
+            (savedSchedule != null) ? swissPairer : null, (savedSchedule != null) ? bracket : null);
+        unsavedChanges = false;
+        saveQueued = true;
+        scheduleDeferred = deferSchedule;
+        numResultsJournaled = 0;
+        persistence = persistence.handleAsync((ignored, previousFailure) -> {
+            IOException failure = null;
+            try
+            {
+                snapshot.write(TOURNAMENT_FILE);
+            }
+            catch(IOException e)
+            {
+                failure = e;
+            }
+            if(failure == null && resultJournal != null)
+            {
+                try
+                {
+                    resultJournal.truncate();
+                }
+                catch(IOException e)
+                {
+                    // Replaying skips games that are already played, so the saved results are not applied twice
+                }
+            }
+            IOException saveFailure = failure;
+            Platform.runLater(() -> finishSave(saveFailure));
+            return null;
+        }, scheduleExecutor);
+    }
+
+    /**
+     * This function is called once a queued snapshot has been written (Or has failed)
+     * The user is alerted the first time a save fails, and the tournament is saved again if it changed while the snapshot was being written
+     * @param failure Why the snapshot could not be written (null if it was written)
+     */
+    private void finishSave(IOException failure)
+    {
+        saveQueued = false;
+        if(failure != null)
+        {
+            // Results can only be journaled against a saved schedule, so the next change saves everything again
+            unsavedChanges = true;
+            if(!saveFailed)
+            {
+                MainControllerUtilities.createBasicAlert(
+                    Alert.AlertType.ERROR, "Error", 
+                    "Unable to save tournament", 
+                    failure.getMessage()).showAndWait();
+            }
+            saveFailed = true;
+            return;
+        }
+        saveFailed = false;
+        if(unsavedChanges)
+            queueSave();
+    }
+
+    /**
+     * This function records the result of a game so it outlives the app
+     * The result is appended to the journal behind any save in flight, and the tournament is saved once the journal holds SNAPSHOT_INTERVAL results
+     * A result can only be journaled against the schedule in the last snapshot, so the tournament is saved instead if it has changed since
+     * Swiss pairings and brackets are rebuilt from the saved games after the journal is replayed, so their results are journaled the same way
+     * @param gameIndex The index of the game in the schedule
+     * @param scoreA The score of player A
+     * @param scoreB The score of player B
+     */
+    private void recordResult(int gameIndex, int scoreA, int scoreB)
+    {
+        if(resultJournal == null || unsavedChanges || scheduleDeferred)
+        {
+            saveTournament();
+            return;
+        }
+        numResultsJournaled++;
+        persistence = persistence.handleAsync((ignored, previousFailure) -> {
+            try
+            {
+                resultJournal.append(gameIndex, scoreA, scoreB);
+            }
+            catch(IOException e)
+            {
+                Platform.runLater(this::saveTournament);
+            }
+            return null;
+        }, scheduleExecutor);
+        if(numResultsJournaled >= SNAPSHOT_INTERVAL)
+            saveTournament();
+    }
+
+    /**
+     * This function flushes the tournament to disk when the app closes
+     * Any change that has not been saved yet is saved, and the app waits (Up to SHUTDOWN_SAVE_MILLIS) for every queued save and result to be written
+     */
+    public void shutdown()
+    {
+        cancelScheduleTask();
+        cancelTemplateImprovement();
+        // The FX thread is blocked from here on, so a save waiting on finishSave is queued straight away
+        if(unsavedChanges)
+            queueSave();
+        try
+        {
+            persistence.get(SHUTDOWN_SAVE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        catch(InterruptedException | ExecutionException | TimeoutException e)
+        {
+            // Whatever did not reach the disk is lost
+        }
+        if(resultJournal == null)
+            return;
+        try
+        {
+            resultJournal.close();
+        }
+        catch(IOException e)
+        {
+            // The journal keeps the results that were synced
+        }
+    }
+
+    /**
+     * This function loads the tournament saved when the app was last used (If there is one)
+     * The results journaled after the save are replayed, and a schedule with played games resumes the tournament at its first unplayed game
+     * Swiss and elimination tournaments pick up with their pairer or bracket, so later rounds follow on from the saved ones
+     * A saved tournament that cannot be loaded is ignored, and the app starts with an empty tournament
+     */
+    private void restoreTournament()
+    {
+        if(!Files.isRegularFile(TOURNAMENT_FILE))
+            return;
+        TournamentFile savedTournament;
+        try
+        {
+            savedTournament = TournamentFile.load(TOURNAMENT_FILE);
+        }
+        catch(IOException e)
+        {
+            return;
+        }
+        Schedule savedSchedule = savedTournament.getSchedule();
+        // Applies the results journaled since the tournament was saved (It is saved again once it is displayed, which truncates the journal)
+        if(resultJournal != null && savedSchedule != null)
+        {
+            try
+            {
+                resultJournal.replay(savedSchedule);
+            }
+            catch(IOException e)
+            {
+                // Only the saved results are restored
+            }
+        }
+        // The bracket is rebuilt from the replayed results (A bracket that does not fit its games drops the schedule)
+        Bracket savedBracket = null;
+        try
+        {
+            savedBracket = savedTournament.getBracket();
+        }
+        catch(IOException e)
+        {
+            savedSchedule = null;
+        }
+        if(savedTournament.getPlayers().isEmpty())
+            return;
+        players.addAll(savedTournament.getPlayers());
+        players.sort(null);
+        numColoursGenerated = players.size();
+        playersTableView.getItems().setAll(players);
+        playersTableView.setVisible(true);
+        statsLabel.setVisible(true);
+        MainControllerUtilities.resizePlayersTable(playersTableView, rightVBox, rightTopVBox);
+        if(players.size() >= 2)
+        {
+            int numGamesEach = (savedSchedule != null && savedTournament.getNumGamesEach() > 0) ? savedTournament.getNumGamesEach() : players.size()-1;
+            gamesEachSpinner.getValueFactory().setValue(numGamesEach);
+            gamesEachSpinner.getEditor().setText(String.valueOf(numGamesEach));
+            gamesEachSpinner.setDisable(false);
+            generateScheduleButton.setDisable(false);
+        }
+
+        if(savedSchedule == null || savedSchedule.isEmpty())
+            return;
+        tablesSpinner.getValueFactory().setValue(savedSchedule.getNumTables());
+        // The format is picked before the schedule is shown, so picking it does not regenerate the schedule
+        swissPairer = savedTournament.getSwissPairer();
+        bracket = savedBracket;
+        if(swissPairer != null)
+        {
+            numSwissRounds = savedTournament.getNumGamesEach();
+            formatChoiceBox.setValue(TournamentFormat.SWISS);
+        }
+        else if(bracket != null)
+        {
+            formatChoiceBox.setValue(bracket.isDoubleElimination() ? TournamentFormat.DOUBLE_ELIMINATION : TournamentFormat.SINGLE_ELIMINATION);
+            // Games the bracket made ready after the last save follow on from the saved games
+            ArrayList<Game> readyGames = bracket.takeReadyGames();
+            if(!readyGames.isEmpty())
+                savedSchedule.appendGames(readyGames);
+        }
+        displayNewSchedule(savedSchedule, savedTournament.getNumGamesEach());
+        int numGamesPlayed = schedule.getNumGames() - schedule.getNumGamesUnplayed();
+        if(bracket != null)
+            numGamesRemaining = bracket.getNumGamesRemaining();
+        else if(swissPairer != null)
+            numGamesRemaining = numSwissRounds * swissPairer.getNumGamesInRound() - numGamesPlayed;
+        else
+            numGamesRemaining = schedule.getNumGamesUnplayed();
+        numGamesRemainingLabel.setText(Integer.toString(numGamesRemaining));
+        if(numGamesPlayed == 0)
+            return;
+        // A Swiss round that was finished before the app closed is followed by the next round
+        if(swissPairer != null && schedule.getNumGamesUnplayed() == 0 && swissPairer.getNumRoundsPaired() < numSwissRounds)
+            pairNextSwissRound();
+        int firstUnplayedIndex = schedule.getFirstUnplayedIndex();
+        currentGameIndex.set(firstUnplayedIndex);
+        roundsPagination.setCurrentPageIndex(Math.min(firstUnplayedIndex / schedule.getNumGamesInFullRound(), schedule.getNumRounds() - 1));
+        startTournament();
+    }
+
+    /**
+     * This function cancels the schedule build in flight (If there is one)
+     * Its result is dropped even if the build finishes before it notices the cancellation
+     */
+    private void cancelScheduleTask()
+    {
+        if(scheduleTask == null)
+            return;
+        scheduleCancellationToken.cancel();
+        scheduleTask.cancel();
+        finishScheduleTask();
+    }
+
+    /**
+     * This function hides the build progress once the schedule build in flight is finished or cancelled
+     */
+    private void finishScheduleTask()
+    {
+        scheduleTask = null;
+        scheduleCancellationToken = null;
+        generateProgressHBox.setVisible(false);
+        generateProgressHBox.setManaged(false);
+        startEndTournamentButton.setDisable(schedule == null || schedule.isEmpty());
+    }
+
     /**
      * This function displays a single round to the screen 
      */
     private void displayRound()
     {
         int roundIndex = roundsPagination.getCurrentPageIndex();
-        ArrayList<Game> gamesInRound = schedule.getGamesInRound(roundIndex);
-        scheduleListView.getItems().setAll(gamesInRound);
+        scheduleRoundList.showRound(schedule.getRoundView(roundIndex));
     }
 
      /**
@@ -437,12 +1187,19 @@ public class MainController
     private void reorderGame(int oldIndex, int newIndex)
     {
         schedule.changeGameIndex(oldIndex, newIndex);
-        displayRound();
+        // Both indices are in the round being shown (The new index is where the game is dropped, before the game is taken out)
+        int roundStartIndex = roundsPagination.getCurrentPageIndex() * schedule.getNumGamesInFullRound();
+        int finalIndex = (newIndex > oldIndex) ? newIndex - 1 : newIndex;
+        scheduleRoundList.gameMoved(oldIndex - roundStartIndex, finalIndex - roundStartIndex);
+        saveTournament();
         if(oldIndex == currentGameIndex.get() || newIndex == currentGameIndex.get())
         {
             currentGame = schedule.getGame(currentGameIndex.get());  
             loadCurrentGame();  
         }
+        // The slots are repacked after the move, which can change the tables of the current game's slot
+        else if(tournamentIsActive.get() && currentGame != null)
+            displaySlot();
     }
 
     /**
@@ -458,8 +1215,13 @@ public class MainController
         player1Spinner.setDisable(false);
         player2Spinner.setDisable(false);
 
-        // Pulls first game
-        currentGame = schedule.getGame(0);
+        // Pulls first game (Or the next game of a restored tournament)
+        currentGame = schedule.getGame(currentGameIndex.get());
+        if(currentGame == null)
+        {
+            clearScoreboard();
+            return;
+        }
         loadCurrentGame();
     }
 
@@ -500,8 +1262,10 @@ public class MainController
         clearScoreboard();
         startEndTournamentButton.setText("Start Tournament");
         currentGameIndex.set(0);
+        swissPairer = null;
+        bracket = null;
+        scheduleRoundList.clearRound();
         schedule.clear();
-        scheduleListView.getItems().clear();
         numGamesRemaining = 0;
         numGamesRemainingLabel.setText("0");
         generateScheduleButton.setText("Generate");
@@ -510,6 +1274,7 @@ public class MainController
         startEndTournamentButton.setDisable(true);
         roundsPagination.setPageCount(Pagination.INDETERMINATE);
         scoreToWinTextField.setDisable(false);
+        saveTournament();
     }
 
     /**
@@ -528,6 +1293,34 @@ public class MainController
         player2ScoreLabel.setBackground(b2);
         player1Spinner.getValueFactory().setValue(0);
         player2Spinner.getValueFactory().setValue(0);
+        displaySlot();
+    }
+
+    /**
+     * This function lists every table of the current game's time slot under the scoreboard
+     * The games of a slot are played at the same time, so the games on the other tables are shown alongside the one being scored
+     */
+    private void displaySlot()
+    {
+        if(schedule.getNumTables() == 1)
+        {
+            slotLabel.setText("");
+            return;
+        }
+        int slotIndex = schedule.getSlotOfGame(currentGameIndex.get());
+        int slotStartIndex = schedule.getSlotStartIndex(slotIndex);
+        ArrayList<Game> slotGames = schedule.getGamesInSlot(slotIndex);
+        StringBuilder text = new StringBuilder("Slot " + (slotIndex + 1) + " of " + schedule.getNumSlots());
+        for(int table = 0; table < slotGames.size(); table++)
+        {
+            Game game = slotGames.get(table);
+            text.append("\nTable ").append(table + 1).append(": ").append(game);
+            if(slotStartIndex + table == currentGameIndex.get())
+                text.append("  (Scoring)");
+            else if(game.getPlayed())
+                text.append("  (Finished)");
+        }
+        slotLabel.setText(text.toString());
     }
 
     /**
@@ -538,6 +1331,7 @@ public class MainController
     {
         player1ScoreLabel.setText("");
         player2ScoreLabel.setText("");
+        slotLabel.setText("");
         Background b = new Background(new BackgroundFill(Color.web("#243847"), CornerRadii.EMPTY, Insets.EMPTY));
         player1ScoreLabel.setBackground(b);
         player2ScoreLabel.setBackground(b);
@@ -0,0 +1,481 @@
+package data_classes;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * This class represents a single or double elimination bracket
+ * Entrants are seeded from the standings (See Player.compareTo) into a bracket the size of the next power of two, so the top seeds get the byes
+ * Seeds are placed so the top two seeds can only meet in the final, the top four in the semi-finals, and so on
+ * Every match is an index into flat arrays that hold its two entrants and where its winner and loser go next, all worked out when the bracket is built
+ * Recording a result moves the winner and loser straight to their next matches, so advancing and looking up the next match are O(1)
+ * A match against a bye (Or an entrant who never arrives) is resolved without a game, so only real games are ever handed out
+ * In a double elimination bracket the losers of the winners bracket drop into the losers bracket, and the grand final is replayed if the losers bracket champion wins it
+ * @author William Shaw
+ */
+public class Bracket
+{
+	private static final int UNKNOWN = -1; // Slot whose entrant has not been decided yet
+	private static final int EMPTY = -2;   // Slot that will never have an entrant (Bye)
+	private static final int NONE = -1;    // No next match (Eliminated or champion)
+
+	private Player[] entrants;           // Entrants in seed order (Entrant ids are indices into the array)
+	private boolean doubleElimination;   // True for a double elimination bracket, false for single elimination
+	private int bracketSize;             // The number of first round slots (The next power of two)
+	private int numWinnersRounds;        // The number of rounds in the winners bracket (log2 of the bracket size)
+	private int numLosersRounds;         // The number of rounds in the losers bracket (0 for single elimination)
+
+	// Matches (Winners bracket round by round, then the losers bracket round by round, then the grand final and its replay)
+	private int numMatches;              // The number of matches
+	private int[] entrantA;              // Entrant in slot A of each match (UNKNOWN or EMPTY if there is none yet)
+	private int[] entrantB;              // Entrant in slot B of each match (UNKNOWN or EMPTY if there is none yet)
+	private int[] winnerNext;            // The match the winner of each match goes to (NONE for the champion)
+	private boolean[] winnerNextSlotB;   // True if the winner goes to slot B of their next match
+	private int[] loserNext;             // The match the loser of each match goes to (NONE if they are eliminated)
+	private boolean[] loserNextSlotB;    // True if the loser goes to slot B of their next match
+	private int[] matchRound;            // The round of each match within its bracket
+	private int[] roundStarts;           // Where each round starts in the matches (Winners rounds, then losers rounds)
+	private int grandFinal = NONE;       // The grand final (NONE for single elimination)
+	private int grandFinalReplay = NONE; // The replay of the grand final if the losers bracket champion wins it (NONE for single elimination)
+
+	// Progress
+	private Game[] gameOfMatch;          // The game of each match once it has two entrants (null until then, or if it was a bye)
+	private IdentityHashMap<Game, Integer> matchOfGame = new IdentityHashMap<>(); // The match of each game that has not been played yet
+	private ArrayDeque<Game> readyGames = new ArrayDeque<>(); // Games that can be played, in the order they became ready
+	private int numGamesPlayed = 0;      // The number of games played
+	private boolean grandFinalReplayed = false; // True once the grand final replay has been given entrants
+	private int champion = UNKNOWN;      // The champion (UNKNOWN until the bracket is finished)
+
+	/**
+	 * Constructor
+	 * @param players List of all players in the tournament (Seeded by the current standings)
+	 * @param doubleElimination True for a double elimination bracket, false for single elimination
+	 */
+	public Bracket(ArrayList<Player> players, boolean doubleElimination)
+	{
+		this(seed(players), doubleElimination);
+	}
+
+	/**
+	 * Private constructor for entrants that are already in seed order
+	 * @param entrants Entrants in seed order
+	 * @param doubleElimination True for a double elimination bracket, false for single elimination
+	 */
+	private Bracket(Player[] entrants, boolean doubleElimination)
+	{
+		if(entrants.length < 2)
+			throw new ScheduleBuildException(ScheduleBuildException.Reason.INFEASIBLE, "Cannot build bracket: At least 2 players are needed");
+		this.doubleElimination = doubleElimination;
+		this.entrants = entrants;
+		bracketSize = Integer.highestOneBit(entrants.length - 1) << 1;
+		numWinnersRounds = Integer.numberOfTrailingZeros(bracketSize);
+		numLosersRounds = doubleElimination ? 2 * (numWinnersRounds - 1) : 0;
+		createMatches();
+		seedFirstRound();
+	}
+
+	/**
+	 * Rebuilds a bracket from the games it has handed out (For a tournament loaded from a file, see TournamentFile)
+	 * Each game is matched to the waiting match with the same two entrants and takes that match's place, and the result of every played game is recorded again
+	 * Games can be reordered once they are in the schedule, so the games are matched over several passes until every game has found its match
+	 * Games that became ready but are not in the list are left for takeReadyGames
+	 * @param entrants Entrants in seed order
+	 * @param doubleElimination True for a double elimination bracket, false for single elimination
+	 * @param games Every game the bracket has handed out (The winner of a played game is the player with the higher score)
+	 * @return The bracket
+	 * @throws IllegalArgumentException If a game does not fit the bracket
+	 */
+	static Bracket restore(List<Player> entrants, boolean doubleElimination, List<Game> games)
+	{
+		Bracket bracket = new Bracket(entrants.toArray(new Player[0]), doubleElimination);
+		ArrayList<Game> unmatched = new ArrayList<>(games);
+		while(!unmatched.isEmpty())
+		{
+			// An entrant is in at most one waiting match, so each waiting game is found by either of its players
+			IdentityHashMap<Player, Game> waitingGames = new IdentityHashMap<>();
+			for(Game waiting : bracket.matchOfGame.keySet())
+			{
+				waitingGames.put(waiting.getPlayerA(), waiting);
+				waitingGames.put(waiting.getPlayerB(), waiting);
+			}
+			ArrayList<Game> stillUnmatched = new ArrayList<>();
+			for(Game game : unmatched)
+			{
+				Game waiting = waitingGames.get(game.getPlayerA());
+				if(waiting == null || waiting != waitingGames.get(game.getPlayerB()) || !bracket.matchOfGame.containsKey(waiting))
+				{
+					stillUnmatched.add(game);
+					continue;
+				}
+				int match = bracket.matchOfGame.remove(waiting);
+				bracket.readyGames.removeIf(ready -> ready == waiting);
+				bracket.gameOfMatch[match] = game;
+				bracket.matchOfGame.put(game, match);
+				if(game.getPlayed())
+					bracket.recordResult(game, (game.getScoreA() > game.getScoreB()) ? game.getPlayerA() : game.getPlayerB());
+			}
+			if(stillUnmatched.size() == unmatched.size())
+				throw new IllegalArgumentException("Game " + stillUnmatched.get(0) + " does not fit the bracket");
+			unmatched = stillUnmatched;
+		}
+		return bracket;
+	}
+
+	/**
+	 * Checks if the bracket is double elimination
+	 * @return True for a double elimination bracket, false for single elimination
+	 */
+	public boolean isDoubleElimination()
+	{
+		return doubleElimination;
+	}
+
+	/**
+	 * Getter for the entrants (For saving the bracket, see TournamentFile)
+	 * @return List of entrants in seed order
+	 */
+	List<Player> getEntrants()
+	{
+		return Arrays.asList(entrants);
+	}
+
+	/**
+	 * Takes every game that has become ready to play since the last call
+	 * Games become ready once both of their entrants are known
+	 * @return List of ready games in the order they became ready
+	 */
+	public ArrayList<Game> takeReadyGames()
+	{
+		ArrayList<Game> games = new ArrayList<>(readyGames);
+		readyGames.clear();
+		return games;
+	}
+
+	/**
+	 * Records the result of a game and moves the winner and loser on to their next matches
+	 * @param game The game that was played
+	 * @param winner The player who won the game
+	 * @throws IllegalArgumentException If the game is not waiting for a result in this bracket, or the winner did not play in it
+	 */
+	public void recordResult(Game game, Player winner)
+	{
+		Integer match = matchOfGame.remove(game);
+		if(match == null)
+			throw new IllegalArgumentException("Game is not waiting for a result in this bracket");
+		int a = entrantA[match];
+		int b = entrantB[match];
+		if(entrants[a] != winner && entrants[b] != winner)
+		{
+			matchOfGame.put(game, match);
+			throw new IllegalArgumentException("Winner did not play in the game");
+		}
+		numGamesPlayed++;
+		int winnerId = (entrants[a] == winner) ? a : b;
+		int loserId = (winnerId == a) ? b : a;
+		// The losers bracket champion has to beat the winners bracket champion twice
+		if(match == grandFinal && winnerId == b)
+		{
+			grandFinalReplayed = true;
+			fill(grandFinalReplay, false, a);
+			fill(grandFinalReplay, true, b);
+			return;
+		}
+		advance(match, winnerId, loserId);
+	}
+
+	/**
+	 * Checks if the bracket is finished
+	 * @return True once there is a champion, false otherwise
+	 */
+	public boolean isFinished()
+	{
+		return champion != UNKNOWN;
+	}
+
+	/**
+	 * Getter for the champion
+	 * @return The champion (null until the bracket is finished)
+	 */
+	public Player getChampion()
+	{
+		return isFinished() ? entrants[champion] : null;
+	}
+
+	/**
+	 * Gets the number of games left to play
+	 * Every entrant but the champion is eliminated by exactly one loss (Two in double elimination), so this is exact apart from a grand final replay that has not been decided
+	 * @return The number of games left (Assuming no grand final replay until one is needed)
+	 */
+	public int getNumGamesRemaining()
+	{
+		int numGamesTotal = doubleElimination ? 2 * (entrants.length - 1) + (grandFinalReplayed ? 1 : 0) : entrants.length - 1;
+		return numGamesTotal - numGamesPlayed;
+	}
+
+	/**
+	 * Gets the seed of a player
+	 * @param player The player
+	 * @return The seed of the player (1 is the top seed), or 0 if the player is not in the bracket
+	 */
+	public int getSeed(Player player)
+	{
+		for(int i = 0; i < entrants.length; i++)
+		{
+			if(entrants[i] == player)
+				return i + 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Getter for the number of matches (For rendering the bracket)
+	 * Matches are in order: winners bracket round by round, then the losers bracket round by round, then the grand final and its replay
+	 * @return The number of matches in the bracket, including byes
+	 */
+	public int getNumMatches()
+	{
+		return numMatches;
+	}
+
+	/**
+	 * Gets an entrant of a match (For rendering the bracket)
+	 * @param match The index of the match
+	 * @param slotB True for the entrant in slot B, false for slot A
+	 * @return The entrant (null if the slot is a bye or has not been decided yet)
+	 */
+	public Player getEntrant(int match, boolean slotB)
+	{
+		int entrant = slotB ? entrantB[match] : entrantA[match];
+		return (entrant >= 0) ? entrants[entrant] : null;
+	}
+
+	/**
+	 * Gets the game of a match (For rendering the bracket)
+	 * @param match The index of the match
+	 * @return The game (null until both entrants are known, or if the match was a bye)
+	 */
+	public Game getGame(int match)
+	{
+		return gameOfMatch[match];
+	}
+
+	/**
+	 * Gets the name of a match's round (For rendering the bracket)
+	 * @param match The index of the match
+	 * @return The name of the round (Winners Round 1, Losers Round 2, Final, Grand Final, ...)
+	 */
+	public String getRoundName(int match)
+	{
+		if(match == grandFinal)
+			return "Grand Final";
+		if(match == grandFinalReplay)
+			return "Grand Final Replay";
+		if(match < roundStarts[numWinnersRounds])
+		{
+			if(matchRound[match] == numWinnersRounds - 1)
+				return doubleElimination ? "Winners Final" : "Final";
+			return (doubleElimination ? "Winners Round " : "Round ") + (matchRound[match] + 1);
+		}
+		if(matchRound[match] == numLosersRounds - 1)
+			return "Losers Final";
+		return "Losers Round " + (matchRound[match] + 1);
+	}
+
+	/**
+	 * Private helper to seed the players by the current standings
+	 * @param players List of all players in the tournament
+	 * @return The players in seed order
+	 */
+	private static Player[] seed(ArrayList<Player> players)
+	{
+		Player[] entrants = players.toArray(new Player[0]);
+		Arrays.sort(entrants);
+		return entrants;
+	}
+
+	/**
+	 * Private helper to lay out every match and link each match to where its winner and loser go
+	 */
+	private void createMatches()
+	{
+		// Counts the matches and where each round starts
+		roundStarts = new int[numWinnersRounds + numLosersRounds + 1];
+		int count = 0;
+		for(int r = 0; r < numWinnersRounds; r++)
+		{
+			roundStarts[r] = count;
+			count += bracketSize >> (r + 1);
+		}
+		for(int j = 0; j < numLosersRounds; j++)
+		{
+			roundStarts[numWinnersRounds + j] = count;
+			count += bracketSize >> (2 + j / 2);
+		}
+		roundStarts[numWinnersRounds + numLosersRounds] = count;
+		if(doubleElimination)
+		{
+			grandFinal = count++;
+			grandFinalReplay = count++;
+		}
+		numMatches = count;
+		entrantA = new int[numMatches];
+		entrantB = new int[numMatches];
+		Arrays.fill(entrantA, UNKNOWN);
+		Arrays.fill(entrantB, UNKNOWN);
+		winnerNext = new int[numMatches];
+		winnerNextSlotB = new boolean[numMatches];
+		loserNext = new int[numMatches];
+		loserNextSlotB = new boolean[numMatches];
+		Arrays.fill(winnerNext, NONE);
+		Arrays.fill(loserNext, NONE);
+		matchRound = new int[numMatches];
+		gameOfMatch = new Game[numMatches];
+
+		// Winners bracket (The winner of match i goes to match i / 2 of the next round)
+		for(int r = 0; r < numWinnersRounds; r++)
+		{
+			for(int i = 0; i < bracketSize >> (r + 1); i++)
+			{
+				int match = roundStarts[r] + i;
+				matchRound[match] = r;
+				if(r < numWinnersRounds - 1)
+					link(match, true, roundStarts[r + 1] + i / 2, i % 2 == 1);
+				else if(doubleElimination)
+					link(match, true, grandFinal, false);
+				if(doubleElimination)
+					link(match, false, losersDropIn(r, i), numLosersRounds == 0 || r > 0 || i % 2 == 1);
+			}
+		}
+
+		// Losers bracket (Odd rounds take the losers dropping in from the winners bracket)
+		for(int j = 0; j < numLosersRounds; j++)
+		{
+			int roundStart = roundStarts[numWinnersRounds + j];
+			for(int i = 0; i < bracketSize >> (2 + j / 2); i++)
+			{
+				int match = roundStart + i;
+				matchRound[match] = j;
+				if(j == numLosersRounds - 1)
+					link(match, true, grandFinal, true);
+				else if(j % 2 == 0)
+					link(match, true, roundStarts[numWinnersRounds + j + 1] + i, false);
+				else
+					link(match, true, roundStarts[numWinnersRounds + j + 1] + i / 2, i % 2 == 1);
+			}
+		}
+	}
+
+	/**
+	 * Private helper to work out where the loser of a winners bracket match drops into the losers bracket
+	 * Losers of the first round pair up in the first losers round. Losers of later rounds meet the survivors of the losers bracket,
+	 * in reversed order every other round so players are less likely to meet the same opponent again
+	 * @param r The winners bracket round
+	 * @param i The index of the match within the round
+	 * @return The losers bracket match the loser goes to
+	 */
+	private int losersDropIn(int r, int i)
+	{
+		// Two players cannot have a losers bracket, so the loser of the final goes straight to the grand final
+		if(numLosersRounds == 0)
+			return grandFinal;
+		if(r == 0)
+			return roundStarts[numWinnersRounds] + i / 2;
+		int numMatchesInRound = bracketSize >> (r + 1);
+		int index = (r % 2 == 1) ? numMatchesInRound - 1 - i : i;
+		return roundStarts[numWinnersRounds + 2 * r - 1] + index;
+	}
+
+	/**
+	 * Private helper to link a match to the next match of its winner or loser
+	 * @param match The match
+	 * @param winner True to link the winner, false to link the loser
+	 * @param next The next match
+	 * @param slotB True if they go to slot B of the next match
+	 */
+	private void link(int match, boolean winner, int next, boolean slotB)
+	{
+		if(winner)
+		{
+			winnerNext[match] = next;
+			winnerNextSlotB[match] = slotB;
+		}
+		else
+		{
+			loserNext[match] = next;
+			loserNextSlotB[match] = slotB;
+		}
+	}
+
+	/**
+	 * Private helper to place the seeds in the first round
+	 * The seed order is built by doubling: each seed s in a bracket of size m is joined by seed 2m + 1 - s, which keeps the top seeds apart
+	 * Seeds past the number of entrants are byes, and a bye is never paired with another bye
+	 */
+	private void seedFirstRound()
+	{
+		int[] seedOrder = {0};
+		while(seedOrder.length < bracketSize)
+		{
+			int[] nextOrder = new int[seedOrder.length * 2];
+			for(int i = 0; i < seedOrder.length; i++)
+			{
+				nextOrder[2 * i] = seedOrder[i];
+				nextOrder[2 * i + 1] = nextOrder.length - 1 - seedOrder[i];
+			}
+			seedOrder = nextOrder;
+		}
+		for(int i = 0; i < bracketSize; i++)
+		{
+			int seed = seedOrder[i];
+			fill(i / 2, i % 2 == 1, (seed < entrants.length) ? seed : EMPTY);
+		}
+	}
+
+	/**
+	 * Private helper to put an entrant (Or a bye) into a slot of a match
+	 * Once both slots are decided the match either becomes a ready game, or is resolved straight away if it has a bye
+	 * @param match The match
+	 * @param slotB True for slot B, false for slot A
+	 * @param entrant The entrant (EMPTY for a bye)
+	 */
+	private void fill(int match, boolean slotB, int entrant)
+	{
+		if(slotB)
+			entrantB[match] = entrant;
+		else
+			entrantA[match] = entrant;
+		int a = entrantA[match];
+		int b = entrantB[match];
+		if(a == UNKNOWN || b == UNKNOWN)
+			return;
+		if(a >= 0 && b >= 0)
+		{
+			Game game = new Game(entrants[a], entrants[b]);
+			gameOfMatch[match] = game;
+			matchOfGame.put(game, match);
+			readyGames.add(game);
+			return;
+		}
+		// Bye: the entrant (If there is one) goes through without a game
+		advance(match, (a >= 0) ? a : b, EMPTY);
+	}
+
+	/**
+	 * Private helper to move the winner and loser of a match on to their next matches
+	 * @param match The match
+	 * @param winner The winner (EMPTY if neither slot had an entrant)
+	 * @param loser The loser (EMPTY if the match was a bye)
+	 */
+	private void advance(int match, int winner, int loser)
+	{
+		if(winnerNext[match] == NONE)
+			champion = winner;
+		else
+			fill(winnerNext[match], winnerNextSlotB[match], winner);
+		if(loserNext[match] != NONE)
+			fill(loserNext[match], loserNextSlotB[match], loser);
+	}
+}
@@ -0,0 +1,48 @@
+package data_classes;
+
+/**
+ * This class lets another thread stop a schedule build that is in progress
+ * The builder checks the token as it searches and returns the best schedule found so far once it is cancelled
+ * A token can be shared between builds, but it cannot be reset once cancelled
+ * A token can have a parent, so cancelling the parent also cancels every build that checks the child (See SchedulePortfolio)
+ * @author William Shaw
+ */
+public class CancellationToken
+{
+	private volatile boolean cancelled = false; // True once cancel() has been called
+	private CancellationToken parent = null;    // Token that also cancels this token (null if there is none)
+
+	/**
+	 * Constructor for a token without a parent
+	 */
+	public CancellationToken()
+	{
+	}
+
+	/**
+	 * Constructor for a token that is also cancelled when its parent is
+	 * Cancelling the child does not cancel the parent
+	 * @param parent The parent token (null for no parent)
+	 */
+	public CancellationToken(CancellationToken parent)
+	{
+		this.parent = parent;
+	}
+
+	/**
+	 * Cancels every build that checks this token
+	 */
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	/**
+	 * Checks if the token has been cancelled
+	 * @return True if this token or its parent is cancelled, false otherwise
+	 */
+	public boolean isCancelled()
+	{
+		return cancelled || (parent != null && parent.isCancelled());
+	}
+}
@@ -0,0 +1,100 @@
+package data_classes;
+
+import java.util.Arrays;
+
+/**
+ * This class scores how fair a list of scheduled matches is for the players
+ * It is used by the schedule builder to keep the best of several randomized builds
+ * Schedules are compared by the longest wait between any player's consecutive games, then by the number of back-to-back games
+ * Lower scores are better
+ * @author William Shaw
+ */
+class FairnessScore implements Comparable<FairnessScore>
+{
+	private int maxWait;         // The longest wait (In games) between any player's consecutive games
+	private int numBackToBack;   // The number of times a player plays two games in a row
+
+	/**
+	 * Constructor
+	 * @param maxWait The longest wait between any player's consecutive games
+	 * @param numBackToBack The number of back-to-back games
+	 */
+	private FairnessScore(int maxWait, int numBackToBack)
+	{
+		this.maxWait = maxWait;
+		this.numBackToBack = numBackToBack;
+	}
+
+	/**
+	 * Scores a list of scheduled matches in a single pass
+	 * @param matches Scheduled matches as packed pairs of player ids
+	 * @param numPlayers The number of players
+	 * @return The fairness score of the matches
+	 */
+	static FairnessScore of(long[] matches, int numPlayers)
+	{
+		int[] lastGameIndex = new int[numPlayers];
+		Arrays.fill(lastGameIndex, -1);
+		int maxWait = 0;
+		int numBackToBack = 0;
+		for(int i = 0; i < matches.length; i++)
+		{
+			for(int j = 0; j < 2; j++)
+			{
+				int player = (j == 0) ? IndexedScheduleEngine.playerA(matches[i]) : IndexedScheduleEngine.playerB(matches[i]);
+				if(lastGameIndex[player] != -1)
+				{
+					int wait = i - lastGameIndex[player];
+					maxWait = Math.max(maxWait, wait);
+					if(wait == 1)
+						numBackToBack++;
+				}
+				lastGameIndex[player] = i;
+			}
+		}
+		return new FairnessScore(maxWait, numBackToBack);
+	}
+
+	/**
+	 * Getter for the max wait
+	 * @return The longest wait (In games) between any player's consecutive games
+	 */
+	int getMaxWait()
+	{
+		return maxWait;
+	}
+
+	/**
+	 * Getter for the number of back-to-back games
+	 * @return The number of times a player plays two games in a row
+	 */
+	int getNumBackToBack()
+	{
+		return numBackToBack;
+	}
+
+	/**
+	 * Override of the compareTo() method of the comparable interface
+	 * @param otherScore Another score
+	 * @return Negative if this score is fairer, positive if the other score is fairer, 0 if they are equal
+	 */
+	@Override
+	public int compareTo(FairnessScore otherScore)
+	{
+		// Primary criteria (Max wait)
+		if(maxWait != otherScore.maxWait)
+			return Integer.compare(maxWait, otherScore.maxWait);
+		// Secondary criteria (Back-to-back games)
+		return Integer.compare(numBackToBack, otherScore.numBackToBack);
+	}
+
+	/**
+	 * Override of the toString() method
+	 * @return The score as a string
+	 */
+	@Override
+	public String toString()
+	{
+		return "Max wait: " + maxWait + ", Back-to-back games: " + numBackToBack;
+	}
+}
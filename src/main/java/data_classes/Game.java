@@ -1,4 +1,8 @@
 package data_classes;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
 /**
  * This class represents a game between two players
  * The schedule holds a list of games
@@ -11,16 +15,31 @@ public class Game
     private Player playerA;
 	private Player playerB;
 	private boolean played; // True if the game has already been played, false if it has not been played
+	private int scoreA = 0; // Player A's score (0 until the game has been played)
+	private int scoreB = 0; // Player B's score (0 until the game has been played)
 	
 	/**
 	 * Constructor
+	 * Orientation is randomized with the thread's own generator (Not reproducible)
 	 * @param playerA Player A
 	 * @param playerB Player B
 	 */
 	public Game(Player playerA, Player playerB)
+	{
+		this(playerA, playerB, ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Constructor
+	 * Orientation is randomized with the given generator, so a seeded generator always orients the game the same way
+	 * @param playerA Player A
+	 * @param playerB Player B
+	 * @param random Generator used to randomize the assignment of A and B
+	 */
+	public Game(Player playerA, Player playerB, RandomGenerator random)
 	{
 		// Randomizes assignment of A and B for random ordering when displayed
-		if (Math.random() < 0.5) 
+		if (random.nextBoolean()) 
 		{
         	this.playerA = playerA;
         	this.playerB = playerB;
@@ -33,6 +52,20 @@ public class Game
 		played = false;
 	}
 
+	/**
+	 * Constructor
+	 * Keeps the orientation of the players (Used to load a saved game, see TournamentFile)
+	 * @param playerA Player A
+	 * @param playerB Player B
+	 * @param played True if the game has already been played, false if it has not been played
+	 */
+	Game(Player playerA, Player playerB, boolean played)
+	{
+		this.playerA = playerA;
+		this.playerB = playerB;
+		this.played = played;
+	}
+
 	/**
 	 * Getter for playerA
 	 * @return playerA
@@ -61,6 +94,24 @@ public class Game
 		return played; 
 	}
 	
+	/**
+	 * Getter for player A's score
+	 * @return Player A's score (0 if the game has not been played)
+	 */
+	public int getScoreA()
+	{
+		return scoreA;
+	}
+
+	/**
+	 * Getter for player B's score
+	 * @return Player B's score (0 if the game has not been played)
+	 */
+	public int getScoreB()
+	{
+		return scoreB;
+	}
+
 	/**
 	 * Mutator to set played to true
 	 */
@@ -69,6 +120,17 @@ public class Game
 		played = true;
 	}
 
+	/**
+	 * Setter for the scores of the game (See Schedule.markGamePlayed)
+	 * @param scoreA Player A's score
+	 * @param scoreB Player B's score
+	 */
+	void setScores(int scoreA, int scoreB)
+	{
+		this.scoreA = scoreA;
+		this.scoreB = scoreB;
+	}
+
 	/**
 	 * Overide of the toString() method
 	 * The schedule list-view uses toString() to display games in the cells of the list-view
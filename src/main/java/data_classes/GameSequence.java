@@ -0,0 +1,503 @@
+package data_classes;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * This class is the list of games behind a schedule
+ * It is an implicit treap: a binary tree ordered by position in the list (Every node knows the size of its subtree) and balanced by random heap priorities
+ * Getting, replacing, inserting, removing and moving a game by index are all O(log n) instead of shifting the tail of an array
+ * Moving a whole block of games is also O(log n), since the block is split out of the tree and merged back in at its new position
+ * Reading a range of games walks the tree in order, so a round or slot costs O(log n + games read), and iterating from any index is O(log n + games read)
+ * Every node also knows the number of unplayed games in its subtree, so the first unplayed game and the number of unplayed games before an index are O(log n)
+ * Those counts are read from the games, so a game marked as played has to be refreshed (See refresh)
+ * @author William Shaw
+ */
+class GameSequence extends AbstractList<Game>
+{
+	/**
+	 * Private Inner Class Node
+	 * A game in the tree along with the size and unplayed count of its subtree
+	 * @author William Shaw
+	 */
+	private static class Node
+	{
+		private Game game;       // The game at this position
+		private int priority;    // Random heap priority (Higher priorities are closer to the root)
+		private int size = 1;    // The number of games in the subtree rooted at this node
+		private int numUnplayed; // The number of unplayed games in the subtree rooted at this node
+		private Node left;       // Games before this one in the subtree
+		private Node right;      // Games after this one in the subtree
+
+		/**
+		 * Constructor
+		 * @param game The game
+		 * @param priority Random heap priority
+		 */
+		private Node(Game game, int priority)
+		{
+			this.game = game;
+			this.priority = priority;
+			numUnplayed = game.getPlayed() ? 0 : 1;
+		}
+	}
+
+	private Node root = null;   // Root of the tree (null if there are no games)
+	private SplittableRandom random = new SplittableRandom(0x5EED); // Source of the heap priorities (They only shape the tree, never the order of the games)
+
+	/**
+	 * Constructor
+	 * @param games List of games in order
+	 */
+	GameSequence(List<Game> games)
+	{
+		for(Game game : games)
+		{
+			root = merge(root, new Node(game, random.nextInt()));
+		}
+	}
+
+	/**
+	 * Gets the number of games
+	 * @return The number of games
+	 */
+	@Override
+	public int size()
+	{
+		return size(root);
+	}
+
+	/**
+	 * Gets a game by index
+	 * @param index The index of the game
+	 * @return The game
+	 */
+	@Override
+	public Game get(int index)
+	{
+		return nodeAt(index).game;
+	}
+
+	/**
+	 * Replaces a game by index
+	 * @param index The index of the game
+	 * @param game The new game
+	 * @return The game that was replaced
+	 */
+	@Override
+	public Game set(int index, Game game)
+	{
+		ArrayDeque<Node> path = pathTo(index);
+		Node node = path.peek();
+		Game oldGame = node.game;
+		node.game = game;
+		while(!path.isEmpty())
+		{
+			update(path.pop());
+		}
+		return oldGame;
+	}
+
+	/**
+	 * Inserts a game
+	 * @param index The index the game will have
+	 * @param game The game
+	 */
+	@Override
+	public void add(int index, Game game)
+	{
+		if(index < 0 || index > size())
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		Node[] parts = split(root, index);
+		root = merge(merge(parts[0], new Node(game, random.nextInt())), parts[1]);
+		modCount++;
+	}
+
+	/**
+	 * Removes a game
+	 * @param index The index of the game
+	 * @return The removed game
+	 */
+	@Override
+	public Game remove(int index)
+	{
+		checkIndex(index);
+		Node[] parts = split(root, index);
+		Node[] rest = split(parts[1], 1);
+		root = merge(parts[0], rest[1]);
+		modCount++;
+		return rest[0].game;
+	}
+
+	/**
+	 * Removes every game
+	 */
+	@Override
+	public void clear()
+	{
+		root = null;
+		modCount++;
+	}
+
+	/**
+	 * Iterates over the games in order without looking each one up by index
+	 * @return An iterator over the games
+	 */
+	@Override
+	public Iterator<Game> iterator()
+	{
+		return iterator(0);
+	}
+
+	/**
+	 * Iterates over the games in order starting at an index
+	 * Finding the first game is O(log n), after which each game is O(1) on average
+	 * @param fromIndex The index of the first game (Up to the number of games)
+	 * @return An iterator over the games from the index on
+	 */
+	Iterator<Game> iterator(int fromIndex)
+	{
+		if(fromIndex < 0 || fromIndex > size())
+			throw new IndexOutOfBoundsException("Index: " + fromIndex + ", Size: " + size());
+		return new Iterator<>() {
+			private ArrayDeque<Node> path = pathFrom(fromIndex);
+
+			@Override
+			public boolean hasNext()
+			{
+				return !path.isEmpty();
+			}
+
+			@Override
+			public Game next()
+			{
+				if(path.isEmpty())
+					throw new NoSuchElementException();
+				Node node = path.pop();
+				for(Node next = node.right; next != null; next = next.left)
+				{
+					path.push(next);
+				}
+				return node.game;
+			}
+		};
+	}
+
+	/**
+	 * Updates the unplayed counts after the game at an index was marked as played
+	 * @param index The index of the game
+	 */
+	void refresh(int index)
+	{
+		ArrayDeque<Node> path = pathTo(index);
+		while(!path.isEmpty())
+		{
+			update(path.pop());
+		}
+	}
+
+	/**
+	 * Gets the number of unplayed games
+	 * @return The number of games not marked as played
+	 */
+	int getNumUnplayed()
+	{
+		return (root == null) ? 0 : root.numUnplayed;
+	}
+
+	/**
+	 * Counts the unplayed games before an index
+	 * @param index The index (Up to the number of games)
+	 * @return The number of unplayed games before the index
+	 */
+	int countUnplayedBefore(int index)
+	{
+		int count = 0;
+		Node node = root;
+		while(node != null)
+		{
+			int leftSize = size(node.left);
+			if(index <= leftSize)
+			{
+				node = node.left;
+			}
+			else
+			{
+				count += numUnplayed(node.left) + (node.game.getPlayed() ? 0 : 1);
+				index -= leftSize + 1;
+				node = node.right;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the first unplayed game
+	 * @return The index of the first unplayed game (The number of games if every game has been played)
+	 */
+	int firstUnplayedIndex()
+	{
+		int offset = 0;
+		Node node = root;
+		while(node != null && node.numUnplayed > 0)
+		{
+			if(numUnplayed(node.left) > 0)
+			{
+				node = node.left;
+			}
+			else if(!node.game.getPlayed())
+			{
+				return offset + size(node.left);
+			}
+			else
+			{
+				offset += size(node.left) + 1;
+				node = node.right;
+			}
+		}
+		return size();
+	}
+
+	/**
+	 * Moves a game to a new index
+	 * @param oldIndex The index of the game before the move
+	 * @param newIndex The index of the game after the move
+	 */
+	void move(int oldIndex, int newIndex)
+	{
+		moveRange(oldIndex, oldIndex + 1, newIndex);
+	}
+
+	/**
+	 * Moves a block of games to a new index in one step, keeping their order
+	 * @param fromIndex The index of the first game in the block
+	 * @param toIndex The index after the last game in the block
+	 * @param newIndex The index of the first game of the block after the move
+	 */
+	void moveRange(int fromIndex, int toIndex, int newIndex)
+	{
+		int numMoved = toIndex - fromIndex;
+		if(fromIndex < 0 || toIndex > size() || numMoved < 0 || newIndex < 0 || newIndex + numMoved > size())
+			throw new IndexOutOfBoundsException("Range: " + fromIndex + "-" + toIndex + ", New index: " + newIndex + ", Size: " + size());
+		if(newIndex == fromIndex || numMoved == 0)
+			return;
+		Node[] before = split(root, fromIndex);
+		Node[] block = split(before[1], numMoved);
+		Node[] rest = split(merge(before[0], block[1]), newIndex);
+		root = merge(merge(rest[0], block[0]), rest[1]);
+		modCount++;
+	}
+
+	/**
+	 * Copies a range of games into a new list
+	 * @param fromIndex The index of the first game
+	 * @param toIndex The index after the last game
+	 * @return List of the games in the range in order
+	 */
+	ArrayList<Game> copyRange(int fromIndex, int toIndex)
+	{
+		ArrayList<Game> games = new ArrayList<>(Math.max(0, toIndex - fromIndex));
+		collect(root, 0, fromIndex, toIndex, games);
+		return games;
+	}
+
+	/**
+	 * Private helper to collect the games of a subtree that fall in a range (In order)
+	 * Subtrees outside the range are skipped without being visited
+	 * @param node The root of the subtree
+	 * @param offset The index of the first game in the subtree
+	 * @param fromIndex The index of the first game in the range
+	 * @param toIndex The index after the last game in the range
+	 * @param games List the games are added to
+	 */
+	private void collect(Node node, int offset, int fromIndex, int toIndex, ArrayList<Game> games)
+	{
+		if(node == null || offset >= toIndex || offset + node.size <= fromIndex)
+			return;
+		int index = offset + size(node.left);
+		collect(node.left, offset, fromIndex, toIndex, games);
+		if(index >= fromIndex && index < toIndex)
+			games.add(node.game);
+		collect(node.right, index + 1, fromIndex, toIndex, games);
+	}
+
+	/**
+	 * Private helper to find the node at an index
+	 * @param index The index
+	 * @return The node
+	 */
+	private Node nodeAt(int index)
+	{
+		checkIndex(index);
+		Node node = root;
+		while(true)
+		{
+			int leftSize = size(node.left);
+			if(index < leftSize)
+			{
+				node = node.left;
+			}
+			else if(index > leftSize)
+			{
+				index -= leftSize + 1;
+				node = node.right;
+			}
+			else
+			{
+				return node;
+			}
+		}
+	}
+
+	/**
+	 * Private helper to get the path from the root down to the node at an index
+	 * @param index The index
+	 * @return Stack of the nodes on the path (The node at the index on top)
+	 */
+	private ArrayDeque<Node> pathTo(int index)
+	{
+		checkIndex(index);
+		ArrayDeque<Node> path = new ArrayDeque<>();
+		Node node = root;
+		while(true)
+		{
+			path.push(node);
+			int leftSize = size(node.left);
+			if(index < leftSize)
+			{
+				node = node.left;
+			}
+			else if(index > leftSize)
+			{
+				index -= leftSize + 1;
+				node = node.right;
+			}
+			else
+			{
+				return path;
+			}
+		}
+	}
+
+	/**
+	 * Private helper to split a subtree into its first games and the rest
+	 * @param node The root of the subtree
+	 * @param numGames The number of games in the first part
+	 * @return The roots of the first part and the rest
+	 */
+	private Node[] split(Node node, int numGames)
+	{
+		if(node == null)
+			return new Node[] {null, null};
+		Node[] parts;
+		if(size(node.left) >= numGames)
+		{
+			parts = split(node.left, numGames);
+			node.left = parts[1];
+			parts[1] = node;
+		}
+		else
+		{
+			parts = split(node.right, numGames - size(node.left) - 1);
+			node.right = parts[0];
+			parts[0] = node;
+		}
+		update(node);
+		return parts;
+	}
+
+	/**
+	 * Private helper to join two subtrees, keeping every game of the first before every game of the second
+	 * @param first The root of the first subtree
+	 * @param second The root of the second subtree
+	 * @return The root of the joined subtree
+	 */
+	private Node merge(Node first, Node second)
+	{
+		if(first == null)
+			return second;
+		if(second == null)
+			return first;
+		if(first.priority > second.priority)
+		{
+			first.right = merge(first.right, second);
+			update(first);
+			return first;
+		}
+		second.left = merge(first, second.left);
+		update(second);
+		return second;
+	}
+
+	/**
+	 * Private helper to get the nodes an in order walk starting at an index still has to visit (Iterator)
+	 * Only the nodes on the path to the index that come at or after it are kept
+	 * @param index The index of the first game (The number of games for an empty walk)
+	 * @return Stack of the nodes (The game at the index on top)
+	 */
+	private ArrayDeque<Node> pathFrom(int index)
+	{
+		ArrayDeque<Node> path = new ArrayDeque<>();
+		Node node = root;
+		while(node != null)
+		{
+			int leftSize = size(node.left);
+			if(index <= leftSize)
+			{
+				path.push(node);
+				node = node.left;
+			}
+			else
+			{
+				index -= leftSize + 1;
+				node = node.right;
+			}
+		}
+		return path;
+	}
+
+	/**
+	 * Private helper to recompute the size and unplayed count of a node after its children or its game change
+	 * @param node The node
+	 */
+	private static void update(Node node)
+	{
+		node.size = 1 + size(node.left) + size(node.right);
+		node.numUnplayed = (node.game.getPlayed() ? 0 : 1) + numUnplayed(node.left) + numUnplayed(node.right);
+	}
+
+	/**
+	 * Private helper to get the size of a subtree
+	 * @param node The root of the subtree (null for an empty subtree)
+	 * @return The number of games in the subtree
+	 */
+	private static int size(Node node)
+	{
+		return (node == null) ? 0 : node.size;
+	}
+
+	/**
+	 * Private helper to get the number of unplayed games in a subtree
+	 * @param node The root of the subtree (null for an empty subtree)
+	 * @return The number of unplayed games in the subtree
+	 */
+	private static int numUnplayed(Node node)
+	{
+		return (node == null) ? 0 : node.numUnplayed;
+	}
+
+	/**
+	 * Private helper to check an index is in the list
+	 * @param index The index
+	 */
+	private void checkIndex(int index)
+	{
+		if(index < 0 || index >= size())
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+	}
+}
@@ -0,0 +1,628 @@
+package data_classes;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class is an alternate scheduling engine used by the schedule builder
+ * It runs the same greedy search as the schedule builder but keeps players as int ids and matches as int pairs in primitive arrays
+ * Nothing is allocated per scheduled match, which keeps the hot loop cheap for rosters of several hundred players
+ * Scheduled matches are returned as packed pairs (Player A id in the high 32 bits, player B id in the low 32 bits)
+ * In constructive mode every round is built directly and the greedy heuristics only order the games
+ * Full rounds use the circle method and the partial round is a regular subgraph, so the search never backtracks
+ * Pairs are never materialised. In search mode a candidate is the triangular index of its pair (See PairIndex), decoded when it is needed
+ * In constructive mode only the candidates of the sub-round or partial round are enumerated, so memory grows with the games scheduled rather than with nC2
+ * In streaming mode the constructive rounds are scheduled in chunks of about n/2 games as they are asked for, and only the latest chunk is kept (See Schedule)
+ * A chunk is a sub-round of a full round, or the next games of the partial round
+ * @author William Shaw
+ */
+class IndexedScheduleEngine
+{
+	// Candidate slots (Search mode: the slot is the triangular index of the pair. Constructive mode: the slot indexes the enumerated candidates)
+	private long[] candidatePairs;       // Packed pair of each enumerated candidate slot (Constructive mode only)
+	private int[] adjacencyStarts;       // Where each player's candidate slots start in the adjacent slots array (Constructive partial round only)
+	private int[] adjacentSlots;         // Candidate slots of each player (Grouped by player) (Constructive partial round only)
+
+	// Player columns (Indexed by player id)
+	private int[] numMatchesIn;          // The number of matches each player has been scheduled in already (Greedy heuristic)
+	private int[] lastMatchIndex;        // The index of the last match each player was scheduled in (Greedy heuristic)
+
+	// Candidate matches
+	private MatchQueue candidateMatches; // Candidate slots ordered by the greedy heuristics. Shrinks as matches are scheduled
+	private int[] shuffledMatches;       // Candidate slots in a random order (Ranks used to break ties)
+
+	// Preallocated search stack (Replaces recursion)
+	private int[] oldLastMatchIndicesA;  // Last match index of player A before the match at each depth was committed (Undo)
+	private int[] oldLastMatchIndicesB;  // Last match index of player B before the match at each depth was committed (Undo)
+	private int[] frameStarts;           // Where the tried matches of each depth start on the tried matches stack
+	private int[] triedMatches;          // Stack of candidate slots tried at each depth
+	private int numTriedMatches;         // The number of candidate slots on the tried matches stack
+
+	// Search counters (Accumulate over every round)
+	private long numNodesVisited = 0;    // The number of matches committed by the search
+	private int maxDepth = 0;            // The deepest the search got in a single round
+	private long numBacktracks = 0;      // The number of committed matches undone by backtracking
+
+	// Scheduled matches (Packed pairs)
+	private long[] scheduledMatches;     // Scheduled matches in order (Accumulates as rounds are scheduled. Streaming mode only holds the latest chunk)
+	private int bufferOffset = 0;        // Match index of the first match in the scheduled matches array (Start of the latest chunk in streaming mode)
+
+	// Streaming position (Streaming mode only)
+	private int[] circleSeats;           // Seating of the full round being streamed (-1 is the empty seat)
+	private int numRotationsScheduled;   // The number of sub-rounds of the full round being streamed that have been scheduled
+	private boolean partialRoundQueued;  // True once the matches of the partial round have been queued
+
+	// Private attributes
+	private int matchIndex = 0;          // Index of the current match being scheduled. Counts total matches scheduled
+	private int numGamesTotal;           // The number of games in the schedule (ng/2)
+	private int numPlayers;              // The number of players
+	private int numGamesEach;            // The total number of games each person plays
+	private int numGamesInFullRound;     // The number of games in a full round (Round robin) (nC2)
+	private int numGamesInPartialRound;  // The number of games in the final partial round (Remainder)
+	private int numFullRounds;           // The number of complete rounds (Round robins)
+	private int numRoundsScheduled = 0;  // The number of rounds scheduled so far (The partial round counts even if it is empty)
+	private boolean constructive;        // True if rounds are built directly instead of searched for
+	private SplittableRandom random;     // Source of every random decision (Seeded by the schedule builder)
+	private Runnable checkStop;          // Called at every search step. Throws a ScheduleBuildException once the build should stop
+
+	/**
+	 * Constructor
+	 * @param numPlayers The number of players in the tournament
+	 * @param numGamesEach The number of games each player will play
+	 * @param constructive True to build rounds directly instead of searching for them
+	 * @param random Source of every random decision (Not shared with any other thread)
+	 * @param checkStop Called at every search step. Throws a ScheduleBuildException once the build should stop
+	 */
+	IndexedScheduleEngine(int numPlayers, int numGamesEach, boolean constructive, SplittableRandom random, Runnable checkStop)
+	{
+		this(numPlayers, numGamesEach, constructive, false, random, checkStop);
+	}
+
+	/**
+	 * Constructor
+	 * @param numPlayers The number of players in the tournament
+	 * @param numGamesEach The number of games each player will play
+	 * @param constructive True to build rounds directly instead of searching for them
+	 * @param streaming True to schedule the rounds a chunk at a time (See scheduleNextChunk, constructive mode only), false to schedule them all at once (See schedule)
+	 * @param random Source of every random decision (Not shared with any other thread)
+	 * @param checkStop Called at every search step. Throws a ScheduleBuildException once the build should stop
+	 */
+	IndexedScheduleEngine(int numPlayers, int numGamesEach, boolean constructive, boolean streaming, SplittableRandom random, Runnable checkStop)
+	{
+		this.numPlayers = numPlayers;
+		this.numGamesEach = numGamesEach;
+		this.constructive = constructive;
+		this.random = random;
+		this.checkStop = checkStop;
+		numGamesTotal = (numPlayers * numGamesEach) / 2; // (ng/2)
+		numGamesInFullRound = (numPlayers * (numPlayers - 1)) / 2; // (nC2)
+		numGamesInPartialRound = numGamesTotal % numGamesInFullRound; // Remainder
+		numFullRounds = numGamesTotal / numGamesInFullRound;
+		// Allocates every column once up front (Search mode holds every pair of a round, constructive mode only a sub-round or the partial round)
+		int numSlots = constructive ? Math.max((numPlayers + 1) / 2, numGamesInPartialRound) : numGamesInFullRound;
+		int maxRoundDepth = constructive ? numGamesInPartialRound : numGamesInFullRound;
+		numMatchesIn = new int[numPlayers];
+		lastMatchIndex = new int[numPlayers];
+		candidateMatches = new MatchQueue(numSlots);
+		shuffledMatches = new int[numSlots];
+		if(constructive)
+		{
+			candidatePairs = new long[numSlots];
+			adjacencyStarts = new int[numPlayers + 1];
+			adjacentSlots = new int[2 * numGamesInPartialRound];
+		}
+		oldLastMatchIndicesA = new int[maxRoundDepth];
+		oldLastMatchIndicesB = new int[maxRoundDepth];
+		frameStarts = new int[maxRoundDepth + 1];
+		triedMatches = new int[maxRoundDepth];
+		scheduledMatches = new long[streaming ? (numPlayers + 1) / 2 : numGamesTotal];
+	}
+
+	/**
+	 * Runs the engine
+	 * @return The scheduled matches in order as packed pairs of player ids
+	 */
+	long[] schedule()
+	{
+		scheduleAllRounds();
+		return scheduledMatches;
+	}
+
+	/**
+	 * Checks if there is another chunk to schedule (Streaming mode)
+	 * @return True if some games have not been scheduled yet, false otherwise
+	 */
+	boolean hasNextChunk()
+	{
+		return matchIndex < numGamesTotal;
+	}
+
+	/**
+	 * Schedules the next chunk of games (Streaming mode)
+	 * A full round is streamed one sub-round at a time, and the partial round n/2 games at a time
+	 * The same random decisions are made in the same order as schedule(), so the chunks add up to the matches it would return
+	 * @return The scheduled matches of the chunk in order as packed pairs of player ids
+	 */
+	long[] scheduleNextChunk()
+	{
+		bufferOffset = matchIndex;
+		if(numRoundsScheduled < numFullRounds)
+		{
+			// Seats the round before its first sub-round
+			if(numRotationsScheduled == 0)
+			{
+				checkStop.run();
+				seatCircle();
+			}
+			scheduleSubRound(numRotationsScheduled);
+			numRotationsScheduled++;
+			if(numRotationsScheduled == circleSeats.length - 1)
+			{
+				numRotationsScheduled = 0;
+				numRoundsScheduled++;
+			}
+		}
+		else
+		{
+			if(!partialRoundQueued)
+			{
+				queueRegularSubgraphMatches();
+				partialRoundQueued = true;
+			}
+			// The partial round never backtracks in constructive mode, so each chunk carries on from the candidates the last one left
+			int numGamesInChunk = Math.min(Math.max(1, numPlayers / 2), numGamesTotal - matchIndex);
+			if(!scheduleRoundMatches(numGamesInChunk))
+			{
+				throw new ScheduleBuildException(ScheduleBuildException.Reason.NO_SCHEDULE_FOUND, "Schedule partial round failed");
+			}
+		}
+		return Arrays.copyOf(scheduledMatches, matchIndex - bufferOffset);
+	}
+
+	/**
+	 * Replaces the function called at every search step
+	 * Used by streaming schedules once the build has returned, since later rounds are scheduled on demand and should not be stopped by the build's budget
+	 * @param checkStop Called at every search step. Throws a ScheduleBuildException once the build should stop
+	 */
+	void setCheckStop(Runnable checkStop)
+	{
+		this.checkStop = checkStop;
+	}
+
+	/**
+	 * Getter for the number of nodes the search visited
+	 * @return The number of matches committed by the search
+	 */
+	long getNumNodesVisited()
+	{
+		return numNodesVisited;
+	}
+
+	/**
+	 * Getter for the maximum depth the search reached
+	 * @return The deepest the search got in a single round (In games)
+	 */
+	int getMaxDepth()
+	{
+		return maxDepth;
+	}
+
+	/**
+	 * Getter for the number of backtracks
+	 * @return The number of committed matches undone by backtracking
+	 */
+	long getNumBacktracks()
+	{
+		return numBacktracks;
+	}
+
+	/**
+	 * Packs a pair of player ids into a single long
+	 * @param playerA The id of player A
+	 * @param playerB The id of player B
+	 * @return The packed pair
+	 */
+	static long packMatch(int playerA, int playerB)
+	{
+		return ((long) playerA << 32) | (playerB & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Unpacks the id of player A from a packed pair
+	 * @param match The packed pair
+	 * @return The id of player A
+	 */
+	static int playerA(long match)
+	{
+		return (int) (match >>> 32);
+	}
+
+	/**
+	 * Unpacks the id of player B from a packed pair
+	 * @param match The packed pair
+	 * @return The id of player B
+	 */
+	static int playerB(long match)
+	{
+		return (int) match;
+	}
+
+	/**
+	 * Private helper to get the packed pair of a candidate slot
+	 * @param slot The candidate slot
+	 * @return The pair as packed player ids
+	 */
+	private long pairOf(int slot)
+	{
+		return constructive ? candidatePairs[slot] : PairIndex.pair(slot, numPlayers);
+	}
+
+	/**
+	 * Private helper to schedule all rounds (Populate the scheduledMatches array)
+	 */
+	private void scheduleAllRounds()
+	{
+		// Schedules all complete rounds, then the partial round
+		for(int i = 0; i <= numFullRounds; i++)
+		{
+			scheduleRound();
+		}
+	}
+
+	/**
+	 * Private helper to schedule the next round (Full rounds first, then the partial round)
+	 */
+	private void scheduleRound()
+	{
+		if(numRoundsScheduled < numFullRounds)
+		{
+			checkStop.run();
+			if(constructive)
+			{
+				scheduleCircleRound();
+			}
+			else
+			{
+				queueAllMatches();
+				if(!scheduleRoundMatches(numGamesInFullRound))
+				{
+					throw new ScheduleBuildException(ScheduleBuildException.Reason.NO_SCHEDULE_FOUND, "Schedule full round failed");
+				}
+			}
+		}
+		else
+		{
+			// Schedules the partial round
+			if(constructive)
+				queueRegularSubgraphMatches();
+			else
+				queueAllMatches();
+			if(!scheduleRoundMatches(numGamesInPartialRound))
+			{
+				throw new ScheduleBuildException(ScheduleBuildException.Reason.NO_SCHEDULE_FOUND, "Schedule partial round failed");
+			}
+		}
+		numRoundsScheduled++;
+	}
+
+	/**
+	 * Private helper to schedule a full round with the circle method (Constructive mode)
+	 * Players are seated around a circle with one fixed seat. Each sub-round pairs the fixed seat with one rotating seat and the remaining seats across the circle
+	 * Rotating through every seat gives each pair exactly once, and each sub-round has every player in it at most once
+	 * An odd number of players gets an empty seat, and whoever sits across from it sits out that sub-round
+	 * Seats are shuffled every round so consecutive rounds don't repeat the same pattern
+	 * The greedy heuristics order the games within each sub-round, which smooths the seams between sub-rounds and between rounds
+	 * Costs O(n^2 log n) per round instead of a search over every unique match
+	 */
+	private void scheduleCircleRound()
+	{
+		seatCircle();
+		for(int rotation = 0; rotation < circleSeats.length - 1; rotation++)
+		{
+			scheduleSubRound(rotation);
+		}
+	}
+
+	/**
+	 * Private helper to seat the players randomly around the circle at the start of a full round (Constructive mode)
+	 * An odd number of players gets an empty seat (-1)
+	 */
+	private void seatCircle()
+	{
+		int numSeats = numPlayers + (numPlayers % 2);
+		circleSeats = new int[numSeats];
+		for(int i = 0; i < numSeats; i++)
+		{
+			circleSeats[i] = (i < numPlayers) ? i : -1;
+		}
+		shuffle(circleSeats, numSeats);
+	}
+
+	/**
+	 * Private helper to schedule one sub-round of the circle method (Constructive mode)
+	 * @param rotation How far the rotating seats have turned (0 to the number of seats - 2)
+	 */
+	private void scheduleSubRound(int rotation)
+	{
+		int numSeats = circleSeats.length;
+		int fixedSeat = numSeats - 1;
+		int numRotatingSeats = numSeats - 1;
+		// Enumerates the sub-round
+		int numMatches = 0;
+		for(int i = 0; i < numSeats / 2; i++)
+		{
+			int seatA = (i == 0) ? fixedSeat : (rotation + i) % numRotatingSeats;
+			int seatB = (rotation - i + numRotatingSeats) % numRotatingSeats;
+			if(circleSeats[seatA] == -1 || circleSeats[seatB] == -1)
+				continue;
+			addCandidate(circleSeats[seatA], circleSeats[seatB], numMatches);
+			numMatches++;
+		}
+		// Orders the sub-round with the greedy heuristics (No player appears twice in a sub-round, so no keys change while it is scheduled)
+		queueShuffledMatches(numMatches);
+		while(!candidateMatches.isEmpty())
+		{
+			long pair = candidatePairs[candidateMatches.poll()];
+			int a = playerA(pair);
+			int b = playerB(pair);
+			scheduledMatches[matchIndex - bufferOffset] = packMatch(a, b);
+			matchIndex++;
+			numMatchesIn[a]++;
+			numMatchesIn[b]++;
+			lastMatchIndex[a] = matchIndex;
+			lastMatchIndex[b] = matchIndex;
+			numNodesVisited++;
+		}
+	}
+
+	/**
+	 * Private helper to queue every unique match as a candidate at the start of a round (Search mode)
+	 * Each candidate is the triangular index of its pair, so no pairs are copied
+	 */
+	private void queueAllMatches()
+	{
+		for(int i = 0; i < numGamesInFullRound; i++)
+		{
+			shuffledMatches[i] = i;
+		}
+		queueShuffledMatches(numGamesInFullRound);
+	}
+
+	/**
+	 * Private helper to queue the matches of a regular subgraph as the only candidates of the partial round (Constructive mode)
+	 * Every player must appear in exactly numGamesEach - numFullRounds * (n - 1) games of the partial round, which is a regular subgraph of the complete graph
+	 * The subgraph is a circulant graph on randomly relabelled players. Each player plays the players 1 to degree/2 seats away on either side of a circle
+	 * If the degree is odd (Only possible for an even number of players) each player also plays the player directly across the circle
+	 * Since every queued match is needed, the greedy search only decides the order of the games and never has to backtrack
+	 * Only the subgraph is enumerated, along with each player's candidate slots so their keys can be updated
+	 */
+	private void queueRegularSubgraphMatches()
+	{
+		int degree = numGamesEach - numFullRounds * (numPlayers - 1);
+		// Random seating around the circle
+		int[] seats = new int[numPlayers];
+		for(int i = 0; i < numPlayers; i++)
+		{
+			seats[i] = i;
+		}
+		shuffle(seats, numPlayers);
+		// Enumerates the circulant graph
+		int numMatches = 0;
+		for(int offset = 1; offset <= degree / 2; offset++)
+		{
+			for(int seat = 0; seat < numPlayers; seat++)
+			{
+				addCandidate(seats[seat], seats[(seat + offset) % numPlayers], numMatches);
+				numMatches++;
+			}
+		}
+		if(degree % 2 == 1)
+		{
+			for(int seat = 0; seat < numPlayers / 2; seat++)
+			{
+				addCandidate(seats[seat], seats[seat + numPlayers / 2], numMatches);
+				numMatches++;
+			}
+		}
+		// Groups the candidate slots by player
+		Arrays.fill(adjacencyStarts, 0);
+		for(int slot = 0; slot < numMatches; slot++)
+		{
+			adjacencyStarts[playerA(candidatePairs[slot]) + 1]++;
+			adjacencyStarts[playerB(candidatePairs[slot]) + 1]++;
+		}
+		for(int p = 0; p < numPlayers; p++)
+		{
+			adjacencyStarts[p + 1] += adjacencyStarts[p];
+		}
+		int[] next = Arrays.copyOf(adjacencyStarts, numPlayers);
+		for(int slot = 0; slot < numMatches; slot++)
+		{
+			adjacentSlots[next[playerA(candidatePairs[slot])]++] = slot;
+			adjacentSlots[next[playerB(candidatePairs[slot])]++] = slot;
+		}
+		queueShuffledMatches(numMatches);
+	}
+
+	/**
+	 * Private helper to enumerate a candidate of the constructive mode into a slot
+	 * @param playerA The id of one player
+	 * @param playerB The id of the other player
+	 * @param slot The candidate slot
+	 */
+	private void addCandidate(int playerA, int playerB, int slot)
+	{
+		candidatePairs[slot] = packMatch(Math.min(playerA, playerB), Math.max(playerA, playerB));
+		shuffledMatches[slot] = slot;
+	}
+
+	/**
+	 * Private helper to shuffle the first candidate slots in the shuffled matches array and queue them as candidates
+	 * The shuffled order becomes the rank each match uses to break ties (Randomization)
+	 * @param numMatches The number of candidate slots to queue
+	 */
+	private void queueShuffledMatches(int numMatches)
+	{
+		shuffle(shuffledMatches, numMatches);
+		candidateMatches.clear();
+		for(int i = 0; i < numMatches; i++)
+		{
+			int match = shuffledMatches[i];
+			candidateMatches.setRank(match, i);
+			candidateMatches.add(match, key(match));
+		}
+	}
+
+	/**
+	 * Private helper to shuffle the front of an array (Fisher-Yates)
+	 * @param array The array
+	 * @param length The number of elements to shuffle
+	 */
+	private void shuffle(int[] array, int length)
+	{
+		for(int i = length - 1; i > 0; i--)
+		{
+			int j = random.nextInt(i + 1);
+			int temp = array[i];
+			array[i] = array[j];
+			array[j] = temp;
+		}
+	}
+
+	/**
+	 * Backtracking search to schedule every match in a round
+	 * Mirrors scheduleRoundMatches in the schedule builder on the primitive columns
+	 * Runs on the preallocated search stack instead of recursing, so large rounds cannot overflow the call stack
+	 * @param numGamesInRound numGamesInFullRound or numGamesInPartialRound depending on round type
+	 * @return True if every match in the round was scheduled, false if the round could not be scheduled
+	 */
+	private boolean scheduleRoundMatches(int numGamesInRound)
+	{
+		int depth = 0;           // Counts the number of games scheduled so far in the round
+		numTriedMatches = 0;
+		frameStarts[0] = 0;
+
+		while(true)
+		{
+			// Returns true when all games have been scheduled successfully
+			if(depth == numGamesInRound)
+				return true;
+			// Stops the search if the build was cancelled or ran out of time
+			checkStop.run();
+
+			// Loops through the candidate matches at this depth until a valid match is committed
+			boolean committed = false;
+			while(!candidateMatches.isEmpty())
+			{
+				// Finds the best match from the candidate matches and removes it from the queue since it has been used
+				int bestMatch = candidateMatches.poll();
+				triedMatches[numTriedMatches] = bestMatch;
+				numTriedMatches++;
+				// Continues to get a new best match if the best match is invalid
+				long bestPair = pairOf(bestMatch);
+				int a = playerA(bestPair);
+				int b = playerB(bestPair);
+				if(numMatchesIn[a] >= numGamesEach || numMatchesIn[b] >= numGamesEach)
+					continue;
+				// Saves the old last match indices before commiting the best match
+				oldLastMatchIndicesA[depth] = lastMatchIndex[a];
+				oldLastMatchIndicesB[depth] = lastMatchIndex[b];
+				// Commits the best match (Could still be changed in the future through backtracking)
+				scheduledMatches[matchIndex - bufferOffset] = packMatch(a, b);
+				matchIndex++;
+				numMatchesIn[a]++;
+				numMatchesIn[b]++;
+				lastMatchIndex[a] = matchIndex;
+				lastMatchIndex[b] = matchIndex;
+				updateCandidateKeys(a);
+				updateCandidateKeys(b);
+				committed = true;
+				break;
+			}
+
+			// Goes one depth deeper to schedule the next match
+			if(committed)
+			{
+				depth++;
+				frameStarts[depth] = numTriedMatches;
+				numNodesVisited++;
+				maxDepth = Math.max(maxDepth, depth);
+				continue;
+			}
+
+			// Adds all tried matches of this depth back to the candidate matches queue before backtracking
+			while(numTriedMatches > frameStarts[depth])
+			{
+				numTriedMatches--;
+				int triedMatch = triedMatches[numTriedMatches];
+				candidateMatches.add(triedMatch, key(triedMatch));
+			}
+			// Fails when the first depth runs out of candidates
+			if(depth == 0)
+				return false;
+
+			// BACKTRACKING NEEDED (The match committed at the previous depth is the last scheduled match)
+			depth--;
+			numBacktracks++;
+			matchIndex--;
+			int a = playerA(scheduledMatches[matchIndex - bufferOffset]);
+			int b = playerB(scheduledMatches[matchIndex - bufferOffset]);
+			numMatchesIn[a]--;
+			numMatchesIn[b]--;
+			lastMatchIndex[a] = oldLastMatchIndicesA[depth];
+			lastMatchIndex[b] = oldLastMatchIndicesB[depth];
+			updateCandidateKeys(a);
+			updateCandidateKeys(b);
+		}
+	}
+
+	/**
+	 * Private helper to re-key every candidate match a player is in after its greedy heuristics change
+	 * @param player The player id
+	 */
+	private void updateCandidateKeys(int player)
+	{
+		if(constructive)
+		{
+			for(int k = adjacencyStarts[player]; k < adjacencyStarts[player + 1]; k++)
+			{
+				int slot = adjacentSlots[k];
+				if(candidateMatches.contains(slot))
+					candidateMatches.update(slot, key(slot));
+			}
+			return;
+		}
+		for(int other = 0; other < numPlayers; other++)
+		{
+			if(other == player)
+				continue;
+			int slot = PairIndex.index(player, other, numPlayers);
+			if(candidateMatches.contains(slot))
+				candidateMatches.update(slot, key(player, other));
+		}
+	}
+
+	/**
+	 * Packs both greedy heuristics of a match into the key used by the candidate match queue
+	 * Prioritizes the matches with the lowest sum of numMatchesIn
+	 * Tie Breaks with the lowest sum of lastMatchIndex
+	 * @param slot The candidate slot
+	 * @return The key of the match
+	 */
+	private long key(int slot)
+	{
+		long pair = pairOf(slot);
+		return key(playerA(pair), playerB(pair));
+	}
+
+	/**
+	 * Packs both greedy heuristics of the match between two players into the key used by the candidate match queue
+	 * @param a The id of one player
+	 * @param b The id of the other player
+	 * @return The key of the match
+	 */
+	private long key(int a, int b)
+	{
+		return MatchQueue.key(numMatchesIn[a] + numMatchesIn[b], lastMatchIndex[a] + lastMatchIndex[b]);
+	}
+}
@@ -0,0 +1,191 @@
+package data_classes;
+
+import java.util.Arrays;
+
+/**
+ * This class is an indexed priority queue of candidate matches used by the schedule builder
+ * It is a binary min-heap over match ids that remembers where every match sits, so a match can be re-keyed or checked in place
+ * Matches are ordered by key, which packs the sum of numMatchesIn above the sum of lastMatchIndex (The greedy heuristics)
+ * Ties are broken by rank, which is the position of the match in the shuffled round order
+ * Polling, adding and re-keying a match are all O(log m)
+ * @author William Shaw
+ */
+class MatchQueue
+{
+	private int[] heap;      // Match ids in heap order
+	private int[] position;  // Position of each match id in the heap (-1 if the match is not queued)
+	private long[] keys;     // Key of each match id (Greedy heuristics)
+	private int[] ranks;     // Rank of each match id (Tie breaker)
+	private int size = 0;    // The number of queued matches
+
+	/**
+	 * Constructor
+	 * @param numMatches The number of match ids the queue can hold (nC2)
+	 */
+	MatchQueue(int numMatches)
+	{
+		heap = new int[numMatches];
+		position = new int[numMatches];
+		keys = new long[numMatches];
+		ranks = new int[numMatches];
+		Arrays.fill(position, -1);
+	}
+
+	/**
+	 * Packs the greedy heuristics of a match into a single key
+	 * @param sumNumMatchesIn Sum of the number of matches each player has already been scheduled in (Outer heuristic)
+	 * @param sumLastMatchIndices Sum of the indices of the last match each player was scheduled in (Inner heuristic)
+	 * @return The key
+	 */
+	static long key(int sumNumMatchesIn, int sumLastMatchIndices)
+	{
+		return ((long) sumNumMatchesIn << 32) | (sumLastMatchIndices & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Sets the rank used to break ties for a match
+	 * @param match The match id
+	 * @param rank The rank (Lower ranks are polled first)
+	 */
+	void setRank(int match, int rank)
+	{
+		ranks[match] = rank;
+	}
+
+	/**
+	 * Adds a match to the queue
+	 * @param match The match id
+	 * @param key The key of the match
+	 */
+	void add(int match, long key)
+	{
+		keys[match] = key;
+		heap[size] = match;
+		position[match] = size;
+		size++;
+		siftUp(size - 1);
+	}
+
+	/**
+	 * Removes and returns the best match in the queue
+	 * @return The match id with the lowest key and rank
+	 */
+	int poll()
+	{
+		int best = heap[0];
+		size--;
+		position[best] = -1;
+		if(size > 0)
+		{
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return best;
+	}
+
+	/**
+	 * Changes the key of a queued match and moves it to its new place in the heap
+	 * @param match The match id
+	 * @param key The new key of the match
+	 */
+	void update(int match, long key)
+	{
+		long oldKey = keys[match];
+		keys[match] = key;
+		if(key < oldKey)
+			siftUp(position[match]);
+		else if(key > oldKey)
+			siftDown(position[match]);
+	}
+
+	/**
+	 * Checks if a match is queued
+	 * @param match The match id
+	 * @return True if the match is queued, false otherwise
+	 */
+	boolean contains(int match)
+	{
+		return position[match] != -1;
+	}
+
+	/**
+	 * Checks if the queue is empty
+	 * @return True if empty, false otherwise
+	 */
+	boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * Removes every match from the queue
+	 */
+	void clear()
+	{
+		for(int i = 0; i < size; i++)
+		{
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Private helper to compare two matches by key then rank
+	 * @param matchA The first match id
+	 * @param matchB The second match id
+	 * @return True if matchA should be polled before matchB
+	 */
+	private boolean before(int matchA, int matchB)
+	{
+		if(keys[matchA] != keys[matchB])
+			return keys[matchA] < keys[matchB];
+		return ranks[matchA] < ranks[matchB];
+	}
+
+	/**
+	 * Private helper to move a match up the heap until its parent comes before it
+	 * @param index The heap position of the match
+	 */
+	private void siftUp(int index)
+	{
+		int match = heap[index];
+		while(index > 0)
+		{
+			int parentIndex = (index - 1) / 2;
+			int parent = heap[parentIndex];
+			if(!before(match, parent))
+				break;
+			heap[index] = parent;
+			position[parent] = index;
+			index = parentIndex;
+		}
+		heap[index] = match;
+		position[match] = index;
+	}
+
+	/**
+	 * Private helper to move a match down the heap until it comes before both of its children
+	 * @param index The heap position of the match
+	 */
+	private void siftDown(int index)
+	{
+		int match = heap[index];
+		while(true)
+		{
+			int childIndex = 2 * index + 1;
+			if(childIndex >= size)
+				break;
+			if(childIndex + 1 < size && before(heap[childIndex + 1], heap[childIndex]))
+				childIndex++;
+			int child = heap[childIndex];
+			if(!before(child, match))
+				break;
+			heap[index] = child;
+			position[child] = index;
+			index = childIndex;
+		}
+		heap[index] = match;
+		position[match] = index;
+	}
+}
@@ -0,0 +1,77 @@
+package data_classes;
+
+/**
+ * This class addresses every unordered pair of players by a single triangular index without materialising the pairs
+ * Pairs are numbered row by row through the upper triangle: (0, 1), (0, 2) ... (0, n - 1), (1, 2) ... (n - 2, n - 1)
+ * An index fits in an int for rosters of up to 46341 players, so used or tried pairs can be tracked in a BitSet of nC2 bits instead of a set of pair objects
+ * Converting either way is O(1)
+ * @author William Shaw
+ */
+final class PairIndex
+{
+	/**
+	 * Private constructor (Static helpers only)
+	 */
+	private PairIndex()
+	{
+	}
+
+	/**
+	 * Gets the number of unordered pairs of players
+	 * @param numPlayers The number of players
+	 * @return nC2
+	 */
+	static int numPairs(int numPlayers)
+	{
+		return (int) (((long) numPlayers * (numPlayers - 1)) / 2);
+	}
+
+	/**
+	 * Gets the triangular index of a pair of players (In either order)
+	 * @param playerA The id of one player
+	 * @param playerB The id of the other player (Not the same as player A)
+	 * @param numPlayers The number of players
+	 * @return The index of the pair
+	 */
+	static int index(int playerA, int playerB, int numPlayers)
+	{
+		long i = Math.min(playerA, playerB);
+		long j = Math.max(playerA, playerB);
+		return (int) (rowStart(i, numPlayers) + (j - i - 1));
+	}
+
+	/**
+	 * Gets the pair of players at a triangular index
+	 * The row is found with the inverse of the row start formula, then nudged to correct floating point rounding
+	 * @param index The index of the pair
+	 * @param numPlayers The number of players
+	 * @return The pair as packed player ids (Lower id first) (See IndexedScheduleEngine.packMatch)
+	 */
+	static long pair(int index, int numPlayers)
+	{
+		double b = 2.0 * numPlayers - 1;
+		long i = (long) ((b - Math.sqrt(b * b - 8.0 * index)) / 2);
+		i = Math.max(0, Math.min(i, numPlayers - 2));
+		while(i > 0 && rowStart(i, numPlayers) > index)
+		{
+			i--;
+		}
+		while(i < numPlayers - 2 && rowStart(i + 1, numPlayers) <= index)
+		{
+			i++;
+		}
+		long j = index - rowStart(i, numPlayers) + i + 1;
+		return IndexedScheduleEngine.packMatch((int) i, (int) j);
+	}
+
+	/**
+	 * Private helper to get the index of the first pair in a row of the upper triangle
+	 * @param i The row (The lower player id)
+	 * @param numPlayers The number of players
+	 * @return The index of the pair (i, i + 1)
+	 */
+	private static long rowStart(long i, int numPlayers)
+	{
+		return i * (2L * numPlayers - i - 1) / 2;
+	}
+}
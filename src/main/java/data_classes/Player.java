@@ -84,6 +84,24 @@ public class Player implements Comparable<Player>
 		return roundedRatio;
 	}
 
+	/**
+	 * Getter for rallies won
+	 * @return Total number of rallies won
+	 */
+	int getRalliesWon()
+	{
+		return ralliesWon;
+	}
+
+	/**
+	 * Getter for rallies lost
+	 * @return Total number of rallies lost
+	 */
+	int getRalliesLost()
+	{
+		return ralliesLost;
+	}
+
 	/**
 	 * Setter for player name
 	 * @param name Player name
@@ -120,6 +138,23 @@ public class Player implements Comparable<Player>
 		if(gameRalliesWon > gameRalliesLost) wins++;
 	}
 	
+	/**
+	 * Restores the player stats (Used to load a saved player, see TournamentFile)
+	 * The ratio is worked out the same way updateStats() works it out
+	 * @param wins Number of wins
+	 * @param gamesPlayed Number of games played
+	 * @param ralliesWon Total number of rallies won
+	 * @param ralliesLost Total number of rallies lost
+	 */
+	void restoreStats(int wins, int gamesPlayed, int ralliesWon, int ralliesLost)
+	{
+		this.wins = wins;
+		this.gamesPlayed = gamesPlayed;
+		this.ralliesWon = ralliesWon;
+		this.ralliesLost = ralliesLost;
+		ratio = (gamesPlayed == 0) ? 1.0 : (double) ralliesWon / (double) Math.max(ralliesLost, 1);
+	}
+
 	/**
 	 * Resets the player stats to default
 	 */
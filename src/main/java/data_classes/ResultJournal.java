@@ -0,0 +1,236 @@
+package data_classes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * This class is an append-only journal of game results, so results survive the app closing or crashing between saves
+ * Each record is the index of the game, the scores of player A and player B, and when the game ended, followed by a CRC32C checksum of the record
+ * Appending a record writes it straight to the file, so it survives the app crashing. The file is only synced to the disk in groups,
+ * by a background thread every COMMIT_INTERVAL_MILLIS, so results are not held up by one sync per game (Group commit)
+ * The journal only holds the results since the last saved tournament (See TournamentFile). Once a tournament is saved the journal is truncated,
+ * so replaying it on startup stays short (See replay and truncate)
+ * Replaying skips games that are already played, so a record that made it into a saved tournament before the journal was truncated is not applied twice
+ * @author William Shaw
+ */
+public class ResultJournal implements AutoCloseable
+{
+	private static final int FILE_MAGIC = 0x524A4C31;       // First int of every journal file ("RJL1")
+	private static final int VERSION = 1;                   // Version of the record layout
+	private static final int HEADER_SIZE = 8;               // Magic and version
+	private static final int RECORD_SIZE = 24;              // Game index, scores and end time, then the checksum
+	private static final long COMMIT_INTERVAL_MILLIS = 200; // How often appended records are synced to the disk
+
+	private FileChannel channel;                // The journal file (Positioned at its end)
+	private ScheduledExecutorService committer; // Syncs appended records to the disk in groups
+	private boolean hasUnsyncedRecords = false; // True if records were appended since the last sync
+	private int numRecords;                     // The number of records in the journal
+
+	/**
+	 * Constructor
+	 * Opens the journal, creating it if it does not exist
+	 * A journal that is not valid is emptied. Records are checked from the start, and the journal is cut at the first record that fails its checksum
+	 * (A record cut off or garbled by a crash), so new records are appended straight after the last good record instead of behind a bad one
+	 * @param file The journal file (Its directory is created if it does not exist)
+	 * @throws IOException If the journal cannot be opened
+	 */
+	public ResultJournal(Path file) throws IOException
+	{
+		if(file.getParent() != null)
+			Files.createDirectories(file.getParent());
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		if(!readFully(header, 0) || header.getInt(0) != FILE_MAGIC || header.getInt(4) != VERSION)
+		{
+			channel.truncate(0);
+			header.clear();
+			header.putInt(FILE_MAGIC);
+			header.putInt(VERSION);
+			header.flip();
+			while(header.hasRemaining())
+			{
+				channel.write(header, header.position());
+			}
+			channel.force(false);
+		}
+		numRecords = 0;
+		ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		while(readFully(record, HEADER_SIZE + (long) numRecords * RECORD_SIZE) && isValid(record))
+		{
+			numRecords++;
+			record.clear();
+		}
+		channel.truncate(HEADER_SIZE + (long) numRecords * RECORD_SIZE);
+		channel.position(channel.size());
+
+		committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "result-journal-commit");
+			thread.setDaemon(true);
+			return thread;
+		});
+		committer.scheduleWithFixedDelay(this::commit, COMMIT_INTERVAL_MILLIS, COMMIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Appends the result of a game
+	 * The record is on disk once the next group commit has run (Within COMMIT_INTERVAL_MILLIS)
+	 * @param gameIndex The index of the game in the schedule
+	 * @param scoreA The score of player A
+	 * @param scoreB The score of player B
+	 * @throws IOException If the record cannot be written
+	 */
+	public synchronized void append(int gameIndex, int scoreA, int scoreB) throws IOException
+	{
+		ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		record.putInt(gameIndex);
+		record.putInt(scoreA);
+		record.putInt(scoreB);
+		record.putLong(System.currentTimeMillis());
+		record.putInt(checksum(record));
+		record.flip();
+		while(record.hasRemaining())
+		{
+			channel.write(record);
+		}
+		numRecords++;
+		hasUnsyncedRecords = true;
+	}
+
+	/**
+	 * Replays the journal onto a schedule loaded from the last saved tournament
+	 * Each record updates the stats of both players and marks its game as played, the same way ending the game did
+	 * Replaying stops at the first record that fails its checksum (Bad records are cut off when the journal is opened, so only a file changed since then has any)
+	 * @param schedule The schedule the results were recorded on
+	 * @return The number of results applied (Records for games that are already played or not in the schedule are skipped)
+	 * @throws IOException If the journal cannot be read
+	 */
+	public synchronized int replay(Schedule schedule) throws IOException
+	{
+		int numApplied = 0;
+		ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+		for(int i = 0; i < numRecords; i++)
+		{
+			record.clear();
+			if(!readFully(record, HEADER_SIZE + (long) i * RECORD_SIZE) || !isValid(record))
+				break;
+			int gameIndex = record.getInt(0);
+			int scoreA = record.getInt(4);
+			int scoreB = record.getInt(8);
+			Game game = (gameIndex < 0 || gameIndex >= schedule.getNumGames()) ? null : schedule.getGame(gameIndex);
+			if(game == null || game.getPlayed())
+				continue;
+			game.getPlayerA().updateStats(scoreA, scoreB);
+			game.getPlayerB().updateStats(scoreB, scoreA);
+			schedule.markGamePlayed(gameIndex, scoreA, scoreB);
+			numApplied++;
+		}
+		return numApplied;
+	}
+
+	/**
+	 * Empties the journal once every result in it has been saved with the tournament (Compaction)
+	 * @throws IOException If the journal cannot be truncated
+	 */
+	public synchronized void truncate() throws IOException
+	{
+		channel.truncate(HEADER_SIZE);
+		channel.position(HEADER_SIZE);
+		channel.force(false);
+		numRecords = 0;
+		hasUnsyncedRecords = false;
+	}
+
+	/**
+	 * Getter for the number of records
+	 * @return The number of results appended since the journal was last truncated
+	 */
+	public synchronized int getNumRecords()
+	{
+		return numRecords;
+	}
+
+	/**
+	 * Syncs every appended record to the disk and closes the journal
+	 * @throws IOException If the journal cannot be synced or closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		committer.shutdown();
+		commit();
+		channel.close();
+	}
+
+	/**
+	 * Private helper to sync the records appended since the last sync (Group commit)
+	 * The sync runs outside the lock, so results can keep being appended while it waits on the disk
+	 */
+	private void commit()
+	{
+		synchronized(this)
+		{
+			if(!hasUnsyncedRecords)
+				return;
+			hasUnsyncedRecords = false;
+		}
+		try
+		{
+			channel.force(false);
+		}
+		catch(IOException e)
+		{
+			// Tries again with the next group
+			synchronized(this)
+			{
+				hasUnsyncedRecords = true;
+			}
+		}
+	}
+
+	/**
+	 * Private helper to read from a position in the journal until a buffer is full
+	 * @param buffer The buffer (Filled from its start)
+	 * @param position The position in the journal to read from
+	 * @return True if the buffer was filled, false if the journal ended first
+	 * @throws IOException If the journal cannot be read
+	 */
+	private boolean readFully(ByteBuffer buffer, long position) throws IOException
+	{
+		while(buffer.hasRemaining())
+		{
+			if(channel.read(buffer, position + buffer.position()) < 0)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Private helper to check a record read from the journal against its checksum
+	 * @param record The record
+	 * @return True if the record's checksum matches its fields, false otherwise
+	 */
+	private static boolean isValid(ByteBuffer record)
+	{
+		return record.getInt(RECORD_SIZE - Integer.BYTES) == checksum(record);
+	}
+
+	/**
+	 * Private helper to compute the checksum of a record
+	 * @param record The record (Its fields before the checksum start at index 0)
+	 * @return The CRC32C checksum of the record's fields
+	 */
+	private static int checksum(ByteBuffer record)
+	{
+		CRC32C checksum = new CRC32C();
+		checksum.update(record.slice(0, RECORD_SIZE - Integer.BYTES));
+		return (int) checksum.getValue();
+	}
+}
@@ -1,28 +1,147 @@
 package data_classes;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * This class represents the long term attributes and behaviour of a schedule
  * All creational logic belongs to the schedule builder which constructs schedules
  * There is generally only 1 schedule instance at a time
+ * A streaming schedule only holds the games that have been asked for, and generates the rest in chunks of about n/2 games (See ScheduleBuilder.buildStreaming)
+ * Asking for a game also generates the next few chunks after it, so the next games are ready before play reaches them
+ * Anything that needs every game (Metrics, moving games, appending games and repairs) generates the rest of the schedule first
  * @author William Shaw
  */
 public class Schedule 
 {
-    private ArrayList<Game> games;   // List of games
+	/**
+	 * Private Inner Class RoundView
+	 * A read-only list of the games in a round that reads them straight from the schedule instead of copying them
+	 * It always shows the round as it is now, so it stays correct as games are moved, renamed, played or streamed in
+	 * @author William Shaw
+	 */
+	private class RoundView extends AbstractList<Game>
+	{
+		private int roundIndex; // The index of the round the view shows
+
+		/**
+		 * Constructor
+		 * @param roundIndex The index of the round the view shows
+		 */
+		private RoundView(int roundIndex)
+		{
+			this.roundIndex = roundIndex;
+		}
+
+		/**
+		 * Gets the number of games in the round
+		 * @return The number of games (Fewer than a full round for the last round, 0 if there is no such round)
+		 */
+		@Override
+		public int size()
+		{
+			long numGamesAfterStart = getNumGames() - (long) roundIndex * numGamesInFullRound;
+			return (int) Math.max(0, Math.min(numGamesInFullRound, numGamesAfterStart));
+		}
+
+		/**
+		 * Gets a game in the round
+		 * @param index The index of the game within the round
+		 * @return The game
+		 */
+		@Override
+		public Game get(int index)
+		{
+			Objects.checkIndex(index, size());
+			return getGame(roundIndex * numGamesInFullRound + index);
+		}
+	}
+
+	private static final int NUM_CHUNKS_AHEAD = 3; // How many chunks past the game asked for a streaming schedule keeps ready
+
+    private GameSequence games;      // List of games (Implicit treap, so games can be moved in O(log n))
 	private int numGamesInFullRound; // The number of games in a full round
+	private long seed;               // The seed the schedule was built from (Rebuilds the same schedule)
+	private boolean hasSeed;         // True if a schedule builder can rebuild the schedule from its seed
+	private ScheduleMetrics metrics; // Quality metrics (Updated as games are moved or played)
+	private int numTables = 1;       // The number of games played at the same time
+	private int[] slotStarts;        // Where each time slot starts in the games, followed by the number of games (null for a single table)
+	private Supplier<List<Game>> chunkGenerator = null; // Generates the next chunk of a streaming schedule (null once every game has been generated)
+	private int numGamesNotGenerated = 0; // The number of games a streaming schedule has not generated yet
+	private int numGamesAhead = 0;   // How many games past the one asked for a streaming schedule generates (A few chunks)
 	
 	/**
 	 * Constructor
-	 * Called by the schedule builder once the schedule builder has produced a list of games
+	 * Used for schedules that were not built from a seed, such as Swiss rounds, brackets and relabelled templates (See hasSeed)
 	 * @param games List of games
 	 * @param numGamesInFullRound The number of games in a full round
 	 */
 	public Schedule(ArrayList<Game> games, int numGamesInFullRound)
 	{
-		this.games = games;
+		this(games, numGamesInFullRound, 0);
+		hasSeed = false;
+	}
+
+	/**
+	 * Constructor
+	 * Called by the schedule builder once the schedule builder has produced a list of games
+	 * @param games List of games
+	 * @param numGamesInFullRound The number of games in a full round
+	 * @param seed The seed the schedule was built from
+	 */
+	public Schedule(ArrayList<Game> games, int numGamesInFullRound, long seed)
+	{
+		this.games = new GameSequence(games);
 		this.numGamesInFullRound = numGamesInFullRound;
+		this.seed = seed;
+		this.hasSeed = true;
+		metrics = new ScheduleMetrics(this.games, numGamesInFullRound);
+	}
+
+	/**
+	 * Constructor for a tournament that plays several games at the same time
+	 * Called by the schedule builder once the slot scheduler has grouped the games into time slots
+	 * @param games List of games (The games of each slot are next to each other)
+	 * @param numGamesInFullRound The number of games in a full round
+	 * @param seed The seed the schedule was built from
+	 * @param numTables The number of games played at the same time
+	 * @param slotStarts Where each time slot starts in the games, followed by the number of games
+	 */
+	Schedule(ArrayList<Game> games, int numGamesInFullRound, long seed, int numTables, int[] slotStarts)
+	{
+		this(games, numGamesInFullRound, seed);
+		this.numTables = numTables;
+		this.slotStarts = slotStarts;
+	}
+
+	/**
+	 * Constructor for a streaming schedule
+	 * Called by the schedule builder once it has scheduled the first chunk
+	 * The metrics are only set up once every game has been generated
+	 * @param firstChunk List of games in the first chunk
+	 * @param numGamesInFullRound The number of games in a full round
+	 * @param seed The seed the schedule was built from
+	 * @param numGamesTotal The number of games once every chunk has been generated
+	 * @param chunkGenerator Generates the next chunk each time it is called
+	 */
+	Schedule(ArrayList<Game> firstChunk, int numGamesInFullRound, long seed, int numGamesTotal, Supplier<List<Game>> chunkGenerator)
+	{
+		this.games = new GameSequence(firstChunk);
+		this.numGamesInFullRound = numGamesInFullRound;
+		this.seed = seed;
+		this.hasSeed = true;
+		this.numGamesNotGenerated = numGamesTotal - firstChunk.size();
+		this.chunkGenerator = (numGamesNotGenerated > 0) ? chunkGenerator : null;
+		this.numGamesAhead = NUM_CHUNKS_AHEAD * firstChunk.size();
+		if(this.chunkGenerator == null)
+			metrics = new ScheduleMetrics(games, numGamesInFullRound);
 	}
 
 	/**
@@ -32,6 +151,7 @@ public class Schedule
 	 */
 	public Game getGame(int index)
 	{
+		generateThroughIndex((long) index + numGamesAhead);
 		if(index >= games.size())
 			return null;
 		return games.get(index);
@@ -45,13 +165,95 @@ public class Schedule
 	 */
 	public ArrayList<Game> getGamesInRound(int roundIndex)
 	{
+		generateThroughIndex((roundIndex + 1L) * numGamesInFullRound - 1);
 		int startIndex = roundIndex * numGamesInFullRound;
 		if(startIndex >= games.size())
 			return new ArrayList<>();
 		int endIndex = startIndex + numGamesInFullRound;
 		endIndex = Math.min(endIndex, games.size());
-		ArrayList<Game> gamesInRound = new ArrayList<>(games.subList(startIndex, endIndex));
-		return gamesInRound;
+		return games.copyRange(startIndex, endIndex);
+	}
+
+	/**
+	 * Gets a read-only view of the games in a given round by round index
+	 * Unlike getGamesInRound nothing is copied. Every round starts at a multiple of the number of games in a full round, so each game of the view is a single O(log n) lookup
+	 * The view stays backed by the schedule, so it shows later changes to the round without being fetched again
+	 * @param roundIndex The index of the round being requested
+	 * @return A read-only list of the games in the round (Empty if there is no such round)
+	 */
+	public List<Game> getRoundView(int roundIndex)
+	{
+		return new RoundView(roundIndex);
+	}
+
+	/**
+	 * Getter for the number of tables
+	 * @return The number of games played at the same time (1 if games are played one at a time)
+	 */
+	public int getNumTables()
+	{
+		return numTables;
+	}
+
+	/**
+	 * Gets the number of time slots in the schedule
+	 * No player is in two games of the same slot, so every game of a slot can be played at the same time
+	 * @return The number of slots (The number of games if games are played one at a time)
+	 */
+	public int getNumSlots()
+	{
+		if(slotStarts == null)
+			return getNumGames();
+		return slotStarts.length - 1;
+	}
+
+	/**
+	 * Gets the index of the first game in a time slot
+	 * The game at table t of the slot has index getSlotStartIndex(slot) + t
+	 * @param slotIndex The index of the slot
+	 * @return The index of the first game in the slot
+	 */
+	public int getSlotStartIndex(int slotIndex)
+	{
+		if(slotStarts == null)
+			return slotIndex;
+		return slotStarts[slotIndex];
+	}
+
+	/**
+	 * Gets all games in a given time slot by slot index
+	 * @param slotIndex The index of the slot being requested
+	 * @return A list of games in the slot in table order (Empty if there is no such slot)
+	 */
+	public ArrayList<Game> getGamesInSlot(int slotIndex)
+	{
+		if(slotIndex < 0 || slotIndex >= getNumSlots())
+			return new ArrayList<>();
+		int endIndex = (slotStarts == null) ? slotIndex + 1 : slotStarts[slotIndex + 1];
+		generateThroughIndex(endIndex - 1);
+		return games.copyRange(getSlotStartIndex(slotIndex), endIndex);
+	}
+
+	/**
+	 * Gets the time slot a game is played in
+	 * @param index The index of the game
+	 * @return The index of the slot the game is in
+	 */
+	public int getSlotOfGame(int index)
+	{
+		if(slotStarts == null)
+			return index;
+		int slotIndex = Arrays.binarySearch(slotStarts, 0, slotStarts.length - 1, index);
+		return (slotIndex >= 0) ? slotIndex : -slotIndex - 2;
+	}
+
+	/**
+	 * Gets the number of games in the schedule
+	 * @return The number of games
+	 */
+	public int getNumGames()
+	{
+		return games.size() + numGamesNotGenerated;
 	}
 
 	/**
@@ -60,10 +262,11 @@ public class Schedule
 	 */
 	public int getNumRounds()
 	{
-		if(games.size() % numGamesInFullRound == 0)
-			return games.size() / numGamesInFullRound;
+		int numGames = getNumGames();
+		if(numGames % numGamesInFullRound == 0)
+			return numGames / numGamesInFullRound;
 		else
-			return (games.size() / numGamesInFullRound) + 1;
+			return (numGames / numGamesInFullRound) + 1;
 	}
 
 	/**
@@ -75,6 +278,59 @@ public class Schedule
 		return numGamesInFullRound;
 	}
 
+	/**
+	 * Getter for the seed
+	 * Passing the seed back to a schedule builder with the same players, games each and options rebuilds this schedule
+	 * @return The seed the schedule was built from (0 if it has no seed, see hasSeed)
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * Checks if the schedule can be rebuilt from its seed
+	 * Schedules that were paired as a tournament went or relabelled from a template have no seed, since no schedule builder can rebuild them
+	 * @return True if a schedule builder can rebuild the schedule from getSeed, false otherwise
+	 */
+	public boolean hasSeed()
+	{
+		return hasSeed;
+	}
+
+	/**
+	 * Getter for the metrics
+	 * The metrics are kept up to date as games are moved or marked as played
+	 * A streaming schedule generates every game first
+	 * @return The quality metrics of the schedule
+	 */
+	public ScheduleMetrics getMetrics()
+	{
+		generateAllGames();
+		return metrics;
+	}
+
+	/**
+	 * Checks if the schedule is still streaming
+	 * A streaming schedule generates its games as they are needed, and anything that looks at every game generates the rest first
+	 * @return True if some games have not been generated yet, false otherwise
+	 */
+	public boolean isStreaming()
+	{
+		return chunkGenerator != null;
+	}
+
+	/**
+	 * Gets an iterator over the games in schedule order
+	 * Used to read every game once (Such as saving the schedule) without a O(log n) lookup per game. A streaming schedule generates every game first
+	 * @return An iterator over the games (Must not be used after the schedule changes)
+	 */
+	Iterator<Game> gameIterator()
+	{
+		generateAllGames();
+		return games.iterator();
+	}
+
 	/**
 	 * Changes the index of a game in the schedule
 	 * Used to reorder the schedule
@@ -83,11 +339,28 @@ public class Schedule
 	 */
 	public void changeGameIndex(int oldIndex, int newIndex)
 	{
-		Game game = games.remove(oldIndex);
 		if(newIndex > oldIndex)
 			newIndex--;
-		games.add(newIndex, game);
-	}	
+		generateAllGames();
+		metrics.moveGame(oldIndex, newIndex);
+		games.move(oldIndex, newIndex);
+		packSlots(Math.min(oldIndex, newIndex), Math.max(oldIndex, newIndex) + 1, 0);
+	}
+
+	/**
+	 * Moves a block of games to a new position in one step, keeping their order
+	 * Used to reorder several games at once. The games are moved in O(log n), and the metrics are only updated for the block and the games it moves past
+	 * @param fromIndex The index of the first game in the block
+	 * @param toIndex The index after the last game in the block
+	 * @param newIndex The index the first game of the block will have after the move
+	 */
+	public void moveGames(int fromIndex, int toIndex, int newIndex)
+	{
+		generateAllGames();
+		metrics.moveGames(fromIndex, toIndex, newIndex);
+		games.moveRange(fromIndex, toIndex, newIndex);
+		packSlots(Math.min(fromIndex, newIndex), Math.max(toIndex, newIndex + toIndex - fromIndex), 0);
+	}
 
 	/**
 	 * Clears the schedule
@@ -95,6 +368,10 @@ public class Schedule
 	public void clear()
 	{
 		games.clear();
+		chunkGenerator = null;
+		numGamesNotGenerated = 0;
+		metrics = new ScheduleMetrics(games, numGamesInFullRound);
+		packSlots(0, 0, 0);
 	}
 
 	/**
@@ -103,7 +380,7 @@ public class Schedule
 	 */
 	public boolean isEmpty()
 	{
-		return games.isEmpty();
+		return getNumGames() == 0;
 	}
 
 
@@ -113,8 +390,12 @@ public class Schedule
 	 */
 	public void updatePlayerName(Player player)
 	{
-		for(int i = 0; i < games.size(); i++)
+		// Only the player's own games are visited once the metrics have indexed them (A streaming schedule scans the games generated so far)
+		int[] positions = (metrics == null) ? null : metrics.getGamePositions(player);
+		int numGamesToVisit = (positions == null) ? games.size() : positions.length;
+		for(int j = 0; j < numGamesToVisit; j++)
 		{
+			int i = (positions == null) ? j : positions[j];
 			Player playerA = games.get(i).getPlayerA();
 			Player playerB = games.get(i).getPlayerB();
 			if(player == playerA)
@@ -126,19 +407,234 @@ public class Schedule
 
 	/**
 	 * Marks a game as played in the schedule by index
+	 * Games should be marked through the schedule rather than Game.markPlayed, so the schedule knows which games are left
 	 * @param index The index of the game to be marked as played
 	 */
 	public void markGamePlayed(int index)
 	{
-		games.get(index).markPlayed();
+		Game game = getGame(index);
+		if(game.getPlayed())
+			return;
+		game.markPlayed();
+		games.refresh(index);
+		if(metrics != null)
+			metrics.markGamePlayed(index, game);
+	}
+
+	/**
+	 * Gets the first unplayed game in the schedule (O(log n))
+	 * Games can be played out of order, so later games may have been played already
+	 * @return The index of the first unplayed game (The number of games if every game has been played)
+	 */
+	public int getFirstUnplayedIndex()
+	{
+		return games.firstUnplayedIndex();
+	}
+
+	/**
+	 * Gets the number of games left to play
+	 * @return The number of games not marked as played
+	 */
+	public int getNumGamesUnplayed()
+	{
+		return games.getNumUnplayed() + numGamesNotGenerated;
+	}
+
+	/**
+	 * Marks a game as played in the schedule by index and records its scores
+	 * @param index The index of the game to be marked as played
+	 * @param scoreA Player A's score
+	 * @param scoreB Player B's score
+	 */
+	public void markGamePlayed(int index, int scoreA, int scoreB)
+	{
+		getGame(index).setScores(scoreA, scoreB);
+		markGamePlayed(index);
 	}
 	
+	/**
+	 * Adds games to the end of the schedule
+	 * Used by Swiss tournaments, which pair each round after the previous round has been played (See SwissPairer), and by brackets as games become ready
+	 * The new games are added to the metrics without rebuilding them
+	 * @param newGames The games to add
+	 */
+	public void appendGames(List<Game> newGames)
+	{
+		generateAllGames();
+		int firstNewIndex = games.size();
+		games.addAll(newGames);
+		metrics.appendGames(newGames.size());
+		packSlots(firstNewIndex, games.size(), 0);
+	}
+
+	/**
+	 * Replaces a game in the schedule (Used by the schedule repairer)
+	 * The metrics are updated in place. The slots are stale until packSlots is called
+	 * @param index The index of the game
+	 * @param game The new game
+	 */
+	void setGame(int index, Game game)
+	{
+		generateAllGames();
+		Game oldGame = games.set(index, game);
+		metrics.replaceGame(index, oldGame);
+	}
+
+	/**
+	 * Inserts a game into the schedule (Used by the schedule repairer)
+	 * The metrics are updated in place. The slots are stale until packSlots is called
+	 * @param index The index the game will have
+	 * @param game The new game
+	 */
+	void addGame(int index, Game game)
+	{
+		generateAllGames();
+		games.add(index, game);
+		metrics.insertGame(index);
+	}
+
+	/**
+	 * Removes a game from the schedule (Used by the schedule repairer)
+	 * The metrics are updated in place. The slots are stale until packSlots is called
+	 * @param index The index of the game
+	 */
+	void removeGame(int index)
+	{
+		generateAllGames();
+		Game game = games.remove(index);
+		metrics.removeGame(index, game);
+	}
+
+	/**
+	 * Packs the games into pairs of player ids (Lower id first) so they can be scored or stored
+	 * @param players List of players the ids are indices into (Every player in the schedule must be in the list)
+	 * @return Scheduled games as packed pairs of player ids
+	 */
+	long[] packMatches(List<Player> players)
+	{
+		generateAllGames();
+		IdentityHashMap<Player, Integer> playerIds = new IdentityHashMap<>();
+		for(int i = 0; i < players.size(); i++)
+		{
+			playerIds.put(players.get(i), i);
+		}
+		long[] matches = new long[games.size()];
+		for(int i = 0; i < games.size(); i++)
+		{
+			int idA = playerIds.get(games.get(i).getPlayerA());
+			int idB = playerIds.get(games.get(i).getPlayerB());
+			matches[i] = IndexedScheduleEngine.packMatch(Math.min(idA, idB), Math.max(idA, idB));
+		}
+		return matches;
+	}
+
+	/**
+	 * Private helper to generate the chunks of a streaming schedule up to and including the chunk with a game
+	 * @param index The index of the last game that has to be generated
+	 */
+	private void generateThroughIndex(long index)
+	{
+		while(chunkGenerator != null && games.size() <= index)
+		{
+			generateNextChunk();
+		}
+	}
+
+	/**
+	 * Private helper to generate every chunk of a streaming schedule that has not been generated yet
+	 */
+	private void generateAllGames()
+	{
+		while(chunkGenerator != null)
+		{
+			generateNextChunk();
+		}
+	}
+
+	/**
+	 * Private helper to generate the next chunk of a streaming schedule
+	 * The metrics are set up once the last chunk has been generated
+	 */
+	private void generateNextChunk()
+	{
+		List<Game> chunk = chunkGenerator.get();
+		games.addAll(chunk);
+		numGamesNotGenerated -= chunk.size();
+		if(numGamesNotGenerated <= 0 || chunk.isEmpty())
+		{
+			numGamesNotGenerated = 0;
+			chunkGenerator = null;
+			metrics = new ScheduleMetrics(games, numGamesInFullRound);
+		}
+	}
+
+	/**
+	 * Regroups the games into time slots after the order of the games has changed
+	 * Slots before the changed game are kept. From there, each slot takes the next games in order until a player would be in two games of the slot,
+	 * the slot has a game at every table, or the next game starts a new round
+	 * Once a new slot starts on an old slot start past the changed games, the rest of the games are the same as before and keep their old slots,
+	 * so a drag only repacks the games it moved past instead of the rest of the schedule
+	 * @param fromIndex The index of the first game whose position changed
+	 * @param toIndex The index after the last changed game (Games from here on are the games that followed the change before it)
+	 * @param shift How far the games after the change moved (The number of games added minus the number removed)
+	 */
+	void packSlots(int fromIndex, int toIndex, int shift)
+	{
+		if(slotStarts == null)
+			return;
+		int[] oldSlotStarts = slotStarts;
+		// Keeps every slot before the one the changed game was in
+		int numSlots = (games.isEmpty()) ? 0 : Math.min(getSlotOfGame(Math.min(fromIndex, games.size() - 1)), oldSlotStarts.length - 1);
+		int[] newSlotStarts = Arrays.copyOf(oldSlotStarts, Math.max(oldSlotStarts.length, games.size() + 1));
+		boolean canRealign = shift % numGamesInFullRound == 0; // Old slots only fit if the round boundaries did not move
+		int oldSlot = numSlots;
+		int index = oldSlotStarts[numSlots];
+		Iterator<Game> iterator = games.iterator(Math.min(index, games.size()));
+		Game game = iterator.hasNext() ? iterator.next() : null;
+		HashSet<Player> playersInSlot = new HashSet<>();
+		while(game != null)
+		{
+			if(canRealign && index >= toIndex)
+			{
+				while(oldSlot < oldSlotStarts.length - 1 && oldSlotStarts[oldSlot] < index - shift)
+				{
+					oldSlot++;
+				}
+				if(oldSlot < oldSlotStarts.length - 1 && oldSlotStarts[oldSlot] == index - shift)
+				{
+					while(oldSlot < oldSlotStarts.length - 1)
+					{
+						newSlotStarts[numSlots] = oldSlotStarts[oldSlot] + shift;
+						numSlots++;
+						oldSlot++;
+					}
+					break;
+				}
+			}
+			newSlotStarts[numSlots] = index;
+			numSlots++;
+			playersInSlot.clear();
+			do
+			{
+				playersInSlot.add(game.getPlayerA());
+				playersInSlot.add(game.getPlayerB());
+				index++;
+				game = iterator.hasNext() ? iterator.next() : null;
+			}
+			while(game != null && index - newSlotStarts[numSlots - 1] < numTables && index % numGamesInFullRound != 0
+				&& !playersInSlot.contains(game.getPlayerA()) && !playersInSlot.contains(game.getPlayerB()));
+		}
+		newSlotStarts[numSlots] = games.size();
+		slotStarts = Arrays.copyOf(newSlotStarts, numSlots + 1);
+	}
+
 	/**
 	 * Prints the list of games out to a terminal
 	 * Used for testing the schedule builder with terminal testing
 	 */
 	public void printGames()
 	{
+		generateAllGames();
 		int roundNumber = 1;
 		System.out.println("Round 1: ");
 		System.out.println(games.get(0));
@@ -0,0 +1,48 @@
+package data_classes;
+
+/**
+ * This class is the exception thrown when the schedule builder cannot return a schedule
+ * The reason tells the caller whether to fix the input, try again or give the build more time
+ * @author William Shaw
+ */
+public class ScheduleBuildException extends RuntimeException
+{
+	/**
+	 * The reasons a build can fail
+	 * INFEASIBLE if no schedule exists for the input (Odd number of players and odd number of games each, or fewer than 2 players)
+	 * NO_SCHEDULE_FOUND if the search ran out of candidates before every round was scheduled
+	 * CANCELLED if the cancellation token was cancelled or the building thread was interrupted before a schedule was found
+	 * TIMED_OUT if the time budget ran out before a schedule was found
+	 */
+	public enum Reason
+	{
+		INFEASIBLE,
+		NO_SCHEDULE_FOUND,
+		CANCELLED,
+		TIMED_OUT
+	}
+
+	private static final long serialVersionUID = 1L; // Version of the serialized form
+
+	private final Reason reason; // Why the build failed
+
+	/**
+	 * Constructor
+	 * @param reason Why the build failed
+	 * @param message A description of the failure
+	 */
+	public ScheduleBuildException(Reason reason, String message)
+	{
+		super(message);
+		this.reason = reason;
+	}
+
+	/**
+	 * Getter for the reason
+	 * @return Why the build failed
+	 */
+	public Reason getReason()
+	{
+		return reason;
+	}
+}
@@ -2,21 +2,62 @@ package data_classes;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class is responsible for constructing schedule objects
  * It follows the builder design pattern
  * It uses a greedy search algorithm to schedule games according to heuristics like numMatchesIn and lastMatchIndex
+ * The search can run on schedulee and match objects or on the primitive int-indexed engine (See Engine)
+ * It can also run several randomized builds in parallel and keep the fairest one (See setNumStarts)
+ * Built schedules can be improved by a parallel tempering post-pass that reorders games within rounds (See setOptimizerSweeps)
+ * Tournaments that play several games at the same time can have the games grouped into time slots (See setNumTables)
+ * Every random decision comes from one seeded generator, so a seed rebuilds the same schedule (See setSeed)
+ * Builds can be bounded by a time budget and a cancellation token, and return the best schedule found by then
+ * Large tournaments can stream their schedule instead, scheduling only the first chunk of games up front (See buildStreaming)
+ * A build that cannot return a schedule throws a ScheduleBuildException with the reason
  */
 public class ScheduleBuilder 
 {
+	/**
+	 * The engines the schedule builder can run the greedy search on
+	 * OBJECT schedules with schedulee and match objects (Default)
+	 * INDEXED schedules with int player ids and primitive arrays, allocating almost nothing per match (Large rosters)
+	 * CONSTRUCTIVE runs like INDEXED but builds every round directly (Circle method and regular subgraph), so it never has to backtrack
+	 * It never holds every pair at once, so its memory grows with the games scheduled rather than nC2 (Huge rosters)
+	 */
+	public enum Engine
+	{
+		OBJECT,
+		INDEXED,
+		CONSTRUCTIVE
+	}
+
+	private static final long IMPROVEMENT_INTERVAL_MILLIS = 100; // Shortest time between two improvements passed to the listener
+
     // Private data structures
+	private ArrayList<Player> players;                                      // List of players (Schedule order)
 	private ArrayList<Schedulee> schedulees = new ArrayList<>();            // List of schedulees
 	private ArrayList<Match> uniqueMatches = new ArrayList<>();             // List of all unique matches
 	private ArrayList<Match> scheduledMatches = new ArrayList<>();          // List of scheduled matches (Accumulates as rounds are scheduled)
-	private ArrayList<Game> scheduledGames = new ArrayList<>();             // List of scheduled games (Converted from matches)
-	private HashMap<Schedulee, Player> scheduleeToPlayer = new HashMap<>(); // Maps schedulees back to players
+	private MatchQueue candidateMatches;                                    // Candidate matches in a round. Shrinks as matches are scheduled
+
+	// Preallocated search stack (Replaces recursion)
+	private Match[] committedMatches;    // The match committed at each depth of the search
+	private int[] oldLastMatchIndicesA;  // Last match index of schedulee A before the match at each depth was committed (Undo)
+	private int[] oldLastMatchIndicesB;  // Last match index of schedulee B before the match at each depth was committed (Undo)
+	private int[] frameStarts;           // Where the tried matches of each depth start on the tried matches stack
+	private Match[] triedMatches;        // Stack of matches tried at each depth
+	private int numTriedMatches;         // The number of matches on the tried matches stack
+
+	// Search counters (Accumulate over every round of a build)
+	private long numNodesVisited = 0;    // The number of matches committed by the search
+	private int maxDepth = 0;            // The deepest the search got in a single round
+	private long numBacktracks = 0;      // The number of committed matches undone by backtracking
 	
 	// Private attributes
 	private int matchIndex = 0;          // Index of the current match being schedule. Counts total matches scheduled
@@ -24,6 +65,22 @@ public class ScheduleBuilder
 	private int numGamesInFullRound;     // The number of games in a full round (Round robin) (nC2)
 	private int numGamesInPartialRound;  // The number of games in the final partial round (Remainder)
 	private int numFullRounds;           // The number of complete rounds (Round robins)
+	private Engine engine = Engine.OBJECT; // The engine used to run the greedy search
+	private int numStarts = 1;           // The number of independent randomized builds (Best of N)
+	private long timeBudgetMillis = 0;   // Wall-clock budget for the whole build in milliseconds (0 for no budget)
+	private long deadline;               // System.nanoTime() when the time budget runs out (Set when the build starts)
+	private CancellationToken cancellationToken = null;  // Token that stops the build (null if the build cannot be cancelled)
+	private ScheduleImprovementListener improvementListener = null; // Receives every improvement (null for no listener)
+	private long lastImprovementReported; // System.nanoTime() when the listener was last passed an improvement
+	private long[] unreportedImprovement = null; // The latest improvement held back until IMPROVEMENT_INTERVAL_MILLIS has passed (null if there is none)
+	private long orientationSeed;        // Seed of the generator that orients games (Same for every improvement)
+	private long[] scheduledMatchesOfStart; // Scheduled matches of a best of N start (Handed back to the builder that started it)
+	private ScheduleBuilder parentBuilder = null; // The builder that started this best of N start (null if this builder was not started by another)
+	private volatile boolean startsStopped = false; // True once the best of N starts have been told to stop
+	private int numOptimizerSweeps = 0;  // The number of optimizer sweeps run after the build (0 to skip the optimizer)
+	private int numTables = 1;           // The number of games played at the same time (1 plays games one at a time)
+	private long seed = ThreadLocalRandom.current().nextLong(); // The seed of the build (Random unless set)
+	private SplittableRandom random;     // Source of every random decision in this builder (Split per parallel build)
 	
 	/**
 	 * Private Inner Class Schedulee
@@ -34,16 +91,33 @@ public class ScheduleBuilder
 	{
 		@SuppressWarnings("unused")
 		private String name;            // Player name (For debugging only)
+		private int id;                 // Index of the player in the players list
 		private int numMatchesIn = 0;   // The number of matches the schedulee has been scheduled in already (Greedy heuristic)
 		private int lastMatchIndex = 0; // THe index of the last match the schedulee was scheduled in (Greedy heuristic)
+		private ArrayList<Match> matches = new ArrayList<>(); // Every unique match the schedulee is in
 		
 		/**
 		 * Constructor
 		 * @param name Player name
+		 * @param id Index of the player in the players list
 		 */
-		private Schedulee(String name)
+		private Schedulee(String name, int id)
 		{
 			this.name = name;
+			this.id = id;
+		}
+
+		/**
+		 * Re-keys every candidate match the schedulee is in after its greedy heuristics change
+		 */
+		private void updateCandidateKeys()
+		{
+			for(int i = 0; i < matches.size(); i++)
+			{
+				Match match = matches.get(i);
+				if(candidateMatches.contains(match.id))
+					candidateMatches.update(match.id, match.key());
+			}
 		}
 	}	
 	
@@ -57,16 +131,19 @@ public class ScheduleBuilder
 		// Pair of schedulees
 		private Schedulee scheduleeA;
 		private Schedulee scheduleeB;
+		private int id; // Index of the match in the list of unique matches (Used by the candidate match queue)
 		
 		/**
 		 * Constructor
 		 * @param scheduleeA First schedulee
 		 * @param scheduleeB Second Schedulee
+		 * @param id Index of the match in the list of unique matches
 		 */
-		private Match(Schedulee scheduleeA, Schedulee scheduleeB)
+		private Match(Schedulee scheduleeA, Schedulee scheduleeB, int id)
 		{
 			this.scheduleeA = scheduleeA;
 			this.scheduleeB = scheduleeB;
+			this.id = id;
 		}
 		
 		/**
@@ -86,6 +163,15 @@ public class ScheduleBuilder
 		{
 			return scheduleeA.lastMatchIndex + scheduleeB.lastMatchIndex;
 		}
+
+		/**
+		 * Packs both greedy heuristics into the key used by the candidate match queue
+		 * @return The key of the match
+		 */
+		private long key()
+		{
+			return MatchQueue.key(sumNumMatchesIn(), sumLastMatchIndices());
+		}
 		
 		/**
 		 * Updates the schedulee info after a match is scheduled
@@ -96,6 +182,8 @@ public class ScheduleBuilder
 			scheduleeB.numMatchesIn++;
 			scheduleeA.lastMatchIndex = matchIndex;
 			scheduleeB.lastMatchIndex = matchIndex;
+			scheduleeA.updateCandidateKeys();
+			scheduleeB.updateCandidateKeys();
 		}
 
 		/**
@@ -109,6 +197,8 @@ public class ScheduleBuilder
 			scheduleeB.numMatchesIn--;
 			scheduleeA.lastMatchIndex = oldLastMatchIndexA;
 			scheduleeB.lastMatchIndex = oldLastMatchIndexB;
+			scheduleeA.updateCandidateKeys();
+			scheduleeB.updateCandidateKeys();
 		}
 	}
 	
@@ -121,18 +211,11 @@ public class ScheduleBuilder
 	{
 		// Fails if both the number of players and the number of games each are odd
 		if(players.size() % 2 == 1 && numGamesEach % 2 == 1)
-		{
-			System.err.println("Error - Cannot build schedule: If the number of players is odd, then the number of games each must be even");
-			System.exit(1);
-		}
-		// Converts players into schedulees
-		for(int i = 0; i < players.size(); i++)
-		{
-			String playerName = players.get(i).getName();
-			Schedulee schedulee = new Schedulee(playerName);
-			scheduleeToPlayer.put(schedulee, players.get(i));
-			schedulees.add(schedulee);
-		}
+			throw new ScheduleBuildException(ScheduleBuildException.Reason.INFEASIBLE, "Cannot build schedule: If the number of players is odd, then the number of games each must be even");
+		// Fails if there is no one to play against
+		if(players.size() < 2)
+			throw new ScheduleBuildException(ScheduleBuildException.Reason.INFEASIBLE, "Cannot build schedule: At least 2 players are needed");
+		this.players = players;
 		// Sets numerical attributes
 		this.numGamesEach = numGamesEach;
 		int numGamesTotal = (players.size() * numGamesEach) / 2; // (ng/2)
@@ -141,18 +224,293 @@ public class ScheduleBuilder
 		numFullRounds = numGamesTotal / numGamesInFullRound;
 	}
 	
+	/**
+	 * Selects the engine used to run the greedy search
+	 * @param engine The engine
+	 * @return This schedule builder
+	 */
+	public ScheduleBuilder setEngine(Engine engine)
+	{
+		this.engine = engine;
+		return this;
+	}
+
+	/**
+	 * Sets the number of independent randomized builds to run (Best of N)
+	 * Builds run in parallel across all cores and the fairest schedule is kept (See FairnessScore)
+	 * @param numStarts The number of builds (1 runs a single build on the calling thread)
+	 * @return This schedule builder
+	 */
+	public ScheduleBuilder setNumStarts(int numStarts)
+	{
+		this.numStarts = Math.max(1, numStarts);
+		return this;
+	}
+
+	/**
+	 * Sets the wall-clock budget for the whole build (Anytime)
+	 * Once the budget runs out the build returns the best schedule found so far. Best of N starts that have not finished are dropped and the optimizer stops
+	 * If no start has finished by then the build throws a ScheduleBuildException (TIMED_OUT)
+	 * @param timeBudgetMillis The budget in milliseconds (0 for no budget)
+	 * @return This schedule builder
+	 */
+	public ScheduleBuilder setTimeBudget(long timeBudgetMillis)
+	{
+		this.timeBudgetMillis = Math.max(0, timeBudgetMillis);
+		return this;
+	}
+
+	/**
+	 * Sets the token that can cancel the build from another thread
+	 * A cancelled build returns the best schedule found so far, or throws a ScheduleBuildException (CANCELLED) if it has not found one
+	 * @param cancellationToken The token (null if the build cannot be cancelled)
+	 * @return This schedule builder
+	 */
+	public ScheduleBuilder setCancellationToken(CancellationToken cancellationToken)
+	{
+		this.cancellationToken = cancellationToken;
+		return this;
+	}
+
+	/**
+	 * Sets the listener that receives every improvement the build finds
+	 * Best of N builds report each start that beats the fairest start so far, and the optimizer reports each sweep that lowers its energy
+	 * Improvements are passed on at most once every IMPROVEMENT_INTERVAL_MILLIS, and the latest one held back is passed on before the build returns
+	 * @param improvementListener The listener (null for no listener)
+	 * @return This schedule builder
+	 */
+	public ScheduleBuilder setImprovementListener(ScheduleImprovementListener improvementListener)
+	{
+		this.improvementListener = improvementListener;
+		return this;
+	}
+
+	/**
+	 * Sets the number of sweeps the optimizer runs after the build (See ScheduleOptimizer)
+	 * The optimizer only reorders games within each round, so every round keeps the same games
+	 * @param numOptimizerSweeps The number of sweeps (0 to skip the optimizer)
+	 * @return This schedule builder
+	 */
+	public ScheduleBuilder setOptimizerSweeps(int numOptimizerSweeps)
+	{
+		this.numOptimizerSweeps = Math.max(0, numOptimizerSweeps);
+		return this;
+	}
+
+	/**
+	 * Sets the number of tables games are played on at the same time (See SlotScheduler)
+	 * With more than 1 table the games of each round are grouped into time slots where no player is in two games, using as few slots as it can
+	 * The games of each slot are next to each other in the schedule (See Schedule.getGamesInSlot)
+	 * @param numTables The number of tables (1 plays games one at a time. More than half the number of players adds nothing)
+	 * @return This schedule builder
+	 */
+	public ScheduleBuilder setNumTables(int numTables)
+	{
+		this.numTables = Math.max(1, numTables);
+		return this;
+	}
+
+	/**
+	 * Sets the seed every random decision of the build is drawn from
+	 * The same players (In the same order), games each, engine, number of starts, optimizer sweeps, tables and seed always build the same schedule
+	 * Builds stopped by the time budget or cancellation token depend on timing, so they are only reproducible if they run to completion
+	 * The seed is recorded on the schedule whether it was set or not (See Schedule.getSeed)
+	 * @param seed The seed
+	 * @return This schedule builder
+	 */
+	public ScheduleBuilder setSeed(long seed)
+	{
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Getter for the number of nodes the search visited during the last build
+	 * Best of N builds report the total over every start
+	 * @return The number of matches committed by the search
+	 */
+	public long getNumNodesVisited()
+	{
+		return numNodesVisited;
+	}
+
+	/**
+	 * Getter for the maximum depth the search reached during the last build
+	 * @return The deepest the search got in a single round (In games)
+	 */
+	public int getMaxDepth()
+	{
+		return maxDepth;
+	}
+
+	/**
+	 * Getter for the number of backtracks made during the last build
+	 * Best of N builds report the total over every start
+	 * @return The number of committed matches undone by backtracking
+	 */
+	public long getNumBacktracks()
+	{
+		return numBacktracks;
+	}
+
 	/**
 	 * Public facing build function. Used to execute the creation of a schedule object
-	 * @return A schedule object
+	 * @return A schedule object (The best one found if the build was stopped early)
+	 * @throws ScheduleBuildException If no schedule could be found, or the build was stopped before one was found
 	 */
 	public Schedule build()
 	{
+		random = new SplittableRandom(seed);
+		orientationSeed = random.nextLong();
+		deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+		lastImprovementReported = System.nanoTime() - IMPROVEMENT_INTERVAL_MILLIS * 1_000_000L;
+		long[] matches;
+		if(numStarts > 1)
+		{
+			matches = scheduleBestOfStarts();
+		}
+		else
+		{
+			matches = scheduleMatches();
+			reportImprovement(matches);
+		}
+		if(numOptimizerSweeps > 0)
+			matches = new ScheduleOptimizer(matches, players.size(), numGamesInFullRound, random.split(), this::stopRequested, this::reportImprovement).optimize(numOptimizerSweeps);
+		flushImprovement();
+		// Final built schedule
+		return createSchedule(matches);
+	}
+
+	/**
+	 * Builds a streaming schedule that only schedules its first chunk of games up front
+	 * Later chunks of about n/2 games (A sub-round of a full round, or the next games of the partial round) are scheduled on demand as the schedule's games are asked for,
+	 * so the time to the first game is the cost of a single chunk
+	 * Streaming builds always run a single start on the constructive engine (It never fails part way through) without the optimizer or tables, since those need every game
+	 * The same players, games each and seed stream the same games as build() on the constructive engine
+	 * The time budget and cancellation token only apply to the first chunk
+	 * @return A streaming schedule object
+	 * @throws ScheduleBuildException If the build was stopped before the first chunk was scheduled
+	 */
+	public Schedule buildStreaming()
+	{
+		random = new SplittableRandom(seed);
+		orientationSeed = random.nextLong();
+		deadline = System.nanoTime() + timeBudgetMillis * 1_000_000L;
+		IndexedScheduleEngine streamingEngine = new IndexedScheduleEngine(players.size(), numGamesEach, true, true, random, this::checkStop);
+		SplittableRandom orientationRandom = new SplittableRandom(orientationSeed);
+		ArrayList<Game> firstChunk = streamingEngine.hasNextChunk() ? convertToGames(streamingEngine.scheduleNextChunk(), orientationRandom) : new ArrayList<>();
+		// Later chunks are scheduled on whichever thread asks for them, after the build has returned
+		streamingEngine.setCheckStop(() -> {});
+		int numGamesTotal = (players.size() * numGamesEach) / 2; // (ng/2)
+		return new Schedule(firstChunk, numGamesInFullRound, seed, numGamesTotal,
+			() -> streamingEngine.hasNextChunk() ? convertToGames(streamingEngine.scheduleNextChunk(), orientationRandom) : new ArrayList<>());
+	}
+
+	/**
+	 * Private helper to run a single build on the selected engine
+	 * @return Scheduled matches as packed pairs of player ids
+	 */
+	private long[] scheduleMatches()
+	{
+		if(engine == Engine.INDEXED || engine == Engine.CONSTRUCTIVE)
+		{
+			IndexedScheduleEngine indexedEngine = new IndexedScheduleEngine(players.size(), numGamesEach, engine == Engine.CONSTRUCTIVE, random, this::checkStop);
+			long[] matches = indexedEngine.schedule();
+			numNodesVisited = indexedEngine.getNumNodesVisited();
+			maxDepth = indexedEngine.getMaxDepth();
+			numBacktracks = indexedEngine.getNumBacktracks();
+			return matches;
+		}
+		createSchedulees();
 		createMatches();
 		scheduleAllRounds();
-		convertToGames();
-		// Final built schedule
-		Schedule schedule = new Schedule(scheduledGames, numGamesInFullRound);
-		return schedule;
+		return packScheduledMatches();
+	}
+
+	/**
+	 * Private helper to run several independent builds on the common fork join pool and keep the fairest one
+	 * Every build gets its own schedule builder so no scheduling state is shared between threads
+	 * Every build also gets its own generator, split from this builder's generator in start order so the result does not depend on thread timing
+	 * Builds are collected as they finish, so improvements are reported straight away and a stopped build keeps the starts that finished
+	 * Ties go to the earlier start, so the fairest build does not depend on the order the builds finish in
+	 * @return Scheduled matches of the fairest build as packed pairs of player ids
+	 */
+	private long[] scheduleBestOfStarts()
+	{
+		ScheduleBuilder[] startBuilders = new ScheduleBuilder[numStarts];
+		ExecutorCompletionService<Integer> starts = new ExecutorCompletionService<>(ForkJoinPool.commonPool());
+		for(int i = 0; i < numStarts; i++)
+		{
+			int startIndex = i;
+			startBuilders[startIndex] = new ScheduleBuilder(players, numGamesEach).setEngine(engine);
+			startBuilders[startIndex].random = random.split();
+			startBuilders[startIndex].parentBuilder = this;
+			starts.submit(() -> {
+				startBuilders[startIndex].scheduledMatchesOfStart = startBuilders[startIndex].scheduleMatches();
+				return startIndex;
+			});
+		}
+		long[] bestMatches = null;
+		FairnessScore bestScore = null;
+		int bestStartIndex = -1;
+		ScheduleBuildException failure = null;
+		try
+		{
+			for(int i = 0; i < numStarts; i++)
+			{
+				int startIndex;
+				try
+				{
+					startIndex = starts.take().get();
+				}
+				catch(ExecutionException e)
+				{
+					// Keeps going without the failed build
+					if(!(e.getCause() instanceof ScheduleBuildException))
+						throw new IllegalStateException("Schedule build failed", e.getCause());
+					if(failure == null)
+						failure = (ScheduleBuildException) e.getCause();
+					continue;
+				}
+				ScheduleBuilder startBuilder = startBuilders[startIndex];
+				long[] matches = startBuilder.scheduledMatchesOfStart;
+				numNodesVisited += startBuilder.numNodesVisited;
+				maxDepth = Math.max(maxDepth, startBuilder.maxDepth);
+				numBacktracks += startBuilder.numBacktracks;
+				FairnessScore score = FairnessScore.of(matches, players.size());
+				int comparison = (bestScore == null) ? -1 : score.compareTo(bestScore);
+				if(comparison < 0 || (comparison == 0 && startIndex < bestStartIndex))
+				{
+					bestMatches = matches;
+					bestScore = score;
+					bestStartIndex = startIndex;
+					reportImprovement(matches);
+				}
+			}
+		}
+		catch(InterruptedException e)
+		{
+			// Stops every build that is still running before giving up
+			Thread.currentThread().interrupt();
+			startsStopped = true;
+			throw new ScheduleBuildException(ScheduleBuildException.Reason.CANCELLED, "Schedule build was interrupted");
+		}
+		if(bestMatches == null)
+			throw failure;
+		return bestMatches;
+	}
+
+	/**
+	 * Private helper to convert players into schedulees
+	 */
+	private void createSchedulees()
+	{
+		for(int i = 0; i < players.size(); i++)
+		{
+			String playerName = players.get(i).getName();
+			Schedulee schedulee = new Schedulee(playerName, i);
+			schedulees.add(schedulee);
+		}
 	}
 	
 	/**
@@ -166,9 +524,19 @@ public class ScheduleBuilder
 		{
 			for(int j = i + 1; j < schedulees.size(); j++)
 			{
-				uniqueMatches.add(new Match(schedulees.get(i), schedulees.get(j)));
+				Match match = new Match(schedulees.get(i), schedulees.get(j), uniqueMatches.size());
+				uniqueMatches.add(match);
+				schedulees.get(i).matches.add(match);
+				schedulees.get(j).matches.add(match);
 			}
 		}
+		candidateMatches = new MatchQueue(uniqueMatches.size());
+		// Preallocates the search stack for the largest round
+		committedMatches = new Match[numGamesInFullRound];
+		oldLastMatchIndicesA = new int[numGamesInFullRound];
+		oldLastMatchIndicesB = new int[numGamesInFullRound];
+		frameStarts = new int[numGamesInFullRound + 1];
+		triedMatches = new Match[numGamesInFullRound];
 	}
 	
 	/**
@@ -190,17 +558,14 @@ public class ScheduleBuilder
 	 */
 	private void scheduleFullRound()
 	{
-		// Candidate matches in a round. Shrinks as matches are scheduled
-		ArrayList<Match> candidateMatches = new ArrayList<>(uniqueMatches); 
-		// Randomization
-		Collections.shuffle(candidateMatches);
-		// Recursively schedules the next match (Retuns true if successful, false if unsuccessful)
-		boolean success = scheduleNextMatch(0, numGamesInFullRound, candidateMatches);
-		// Fails loudly if the full round could not be scheduled
+		// Queues every unique match as a candidate in a random order
+		queueCandidateMatches();
+		// Schedules every match in the round (Retuns true if successful, false if unsuccessful)
+		boolean success = scheduleRoundMatches(numGamesInFullRound);
+		// Fails if the full round could not be scheduled
 		if(!success)
 		{
-			System.err.println("Schedule full round failed");
-			System.exit(1);	
+			throw new ScheduleBuildException(ScheduleBuildException.Reason.NO_SCHEDULE_FOUND, "Schedule full round failed");
 		}
 	}
 	
@@ -209,127 +574,238 @@ public class ScheduleBuilder
 	 */
 	private void schedulePartialRound()
 	{
-		// Candidate matches in a round. Shrinks as matches are scheduled
-		ArrayList<Match> candidateMatches = new ArrayList<>(uniqueMatches); 
-		// Randomization
-		Collections.shuffle(candidateMatches);
-		// Recursively schedules the next match (Retuns true if successful, false if unsuccessful)
-		boolean success = scheduleNextMatch(0, numGamesInPartialRound, candidateMatches);
-		// Fails loudly if the partial round could not be sceduled
+		// Queues every unique match as a candidate in a random order
+		queueCandidateMatches();
+		// Schedules every match in the round (Retuns true if successful, false if unsuccessful)
+		boolean success = scheduleRoundMatches(numGamesInPartialRound);
+		// Fails if the partial round could not be sceduled
 		if(!success)
 		{
-			System.err.println("Schedule partial round failed");
-			System.exit(1);		
+			throw new ScheduleBuildException(ScheduleBuildException.Reason.NO_SCHEDULE_FOUND, "Schedule partial round failed");
+		}
+	}
+
+	/**
+	 * Private helper to queue every unique match as a candidate at the start of a round
+	 * The shuffled order becomes the rank each match uses to break ties (Randomization)
+	 */
+	private void queueCandidateMatches()
+	{
+		candidateMatches.clear();
+		ArrayList<Match> shuffledMatches = new ArrayList<>(uniqueMatches);
+		Collections.shuffle(shuffledMatches, random);
+		for(int i = 0; i < shuffledMatches.size(); i++)
+		{
+			Match match = shuffledMatches.get(i);
+			candidateMatches.setRank(match.id, i);
+			candidateMatches.add(match.id, match.key());
 		}
 	}
 
 
 	/**
-	 * Recursive method to schedule the next match
+	 * Backtracking search to schedule every match in a round
+	 * Each depth of the search commits one match. The search goes one depth deeper after a commit and one depth back when a depth runs out of candidates
 	 * Backtracks in the partial round when the algorithm gets stuck
 	 * Never needs to backtrack when scheduling a full round
-	 * @param numGamesScheduled Counts the number of games scheduled so far in the round
+	 * Runs on the preallocated search stack instead of recursing, so large rounds cannot overflow the call stack
 	 * @param numGamesInRound numGamesInFullRound or numGamesInPartialRound depending on round type
-	 * @param candidateMatches Candidate matches in a round. Shrinks as matches are scheduled
-	 * @return True if a match was scheduled, false if backtracking is necessary
+	 * @return True if every match in the round was scheduled, false if the round could not be scheduled
 	 */
-	private boolean scheduleNextMatch(int numGamesScheduled, int numGamesInRound, ArrayList<Match> candidateMatches)
+	private boolean scheduleRoundMatches(int numGamesInRound)
 	{
-		// Base case: Returns true when all games have been scheduled successfully
-		if (numGamesScheduled == numGamesInRound)
-			return true;
-
-		// Local list of tried matches in a single recursion frame
-		ArrayList<Match> triedMatches = new ArrayList<>();
+		int depth = 0;           // Counts the number of games scheduled so far in the round
+		numTriedMatches = 0;
+		frameStarts[0] = 0;
 
-		// Loops through all candidate matches in each recursion frame if necessary (Only continues looping when best matche is invalid)
-		while (candidateMatches.size() > 0)
+		while(true)
 		{
-			Match bestMatch = selectBestMatch(candidateMatches); // Finds the best match from the candidate matches
-			// Removes the best match from the candidates list since it has been used
-			candidateMatches.remove(bestMatch); 
-			// Adds the best match to the local list of tried matches                  
-			triedMatches.add(bestMatch); 
-			// Continues to get a new best match if the best match is invalid
-			if(bestMatch.scheduleeA.numMatchesIn >= numGamesEach)
-				continue;
-			if(bestMatch.scheduleeB.numMatchesIn >= numGamesEach)
+			// Returns true when all games have been scheduled successfully
+			if(depth == numGamesInRound)
+				return true;
+			// Stops the search if the build was cancelled or ran out of time
+			checkStop();
+
+			// Loops through the candidate matches at this depth until a valid match is committed
+			Match committedMatch = null;
+			while(!candidateMatches.isEmpty())
+			{
+				// Finds the best match from the candidate matches and removes it from the queue since it has been used
+				Match bestMatch = selectBestMatch();
+				// Adds the best match to the tried matches of this depth
+				triedMatches[numTriedMatches] = bestMatch;
+				numTriedMatches++;
+				// Continues to get a new best match if the best match is invalid
+				if(bestMatch.scheduleeA.numMatchesIn >= numGamesEach)
+					continue;
+				if(bestMatch.scheduleeB.numMatchesIn >= numGamesEach)
+					continue;
+				// Saves the old last match indices before commiting the best match
+				oldLastMatchIndicesA[depth] = bestMatch.scheduleeA.lastMatchIndex;
+				oldLastMatchIndicesB[depth] = bestMatch.scheduleeB.lastMatchIndex;
+				// Commits the best match (Could still be changed in the future through backtracking)
+				scheduledMatches.add(bestMatch);
+				matchIndex++;
+				bestMatch.updateScheduleeInfoAfterRemoval();
+				committedMatch = bestMatch;
+				break;
+			}
+
+			// Goes one depth deeper to schedule the next match
+			if(committedMatch != null)
+			{
+				committedMatches[depth] = committedMatch;
+				depth++;
+				frameStarts[depth] = numTriedMatches;
+				numNodesVisited++;
+				maxDepth = Math.max(maxDepth, depth);
 				continue;
-			// Saves the old last match indices before commiting the best match
-			int oldLastMatchIndexA = bestMatch.scheduleeA.lastMatchIndex;
-			int oldLastMatchIndexB = bestMatch.scheduleeB.lastMatchIndex;
-			// Commits the best match (Could still be changed in the future through backtracking)
-        	scheduledMatches.add(bestMatch);
-        	matchIndex++;
-        	bestMatch.updateScheduleeInfoAfterRemoval();
-			// Recursively schedules the next match 
-			if (scheduleNextMatch(numGamesScheduled+1, numGamesInRound, candidateMatches))
-        		return true;
+			}
+
+			// Adds all tried matches of this depth back to the candidate matches queue before backtracking
+			while(numTriedMatches > frameStarts[depth])
+			{
+				numTriedMatches--;
+				Match triedMatch = triedMatches[numTriedMatches];
+				candidateMatches.add(triedMatch.id, triedMatch.key());
+			}
+			// Fails when the first depth runs out of candidates
+			if(depth == 0)
+				return false;
+
 			// BACKTRACKING NEEDED
+			depth--;
+			numBacktracks++;
+			Match undoneMatch = committedMatches[depth];
 			// Removes the last scheduled match from the list of scheduled matches
 			scheduledMatches.remove(scheduledMatches.size() - 1);
 			// Decrements the match index
 			matchIndex--;
 			// Undoes the updates to the schedulee info once the match is uncommited
-			bestMatch.undoScheduleeInfoAfterRemoval(oldLastMatchIndexA, oldLastMatchIndexB);
+			undoneMatch.undoScheduleeInfoAfterRemoval(oldLastMatchIndicesA[depth], oldLastMatchIndicesB[depth]);
 		}
-
-		// Adds all tried matches back to the candidate matches list before backtracking 
-    	for (int i = 0; i < triedMatches.size(); i++)
-    	{
-        	candidateMatches.add(triedMatches.get(i));
-    	}
-		
-		// Backtracks
-		return false;
 	}
 	
 	/**
 	 * Private helper to find the best next match. Greedy search function. Local Optimization
 	 * Prioritizes the matches with the lowest sum of numMatchesIn
 	 * Tie Breaks with the lowest sum of lastMatchIndex
-	 * @param candidateMatches Candidate matches in a round. Shrinks as matches are scheduled
-	 * @return Best next match
+	 * The candidate match queue keeps the matches ordered by both heuristics so this is a poll rather than a scan
+	 * @return Best next match (Removed from the candidate matches)
 	 */
-	private Match selectBestMatch(ArrayList<Match> candidateMatches)
+	private Match selectBestMatch()
 	{
-		// The best match out of the candidate matches (initialized at match 0)
-		Match bestMatch = candidateMatches.get(0);
-		// Loops through all remaining matches
-		for(int i = 1; i < candidateMatches.size(); i++)
-		{
-			Match candidateMatch = candidateMatches.get(i);
-			// Outer heuristic (Sum of matches scheduled)
-			if(candidateMatch.sumNumMatchesIn() < bestMatch.sumNumMatchesIn())
-			{
-				bestMatch = candidateMatch;
-			}
-			else if(candidateMatch.sumNumMatchesIn() == bestMatch.sumNumMatchesIn())
-			{
-				// Inner heuristic (Sum of indices of last matches scheduled)
-				if(candidateMatch.sumLastMatchIndices() < bestMatch.sumLastMatchIndices())
-				{
-					bestMatch = candidateMatch;
-				}
-			}
-		}
-		return bestMatch;	
+		return uniqueMatches.get(candidateMatches.poll());
 	}	
 	
 	/**
-	 * Private helper to convert the list of scheduled matches into a list of scheduled games
-	 * This is needed because the schedule object contains a list of games not matches
+	 * Private helper to pack the list of scheduled matches into pairs of player ids
+	 * This puts both engines on the same output so builds can be compared and converted the same way
+	 * @return Scheduled matches as packed pairs of player ids
 	 */
-	private void convertToGames()
+	private long[] packScheduledMatches()
 	{
+		long[] matches = new long[scheduledMatches.size()];
 		for(int i = 0; i < scheduledMatches.size(); i++)
 		{
-			// Maps schedulees back to players
-			Player playerA = scheduleeToPlayer.get(scheduledMatches.get(i).scheduleeA);
-			Player playerB = scheduleeToPlayer.get(scheduledMatches.get(i).scheduleeB);
-			// Creates and adds a new game from the players
-			Game game = new Game(playerA, playerB);
+			Match match = scheduledMatches.get(i);
+			matches[i] = IndexedScheduleEngine.packMatch(match.scheduleeA.id, match.scheduleeB.id);
+		}
+		return matches;
+	}
+
+	/**
+	 * Private helper to convert the packed matches into a list of scheduled games
+	 * This is needed because the schedule object contains a list of games not matches
+	 * Player ids are indices into the players list
+	 * @param matches Scheduled matches as packed pairs of player ids
+	 * @param random Generator used to orient each game
+	 * @return List of scheduled games
+	 */
+	private ArrayList<Game> convertToGames(long[] matches, SplittableRandom random)
+	{
+		ArrayList<Game> scheduledGames = new ArrayList<>(matches.length);
+		for(int i = 0; i < matches.length; i++)
+		{
+			Player playerA = players.get(IndexedScheduleEngine.playerA(matches[i]));
+			Player playerB = players.get(IndexedScheduleEngine.playerB(matches[i]));
+			Game game = new Game(playerA, playerB, random);
 			scheduledGames.add(game);
 		}
+		return scheduledGames;
+	}
+
+	/**
+	 * Private helper to create a schedule from packed matches
+	 * Games are always oriented by a generator with the same seed, so the same matches always create the same schedule
+	 * With more than 1 table the games are grouped into time slots first
+	 * @param matches Scheduled matches as packed pairs of player ids
+	 * @return A schedule object
+	 */
+	private Schedule createSchedule(long[] matches)
+	{
+		if(numTables == 1)
+			return new Schedule(convertToGames(matches, new SplittableRandom(orientationSeed)), numGamesInFullRound, seed);
+		long[] slottedMatches = matches.clone();
+		int[] slotStarts = new SlotScheduler(players.size(), numGamesInFullRound, numTables).schedule(slottedMatches);
+		ArrayList<Game> scheduledGames = convertToGames(slottedMatches, new SplittableRandom(orientationSeed));
+		return new Schedule(scheduledGames, numGamesInFullRound, seed, numTables, slotStarts);
+	}
+
+	/**
+	 * Private helper to pass an improvement to the improvement listener
+	 * Creating a schedule is O(n log n), so improvements found less than IMPROVEMENT_INTERVAL_MILLIS after the last one passed on are held back
+	 * and only the latest of them is kept (See flushImprovement)
+	 * @param matches The best scheduled matches found so far as packed pairs of player ids (Not changed afterwards)
+	 */
+	private void reportImprovement(long[] matches)
+	{
+		if(improvementListener == null)
+			return;
+		unreportedImprovement = matches;
+		if(System.nanoTime() - lastImprovementReported >= IMPROVEMENT_INTERVAL_MILLIS * 1_000_000L)
+			flushImprovement();
+	}
+
+	/**
+	 * Private helper to pass the improvement held back by reportImprovement to the improvement listener
+	 */
+	private void flushImprovement()
+	{
+		if(improvementListener == null || unreportedImprovement == null)
+			return;
+		improvementListener.onImprovement(createSchedule(unreportedImprovement));
+		unreportedImprovement = null;
+		lastImprovementReported = System.nanoTime();
+	}
+
+	/**
+	 * Private helper to check if the build should stop (Cancelled, interrupted or out of time)
+	 * Best of N starts stop when the builder that started them stops
+	 * @return True if the build should stop, false otherwise
+	 */
+	private boolean stopRequested()
+	{
+		if(parentBuilder != null)
+			return parentBuilder.stopRequested() || parentBuilder.startsStopped;
+		if(cancellationToken != null && cancellationToken.isCancelled())
+			return true;
+		if(Thread.currentThread().isInterrupted())
+			return true;
+		return timeBudgetMillis > 0 && System.nanoTime() >= deadline;
+	}
+
+	/**
+	 * Private helper called by the search at every step to stop it once the build should stop
+	 * @throws ScheduleBuildException If the build should stop (CANCELLED or TIMED_OUT)
+	 */
+	private void checkStop()
+	{
+		if(!stopRequested())
+			return;
+		ScheduleBuilder builder = (parentBuilder != null) ? parentBuilder : this;
+		if(builder.timeBudgetMillis > 0 && System.nanoTime() >= builder.deadline)
+			throw new ScheduleBuildException(ScheduleBuildException.Reason.TIMED_OUT, "Schedule build ran out of time before a schedule was found");
+		throw new ScheduleBuildException(ScheduleBuildException.Reason.CANCELLED, "Schedule build was cancelled before a schedule was found");
 	}
 }
@@ -0,0 +1,18 @@
+package data_classes;
+
+/**
+ * This interface receives the schedules a build finds as it improves on them
+ * Every schedule passed to the listener is complete and valid, and improves on the one before it
+ * The last schedule passed to the listener has the same games in the same order as the one the build returns
+ * It is called on the thread that called build()
+ * @author William Shaw
+ */
+@FunctionalInterface
+public interface ScheduleImprovementListener
+{
+	/**
+	 * Called when the build finds a better schedule
+	 * @param schedule The best schedule found so far
+	 */
+	void onImprovement(Schedule schedule);
+}
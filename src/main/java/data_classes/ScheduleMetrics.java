@@ -0,0 +1,1006 @@
+package data_classes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
+
+/**
+ * This class keeps the quality metrics of a schedule for every player and for the whole schedule
+ * It is owned by the schedule and updated as games are moved or marked as played, so the games are only scanned once when it is created
+ * A rest gap is the number of games between two consecutive games of a player (0 for back-to-back games)
+ * An idle stretch is a run of games a player sits out, including the games before their first game and after their last game
+ * Round balance is the largest difference in any round between the player with the most games in that round and the player with the fewest
+ * Played balance is the difference between the player with the most games played and the player with the fewest
+ * Moving a game d places reads the d games it moves past in one pass, so it costs O(log n + d) for the block plus O(log g) for each player with a game in it
+ * (Their games inside the block shift by one and only the rest gaps at the edges of the block change). The two players of the moved game also shift their
+ * positions arrays, which is O(g) where g is their number of games. Marking a game as played costs O(log n)
+ * Moving a block of games reads the span from the block to where it lands in one pass. Each player with a game in the span has those games reordered in one step,
+ * so it costs O(log n + s log g) for a span of s games instead of rebuilding the metrics from every game
+ * Replacing, inserting and removing a game (Repairs) only touch the players of that game and the rest gap every other player has across it,
+ * so they cost O(p log g) for p players plus shifting the positions after the game, instead of rebuilding the metrics from every game
+ * Appending games (Swiss rounds and bracket games) only adds the new games to their players, then updates every player's idle stretch once, so it costs O(m log g + p)
+ * The positions of each player's games double as an index from players to their games, so a player's next game is found in O(1) instead of scanning the schedule
+ * Each position also records whether that game was played, so games can be played in any order (A result replayed from a journal can skip games)
+ * @author William Shaw
+ */
+public class ScheduleMetrics
+{
+	/**
+	 * Private Inner Class Counts
+	 * Multiset of int values with O(log n) add, remove, min and max
+	 * @author William Shaw
+	 */
+	private static class Counts
+	{
+		private TreeMap<Integer, Integer> counts = new TreeMap<>(); // Number of occurrences of each value
+		private int size = 0;                                       // Total number of values
+
+		/**
+		 * Adds a value
+		 * @param value The value
+		 */
+		private void add(int value)
+		{
+			counts.merge(value, 1, Integer::sum);
+			size++;
+		}
+
+		/**
+		 * Removes one occurrence of a value
+		 * @param value The value
+		 */
+		private void remove(int value)
+		{
+			int count = counts.get(value);
+			if(count == 1)
+				counts.remove(value);
+			else
+				counts.put(value, count - 1);
+			size--;
+		}
+
+		/**
+		 * Counts the occurrences of a value
+		 * @param value The value
+		 * @return The number of occurrences
+		 */
+		private int count(int value)
+		{
+			return counts.getOrDefault(value, 0);
+		}
+
+		/**
+		 * Gets the smallest value
+		 * @return The smallest value (0 if empty)
+		 */
+		private int min()
+		{
+			return counts.isEmpty() ? 0 : counts.firstKey();
+		}
+
+		/**
+		 * Gets the largest value
+		 * @return The largest value (0 if empty)
+		 */
+		private int max()
+		{
+			return counts.isEmpty() ? 0 : counts.lastKey();
+		}
+	}
+
+	/**
+	 * Private Inner Class PlayerMetrics
+	 * The metrics of a single player along with the positions of the player's games
+	 * @author William Shaw
+	 */
+	private class PlayerMetrics
+	{
+		private int[] positions;              // Indices of the player's games in schedule order
+		private boolean[] played;             // Whether each of the player's games was played (Same order as the positions)
+		private int firstUnplayed = 0;        // Where the player's first unplayed game is in the positions array (numGames if every game was played)
+		private int numGames = 0;             // The number of games in the positions array
+		private Counts restGaps = new Counts(); // Rest gaps between the player's consecutive games
+		private int[] numGamesInRound;        // The number of games the player plays in each round
+		private int numGamesPlayed = 0;       // The number of the player's games marked as played
+		private int idleStretch = 0;          // The player's longest idle stretch
+		private int lastEdit = -1;            // The last edit that shifted the player's games (Avoids shifting twice)
+
+		/**
+		 * Constructor
+		 * @param numGames The number of games the player is in
+		 */
+		private PlayerMetrics(int numGames)
+		{
+			positions = new int[numGames];
+			played = new boolean[numGames];
+			numGamesInRound = new int[numRounds];
+		}
+	}
+
+	// Private data structures
+	private LinkedHashMap<Player, PlayerMetrics> playerMetrics = new LinkedHashMap<>(); // Metrics of each player (Schedule order)
+	private Counts restGaps = new Counts();        // Rest gaps of every player
+	private Counts idleStretches = new Counts();   // Longest idle stretch of every player
+	private Counts[] roundCounts;                  // Number of games each player plays in each round
+	private Counts roundSpreads = new Counts();    // Difference between the most and fewest games played by a player in each round
+	private Counts gamesPlayed = new Counts();     // Number of games played by every player
+
+	// Private attributes
+	private GameSequence games;        // The games of the schedule (Counts the unplayed games before an index)
+	private long sumRestGaps = 0;      // Sum of every rest gap (Mean)
+	private int numGames;              // The number of games in the schedule
+	private int numGamesInFullRound;   // The number of games in a full round
+	private int numRounds;             // The number of rounds
+	private int numEdits = 0;          // The number of games moved so far
+
+	/**
+	 * Constructor
+	 * Scans the games once to set up every metric
+	 * @param games List of games in schedule order (Kept by the metrics and changed by the schedule)
+	 * @param numGamesInFullRound The number of games in a full round
+	 */
+	ScheduleMetrics(GameSequence games, int numGamesInFullRound)
+	{
+		this.games = games;
+		this.numGames = games.size();
+		this.numGamesInFullRound = numGamesInFullRound;
+		numRounds = (numGamesInFullRound == 0) ? 0 : (numGames + numGamesInFullRound - 1) / numGamesInFullRound;
+		// Counts the games of each player so the position arrays are allocated once
+		LinkedHashMap<Player, Integer> numGamesOfPlayer = new LinkedHashMap<>();
+		for(Game game : games)
+		{
+			numGamesOfPlayer.merge(game.getPlayerA(), 1, Integer::sum);
+			numGamesOfPlayer.merge(game.getPlayerB(), 1, Integer::sum);
+		}
+		numGamesOfPlayer.forEach((player, numGamesOfThisPlayer) -> playerMetrics.put(player, new PlayerMetrics(numGamesOfThisPlayer)));
+		// Fills in the positions and round counts
+		int index = 0;
+		for(Game game : games)
+		{
+			for(PlayerMetrics player : new PlayerMetrics[] {playerMetrics.get(game.getPlayerA()), playerMetrics.get(game.getPlayerB())})
+			{
+				player.positions[player.numGames] = index;
+				player.played[player.numGames] = game.getPlayed();
+				player.numGames++;
+				player.numGamesInRound[index / numGamesInFullRound]++;
+				if(game.getPlayed())
+					player.numGamesPlayed++;
+			}
+			index++;
+		}
+		// Sets up the per player and schedule wide metrics
+		roundCounts = new Counts[numRounds];
+		for(int i = 0; i < numRounds; i++)
+		{
+			roundCounts[i] = new Counts();
+		}
+		for(PlayerMetrics player : playerMetrics.values())
+		{
+			advanceFirstUnplayed(player);
+			for(int j = 1; j < player.numGames; j++)
+			{
+				addRestGap(player, player.positions[j] - player.positions[j - 1] - 1);
+			}
+			player.idleStretch = longestIdleStretch(player);
+			idleStretches.add(player.idleStretch);
+			gamesPlayed.add(player.numGamesPlayed);
+			for(int i = 0; i < numRounds; i++)
+			{
+				roundCounts[i].add(player.numGamesInRound[i]);
+			}
+		}
+		for(int i = 0; i < numRounds; i++)
+		{
+			roundSpreads.add(roundCounts[i].max() - roundCounts[i].min());
+		}
+	}
+
+	/**
+	 * Updates the metrics before a game is moved
+	 * Only the two players of the moved game and the players with a game in the shifted block are touched
+	 * @param oldIndex The index of the game before the move
+	 * @param newIndex The index of the game after the move
+	 */
+	void moveGame(int oldIndex, int newIndex)
+	{
+		if(oldIndex == newIndex)
+			return;
+		numEdits++;
+		Game movedGame = games.get(oldIndex);
+		PlayerMetrics playerA = playerMetrics.get(movedGame.getPlayerA());
+		PlayerMetrics playerB = playerMetrics.get(movedGame.getPlayerB());
+		// The games between the old and new index shift one place towards the old index
+		int blockStart = Math.min(oldIndex, newIndex) + (newIndex > oldIndex ? 1 : 0);
+		int blockEnd = Math.max(oldIndex, newIndex) - (newIndex < oldIndex ? 1 : 0);
+		int shift = (newIndex > oldIndex) ? -1 : 1;
+		ArrayList<Game> block = games.copyRange(blockStart, blockEnd + 1); // One in-order walk instead of a lookup per game
+
+		removePosition(playerA, oldIndex);
+		removePosition(playerB, oldIndex);
+		for(Game game : block)
+		{
+			shiftPositions(playerMetrics.get(game.getPlayerA()), blockStart, blockEnd, shift);
+			shiftPositions(playerMetrics.get(game.getPlayerB()), blockStart, blockEnd, shift);
+		}
+		addPosition(playerA, newIndex, movedGame.getPlayed());
+		addPosition(playerB, newIndex, movedGame.getPlayed());
+
+		// Moves the shifted games that cross a round boundary into the neighbouring round
+		int firstCrossing = (shift == -1) ? roundStartAtOrAfter(blockStart) : roundStartAtOrAfter(blockStart + 1) - 1;
+		for(int i = firstCrossing; i <= blockEnd; i += numGamesInFullRound)
+		{
+			Game game = block.get(i - blockStart);
+			int oldRound = i / numGamesInFullRound;
+			moveRoundCount(playerMetrics.get(game.getPlayerA()), oldRound, oldRound + shift);
+			moveRoundCount(playerMetrics.get(game.getPlayerB()), oldRound, oldRound + shift);
+		}
+		moveRoundCount(playerA, oldIndex / numGamesInFullRound, newIndex / numGamesInFullRound);
+		moveRoundCount(playerB, oldIndex / numGamesInFullRound, newIndex / numGamesInFullRound);
+	}
+
+	/**
+	 * Updates the metrics before a block of games is moved
+	 * Only the players with a game in the block or in the games it moves past are touched, and the rest gaps outside that span keep their length
+	 * @param fromIndex The index of the first game in the block
+	 * @param toIndex The index after the last game in the block
+	 * @param newIndex The index the first game of the block will have after the move
+	 */
+	void moveGames(int fromIndex, int toIndex, int newIndex)
+	{
+		if(fromIndex == toIndex || fromIndex == newIndex)
+			return;
+		numEdits++;
+		int spanStart = Math.min(fromIndex, newIndex);
+		int spanEnd = Math.max(toIndex, newIndex + toIndex - fromIndex);
+		ArrayList<Game> span = games.copyRange(spanStart, spanEnd); // One in-order walk instead of a lookup per game
+
+		// Moves the games that change round into their new round
+		for(int i = spanStart; i < spanEnd; i++)
+		{
+			Game game = span.get(i - spanStart);
+			int newRound = movedIndex(i, fromIndex, toIndex, newIndex) / numGamesInFullRound;
+			moveRoundCount(playerMetrics.get(game.getPlayerA()), i / numGamesInFullRound, newRound);
+			moveRoundCount(playerMetrics.get(game.getPlayerB()), i / numGamesInFullRound, newRound);
+		}
+		for(Game game : span)
+		{
+			reorderPositions(playerMetrics.get(game.getPlayerA()), spanStart, spanEnd, fromIndex, toIndex, newIndex);
+			reorderPositions(playerMetrics.get(game.getPlayerB()), spanStart, spanEnd, fromIndex, toIndex, newIndex);
+		}
+	}
+
+	/**
+	 * Updates the metrics after a game is marked as played
+	 * The game can be anywhere in the schedule, not only the next game
+	 * @param index The index of the game
+	 * @param game The game that was played
+	 */
+	void markGamePlayed(int index, Game game)
+	{
+		for(PlayerMetrics player : new PlayerMetrics[] {playerMetrics.get(game.getPlayerA()), playerMetrics.get(game.getPlayerB())})
+		{
+			player.played[Arrays.binarySearch(player.positions, 0, player.numGames, index)] = true;
+			advanceFirstUnplayed(player);
+			changeNumGamesPlayed(player, 1);
+		}
+	}
+
+	/**
+	 * Updates the metrics after a game is replaced (Used by the schedule repairer)
+	 * Only the players of the old and new game are touched
+	 * @param index The index of the game
+	 * @param oldGame The game that was replaced
+	 */
+	void replaceGame(int index, Game oldGame)
+	{
+		removeGamePositions(index, oldGame);
+		updateIdleStretch(playerMetrics.get(oldGame.getPlayerA()));
+		updateIdleStretch(playerMetrics.get(oldGame.getPlayerB()));
+		addGamePositions(index, games.get(index));
+		removePlayerIfIdle(oldGame.getPlayerA());
+		removePlayerIfIdle(oldGame.getPlayerB());
+	}
+
+	/**
+	 * Updates the metrics after a game is inserted (Used by the schedule repairer)
+	 * The games after it shift one place, so every rest gap across the new game grows by one and the games at round starts after it move into the next round
+	 * @param index The index of the new game
+	 */
+	void insertGame(int index)
+	{
+		numGames++;
+		if(numGames > numRounds * numGamesInFullRound)
+			addRound();
+		for(PlayerMetrics player : playerMetrics.values())
+		{
+			shiftTail(player, index, 1);
+		}
+		for(int i = roundStartAtOrAfter(index + 1); i < numGames; i += numGamesInFullRound)
+		{
+			Game game = games.get(i);
+			int round = i / numGamesInFullRound;
+			moveRoundCount(playerMetrics.get(game.getPlayerA()), round - 1, round);
+			moveRoundCount(playerMetrics.get(game.getPlayerB()), round - 1, round);
+		}
+		addGamePositions(index, games.get(index));
+	}
+
+	/**
+	 * Updates the metrics after games are appended to the end of the schedule (Swiss rounds and bracket games)
+	 * No game shifts, so only the players of the new games are touched, apart from the idle stretch after each player's last game which grows
+	 * @param numNewGames The number of games appended
+	 */
+	void appendGames(int numNewGames)
+	{
+		int index = numGames;
+		numGames += numNewGames;
+		while(numGames > numRounds * numGamesInFullRound)
+		{
+			addRound();
+		}
+		for(Game game : games.copyRange(index, numGames))
+		{
+			addGamePositions(index, game);
+			index++;
+		}
+		for(PlayerMetrics player : playerMetrics.values())
+		{
+			updateIdleStretch(player);
+		}
+	}
+
+	/**
+	 * Updates the metrics after a game is removed (Used by the schedule repairer)
+	 * The games after it shift one place back, so every rest gap across the removed game shrinks by one and the games at round starts after it move into the round before
+	 * @param index The index the game had
+	 * @param game The game that was removed
+	 */
+	void removeGame(int index, Game game)
+	{
+		for(int i = roundStartAtOrAfter(index + 1); i < numGames; i += numGamesInFullRound)
+		{
+			Game shiftedGame = games.get(i - 1);
+			int round = i / numGamesInFullRound;
+			moveRoundCount(playerMetrics.get(shiftedGame.getPlayerA()), round, round - 1);
+			moveRoundCount(playerMetrics.get(shiftedGame.getPlayerB()), round, round - 1);
+		}
+		removeGamePositions(index, game);
+		numGames--;
+		if(numRounds > 0 && (numRounds - 1) * numGamesInFullRound >= numGames)
+			removeRound();
+		for(PlayerMetrics player : playerMetrics.values())
+		{
+			shiftTail(player, index, -1);
+		}
+		removePlayerIfIdle(game.getPlayerA());
+		removePlayerIfIdle(game.getPlayerB());
+	}
+
+	/**
+	 * Gets the shortest rest gap of any player
+	 * @return The shortest rest gap (0 if no player plays twice)
+	 */
+	public int getMinRestGap()
+	{
+		return restGaps.min();
+	}
+
+	/**
+	 * Gets the mean rest gap over every player
+	 * @return The mean rest gap (0 if no player plays twice)
+	 */
+	public double getMeanRestGap()
+	{
+		return (restGaps.size == 0) ? 0 : (double) sumRestGaps / restGaps.size;
+	}
+
+	/**
+	 * Gets the longest rest gap of any player
+	 * @return The longest rest gap (0 if no player plays twice)
+	 */
+	public int getMaxRestGap()
+	{
+		return restGaps.max();
+	}
+
+	/**
+	 * Gets the number of back-to-back games over every player
+	 * @return The number of times a player plays two games in a row
+	 */
+	public int getNumBackToBack()
+	{
+		return restGaps.count(0);
+	}
+
+	/**
+	 * Gets the longest idle stretch of any player
+	 * @return The longest run of games any player sits out
+	 */
+	public int getLongestIdleStretch()
+	{
+		return idleStretches.max();
+	}
+
+	/**
+	 * Gets the round balance of the schedule
+	 * @return The largest difference in any round between the most and fewest games played by a player in that round (0 if every round is balanced)
+	 */
+	public int getRoundBalance()
+	{
+		return roundSpreads.max();
+	}
+
+	/**
+	 * Gets the played balance of the schedule
+	 * @return The difference between the most and fewest games played by a player so far
+	 */
+	public int getPlayedBalance()
+	{
+		return gamesPlayed.max() - gamesPlayed.min();
+	}
+
+	/**
+	 * Gets the shortest rest gap of a player
+	 * @param player The player
+	 * @return The player's shortest rest gap (0 if the player does not play twice)
+	 */
+	public int getMinRestGap(Player player)
+	{
+		PlayerMetrics metrics = playerMetrics.get(player);
+		return (metrics == null) ? 0 : metrics.restGaps.min();
+	}
+
+	/**
+	 * Gets the mean rest gap of a player
+	 * The rest gaps of a player add up to the games between their first and last game that they sit out, so this is O(1)
+	 * @param player The player
+	 * @return The player's mean rest gap (0 if the player does not play twice)
+	 */
+	public double getMeanRestGap(Player player)
+	{
+		PlayerMetrics metrics = playerMetrics.get(player);
+		if(metrics == null || metrics.numGames < 2)
+			return 0;
+		int sumOfGaps = metrics.positions[metrics.numGames - 1] - metrics.positions[0] - (metrics.numGames - 1);
+		return (double) sumOfGaps / (metrics.numGames - 1);
+	}
+
+	/**
+	 * Gets the longest rest gap of a player
+	 * @param player The player
+	 * @return The player's longest rest gap (0 if the player does not play twice)
+	 */
+	public int getMaxRestGap(Player player)
+	{
+		PlayerMetrics metrics = playerMetrics.get(player);
+		return (metrics == null) ? 0 : metrics.restGaps.max();
+	}
+
+	/**
+	 * Gets the number of back-to-back games of a player
+	 * @param player The player
+	 * @return The number of times the player plays two games in a row
+	 */
+	public int getNumBackToBack(Player player)
+	{
+		PlayerMetrics metrics = playerMetrics.get(player);
+		return (metrics == null) ? 0 : metrics.restGaps.count(0);
+	}
+
+	/**
+	 * Gets the longest idle stretch of a player
+	 * @param player The player
+	 * @return The longest run of games the player sits out
+	 */
+	public int getLongestIdleStretch(Player player)
+	{
+		PlayerMetrics metrics = playerMetrics.get(player);
+		return (metrics == null) ? numGames : metrics.idleStretch;
+	}
+
+	/**
+	 * Gets the number of games a player has played
+	 * @param player The player
+	 * @return The number of the player's games marked as played
+	 */
+	public int getNumGamesPlayed(Player player)
+	{
+		PlayerMetrics metrics = playerMetrics.get(player);
+		return (metrics == null) ? 0 : metrics.numGamesPlayed;
+	}
+
+	/**
+	 * Gets the number of games a player has left to play
+	 * @param player The player
+	 * @return The number of the player's games not marked as played
+	 */
+	public int getNumGamesRemaining(Player player)
+	{
+		PlayerMetrics metrics = playerMetrics.get(player);
+		return (metrics == null) ? 0 : metrics.numGames - metrics.numGamesPlayed;
+	}
+
+	/**
+	 * Gets the index of a player's next game
+	 * It is the first of the player's games in schedule order that has not been played, even if later games were played first
+	 * @param player The player
+	 * @return The index of the player's next unplayed game (-1 if the player has no games left)
+	 */
+	public int getNextGameIndex(Player player)
+	{
+		PlayerMetrics metrics = playerMetrics.get(player);
+		if(metrics == null || metrics.firstUnplayed >= metrics.numGames)
+			return -1;
+		return metrics.positions[metrics.firstUnplayed];
+	}
+
+	/**
+	 * Gets the number of games left before a player's next game (What remains of their current rest gap)
+	 * Only unplayed games are counted, so games played out of order are skipped (O(log n))
+	 * @param player The player
+	 * @return The number of unplayed games before the player is up (0 if the player is in the next game, -1 if the player has no games left)
+	 */
+	public int getNumGamesUntilNextGame(Player player)
+	{
+		int nextGameIndex = getNextGameIndex(player);
+		return (nextGameIndex == -1) ? -1 : games.countUnplayedBefore(nextGameIndex);
+	}
+
+	/**
+	 * Gets the number of players in the schedule
+	 * @return The number of players with at least one game
+	 */
+	public int getNumPlayers()
+	{
+		return playerMetrics.size();
+	}
+
+	/**
+	 * Gets the indices of a player's games
+	 * @param player The player
+	 * @return Indices of the player's games in schedule order (Empty if the player is not in the schedule)
+	 */
+	int[] getGamePositions(Player player)
+	{
+		PlayerMetrics metrics = playerMetrics.get(player);
+		return (metrics == null) ? new int[0] : Arrays.copyOf(metrics.positions, metrics.numGames);
+	}
+
+	/**
+	 * Override of the toString() method
+	 * @return The schedule wide metrics as a string
+	 */
+	@Override
+	public String toString()
+	{
+		return "Rest gap (Min/Mean/Max): " + getMinRestGap() + "/" + String.format("%.2f", getMeanRestGap()) + "/" + getMaxRestGap()
+			+ ", Back-to-back games: " + getNumBackToBack()
+			+ ", Longest idle stretch: " + getLongestIdleStretch()
+			+ ", Round balance: " + getRoundBalance();
+	}
+
+	/**
+	 * Private helper to add a rest gap to a player and to the schedule wide metrics
+	 * @param player The player
+	 * @param restGap The rest gap
+	 */
+	private void addRestGap(PlayerMetrics player, int restGap)
+	{
+		player.restGaps.add(restGap);
+		restGaps.add(restGap);
+		sumRestGaps += restGap;
+	}
+
+	/**
+	 * Private helper to remove a rest gap from a player and from the schedule wide metrics
+	 * @param player The player
+	 * @param restGap The rest gap
+	 */
+	private void removeRestGap(PlayerMetrics player, int restGap)
+	{
+		player.restGaps.remove(restGap);
+		restGaps.remove(restGap);
+		sumRestGaps -= restGap;
+	}
+
+	/**
+	 * Private helper to remove a game position from a player
+	 * The rest gaps either side of the game merge into one
+	 * @param player The player
+	 * @param position The index of the game
+	 */
+	private void removePosition(PlayerMetrics player, int position)
+	{
+		int j = Arrays.binarySearch(player.positions, 0, player.numGames, position);
+		boolean hasPrevious = j > 0;
+		boolean hasNext = j < player.numGames - 1;
+		if(hasPrevious)
+			removeRestGap(player, position - player.positions[j - 1] - 1);
+		if(hasNext)
+			removeRestGap(player, player.positions[j + 1] - position - 1);
+		if(hasPrevious && hasNext)
+			addRestGap(player, player.positions[j + 1] - player.positions[j - 1] - 1);
+		System.arraycopy(player.positions, j + 1, player.positions, j, player.numGames - j - 1);
+		System.arraycopy(player.played, j + 1, player.played, j, player.numGames - j - 1);
+		player.numGames--;
+		if(j < player.firstUnplayed)
+			player.firstUnplayed--;
+		else if(j == player.firstUnplayed)
+			advanceFirstUnplayed(player);
+	}
+
+	/**
+	 * Private helper to add a game position to a player
+	 * The rest gap the game lands in splits in two
+	 * @param player The player
+	 * @param position The index of the game
+	 * @param played True if the game was played
+	 */
+	private void addPosition(PlayerMetrics player, int position, boolean played)
+	{
+		if(player.numGames == player.positions.length)
+		{
+			player.positions = Arrays.copyOf(player.positions, 2 * player.numGames + 1);
+			player.played = Arrays.copyOf(player.played, player.positions.length);
+		}
+		int j = -Arrays.binarySearch(player.positions, 0, player.numGames, position) - 1;
+		boolean hasPrevious = j > 0;
+		boolean hasNext = j < player.numGames;
+		if(hasPrevious && hasNext)
+			removeRestGap(player, player.positions[j] - player.positions[j - 1] - 1);
+		if(hasPrevious)
+			addRestGap(player, position - player.positions[j - 1] - 1);
+		if(hasNext)
+			addRestGap(player, player.positions[j] - position - 1);
+		System.arraycopy(player.positions, j, player.positions, j + 1, player.numGames - j);
+		System.arraycopy(player.played, j, player.played, j + 1, player.numGames - j);
+		player.positions[j] = position;
+		player.played[j] = played;
+		player.numGames++;
+		if(j <= player.firstUnplayed)
+			player.firstUnplayed = played ? player.firstUnplayed + 1 : j;
+		updateIdleStretch(player);
+	}
+
+	/**
+	 * Private helper to move a player's first unplayed game past the games that were played
+	 * Games are usually played in order, so this only steps past the game that was just played
+	 * @param player The player
+	 */
+	private void advanceFirstUnplayed(PlayerMetrics player)
+	{
+		while(player.firstUnplayed < player.numGames && player.played[player.firstUnplayed])
+		{
+			player.firstUnplayed++;
+		}
+	}
+
+	/**
+	 * Private helper to shift a player's games inside a block of the schedule by one place
+	 * Rest gaps inside the block keep their length, so only the gaps at either end of the block change
+	 * @param player The player
+	 * @param blockStart The index of the first game in the block
+	 * @param blockEnd The index of the last game in the block
+	 * @param shift -1 or 1
+	 */
+	private void shiftPositions(PlayerMetrics player, int blockStart, int blockEnd, int shift)
+	{
+		if(player.lastEdit == numEdits)
+			return;
+		player.lastEdit = numEdits;
+		int first = firstPositionAtOrAfter(player, blockStart);
+		int last = firstPositionAtOrAfter(player, blockEnd + 1) - 1;
+		if(first > 0)
+		{
+			int previous = player.positions[first - 1];
+			removeRestGap(player, player.positions[first] - previous - 1);
+			addRestGap(player, player.positions[first] + shift - previous - 1);
+		}
+		if(last < player.numGames - 1)
+		{
+			int next = player.positions[last + 1];
+			removeRestGap(player, next - player.positions[last] - 1);
+			addRestGap(player, next - player.positions[last] - shift - 1);
+		}
+		for(int j = first; j <= last; j++)
+		{
+			player.positions[j] += shift;
+		}
+		updateIdleStretch(player);
+	}
+
+	/**
+	 * Private helper to move a player's games in the span of a block move to their new positions
+	 * The player's games in the block and in the games it moves past stay in order among themselves, so the two runs only swap places
+	 * Only the rest gaps inside the span and at its edges are taken out and put back
+	 * @param player The player
+	 * @param spanStart The index of the first game in the span
+	 * @param spanEnd The index after the last game in the span
+	 * @param fromIndex The index of the first game in the block
+	 * @param toIndex The index after the last game in the block
+	 * @param newIndex The index the first game of the block will have after the move
+	 */
+	private void reorderPositions(PlayerMetrics player, int spanStart, int spanEnd, int fromIndex, int toIndex, int newIndex)
+	{
+		if(player.lastEdit == numEdits)
+			return;
+		player.lastEdit = numEdits;
+		int first = firstPositionAtOrAfter(player, spanStart);
+		int end = firstPositionAtOrAfter(player, spanEnd);
+		int lastGap = Math.min(end, player.numGames - 1); // The gap after the span, if the player has a game after it
+		for(int j = Math.max(first, 1); j <= lastGap; j++)
+		{
+			removeRestGap(player, player.positions[j] - player.positions[j - 1] - 1);
+		}
+		// The block's run goes first if it moves back, last if it moves forward
+		int blockFirst = firstPositionAtOrAfter(player, fromIndex);
+		int blockEnd = firstPositionAtOrAfter(player, toIndex);
+		int[] newPositions = new int[end - first];
+		boolean[] newPlayed = new boolean[end - first];
+		int k = 0;
+		for(int[] run : (newIndex < fromIndex) ? new int[][] {{blockFirst, blockEnd}, {first, blockFirst}} : new int[][] {{blockEnd, end}, {blockFirst, blockEnd}})
+		{
+			for(int j = run[0]; j < run[1]; j++)
+			{
+				newPositions[k] = movedIndex(player.positions[j], fromIndex, toIndex, newIndex);
+				newPlayed[k] = player.played[j];
+				k++;
+			}
+		}
+		System.arraycopy(newPositions, 0, player.positions, first, newPositions.length);
+		System.arraycopy(newPlayed, 0, player.played, first, newPlayed.length);
+		for(int j = Math.max(first, 1); j <= lastGap; j++)
+		{
+			addRestGap(player, player.positions[j] - player.positions[j - 1] - 1);
+		}
+		if(player.firstUnplayed >= first)
+		{
+			player.firstUnplayed = first;
+			advanceFirstUnplayed(player);
+		}
+		updateIdleStretch(player);
+	}
+
+	/**
+	 * Private helper to find where a game ends up after a block move
+	 * @param index The index of the game before the move
+	 * @param fromIndex The index of the first game in the block
+	 * @param toIndex The index after the last game in the block
+	 * @param newIndex The index the first game of the block will have after the move
+	 * @return The index of the game after the move
+	 */
+	private static int movedIndex(int index, int fromIndex, int toIndex, int newIndex)
+	{
+		if(index >= fromIndex && index < toIndex)
+			return index + newIndex - fromIndex;
+		if(newIndex < fromIndex && index >= newIndex && index < fromIndex)
+			return index + toIndex - fromIndex;
+		if(newIndex > fromIndex && index >= toIndex && index < newIndex + toIndex - fromIndex)
+			return index - (toIndex - fromIndex);
+		return index;
+	}
+
+	/**
+	 * Private helper to shift every one of a player's games at or after an index by one place (A game was inserted or removed before them)
+	 * Only the rest gap across the index changes length
+	 * @param player The player
+	 * @param fromIndex The index of the first game that shifts
+	 * @param shift -1 or 1
+	 */
+	private void shiftTail(PlayerMetrics player, int fromIndex, int shift)
+	{
+		int first = firstPositionAtOrAfter(player, fromIndex);
+		if(first > 0 && first < player.numGames)
+		{
+			int previous = player.positions[first - 1];
+			removeRestGap(player, player.positions[first] - previous - 1);
+			addRestGap(player, player.positions[first] + shift - previous - 1);
+		}
+		for(int j = first; j < player.numGames; j++)
+		{
+			player.positions[j] += shift;
+		}
+		updateIdleStretch(player);
+	}
+
+	/**
+	 * Private helper to add a game to the metrics of its two players
+	 * A player who had no games is added to the metrics first
+	 * @param index The index of the game
+	 * @param game The game
+	 */
+	private void addGamePositions(int index, Game game)
+	{
+		for(Player player : new Player[] {game.getPlayerA(), game.getPlayerB()})
+		{
+			PlayerMetrics metrics = playerMetrics.get(player);
+			if(metrics == null)
+				metrics = addPlayer(player);
+			addPosition(metrics, index, game.getPlayed());
+			changeRoundCount(metrics, index / numGamesInFullRound, 1);
+			if(game.getPlayed())
+				changeNumGamesPlayed(metrics, 1);
+		}
+	}
+
+	/**
+	 * Private helper to remove a game from the metrics of its two players
+	 * @param index The index of the game
+	 * @param game The game
+	 */
+	private void removeGamePositions(int index, Game game)
+	{
+		for(Player player : new Player[] {game.getPlayerA(), game.getPlayerB()})
+		{
+			PlayerMetrics metrics = playerMetrics.get(player);
+			removePosition(metrics, index);
+			changeRoundCount(metrics, index / numGamesInFullRound, -1);
+			if(game.getPlayed())
+				changeNumGamesPlayed(metrics, -1);
+		}
+	}
+
+	/**
+	 * Private helper to add a player without games to the metrics
+	 * @param player The player
+	 * @return The player's metrics
+	 */
+	private PlayerMetrics addPlayer(Player player)
+	{
+		PlayerMetrics metrics = new PlayerMetrics(1);
+		metrics.idleStretch = numGames;
+		idleStretches.add(metrics.idleStretch);
+		gamesPlayed.add(0);
+		for(int round = 0; round < numRounds; round++)
+		{
+			Counts counts = roundCounts[round];
+			roundSpreads.remove(counts.max() - counts.min());
+			counts.add(0);
+			roundSpreads.add(counts.max() - counts.min());
+		}
+		playerMetrics.put(player, metrics);
+		return metrics;
+	}
+
+	/**
+	 * Private helper to remove a player from the metrics once they have no games left
+	 * @param player The player
+	 */
+	private void removePlayerIfIdle(Player player)
+	{
+		PlayerMetrics metrics = playerMetrics.get(player);
+		if(metrics == null || metrics.numGames > 0)
+			return;
+		idleStretches.remove(metrics.idleStretch);
+		gamesPlayed.remove(metrics.numGamesPlayed);
+		for(int round = 0; round < numRounds; round++)
+		{
+			Counts counts = roundCounts[round];
+			roundSpreads.remove(counts.max() - counts.min());
+			counts.remove(0);
+			roundSpreads.add(counts.max() - counts.min());
+		}
+		playerMetrics.remove(player);
+	}
+
+	/**
+	 * Private helper to add an empty round to the end of the schedule
+	 */
+	private void addRound()
+	{
+		if(roundCounts.length == numRounds)
+			roundCounts = Arrays.copyOf(roundCounts, 2 * numRounds + 1);
+		roundCounts[numRounds] = new Counts();
+		for(PlayerMetrics player : playerMetrics.values())
+		{
+			if(player.numGamesInRound.length == numRounds)
+				player.numGamesInRound = Arrays.copyOf(player.numGamesInRound, 2 * numRounds + 1);
+			roundCounts[numRounds].add(0);
+		}
+		roundSpreads.add(0);
+		numRounds++;
+	}
+
+	/**
+	 * Private helper to remove the last round once it has no games left
+	 */
+	private void removeRound()
+	{
+		numRounds--;
+		roundSpreads.remove(roundCounts[numRounds].max() - roundCounts[numRounds].min());
+		roundCounts[numRounds] = null;
+	}
+
+	/**
+	 * Private helper to change the number of games a player has played
+	 * @param player The player
+	 * @param change -1 or 1
+	 */
+	private void changeNumGamesPlayed(PlayerMetrics player, int change)
+	{
+		gamesPlayed.remove(player.numGamesPlayed);
+		player.numGamesPlayed += change;
+		gamesPlayed.add(player.numGamesPlayed);
+	}
+
+	/**
+	 * Private helper to find the first of a player's games at or after an index (Binary search)
+	 * @param player The player
+	 * @param position The index
+	 * @return The position of the game in the player's positions array (numGames if there is none)
+	 */
+	private int firstPositionAtOrAfter(PlayerMetrics player, int position)
+	{
+		int j = Arrays.binarySearch(player.positions, 0, player.numGames, position);
+		return (j >= 0) ? j : -j - 1;
+	}
+
+	/**
+	 * Private helper to find the index of the first round that starts at or after an index
+	 * @param index The index
+	 * @return The index of the first game in that round
+	 */
+	private int roundStartAtOrAfter(int index)
+	{
+		return ((index + numGamesInFullRound - 1) / numGamesInFullRound) * numGamesInFullRound;
+	}
+
+	/**
+	 * Private helper to recompute a player's longest idle stretch and update the schedule wide metric
+	 * @param player The player
+	 */
+	private void updateIdleStretch(PlayerMetrics player)
+	{
+		int idleStretch = longestIdleStretch(player);
+		if(idleStretch == player.idleStretch)
+			return;
+		idleStretches.remove(player.idleStretch);
+		idleStretches.add(idleStretch);
+		player.idleStretch = idleStretch;
+	}
+
+	/**
+	 * Private helper to compute a player's longest idle stretch
+	 * @param player The player
+	 * @return The longest of the player's rest gaps and the stretches before their first and after their last game
+	 */
+	private int longestIdleStretch(PlayerMetrics player)
+	{
+		if(player.numGames == 0)
+			return numGames;
+		int beforeFirst = player.positions[0];
+		int afterLast = numGames - 1 - player.positions[player.numGames - 1];
+		return Math.max(player.restGaps.max(), Math.max(beforeFirst, afterLast));
+	}
+
+	/**
+	 * Private helper to move one of a player's games from one round to another
+	 * @param player The player
+	 * @param oldRound The index of the round the game was in
+	 * @param newRound The index of the round the game is now in
+	 */
+	private void moveRoundCount(PlayerMetrics player, int oldRound, int newRound)
+	{
+		if(oldRound == newRound)
+			return;
+		changeRoundCount(player, oldRound, -1);
+		changeRoundCount(player, newRound, 1);
+	}
+
+	/**
+	 * Private helper to change the number of games a player plays in a round and update that round's spread
+	 * @param player The player
+	 * @param round The index of the round
+	 * @param change -1 or 1
+	 */
+	private void changeRoundCount(PlayerMetrics player, int round, int change)
+	{
+		Counts counts = roundCounts[round];
+		roundSpreads.remove(counts.max() - counts.min());
+		counts.remove(player.numGamesInRound[round]);
+		player.numGamesInRound[round] += change;
+		counts.add(player.numGamesInRound[round]);
+		roundSpreads.add(counts.max() - counts.min());
+	}
+}
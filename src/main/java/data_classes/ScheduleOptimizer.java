@@ -0,0 +1,385 @@
+package data_classes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * This class is an optional post-pass of the schedule builder that improves the order of a built schedule
+ * It runs parallel tempering: several replicas of the schedule anneal at different temperatures on all cores and swap temperatures between sweeps
+ * The only move is a swap of two nearby games in the same round, so every round keeps exactly the same games (Pair multiplicities never change)
+ * A move of a game is a chain of such swaps, so the search can still reach every order of a round
+ * The energy sums a penalty over every rest gap (Games a player sits out between consecutive games)
+ * Gaps are penalized by their squared distance from the ideal gap, and back-to-back games get an extra penalty
+ * A swap only changes the gaps of the players who are in one of the two games but not the other, so it is evaluated in O(degree)
+ * It is an anytime search: it reports every improvement and can be stopped between sweeps, returning the best order found so far
+ * @author William Shaw
+ */
+class ScheduleOptimizer
+{
+	private static final int MIN_REPLICAS = 4;               // The fewest replicas on the temperature ladder
+	private static final double TEMPERATURE_RANGE = 100.0;   // Ratio of the hottest temperature to the coldest
+	private static final double HOTTEST_SCALE = 0.05;        // Hottest temperature as a fraction of the average uphill swap
+	private static final int SWAP_WINDOW = 4;                // The furthest apart (In games) two swapped games can be
+	private static final int NUM_CALIBRATION_SWAPS = 1000;   // Random swaps sampled to pick the hottest temperature
+
+	/**
+	 * Private Inner Class Replica
+	 * A copy of the schedule annealing at one temperature
+	 * Every replica has its own generator so replicas never share state between threads
+	 * @author William Shaw
+	 */
+	private class Replica
+	{
+		private long[] matches;              // Scheduled matches as packed pairs of player ids
+		private int[][] positions;           // Indices of each player's games in schedule order
+		private double energy;               // Total rest gap penalty of the matches
+		private double temperature;          // Current temperature (Swapped with neighbouring replicas)
+		private SplittableRandom random;     // Source of every random decision of the replica
+
+		/**
+		 * Constructor
+		 * @param matches Scheduled matches as packed pairs of player ids (Copied)
+		 * @param random Source of every random decision of the replica
+		 */
+		private Replica(long[] matches, SplittableRandom random)
+		{
+			this.matches = matches.clone();
+			this.random = random;
+			positions = new int[numPlayers][];
+			int[] numGamesOfPlayer = new int[numPlayers];
+			for(int i = 0; i < matches.length; i++)
+			{
+				numGamesOfPlayer[IndexedScheduleEngine.playerA(matches[i])]++;
+				numGamesOfPlayer[IndexedScheduleEngine.playerB(matches[i])]++;
+			}
+			for(int p = 0; p < numPlayers; p++)
+			{
+				positions[p] = new int[numGamesOfPlayer[p]];
+			}
+			Arrays.fill(numGamesOfPlayer, 0);
+			for(int i = 0; i < matches.length; i++)
+			{
+				int playerA = IndexedScheduleEngine.playerA(matches[i]);
+				int playerB = IndexedScheduleEngine.playerB(matches[i]);
+				positions[playerA][numGamesOfPlayer[playerA]++] = i;
+				positions[playerB][numGamesOfPlayer[playerB]++] = i;
+			}
+			energy = 0;
+			for(int p = 0; p < numPlayers; p++)
+			{
+				for(int j = 1; j < positions[p].length; j++)
+				{
+					energy += gapCost[positions[p][j] - positions[p][j - 1] - 1];
+				}
+			}
+		}
+
+		/**
+		 * Runs one sweep of the annealing (One proposed swap per game)
+		 */
+		private void sweep()
+		{
+			for(int k = 0; k < matches.length; k++)
+			{
+				int i = random.nextInt(matches.length);
+				int j = randomPartner(i, random);
+				if(j == -1)
+					continue;
+				double delta = swapDelta(i, j);
+				if(delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature))
+					swap(i, j, delta);
+			}
+		}
+
+		/**
+		 * Computes the change in energy if two games were swapped
+		 * @param i The index of the first game
+		 * @param j The index of the second game
+		 * @return The change in energy
+		 */
+		private double swapDelta(int i, int j)
+		{
+			int playerA1 = IndexedScheduleEngine.playerA(matches[i]);
+			int playerB1 = IndexedScheduleEngine.playerB(matches[i]);
+			int playerA2 = IndexedScheduleEngine.playerA(matches[j]);
+			int playerB2 = IndexedScheduleEngine.playerB(matches[j]);
+			double delta = 0;
+			// A player in both games keeps both positions, so only the players in one game move
+			if(playerA1 != playerA2 && playerA1 != playerB2)
+				delta += moveDelta(positions[playerA1], i, j);
+			if(playerB1 != playerA2 && playerB1 != playerB2)
+				delta += moveDelta(positions[playerB1], i, j);
+			if(playerA2 != playerA1 && playerA2 != playerB1)
+				delta += moveDelta(positions[playerA2], j, i);
+			if(playerB2 != playerA1 && playerB2 != playerB1)
+				delta += moveDelta(positions[playerB2], j, i);
+			return delta;
+		}
+
+		/**
+		 * Swaps two games and updates the positions and energy
+		 * @param i The index of the first game
+		 * @param j The index of the second game
+		 * @param delta The change in energy (See swapDelta)
+		 */
+		private void swap(int i, int j, double delta)
+		{
+			energy += delta;
+			int playerA1 = IndexedScheduleEngine.playerA(matches[i]);
+			int playerB1 = IndexedScheduleEngine.playerB(matches[i]);
+			int playerA2 = IndexedScheduleEngine.playerA(matches[j]);
+			int playerB2 = IndexedScheduleEngine.playerB(matches[j]);
+			if(playerA1 != playerA2 && playerA1 != playerB2)
+				movePosition(positions[playerA1], i, j);
+			if(playerB1 != playerA2 && playerB1 != playerB2)
+				movePosition(positions[playerB1], i, j);
+			if(playerA2 != playerA1 && playerA2 != playerB1)
+				movePosition(positions[playerA2], j, i);
+			if(playerB2 != playerA1 && playerB2 != playerB1)
+				movePosition(positions[playerB2], j, i);
+			long temp = matches[i];
+			matches[i] = matches[j];
+			matches[j] = temp;
+		}
+	}
+
+	// Private attributes
+	private long[] matches;              // The built matches as packed pairs of player ids
+	private int numPlayers;              // The number of players
+	private int numGamesInFullRound;     // The number of games in a full round (Swaps never leave a round)
+	private double[] gapCost;            // Penalty of each rest gap length
+	private SplittableRandom random;     // Source of every random decision (Split per replica)
+	private BooleanSupplier stopRequested;  // Returns true once the optimizer should stop
+	private Consumer<long[]> improvementListener; // Receives every improvement on the best order
+
+	/**
+	 * Constructor
+	 * @param matches The built matches as packed pairs of player ids
+	 * @param numPlayers The number of players
+	 * @param numGamesInFullRound The number of games in a full round
+	 * @param random Source of every random decision
+	 * @param stopRequested Returns true once the optimizer should stop (Checked between sweeps)
+	 * @param improvementListener Receives every improvement on the best order
+	 */
+	ScheduleOptimizer(long[] matches, int numPlayers, int numGamesInFullRound, SplittableRandom random, BooleanSupplier stopRequested, Consumer<long[]> improvementListener)
+	{
+		this.matches = matches;
+		this.numPlayers = numPlayers;
+		this.numGamesInFullRound = numGamesInFullRound;
+		this.random = random;
+		this.stopRequested = stopRequested;
+		this.improvementListener = improvementListener;
+		// Every player plays once every numPlayers / 2 games in a perfectly spread round robin
+		double idealGap = numPlayers / 2.0 - 1;
+		double backToBackPenalty = (double) numPlayers * numPlayers;
+		gapCost = new double[matches.length];
+		for(int gap = 0; gap < gapCost.length; gap++)
+		{
+			gapCost[gap] = (gap - idealGap) * (gap - idealGap);
+		}
+		if(gapCost.length > 0)
+			gapCost[0] += backToBackPenalty;
+	}
+
+	/**
+	 * Optimizes the order of the matches
+	 * Replicas run their sweeps in parallel on the common fork join pool and try to swap temperatures with their neighbours after every sweep
+	 * @param numSweeps The number of sweeps every replica runs (Fewer if the optimizer is stopped)
+	 * @return The lowest energy order found as packed pairs of player ids
+	 */
+	long[] optimize(int numSweeps)
+	{
+		if(matches.length < 2 || numGamesInFullRound < 2)
+			return matches;
+		// Sets up the temperature ladder (Hottest first)
+		int numReplicas = Math.max(MIN_REPLICAS, Runtime.getRuntime().availableProcessors());
+		Replica[] ladder = new Replica[numReplicas];
+		for(int i = 0; i < numReplicas; i++)
+		{
+			ladder[i] = new Replica(matches, random.split());
+		}
+		double hottest = calibrateTemperature(ladder[0]);
+		for(int i = 0; i < numReplicas; i++)
+		{
+			ladder[i].temperature = hottest * Math.pow(1 / TEMPERATURE_RANGE, (double) i / (numReplicas - 1));
+		}
+
+		long[] bestMatches = matches;
+		double bestEnergy = ladder[0].energy;
+		ArrayList<Callable<Void>> sweeps = new ArrayList<>();
+		for(int i = 0; i < numReplicas; i++)
+		{
+			Replica replica = ladder[i];
+			sweeps.add(() -> {
+				replica.sweep();
+				return null;
+			});
+		}
+		try
+		{
+			for(int sweep = 0; sweep < numSweeps && !stopRequested.getAsBoolean(); sweep++)
+			{
+				for(var result : ForkJoinPool.commonPool().invokeAll(sweeps))
+				{
+					result.get();
+				}
+				// Keeps the best order found by any replica
+				boolean improved = false;
+				for(int i = 0; i < numReplicas; i++)
+				{
+					if(ladder[i].energy < bestEnergy)
+					{
+						bestEnergy = ladder[i].energy;
+						bestMatches = ladder[i].matches.clone();
+						improved = true;
+					}
+				}
+				if(improved)
+					improvementListener.accept(bestMatches);
+				// Tries to swap the temperatures of neighbouring replicas (Metropolis criterion)
+				for(int i = 0; i + 1 < numReplicas; i++)
+				{
+					Replica hotter = ladder[i];
+					Replica colder = ladder[i + 1];
+					double exponent = (colder.energy - hotter.energy) * (1 / colder.temperature - 1 / hotter.temperature);
+					if(exponent >= 0 || random.nextDouble() < Math.exp(exponent))
+					{
+						double temperature = hotter.temperature;
+						hotter.temperature = colder.temperature;
+						colder.temperature = temperature;
+						ladder[i] = colder;
+						ladder[i + 1] = hotter;
+					}
+				}
+			}
+		}
+		catch(InterruptedException e)
+		{
+			// Keeps the best order found before the interrupt
+			Thread.currentThread().interrupt();
+		}
+		catch(ExecutionException e)
+		{
+			throw new IllegalStateException("Schedule optimization failed", e.getCause());
+		}
+		return bestMatches;
+	}
+
+	/**
+	 * Private helper to pick the hottest temperature from the average uphill swap
+	 * Built schedules are already close to a local minimum, so even the hottest replica only accepts small uphill swaps
+	 * @param replica A replica of the built matches
+	 * @return The hottest temperature
+	 */
+	private double calibrateTemperature(Replica replica)
+	{
+		double sumUphill = 0;
+		int numUphill = 0;
+		for(int k = 0; k < NUM_CALIBRATION_SWAPS; k++)
+		{
+			int i = random.nextInt(matches.length);
+			int j = randomPartner(i, random);
+			if(j == -1)
+				continue;
+			double delta = replica.swapDelta(i, j);
+			if(delta > 0)
+			{
+				sumUphill += delta;
+				numUphill++;
+			}
+		}
+		return (numUphill == 0) ? 1 : HOTTEST_SCALE * sumUphill / numUphill;
+	}
+
+	/**
+	 * Private helper to pick a random game near another game in the same round
+	 * Swapping nearby games only nudges rest gaps, so far more swaps are accepted than between random games
+	 * @param i The index of the game
+	 * @param random Source of the random decision
+	 * @return The index of a different game in the same round at most SWAP_WINDOW games away (-1 if there is none)
+	 */
+	private int randomPartner(int i, SplittableRandom random)
+	{
+		int roundStart = (i / numGamesInFullRound) * numGamesInFullRound;
+		int roundEnd = Math.min(roundStart + numGamesInFullRound, matches.length);
+		int windowStart = Math.max(roundStart, i - SWAP_WINDOW);
+		int windowEnd = Math.min(roundEnd, i + SWAP_WINDOW + 1);
+		if(windowEnd - windowStart < 2)
+			return -1;
+		int j = windowStart + random.nextInt(windowEnd - windowStart - 1);
+		return (j >= i) ? j + 1 : j;
+	}
+
+	/**
+	 * Private helper to compute the change in a player's rest gap penalty if one of their games moved
+	 * @param positions Indices of the player's games in schedule order
+	 * @param from The index the game moves from
+	 * @param to The index the game moves to (Not one of the player's games)
+	 * @return The change in the player's penalty
+	 */
+	private double moveDelta(int[] positions, int from, int to)
+	{
+		int j = Arrays.binarySearch(positions, from);
+		int previous = (j > 0) ? positions[j - 1] : -1;
+		int next = (j < positions.length - 1) ? positions[j + 1] : -1;
+		double delta = 0;
+		// Takes the game out (The gaps either side merge)
+		if(previous != -1)
+			delta -= gapCost[from - previous - 1];
+		if(next != -1)
+			delta -= gapCost[next - from - 1];
+		if(previous != -1 && next != -1)
+			delta += gapCost[next - previous - 1];
+		// Puts the game back in (The gap it lands in splits), skipping the game's old position
+		int k = -Arrays.binarySearch(positions, to) - 1;
+		int before = k - 1;
+		int after = k;
+		if(before == j)
+			before--;
+		if(after == j)
+			after++;
+		previous = (before >= 0) ? positions[before] : -1;
+		next = (after < positions.length) ? positions[after] : -1;
+		if(previous != -1 && next != -1)
+			delta -= gapCost[next - previous - 1];
+		if(previous != -1)
+			delta += gapCost[to - previous - 1];
+		if(next != -1)
+			delta += gapCost[next - to - 1];
+		return delta;
+	}
+
+	/**
+	 * Private helper to move one of a player's games and keep their positions sorted
+	 * @param positions Indices of the player's games in schedule order
+	 * @param from The index the game moves from
+	 * @param to The index the game moves to (Not one of the player's games)
+	 */
+	private static void movePosition(int[] positions, int from, int to)
+	{
+		int j = Arrays.binarySearch(positions, from);
+		if(to > from)
+		{
+			while(j + 1 < positions.length && positions[j + 1] < to)
+			{
+				positions[j] = positions[j + 1];
+				j++;
+			}
+		}
+		else
+		{
+			while(j > 0 && positions[j - 1] > to)
+			{
+				positions[j] = positions[j - 1];
+				j--;
+			}
+		}
+		positions[j] = to;
+	}
+}
@@ -0,0 +1,248 @@
+package data_classes;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class races several schedule builder strategies against each other and keeps the fairest schedule (See FairnessScore)
+ * Different numbers of players and games each favour different strategies, so running them together bounds how long a build can take
+ * Each strategy is a schedule builder with its own engine, optimizer sweeps and seed, running on its own thread
+ * Results are gathered until every strategy has finished or the time budget runs out, and the fairest schedule found by then is kept
+ * A schedule within the quality threshold wins straight away and every other strategy is cancelled (See setMaxWaitThreshold)
+ * It follows the builder design pattern
+ * @author William Shaw
+ */
+public class SchedulePortfolio
+{
+	/**
+	 * Private Inner Class Strategy
+	 * The options of one schedule builder in the portfolio
+	 * @author William Shaw
+	 */
+	private static class Strategy
+	{
+		private ScheduleBuilder.Engine engine; // The engine the builder runs the greedy search on
+		private int numOptimizerSweeps;        // The number of optimizer sweeps run after the build (0 to skip the optimizer)
+
+		/**
+		 * Constructor
+		 * @param engine The engine the builder runs the greedy search on
+		 * @param numOptimizerSweeps The number of optimizer sweeps run after the build
+		 */
+		private Strategy(ScheduleBuilder.Engine engine, int numOptimizerSweeps)
+		{
+			this.engine = engine;
+			this.numOptimizerSweeps = numOptimizerSweeps;
+		}
+	}
+
+	// Private data structures
+	private ArrayList<Player> players;                          // List of players (Schedule order)
+	private ArrayList<Strategy> strategies = new ArrayList<>(); // The strategies raced against each other (In the order they were added)
+
+	// Private attributes
+	private int numGamesEach;                // The total number of games each person plays
+	private int maxWaitThreshold = 0;        // The longest wait a schedule can have and still win straight away (0 to never stop early)
+	private long timeBudgetMillis = 0;       // Wall-clock budget for every strategy in milliseconds (0 for no budget)
+	private CancellationToken cancellationToken = null; // Token that stops every strategy (null if the portfolio cannot be cancelled)
+	private int numTables = 1;               // The number of games played at the same time (1 plays games one at a time)
+	private long seed = ThreadLocalRandom.current().nextLong(); // The seed every strategy's seed is drawn from (Random unless set)
+	private ScheduleBuilder.Engine winningEngine = null; // The engine of the strategy that won the last build (null before a build)
+
+	/**
+	 * Constructor
+	 * @param players List of all players in the tournament
+	 * @param numGamesEach The number of games each player will play
+	 */
+	public SchedulePortfolio(ArrayList<Player> players, int numGamesEach)
+	{
+		this.players = players;
+		this.numGamesEach = numGamesEach;
+	}
+
+	/**
+	 * Adds a strategy to the portfolio
+	 * Adding the same engine more than once races it with different seeds
+	 * @param engine The engine the strategy runs the greedy search on
+	 * @param numOptimizerSweeps The number of optimizer sweeps the strategy runs after its build (0 to skip the optimizer)
+	 * @return This schedule portfolio
+	 */
+	public SchedulePortfolio addStrategy(ScheduleBuilder.Engine engine, int numOptimizerSweeps)
+	{
+		strategies.add(new Strategy(engine, Math.max(0, numOptimizerSweeps)));
+		return this;
+	}
+
+	/**
+	 * Sets the longest wait between a player's consecutive games a schedule can have and still win straight away (See FairnessScore)
+	 * Without a threshold every strategy gets to finish, so the fairest schedule is kept rather than the fastest
+	 * @param maxWaitThreshold The longest wait in games (0 to never stop early)
+	 * @return This schedule portfolio
+	 */
+	public SchedulePortfolio setMaxWaitThreshold(int maxWaitThreshold)
+	{
+		this.maxWaitThreshold = maxWaitThreshold;
+		return this;
+	}
+
+	/**
+	 * Sets the wall-clock budget of every strategy (See ScheduleBuilder.setTimeBudget)
+	 * Once the budget runs out the fairest schedule found so far is kept without waiting for the strategies that are still running
+	 * @param timeBudgetMillis The budget in milliseconds (0 for no budget)
+	 * @return This schedule portfolio
+	 */
+	public SchedulePortfolio setTimeBudget(long timeBudgetMillis)
+	{
+		this.timeBudgetMillis = Math.max(0, timeBudgetMillis);
+		return this;
+	}
+
+	/**
+	 * Sets the token that can cancel every strategy from another thread
+	 * @param cancellationToken The token (null if the portfolio cannot be cancelled)
+	 * @return This schedule portfolio
+	 */
+	public SchedulePortfolio setCancellationToken(CancellationToken cancellationToken)
+	{
+		this.cancellationToken = cancellationToken;
+		return this;
+	}
+
+	/**
+	 * Sets the number of tables games are played on at the same time (See ScheduleBuilder.setNumTables)
+	 * @param numTables The number of tables
+	 * @return This schedule portfolio
+	 */
+	public SchedulePortfolio setNumTables(int numTables)
+	{
+		this.numTables = Math.max(1, numTables);
+		return this;
+	}
+
+	/**
+	 * Sets the seed every strategy's seed is drawn from (In the order the strategies were added)
+	 * The winning schedule records its strategy's seed, so a schedule builder with that engine, optimizer sweeps and seed rebuilds it (See Schedule.getSeed)
+	 * Which strategy wins depends on timing, so the portfolio itself is only reproducible when a single strategy is added
+	 * @param seed The seed
+	 * @return This schedule portfolio
+	 */
+	public SchedulePortfolio setSeed(long seed)
+	{
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Getter for the engine of the strategy that won the last build
+	 * @return The winning engine (null before a build)
+	 */
+	public ScheduleBuilder.Engine getWinningEngine()
+	{
+		return winningEngine;
+	}
+
+	/**
+	 * Races every strategy and returns the winning schedule
+	 * Without any strategies added it races the constructive engine, the indexed engine with two seeds and the object engine
+	 * @return The first schedule within the quality threshold, or else the fairest schedule found within the time budget
+	 * @throws ScheduleBuildException If no strategy could return a schedule (The first failure), or the portfolio was cancelled before one was found
+	 */
+	public Schedule build()
+	{
+		if(strategies.isEmpty())
+		{
+			addStrategy(ScheduleBuilder.Engine.CONSTRUCTIVE, 0);
+			addStrategy(ScheduleBuilder.Engine.INDEXED, 0);
+			addStrategy(ScheduleBuilder.Engine.INDEXED, 0);
+			addStrategy(ScheduleBuilder.Engine.OBJECT, 0);
+		}
+		// Creates every builder on the calling thread so an infeasible input fails straight away
+		SplittableRandom random = new SplittableRandom(seed);
+		CancellationToken strategiesToken = new CancellationToken(cancellationToken);
+		ScheduleBuilder[] builders = new ScheduleBuilder[strategies.size()];
+		for(int i = 0; i < strategies.size(); i++)
+		{
+			Strategy strategy = strategies.get(i);
+			builders[i] = new ScheduleBuilder(players, numGamesEach)
+				.setEngine(strategy.engine)
+				.setOptimizerSweeps(strategy.numOptimizerSweeps)
+				.setNumTables(numTables)
+				.setTimeBudget(timeBudgetMillis)
+				.setCancellationToken(strategiesToken)
+				.setSeed(random.nextLong());
+		}
+
+		// Every strategy gets its own platform thread so a slow search cannot hold up the others
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+		ExecutorService executor = Executors.newFixedThreadPool(builders.length);
+		ExecutorCompletionService<Schedule> results = new ExecutorCompletionService<>(executor);
+		ArrayList<Future<Schedule>> futures = new ArrayList<>();
+		Schedule bestSchedule = null;
+		FairnessScore bestScore = null;
+		ScheduleBuildException failure = null;
+		try
+		{
+			// Remembers which strategy each result came from
+			for(int i = 0; i < builders.length; i++)
+			{
+				futures.add(results.submit(builders[i]::build));
+			}
+			for(int i = 0; i < builders.length; i++)
+			{
+				// Waits for the next result, but only until the budget runs out once there is a schedule to keep
+				Future<Schedule> result;
+				if(timeBudgetMillis > 0 && bestSchedule != null)
+					result = results.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				else
+					result = results.take();
+				if(result == null)
+					break;
+				Schedule schedule;
+				try
+				{
+					schedule = result.get();
+				}
+				catch(ExecutionException e)
+				{
+					// Keeps racing without the failed strategy
+					if(!(e.getCause() instanceof ScheduleBuildException))
+						throw new IllegalStateException("Schedule build failed", e.getCause());
+					if(failure == null)
+						failure = (ScheduleBuildException) e.getCause();
+					continue;
+				}
+				FairnessScore score = FairnessScore.of(schedule.packMatches(players), players.size());
+				if(bestScore == null || score.compareTo(bestScore) < 0)
+				{
+					bestSchedule = schedule;
+					bestScore = score;
+					winningEngine = strategies.get(futures.indexOf(result)).engine;
+				}
+				// Stops racing once a schedule is good enough
+				if(maxWaitThreshold > 0 && score.getMaxWait() <= maxWaitThreshold)
+					break;
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new ScheduleBuildException(ScheduleBuildException.Reason.CANCELLED, "Schedule build was interrupted");
+		}
+		finally
+		{
+			// Cancels every strategy that is still running
+			strategiesToken.cancel();
+			executor.shutdownNow();
+		}
+		if(bestSchedule == null)
+			throw failure;
+		return bestSchedule;
+	}
+}
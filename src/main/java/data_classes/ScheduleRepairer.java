@@ -0,0 +1,202 @@
+package data_classes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * This class repairs an existing schedule when the roster changes, so the schedule does not have to be built again
+ * Played games are never touched and the unplayed games keep their order, apart from the games the change affects
+ * Adding a player splits some unplayed games (A VS B) into two games (A VS New player and New player VS B), so A and B keep their game counts
+ * Removing a player (Before or during the tournament) pairs up the opponents of their unplayed games who can still meet, so those opponents keep their game count
+ * Rounds keep the size they were built with, so the rounds already shown (And played) keep their games
+ * Only the affected games are looked at and the metrics are updated in place, so the work scales with the size of the change rather than the whole schedule
+ * @author William Shaw
+ */
+public class ScheduleRepairer
+{
+	private Schedule schedule;     // The schedule being repaired
+	private List<Player> players;  // The roster after the change
+
+	/**
+	 * Constructor
+	 * @param schedule The schedule to repair
+	 * @param players The roster after the change (Includes an added player and leaves out a removed player)
+	 */
+	public ScheduleRepairer(Schedule schedule, List<Player> players)
+	{
+		this.schedule = schedule;
+		this.players = players;
+	}
+
+	/**
+	 * Adds a player to the schedule
+	 * The split games are spread evenly over the unplayed games, and the new player's second game of each split goes halfway to the next split
+	 * Games against players the new player has not been given yet are preferred, so the new player meets as many players as possible
+	 * At most one game per player is looked at in each stretch, so the work does not grow with the length of the schedule
+	 * @param player The new player
+	 * @param numGames The number of games the new player will play (Must be even)
+	 * @throws ScheduleBuildException INFEASIBLE if the number of games is odd, NO_SCHEDULE_FOUND if there are not enough unplayed games to split
+	 */
+	public void addPlayer(Player player, int numGames)
+	{
+		// Fails if the other players cannot keep their game counts
+		if(numGames % 2 == 1)
+			throw new ScheduleBuildException(ScheduleBuildException.Reason.INFEASIBLE, "Cannot add player: The new player must play an even number of games");
+		int numSplits = numGames / 2;
+		if(numSplits == 0)
+			return;
+		int firstUnplayed = schedule.getFirstUnplayedIndex();
+		if(numSplits > schedule.getNumGamesUnplayed())
+			throw new ScheduleBuildException(ScheduleBuildException.Reason.NO_SCHEDULE_FOUND, "Cannot add player: There are not enough unplayed games left");
+
+		// Picks one unplayed game to split from each evenly sized stretch after the first unplayed game (Nothing is changed until every game is picked)
+		int[] splitIndices = new int[numSplits];
+		HashSet<Player> opponents = new HashSet<>();
+		double stride = (double) (schedule.getNumGames() - firstUnplayed) / numSplits;
+		for(int i = 0; i < numSplits; i++)
+		{
+			int stretchStart = firstUnplayed + (int) (i * stride);
+			int stretchEnd = Math.min(firstUnplayed + (int) ((i + 1) * stride), schedule.getNumGames() - (numSplits - i - 1));
+			stretchEnd = Math.min(stretchEnd, stretchStart + players.size());
+			int splitIndex = -1;
+			for(int j = stretchStart; j < stretchEnd; j++)
+			{
+				Game game = schedule.getGame(j);
+				if(game.getPlayed())
+					continue;
+				if(splitIndex == -1)
+					splitIndex = j;
+				if(!opponents.contains(game.getPlayerA()) && !opponents.contains(game.getPlayerB()))
+				{
+					splitIndex = j;
+					break;
+				}
+			}
+			if(splitIndex == -1)
+				throw new ScheduleBuildException(ScheduleBuildException.Reason.NO_SCHEDULE_FOUND, "Cannot add player: There are not enough unplayed games left");
+			splitIndices[i] = splitIndex;
+			opponents.add(schedule.getGame(splitIndex).getPlayerA());
+			opponents.add(schedule.getGame(splitIndex).getPlayerB());
+		}
+
+		// Splits the games from last to first so the indices of earlier splits do not move
+		int nextSplitIndex = schedule.getNumGames();
+		int lastInsertIndex = 0;
+		for(int i = numSplits - 1; i >= 0; i--)
+		{
+			int splitIndex = splitIndices[i];
+			Game game = schedule.getGame(splitIndex);
+			schedule.setGame(splitIndex, new Game(game.getPlayerA(), player));
+			int insertIndex = splitIndex + 1 + (nextSplitIndex - splitIndex - 1) / 2;
+			schedule.addGame(insertIndex, new Game(player, game.getPlayerB()));
+			if(i == numSplits - 1)
+				lastInsertIndex = insertIndex;
+			nextSplitIndex = splitIndex;
+		}
+		// The last inserted game has moved past the games inserted before it
+		schedule.packSlots(splitIndices[0], lastInsertIndex + numSplits, numSplits);
+	}
+
+	/**
+	 * Removes a player from the schedule
+	 * Also used when a player withdraws mid-tournament. Their played games stay in the schedule
+	 * The opponents of the player's unplayed games are paired up in schedule order, and each new game takes the place of the first of its two games
+	 * Two opponents are only paired if they have not already met as often as their games each allow (Once per round robin), so no pair meets more often than the rest.
+	 * In a full round robin every pair has already met, so the player's unplayed games are dropped and every opponent is left a game short alike
+	 * @param player The player to remove
+	 * @return The number of opponents left a game short (Their game against the removed player could not be replaced)
+	 */
+	public int removePlayer(Player player)
+	{
+		int numOthers = players.size() - (players.contains(player) ? 1 : 0); // Everyone else could meet each opponent
+		// Finds the player's unplayed games and their opponents
+		ArrayList<Integer> slots = new ArrayList<>();
+		ArrayList<Player> opponents = new ArrayList<>();
+		for(int index : schedule.getMetrics().getGamePositions(player))
+		{
+			Game game = schedule.getGame(index);
+			if(game.getPlayed())
+				continue;
+			slots.add(index);
+			opponents.add((game.getPlayerA() == player) ? game.getPlayerB() : game.getPlayerA());
+		}
+		if(slots.isEmpty())
+			return 0;
+
+		// Counts how often each opponent has met every other player, and how often they may meet anyone
+		HashMap<Player, HashMap<Player, Integer>> meetings = new HashMap<>();
+		HashMap<Player, Integer> maxMeetings = new HashMap<>();
+		for(Player opponent : opponents)
+		{
+			if(meetings.containsKey(opponent))
+				continue;
+			int[] positions = schedule.getMetrics().getGamePositions(opponent);
+			HashMap<Player, Integer> opponentMeetings = new HashMap<>();
+			for(int index : positions)
+			{
+				Game game = schedule.getGame(index);
+				opponentMeetings.merge((game.getPlayerA() == opponent) ? game.getPlayerB() : game.getPlayerA(), 1, Integer::sum);
+			}
+			meetings.put(opponent, opponentMeetings);
+			maxMeetings.put(opponent, (numOthers <= 1) ? 0 : (positions.length + numOthers - 1) / numOthers);
+		}
+
+		// Pairs each opponent with the next unpaired opponent who is a different player they can still meet
+		boolean[] paired = new boolean[slots.size()];
+		ArrayList<Integer> removedSlots = new ArrayList<>();
+		int numShort = 0;
+		for(int i = 0; i < slots.size(); i++)
+		{
+			if(paired[i])
+				continue;
+			paired[i] = true;
+			Player opponent = opponents.get(i);
+			int partner = -1;
+			for(int j = i + 1; j < slots.size(); j++)
+			{
+				if(!paired[j] && opponents.get(j) != opponent && canMeet(opponent, opponents.get(j), meetings, maxMeetings))
+				{
+					partner = j;
+					break;
+				}
+			}
+			if(partner == -1)
+			{
+				removedSlots.add(slots.get(i));
+				numShort++;
+				continue;
+			}
+			paired[partner] = true;
+			Player partnerPlayer = opponents.get(partner);
+			schedule.setGame(slots.get(i), new Game(opponent, partnerPlayer));
+			meetings.get(opponent).merge(partnerPlayer, 1, Integer::sum);
+			meetings.get(partnerPlayer).merge(opponent, 1, Integer::sum);
+			removedSlots.add(slots.get(partner));
+		}
+
+		// Removes the leftover games from last to first so the other indices do not move
+		removedSlots.sort(null);
+		for(int i = removedSlots.size() - 1; i >= 0; i--)
+		{
+			schedule.removeGame(removedSlots.get(i));
+		}
+		schedule.packSlots(slots.get(0), slots.get(slots.size() - 1) + 1 - removedSlots.size(), -removedSlots.size());
+		return numShort;
+	}
+
+	/**
+	 * Private helper to check if two opponents of a removed player can be paired
+	 * @param playerA The first opponent
+	 * @param playerB The second opponent
+	 * @param meetings How often each opponent has met every other player
+	 * @param maxMeetings How often each opponent may meet another player
+	 * @return True if neither player would meet the other more often than they may, false otherwise
+	 */
+	private static boolean canMeet(Player playerA, Player playerB, HashMap<Player, HashMap<Player, Integer>> meetings, HashMap<Player, Integer> maxMeetings)
+	{
+		int numMeetings = meetings.get(playerA).getOrDefault(playerB, 0);
+		return numMeetings < Math.min(maxMeetings.get(playerA), maxMeetings.get(playerB));
+	}
+}
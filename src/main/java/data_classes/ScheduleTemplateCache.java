@@ -0,0 +1,271 @@
+package data_classes;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class caches the fairest schedule found for each number of players and games each as a template
+ * A schedule only depends on the number of players and games each up to relabelling the players, so one template serves every roster of that size
+ * Templates are stored as packed pairs of player ids, in memory with least recently used eviction and on disk so they outlive the app
+ * Building from a template relabels it with a random permutation of the players, which keeps its fairness (See FairnessScore)
+ * Templates only ever get replaced by fairer ones, so improving them in the background makes later builds better (See improve)
+ * Every method is synchronized so the cache can be shared between the FX thread and background builds
+ * @author William Shaw
+ */
+public class ScheduleTemplateCache
+{
+	private static final int FILE_MAGIC = 0x54504C31; // First int of every template file ("TPL1")
+
+	private Path directory;                     // Directory the templates are stored in (null to keep templates in memory only)
+	private LinkedHashMap<Long, long[]> templates; // Templates in least recently used order, keyed by packed (Players, games each)
+
+	/**
+	 * Constructor
+	 * @param directory Directory the templates are stored in (Created when the first template is stored. null to keep templates in memory only)
+	 * @param capacity The most templates kept in memory (The least recently used template is evicted first)
+	 */
+	public ScheduleTemplateCache(Path directory, int capacity)
+	{
+		this.directory = directory;
+		int maxSize = Math.max(1, capacity);
+		templates = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest)
+			{
+				return size() > maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Builds a schedule from the template for the number of players and games each
+	 * The template is relabelled with a random permutation of the players and every game is randomly oriented
+	 * The schedule has no seed (See Schedule.hasSeed), since no schedule builder can rebuild it and the template can later be replaced by a fairer one
+	 * @param players List of all players in the tournament
+	 * @param numGamesEach The number of games each player will play
+	 * @param seed The seed of the permutation and orientation
+	 * @return A schedule object (null if there is no template)
+	 */
+	public synchronized Schedule build(ArrayList<Player> players, int numGamesEach, long seed)
+	{
+		long[] template = getTemplate(players.size(), numGamesEach);
+		if(template == null)
+			return null;
+		// Relabels the template (Template id -> player)
+		SplittableRandom random = new SplittableRandom(seed);
+		Player[] permutation = players.toArray(new Player[0]);
+		for(int i = permutation.length - 1; i > 0; i--)
+		{
+			int j = random.nextInt(i + 1);
+			Player swap = permutation[i];
+			permutation[i] = permutation[j];
+			permutation[j] = swap;
+		}
+		ArrayList<Game> games = new ArrayList<>(template.length);
+		for(int i = 0; i < template.length; i++)
+		{
+			Player playerA = permutation[IndexedScheduleEngine.playerA(template[i])];
+			Player playerB = permutation[IndexedScheduleEngine.playerB(template[i])];
+			games.add(new Game(playerA, playerB, random));
+		}
+		int numGamesInFullRound = (players.size() * (players.size() - 1)) / 2; // (nC2)
+		return new Schedule(games, numGamesInFullRound);
+	}
+
+	/**
+	 * Builds a schedule from the template for the number of players and games each with a random seed
+	 * @param players List of all players in the tournament
+	 * @param numGamesEach The number of games each player will play
+	 * @return A schedule object (null if there is no template)
+	 */
+	public Schedule build(ArrayList<Player> players, int numGamesEach)
+	{
+		return build(players, numGamesEach, ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * Offers a built schedule as the template for its number of players and games each
+	 * It only replaces the current template if it is fairer, and is written to disk when it does
+	 * @param players List of all players in the schedule (The order the schedule's player ids are taken from)
+	 * @param numGamesEach The number of games each player plays in the schedule
+	 * @param schedule The built schedule (Single table schedules only, since slots reorder the games)
+	 * @return True if the schedule became the template, false otherwise
+	 */
+	public synchronized boolean offer(ArrayList<Player> players, int numGamesEach, Schedule schedule)
+	{
+		if(schedule.getNumTables() > 1)
+			return false;
+		long[] matches = schedule.packMatches(players);
+		long[] template = getTemplate(players.size(), numGamesEach);
+		if(template != null && FairnessScore.of(matches, players.size()).compareTo(FairnessScore.of(template, players.size())) >= 0)
+			return false;
+		templates.put(key(players.size(), numGamesEach), matches);
+		writeTemplate(players.size(), numGamesEach, matches);
+		return true;
+	}
+
+	/**
+	 * Builds a fresh schedule and offers it as the template (Meant to run in the background)
+	 * The build runs the indexed engine with several starts and the optimizer, so it is slower but usually fairer than a normal build
+	 * The cache is not locked while the schedule is being built
+	 * @param players List of all players in the tournament
+	 * @param numGamesEach The number of games each player will play
+	 * @param timeBudgetMillis Wall-clock budget of the build in milliseconds (See ScheduleBuilder.setTimeBudget)
+	 * @param cancellationToken Token that stops the build (null if it cannot be cancelled)
+	 * @return True if the template was improved, false otherwise
+	 * @throws ScheduleBuildException If the build could not return a schedule
+	 */
+	public boolean improve(ArrayList<Player> players, int numGamesEach, long timeBudgetMillis, CancellationToken cancellationToken)
+	{
+		Schedule schedule = new ScheduleBuilder(players, numGamesEach)
+			.setEngine(ScheduleBuilder.Engine.INDEXED)
+			.setNumStarts(4)
+			.setOptimizerSweeps(200)
+			.setTimeBudget(timeBudgetMillis)
+			.setCancellationToken(cancellationToken)
+			.build();
+		return offer(players, numGamesEach, schedule);
+	}
+
+	/**
+	 * Private helper to get the template for a number of players and games each
+	 * Templates that are not in memory are loaded from disk
+	 * @param numPlayers The number of players
+	 * @param numGamesEach The number of games each player plays
+	 * @return The template as packed pairs of player ids (null if there is none)
+	 */
+	private long[] getTemplate(int numPlayers, int numGamesEach)
+	{
+		long key = key(numPlayers, numGamesEach);
+		long[] template = templates.get(key);
+		if(template == null)
+		{
+			template = readTemplate(numPlayers, numGamesEach);
+			if(template != null)
+				templates.put(key, template);
+		}
+		return template;
+	}
+
+	/**
+	 * Private helper to read a template from disk
+	 * Templates that are missing, unreadable or not a valid schedule are treated as missing
+	 * @param numPlayers The number of players
+	 * @param numGamesEach The number of games each player plays
+	 * @return The template as packed pairs of player ids (null if there is no valid template)
+	 */
+	private long[] readTemplate(int numPlayers, int numGamesEach)
+	{
+		if(directory == null)
+			return null;
+		Path file = templateFile(numPlayers, numGamesEach);
+		if(!Files.isRegularFile(file))
+			return null;
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+		{
+			if(in.readInt() != FILE_MAGIC || in.readInt() != numPlayers || in.readInt() != numGamesEach)
+				return null;
+			int numGames = in.readInt();
+			if(numGames != (numPlayers * numGamesEach) / 2)
+				return null;
+			long[] template = new long[numGames];
+			int[] numGamesOfPlayer = new int[numPlayers];
+			for(int i = 0; i < numGames; i++)
+			{
+				template[i] = in.readLong();
+				int playerA = IndexedScheduleEngine.playerA(template[i]);
+				int playerB = IndexedScheduleEngine.playerB(template[i]);
+				if(playerA < 0 || playerA >= playerB || playerB >= numPlayers)
+					return null;
+				numGamesOfPlayer[playerA]++;
+				numGamesOfPlayer[playerB]++;
+			}
+			for(int p = 0; p < numPlayers; p++)
+			{
+				if(numGamesOfPlayer[p] != numGamesEach)
+					return null;
+			}
+			return template;
+		}
+		catch(IOException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Private helper to write a template to disk
+	 * The template is written to a temporary file and forced to disk before it is moved into place, so a template file is never half written
+	 * Templates that cannot be written are only kept in memory
+	 * @param numPlayers The number of players
+	 * @param numGamesEach The number of games each player plays
+	 * @param template The template as packed pairs of player ids
+	 */
+	private void writeTemplate(int numPlayers, int numGamesEach, long[] template)
+	{
+		if(directory == null)
+			return;
+		Path file = templateFile(numPlayers, numGamesEach);
+		Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try
+		{
+			Files.createDirectories(directory);
+			try(FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+			{
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+				out.writeInt(FILE_MAGIC);
+				out.writeInt(numPlayers);
+				out.writeInt(numGamesEach);
+				out.writeInt(template.length);
+				for(int i = 0; i < template.length; i++)
+				{
+					out.writeLong(template[i]);
+				}
+				out.flush();
+				// The move must not reach the disk before the template does
+				channel.force(true);
+			}
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(IOException e)
+		{
+			// The template stays in memory
+		}
+	}
+
+	/**
+	 * Private helper to get the file a template is stored in
+	 * @param numPlayers The number of players
+	 * @param numGamesEach The number of games each player plays
+	 * @return The template file
+	 */
+	private Path templateFile(int numPlayers, int numGamesEach)
+	{
+		return directory.resolve(numPlayers + "-" + numGamesEach + ".template");
+	}
+
+	/**
+	 * Private helper to pack a number of players and games each into a single key
+	 * @param numPlayers The number of players
+	 * @param numGamesEach The number of games each player plays
+	 * @return The packed key
+	 */
+	private static long key(int numPlayers, int numGamesEach)
+	{
+		return IndexedScheduleEngine.packMatch(numPlayers, numGamesEach);
+	}
+}
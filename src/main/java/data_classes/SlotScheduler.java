@@ -0,0 +1,273 @@
+package data_classes;
+
+import java.util.Arrays;
+
+/**
+ * This class groups the games of a built schedule into time slots for a tournament that runs several tables at once
+ * No player is in two games of the same slot and no slot has more games than there are tables
+ * Each round is scheduled on its own so slots never cross rounds, and every round keeps exactly the same games
+ * It edge-colours the match graph of each round one slot at a time: every slot is a matching that covers the players with the most games left first
+ * Covering them first keeps the number of slots close to the lower bound (The most games any player has in the round, or the games in the round divided by the number of tables)
+ * When a player with the most games left cannot be covered, a short augmenting path (Swap one game in the slot for two) is tried before giving up on them
+ * A slot is built in O(games in the round), so the whole schedule is grouped in O(games x slots per round)
+ * @author William Shaw
+ */
+class SlotScheduler
+{
+	private int numPlayers;              // The number of players
+	private int numGamesInFullRound;     // The number of games in a full round (Round robin) (nC2)
+	private int numTables;               // The number of games that can be played at the same time
+
+	// Working arrays of the round being scheduled (Sized for a full round and reused by every round)
+	private long[] roundMatches;         // Matches of the round as packed pairs of player ids
+	private boolean[] scheduled;         // True once a match of the round is in a slot
+	private int[] adjacencyStarts;       // Where each player's matches start in the adjacent matches array
+	private int[] adjacentMatches;       // Indices of each player's matches in the round (Grouped by player)
+	private int[] numMatchesLeft;        // The number of matches of the round each player is not in a slot for yet
+	private int[] slotOfPlayer;          // The last slot each player was put in (-1 if they have not been in one)
+	private int[] matchOfPlayer;         // Where the player's match is in the slot (Only valid if the player is in the current slot)
+	private int[] slotMatches;           // Indices of the matches in the current slot
+	private int[] playerOrder;           // Players in order of the most matches left (Rebuilt for every slot)
+	private int[] numPlayersWithMatchesLeft; // Counting sort buckets used to order the players
+
+	/**
+	 * Constructor
+	 * @param numPlayers The number of players
+	 * @param numGamesInFullRound The number of games in a full round
+	 * @param numTables The number of games that can be played at the same time
+	 */
+	SlotScheduler(int numPlayers, int numGamesInFullRound, int numTables)
+	{
+		this.numPlayers = numPlayers;
+		this.numGamesInFullRound = numGamesInFullRound;
+		this.numTables = Math.max(1, Math.min(numTables, numPlayers / 2));
+		roundMatches = new long[numGamesInFullRound];
+		scheduled = new boolean[numGamesInFullRound];
+		adjacencyStarts = new int[numPlayers + 1];
+		adjacentMatches = new int[2 * numGamesInFullRound];
+		numMatchesLeft = new int[numPlayers];
+		slotOfPlayer = new int[numPlayers];
+		matchOfPlayer = new int[numPlayers];
+		slotMatches = new int[this.numTables];
+		playerOrder = new int[numPlayers];
+		numPlayersWithMatchesLeft = new int[numPlayers + 1];
+	}
+
+	/**
+	 * Groups the matches into slots
+	 * The matches are reordered in place so the games of each slot are next to each other
+	 * @param matches Scheduled matches as packed pairs of player ids (Reordered)
+	 * @return Where each slot starts in the matches, followed by the number of matches
+	 */
+	int[] schedule(long[] matches)
+	{
+		int[] slotStarts = new int[matches.length + 1];
+		int numSlots = 0;
+		for(int roundStart = 0; roundStart < matches.length; roundStart += numGamesInFullRound)
+		{
+			int roundEnd = Math.min(roundStart + numGamesInFullRound, matches.length);
+			numSlots = scheduleRound(matches, roundStart, roundEnd, slotStarts, numSlots);
+		}
+		slotStarts[numSlots] = matches.length;
+		return Arrays.copyOf(slotStarts, numSlots + 1);
+	}
+
+	/**
+	 * Private helper to group the matches of a single round into slots
+	 * @param matches Scheduled matches as packed pairs of player ids (The round is reordered)
+	 * @param roundStart Index of the first match of the round
+	 * @param roundEnd Index after the last match of the round
+	 * @param slotStarts Where each slot starts in the matches (The slots of the round are added)
+	 * @param numSlots The number of slots before the round
+	 * @return The number of slots after the round
+	 */
+	private int scheduleRound(long[] matches, int roundStart, int roundEnd, int[] slotStarts, int numSlots)
+	{
+		int numRoundMatches = roundEnd - roundStart;
+		System.arraycopy(matches, roundStart, roundMatches, 0, numRoundMatches);
+		buildAdjacency(numRoundMatches);
+		Arrays.fill(slotOfPlayer, -1);
+		int numScheduled = 0;
+		while(numScheduled < numRoundMatches)
+		{
+			int slotSize = fillSlot(numSlots);
+			slotStarts[numSlots] = roundStart + numScheduled;
+			for(int i = 0; i < slotSize; i++)
+			{
+				matches[roundStart + numScheduled] = roundMatches[slotMatches[i]];
+				numScheduled++;
+			}
+			numSlots++;
+		}
+		return numSlots;
+	}
+
+	/**
+	 * Private helper to group the matches of the round by player
+	 * @param numRoundMatches The number of matches in the round
+	 */
+	private void buildAdjacency(int numRoundMatches)
+	{
+		Arrays.fill(numMatchesLeft, 0);
+		Arrays.fill(scheduled, 0, numRoundMatches, false);
+		for(int i = 0; i < numRoundMatches; i++)
+		{
+			numMatchesLeft[IndexedScheduleEngine.playerA(roundMatches[i])]++;
+			numMatchesLeft[IndexedScheduleEngine.playerB(roundMatches[i])]++;
+		}
+		adjacencyStarts[0] = 0;
+		for(int p = 0; p < numPlayers; p++)
+		{
+			adjacencyStarts[p + 1] = adjacencyStarts[p] + numMatchesLeft[p];
+		}
+		int[] next = Arrays.copyOf(adjacencyStarts, numPlayers);
+		for(int i = 0; i < numRoundMatches; i++)
+		{
+			adjacentMatches[next[IndexedScheduleEngine.playerA(roundMatches[i])]++] = i;
+			adjacentMatches[next[IndexedScheduleEngine.playerB(roundMatches[i])]++] = i;
+		}
+	}
+
+	/**
+	 * Private helper to fill one slot with a matching of the matches left in the round
+	 * Players are covered in order of the most matches left, each against the free opponent with the most matches left
+	 * @param slot The index of the slot
+	 * @return The number of matches in the slot
+	 */
+	private int fillSlot(int slot)
+	{
+		int maxMatchesLeft = orderPlayers();
+		int slotSize = 0;
+		for(int i = 0; i < numPlayers && slotSize < numTables; i++)
+		{
+			int player = playerOrder[i];
+			if(slotOfPlayer[player] == slot)
+				continue;
+			if(numMatchesLeft[player] == 0)
+				break;
+			int bestMatch = -1;
+			int bestMatchesLeft = -1;
+			for(int k = adjacencyStarts[player]; k < adjacencyStarts[player + 1]; k++)
+			{
+				int match = adjacentMatches[k];
+				if(scheduled[match])
+					continue;
+				int opponent = opponent(match, player);
+				if(slotOfPlayer[opponent] != slot && numMatchesLeft[opponent] > bestMatchesLeft)
+				{
+					bestMatch = match;
+					bestMatchesLeft = numMatchesLeft[opponent];
+				}
+			}
+			if(bestMatch != -1)
+				slotSize = addToSlot(bestMatch, slot, slotSize, slotSize);
+			else if(numMatchesLeft[player] == maxMatchesLeft)
+				slotSize = augment(player, slot, slotSize);
+		}
+		return slotSize;
+	}
+
+	/**
+	 * Private helper to cover a player with the most matches left through an augmenting path
+	 * Looks for a match against an opponent already in the slot, whose slot partner has a free opponent of their own
+	 * Swapping the partner's match out for those two matches covers the player and grows the slot by one
+	 * @param player The player to cover
+	 * @param slot The index of the slot
+	 * @param slotSize The number of matches in the slot
+	 * @return The number of matches in the slot afterwards
+	 */
+	private int augment(int player, int slot, int slotSize)
+	{
+		if(slotSize == numTables)
+			return slotSize;
+		for(int k = adjacencyStarts[player]; k < adjacencyStarts[player + 1]; k++)
+		{
+			int match = adjacentMatches[k];
+			if(scheduled[match])
+				continue;
+			int opponent = opponent(match, player);
+			int slotPosition = matchOfPlayer[opponent];
+			int partnerMatch = slotMatches[slotPosition];
+			int partner = opponent(partnerMatch, opponent);
+			for(int l = adjacencyStarts[partner]; l < adjacencyStarts[partner + 1]; l++)
+			{
+				int partnerNewMatch = adjacentMatches[l];
+				if(scheduled[partnerNewMatch])
+					continue;
+				int newOpponent = opponent(partnerNewMatch, partner);
+				if(newOpponent == player || slotOfPlayer[newOpponent] == slot)
+					continue;
+				// Takes the partner's match out of the slot and puts both new matches in
+				scheduled[partnerMatch] = false;
+				numMatchesLeft[opponent]++;
+				numMatchesLeft[partner]++;
+				addToSlot(match, slot, slotPosition, slotSize);
+				return addToSlot(partnerNewMatch, slot, slotSize, slotSize);
+			}
+		}
+		return slotSize;
+	}
+
+	/**
+	 * Private helper to put a match in the slot
+	 * @param match The index of the match in the round
+	 * @param slot The index of the slot
+	 * @param slotPosition Where the match goes in the slot
+	 * @param slotSize The number of matches in the slot
+	 * @return The number of matches in the slot afterwards
+	 */
+	private int addToSlot(int match, int slot, int slotPosition, int slotSize)
+	{
+		int playerA = IndexedScheduleEngine.playerA(roundMatches[match]);
+		int playerB = IndexedScheduleEngine.playerB(roundMatches[match]);
+		scheduled[match] = true;
+		slotMatches[slotPosition] = match;
+		slotOfPlayer[playerA] = slot;
+		slotOfPlayer[playerB] = slot;
+		matchOfPlayer[playerA] = slotPosition;
+		matchOfPlayer[playerB] = slotPosition;
+		numMatchesLeft[playerA]--;
+		numMatchesLeft[playerB]--;
+		return (slotPosition == slotSize) ? slotSize + 1 : slotSize;
+	}
+
+	/**
+	 * Private helper to order the players by the most matches left (Counting sort)
+	 * @return The most matches any player has left
+	 */
+	private int orderPlayers()
+	{
+		Arrays.fill(numPlayersWithMatchesLeft, 0);
+		int maxMatchesLeft = 0;
+		for(int p = 0; p < numPlayers; p++)
+		{
+			numPlayersWithMatchesLeft[numMatchesLeft[p]]++;
+			maxMatchesLeft = Math.max(maxMatchesLeft, numMatchesLeft[p]);
+		}
+		// Turns the bucket counts into where each bucket starts (Most matches left first)
+		int start = 0;
+		for(int d = maxMatchesLeft; d >= 0; d--)
+		{
+			int count = numPlayersWithMatchesLeft[d];
+			numPlayersWithMatchesLeft[d] = start;
+			start += count;
+		}
+		for(int p = 0; p < numPlayers; p++)
+		{
+			playerOrder[numPlayersWithMatchesLeft[numMatchesLeft[p]]++] = p;
+		}
+		return maxMatchesLeft;
+	}
+
+	/**
+	 * Private helper to get the other player in a match
+	 * @param match The index of the match in the round
+	 * @param player One of the players in the match
+	 * @return The other player in the match
+	 */
+	private int opponent(int match, int player)
+	{
+		int playerA = IndexedScheduleEngine.playerA(roundMatches[match]);
+		return (playerA == player) ? IndexedScheduleEngine.playerB(roundMatches[match]) : playerA;
+	}
+}
@@ -0,0 +1,317 @@
+package data_classes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * This class pairs the rounds of a Swiss-system tournament from the live player standings
+ * Unlike the schedule builder it does not schedule the whole tournament up front. Each round is paired after the previous round has been played
+ * Players are ranked by their wins and ratio (See Player.compareTo). Players with the same score (Wins plus byes) form a score group
+ * Within a score group the top half plays the bottom half. Players only float to another score group when their own group cannot be paired
+ * No pairing is ever repeated, and with an odd number of players the lowest ranked player who has not had a bye yet gets one
+ * Every round is paired at once as a maximum weight matching (See WeightedMatching), where heavier pairings are closer to the ideal pairing
+ * The matching first runs on a sparse graph of the likely pairings for each player, and only falls back to every pairing if that graph cannot pair everyone
+ * @author William Shaw
+ */
+public class SwissPairer
+{
+	private static final int CANDIDATE_WINDOW = 8; // Players either side of the ideal opponent (And of the player) joined by an edge in the sparse graph
+
+	private ArrayList<Player> players;                       // List of players (Ids are indices into the list)
+	private IdentityHashMap<Player, Integer> playerIds = new IdentityHashMap<>(); // The id of each player
+	private BitSet playedPairs = new BitSet();               // Every pairing so far, by the triangular index of the pair of player ids (See PairIndex)
+	private boolean[] hadBye;                                // True if a player has had a bye
+	private int numRoundsPaired = 0;                         // The number of rounds paired so far
+	private Player bye = null;                               // The player with a bye in the last round (null if there was no bye)
+
+	/**
+	 * Constructor
+	 * @param players List of all players in the tournament (Copied, so sorting the standings does not change the ids)
+	 */
+	public SwissPairer(ArrayList<Player> players)
+	{
+		if(players.size() < 2)
+			throw new ScheduleBuildException(ScheduleBuildException.Reason.INFEASIBLE, "Cannot pair rounds: At least 2 players are needed");
+		this.players = new ArrayList<>(players);
+		for(int i = 0; i < this.players.size(); i++)
+		{
+			playerIds.put(this.players.get(i), i);
+		}
+		hadBye = new boolean[players.size()];
+	}
+
+	/**
+	 * Constructor for a Swiss tournament loaded from a file (See TournamentFile)
+	 * Every pairing is a game in the schedule, so the pairings are taken from the games rather than saved separately
+	 * @param players List of all players in the tournament in their original order
+	 * @param hadBye True for each player who has had a bye
+	 * @param numRoundsPaired The number of rounds paired so far
+	 * @param bye The player with a bye in the last round paired (null if there was no bye)
+	 * @param games Every game paired so far
+	 */
+	SwissPairer(ArrayList<Player> players, boolean[] hadBye, int numRoundsPaired, Player bye, List<Game> games)
+	{
+		this(players);
+		System.arraycopy(hadBye, 0, this.hadBye, 0, this.hadBye.length);
+		this.numRoundsPaired = numRoundsPaired;
+		this.bye = bye;
+		for(Game game : games)
+		{
+			Integer idA = playerIds.get(game.getPlayerA());
+			Integer idB = playerIds.get(game.getPlayerB());
+			if(idA != null && idB != null && !idA.equals(idB))
+				playedPairs.set(pairIndex(idA, idB));
+		}
+	}
+
+	/**
+	 * Pairs the next round from the current standings
+	 * The pairings are recorded straight away, so they will not be repeated in later rounds
+	 * @return List of games in the round
+	 * @throws ScheduleBuildException NO_SCHEDULE_FOUND if every player cannot be paired without repeating a pairing
+	 */
+	public ArrayList<Game> pairNextRound()
+	{
+		int n = players.size();
+		// Ranks the players (Best first)
+		Player[] standings = players.toArray(new Player[0]);
+		Arrays.sort(standings);
+		int[] ids = new int[n];
+		int[] scores = new int[n];
+		for(int r = 0; r < n; r++)
+		{
+			ids[r] = playerIds.get(standings[r]);
+			scores[r] = standings[r].getWins() + (hadBye[ids[r]] ? 1 : 0);
+		}
+		// Re-sorts by score, keeping the standings order within each score (Byes can move a player up)
+		Integer[] order = new Integer[n];
+		for(int r = 0; r < n; r++)
+		{
+			order[r] = r;
+		}
+		Arrays.sort(order, (a, b) -> (scores[a] != scores[b]) ? Integer.compare(scores[b], scores[a]) : Integer.compare(a, b));
+		int[] rankedIds = new int[n];
+		int[] rankedScores = new int[n];
+		for(int r = 0; r < n; r++)
+		{
+			rankedIds[r] = ids[order[r]];
+			rankedScores[r] = scores[order[r]];
+		}
+
+		int[] opponentRanks = pair(rankedIds, rankedScores, false);
+		if(opponentRanks == null)
+			opponentRanks = pair(rankedIds, rankedScores, true);
+		if(opponentRanks == null)
+			throw new ScheduleBuildException(ScheduleBuildException.Reason.NO_SCHEDULE_FOUND, "Cannot pair round " + (numRoundsPaired + 1) + ": Every pairing left would repeat a game");
+
+		// Records the round
+		ArrayList<Game> games = new ArrayList<>(n / 2);
+		bye = null;
+		for(int r = 0; r < n; r++)
+		{
+			int opponent = opponentRanks[r];
+			if(opponent == n)
+			{
+				bye = players.get(rankedIds[r]);
+				hadBye[rankedIds[r]] = true;
+			}
+			else if(r < opponent)
+			{
+				playedPairs.set(pairIndex(rankedIds[r], rankedIds[opponent]));
+				games.add(new Game(players.get(rankedIds[r]), players.get(rankedIds[opponent])));
+			}
+		}
+		numRoundsPaired++;
+		return games;
+	}
+
+	/**
+	 * Getter for the bye
+	 * @return The player with a bye in the last round paired (null if there was no bye)
+	 */
+	public Player getBye()
+	{
+		return bye;
+	}
+
+	/**
+	 * Getter for the number of rounds paired
+	 * @return The number of rounds paired so far
+	 */
+	public int getNumRoundsPaired()
+	{
+		return numRoundsPaired;
+	}
+
+	/**
+	 * Getter for the number of games in a round
+	 * @return The number of games in every round (The player with a bye sits out)
+	 */
+	public int getNumGamesInRound()
+	{
+		return players.size() / 2;
+	}
+
+	/**
+	 * Getter for the players (For saving the pairer, see TournamentFile)
+	 * @return List of players in their original order
+	 */
+	List<Player> getPlayers()
+	{
+		return players;
+	}
+
+	/**
+	 * Checks if a player has had a bye (For saving the pairer, see TournamentFile)
+	 * @param player The player
+	 * @return True if the player has had a bye, false otherwise
+	 */
+	boolean hadBye(Player player)
+	{
+		Integer id = playerIds.get(player);
+		return id != null && hadBye[id];
+	}
+
+	/**
+	 * Checks if two players have already been paired
+	 * @param playerA One player
+	 * @param playerB The other player
+	 * @return True if the players have already been paired, false otherwise
+	 */
+	public boolean havePlayed(Player playerA, Player playerB)
+	{
+		Integer idA = playerIds.get(playerA);
+		Integer idB = playerIds.get(playerB);
+		if(idA == null || idB == null)
+			return false;
+		return playedPairs.get(pairIndex(idA, idB));
+	}
+
+	/**
+	 * Private helper to pair the ranked players as a maximum weight matching
+	 * The bye (Odd number of players) is an extra vertex after the last rank
+	 * @param rankedIds Player ids in rank order
+	 * @param rankedScores Player scores in rank order
+	 * @param allPairings True to join every pairing that has not been played, false to only join the likely pairings
+	 * @return The rank each rank is paired with (The number of players for the bye), or null if every player could not be paired
+	 */
+	private int[] pair(int[] rankedIds, int[] rankedScores, boolean allPairings)
+	{
+		int n = rankedIds.length;
+		int numVertices = n + n % 2;
+		// Works out where each score group starts and ends, and each player's ideal opponent
+		int[] groupStart = new int[n];
+		int[] groupEnd = new int[n];
+		for(int r = 0; r < n; r++)
+		{
+			groupStart[r] = (r > 0 && rankedScores[r - 1] == rankedScores[r]) ? groupStart[r - 1] : r;
+		}
+		for(int r = n - 1; r >= 0; r--)
+		{
+			groupEnd[r] = (r < n - 1 && rankedScores[r + 1] == rankedScores[r]) ? groupEnd[r + 1] : r + 1;
+		}
+		int[] idealOpponent = new int[n];
+		for(int r = 0; r < n; r++)
+		{
+			int half = (groupEnd[r] - groupStart[r]) / 2;
+			idealOpponent[r] = (r - groupStart[r] < half) ? r + half : r - half;
+		}
+
+		// Joins the candidate pairings
+		long scoreWeight = 2L * n * n + 1; // Any score difference outweighs every rank difference in the round
+		int minScore = rankedScores[n - 1];
+		ArrayList<long[]> edges = new ArrayList<>();
+		BitSet joined = new BitSet(PairIndex.numPairs(n));
+		for(int r = 0; r < n; r++)
+		{
+			if(allPairings)
+			{
+				for(int o = r + 1; o < n; o++)
+				{
+					joinPairing(r, o, rankedIds, rankedScores, idealOpponent, scoreWeight, edges, joined);
+				}
+			}
+			else
+			{
+				for(int o = idealOpponent[r] - CANDIDATE_WINDOW; o <= idealOpponent[r] + CANDIDATE_WINDOW; o++)
+				{
+					joinPairing(r, o, rankedIds, rankedScores, idealOpponent, scoreWeight, edges, joined);
+				}
+				for(int o = r - CANDIDATE_WINDOW; o <= r + CANDIDATE_WINDOW; o++)
+				{
+					joinPairing(r, o, rankedIds, rankedScores, idealOpponent, scoreWeight, edges, joined);
+				}
+			}
+			// Lower scores and lower ranks are better byes
+			if(numVertices > n && !hadBye[rankedIds[r]])
+			{
+				long scoreDifference = rankedScores[r] - minScore;
+				edges.add(new long[] {r, n, scoreDifference * scoreDifference * scoreWeight + (n - 1 - r)});
+			}
+		}
+
+		// Turns penalties into weights (Every weight is positive)
+		long maxPenalty = 0;
+		for(long[] edge : edges)
+		{
+			maxPenalty = Math.max(maxPenalty, edge[2]);
+		}
+		int[] edgeFrom = new int[edges.size()];
+		int[] edgeTo = new int[edges.size()];
+		long[] edgeWeights = new long[edges.size()];
+		for(int k = 0; k < edges.size(); k++)
+		{
+			edgeFrom[k] = (int) edges.get(k)[0];
+			edgeTo[k] = (int) edges.get(k)[1];
+			edgeWeights[k] = maxPenalty + 1 - edges.get(k)[2];
+		}
+		int[] mate = new WeightedMatching(numVertices, edgeFrom, edgeTo, edgeWeights).solve(true);
+		for(int v = 0; v < numVertices; v++)
+		{
+			if(mate[v] == -1)
+				return null;
+		}
+		return mate;
+	}
+
+	/**
+	 * Private helper to join a pairing of two ranks if it has not been played and is not already joined
+	 * The penalty of a pairing is its squared score difference, then how far each player is from the other's ideal opponent
+	 * @param r The rank of the player
+	 * @param o The rank of the opponent
+	 * @param rankedIds Player ids in rank order
+	 * @param rankedScores Player scores in rank order
+	 * @param idealOpponent The ideal opponent rank of each rank
+	 * @param scoreWeight The penalty of a score difference of 1
+	 * @param edges The joined pairings as rank, rank, penalty
+	 * @param joined The pairings already joined, by the triangular index of the pair of ranks
+	 */
+	private void joinPairing(int r, int o, int[] rankedIds, int[] rankedScores, int[] idealOpponent, long scoreWeight, ArrayList<long[]> edges, BitSet joined)
+	{
+		if(o == r || o < 0 || o >= rankedIds.length)
+			return;
+		int joinedIndex = PairIndex.index(r, o, rankedIds.length);
+		if(joined.get(joinedIndex))
+			return;
+		joined.set(joinedIndex);
+		if(playedPairs.get(pairIndex(rankedIds[r], rankedIds[o])))
+			return;
+		long scoreDifference = rankedScores[r] - rankedScores[o];
+		long rankDifference = Math.abs(o - idealOpponent[r]) + Math.abs(r - idealOpponent[o]);
+		edges.add(new long[] {r, o, scoreDifference * scoreDifference * scoreWeight + rankDifference});
+	}
+
+	/**
+	 * Private helper to get the triangular index of a pair of player ids (In either order)
+	 * @param idA One player id
+	 * @param idB The other player id
+	 * @return The index of the pair
+	 */
+	private int pairIndex(int idA, int idB)
+	{
+		return PairIndex.index(idA, idB, players.size());
+	}
+}
@@ -0,0 +1,248 @@
+package data_classes;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class exports a tournament (The schedule, the result of every game and the standings) as CSV or JSON
+ * Everything is streamed to a writer one game or player at a time, so the whole document is never built in memory
+ * and exporting a very large tournament only needs a buffer's worth of memory on top of the tournament itself
+ * The schedule CSV has a row per game (With its result once played), the standings CSV has a row per player in ranking order,
+ * and the JSON document holds both as arrays of objects
+ * @author William Shaw
+ */
+public class TournamentExporter
+{
+	/**
+	 * The documents a tournament can be exported as
+	 */
+	public enum Format
+	{
+		SCHEDULE_CSV,  // A row per game with its result
+		STANDINGS_CSV, // A row per player in ranking order
+		JSON           // The standings and every game in one document
+	}
+
+	/**
+	 * Private constructor (Static helpers only)
+	 */
+	private TournamentExporter()
+	{
+	}
+
+	/**
+	 * Exports a tournament to a file through a buffered writer (UTF-8)
+	 * @param file The file (Replaced if it exists)
+	 * @param format The document to export
+	 * @param players The roster
+	 * @param schedule The schedule (null if there is no schedule)
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void export(Path file, Format format, List<Player> players, Schedule schedule) throws IOException
+	{
+		try(BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+		{
+			export(out, format, players, schedule);
+		}
+	}
+
+	/**
+	 * Exports a tournament to a writer
+	 * The writer is flushed but not closed
+	 * @param out The writer (Wrap it in a buffered writer unless it buffers already)
+	 * @param format The document to export
+	 * @param players The roster
+	 * @param schedule The schedule (null if there is no schedule)
+	 * @throws IOException If the writer fails
+	 */
+	public static void export(Writer out, Format format, List<Player> players, Schedule schedule) throws IOException
+	{
+		switch(format)
+		{
+			case SCHEDULE_CSV:
+				writeScheduleCsv(out, schedule);
+				break;
+			case STANDINGS_CSV:
+				writeStandingsCsv(out, players);
+				break;
+			case JSON:
+				writeJson(out, players, schedule);
+				break;
+		}
+		out.flush();
+	}
+
+	/**
+	 * Private helper to write the schedule as CSV
+	 * @param out The writer
+	 * @param schedule The schedule (null for the header only)
+	 * @throws IOException If the writer fails
+	 */
+	private static void writeScheduleCsv(Writer out, Schedule schedule) throws IOException
+	{
+		out.write("game,round,slot,table,player_a,player_b,played,score_a,score_b,winner\n");
+		int numGames = (schedule == null) ? 0 : schedule.getNumGames();
+		for(int i = 0; i < numGames; i++)
+		{
+			Game game = schedule.getGame(i);
+			int slotIndex = schedule.getSlotOfGame(i);
+			out.write((i + 1) + "," + (i / schedule.getNumGamesInFullRound() + 1) + "," + (slotIndex + 1) + "," + (i - schedule.getSlotStartIndex(slotIndex) + 1) + ",");
+			writeCsvField(out, game.getPlayerA().getName());
+			out.write(',');
+			writeCsvField(out, game.getPlayerB().getName());
+			out.write("," + game.getPlayed() + ",");
+			if(game.getPlayed())
+			{
+				out.write(game.getScoreA() + "," + game.getScoreB() + ",");
+				if(winnerOf(game) != null)
+					writeCsvField(out, winnerOf(game).getName());
+			}
+			else
+			{
+				out.write(",,");
+			}
+			out.write('\n');
+		}
+	}
+
+	/**
+	 * Private helper to write the standings as CSV
+	 * @param out The writer
+	 * @param players The roster
+	 * @throws IOException If the writer fails
+	 */
+	private static void writeStandingsCsv(Writer out, List<Player> players) throws IOException
+	{
+		out.write("rank,name,wins,played,ratio\n");
+		ArrayList<Player> standings = standingsOf(players);
+		for(int i = 0; i < standings.size(); i++)
+		{
+			Player player = standings.get(i);
+			out.write((i + 1) + ",");
+			writeCsvField(out, player.getName());
+			out.write("," + player.getWins() + "," + player.getGamesPlayed() + "," + player.getRatio() + "\n");
+		}
+	}
+
+	/**
+	 * Private helper to write the standings and the schedule as a JSON document
+	 * @param out The writer
+	 * @param players The roster
+	 * @param schedule The schedule (null for no games)
+	 * @throws IOException If the writer fails
+	 */
+	private static void writeJson(Writer out, List<Player> players, Schedule schedule) throws IOException
+	{
+		out.write("{\n  \"standings\": [");
+		ArrayList<Player> standings = standingsOf(players);
+		for(int i = 0; i < standings.size(); i++)
+		{
+			Player player = standings.get(i);
+			out.write((i == 0) ? "\n    " : ",\n    ");
+			out.write("{\"rank\": " + (i + 1) + ", \"name\": ");
+			writeJsonString(out, player.getName());
+			out.write(", \"wins\": " + player.getWins() + ", \"played\": " + player.getGamesPlayed() + ", \"ratio\": " + player.getRatio() + "}");
+		}
+		out.write(standings.isEmpty() ? "],\n  \"games\": [" : "\n  ],\n  \"games\": [");
+		int numGames = (schedule == null) ? 0 : schedule.getNumGames();
+		for(int i = 0; i < numGames; i++)
+		{
+			Game game = schedule.getGame(i);
+			int slotIndex = schedule.getSlotOfGame(i);
+			out.write((i == 0) ? "\n    " : ",\n    ");
+			out.write("{\"game\": " + (i + 1) + ", \"round\": " + (i / schedule.getNumGamesInFullRound() + 1)
+				+ ", \"slot\": " + (slotIndex + 1) + ", \"table\": " + (i - schedule.getSlotStartIndex(slotIndex) + 1) + ", \"playerA\": ");
+			writeJsonString(out, game.getPlayerA().getName());
+			out.write(", \"playerB\": ");
+			writeJsonString(out, game.getPlayerB().getName());
+			out.write(", \"played\": " + game.getPlayed());
+			if(game.getPlayed())
+			{
+				out.write(", \"scoreA\": " + game.getScoreA() + ", \"scoreB\": " + game.getScoreB() + ", \"winner\": ");
+				if(winnerOf(game) != null)
+					writeJsonString(out, winnerOf(game).getName());
+				else
+					out.write("null");
+			}
+			out.write("}");
+		}
+		out.write((numGames == 0) ? "]\n}\n" : "\n  ]\n}\n");
+	}
+
+	/**
+	 * Private helper to get the players in ranking order (See Player.compareTo)
+	 * @param players The roster
+	 * @return A sorted copy of the roster
+	 */
+	private static ArrayList<Player> standingsOf(List<Player> players)
+	{
+		ArrayList<Player> standings = new ArrayList<>(players);
+		standings.sort(null);
+		return standings;
+	}
+
+	/**
+	 * Private helper to get the winner of a played game
+	 * @param game The game
+	 * @return The player with the higher score (null if the scores are tied, which means they were not recorded)
+	 */
+	private static Player winnerOf(Game game)
+	{
+		if(game.getScoreA() == game.getScoreB())
+			return null;
+		return (game.getScoreA() > game.getScoreB()) ? game.getPlayerA() : game.getPlayerB();
+	}
+
+	/**
+	 * Private helper to write a CSV field, quoting it if it contains a comma, quote or line break
+	 * @param out The writer
+	 * @param value The field
+	 * @throws IOException If the writer fails
+	 */
+	private static void writeCsvField(Writer out, String value) throws IOException
+	{
+		if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+		{
+			out.write(value);
+			return;
+		}
+		out.write('"');
+		out.write(value.replace("\"", "\"\""));
+		out.write('"');
+	}
+
+	/**
+	 * Private helper to write a JSON string, escaping quotes, backslashes and control characters
+	 * @param out The writer
+	 * @param value The string
+	 * @throws IOException If the writer fails
+	 */
+	private static void writeJsonString(Writer out, String value) throws IOException
+	{
+		out.write('"');
+		for(int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			if(c == '"' || c == '\\')
+			{
+				out.write('\\');
+				out.write(c);
+			}
+			else if(c < 0x20)
+			{
+				out.write(String.format("\\u%04x", (int) c));
+			}
+			else
+			{
+				out.write(c);
+			}
+		}
+		out.write('"');
+	}
+}
@@ -0,0 +1,577 @@
+package data_classes;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32C;
+import javafx.scene.paint.Color;
+
+/**
+ * This class saves and loads a tournament (The roster, the schedule, the results and the state of a Swiss or elimination tournament) in a compact versioned binary file
+ * The file is a fixed header (Magic, version, payload length and a CRC32C checksum of the payload) followed by the payload:
+ * the players (Name, colour and stats), then the kind of schedule, its settings and games each, every game as a packed pair of player ids with a played bit,
+ * the scores of the played games, and finally the Swiss pairer (Byes and rounds paired) or the bracket (Entrants in seed order)
+ * Saving is split in two so the FX thread never waits on the disk: a snapshot encodes the tournament into memory, and writing the snapshot can run on any thread (See Snapshot)
+ * Files are written through a file channel to a temporary file that is forced to disk and moved into place, so a saved tournament is never half written
+ * Files are loaded by memory mapping them, so the payload is checksummed and read straight from the page cache without copying it first
+ * Loading gives back players, games and a schedule equal to the ones saved, including the orientation and scores of every game
+ * @author William Shaw
+ */
+public class TournamentFile
+{
+	private static final int FILE_MAGIC = 0x544D4631;     // First int of every tournament file ("TMF1")
+	private static final int VERSION = 1;                 // Version of the payload layout
+	private static final int HEADER_SIZE = 20;            // Magic, version, payload length and checksum
+	private static final long PLAYED_BIT = Long.MIN_VALUE; // Bit of a packed game that is set if the game has been played
+	private static final byte IN_ROSTER = 1;              // Player flag for a player in the roster (Removed players can still be in played games)
+	private static final byte HAS_COLOUR = 2;             // Player flag for a player with a colour
+	private static final byte NO_SCHEDULE = 0;            // Kind of a roster saved without a schedule
+	private static final byte ROUND_ROBIN = 1;            // Kind of a schedule built up front (See ScheduleBuilder)
+	private static final byte SWISS = 2;                  // Kind of a schedule paired a round at a time (See SwissPairer)
+	private static final byte ELIMINATION = 3;            // Kind of a schedule handed out by a bracket (See Bracket)
+
+	/**
+	 * Private Inner Class PayloadWriter
+	 * Encodes the payload into a heap buffer that grows as needed
+	 * @author William Shaw
+	 */
+	private static class PayloadWriter
+	{
+		private ByteBuffer buffer = ByteBuffer.allocate(1 << 12); // The payload so far
+
+		/**
+		 * Writes a byte
+		 * @param value The value
+		 */
+		private void putByte(byte value)
+		{
+			ensureRemaining(Byte.BYTES);
+			buffer.put(value);
+		}
+
+		/**
+		 * Writes an int
+		 * @param value The value
+		 */
+		private void putInt(int value)
+		{
+			ensureRemaining(Integer.BYTES);
+			buffer.putInt(value);
+		}
+
+		/**
+		 * Writes a long
+		 * @param value The value
+		 */
+		private void putLong(long value)
+		{
+			ensureRemaining(Long.BYTES);
+			buffer.putLong(value);
+		}
+
+		/**
+		 * Writes a double
+		 * @param value The value
+		 */
+		private void putDouble(double value)
+		{
+			ensureRemaining(Double.BYTES);
+			buffer.putDouble(value);
+		}
+
+		/**
+		 * Writes a string as its length in bytes followed by its UTF-8 bytes
+		 * @param value The string
+		 */
+		private void putString(String value)
+		{
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			putInt(bytes.length);
+			ensureRemaining(bytes.length);
+			buffer.put(bytes);
+		}
+
+		/**
+		 * Private helper to make room in the buffer (Its capacity is doubled until the bytes fit)
+		 * @param numBytes The number of bytes about to be put in the buffer
+		 */
+		private void ensureRemaining(int numBytes)
+		{
+			if(buffer.remaining() >= numBytes)
+				return;
+			int capacity = buffer.capacity();
+			while(capacity - buffer.position() < numBytes)
+			{
+				capacity *= 2;
+			}
+			ByteBuffer grown = ByteBuffer.allocate(capacity);
+			grown.put(buffer.flip());
+			buffer = grown;
+		}
+	}
+
+	/**
+	 * Public Inner Class Snapshot
+	 * A tournament encoded into memory, ready to be written to a file
+	 * Taking a snapshot reads every player and game once, so it is taken on the thread that changes the tournament.
+	 * Writing it touches nothing but the snapshot, so it can run on a background thread while the tournament keeps changing
+	 * @author William Shaw
+	 */
+	public static class Snapshot
+	{
+		private ByteBuffer payload; // The encoded payload (Read from its start)
+		private int checksum;       // CRC32C checksum of the payload
+
+		/**
+		 * Constructor
+		 * @param payload The encoded payload (Flipped, ready to be read)
+		 */
+		private Snapshot(ByteBuffer payload)
+		{
+			this.payload = payload;
+			CRC32C crc = new CRC32C();
+			crc.update(payload.duplicate());
+			checksum = (int) crc.getValue();
+		}
+
+		/**
+		 * Writes the snapshot to a file
+		 * @param file The file (Replaced if it exists. Its directory is created if it does not exist)
+		 * @throws IOException If the file cannot be written (The previous file, if any, is left as it was)
+		 */
+		public void write(Path file) throws IOException
+		{
+			if(file.getParent() != null)
+				Files.createDirectories(file.getParent());
+			Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+			try(FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+			{
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(FILE_MAGIC);
+				header.putInt(VERSION);
+				header.putLong(payload.remaining());
+				header.putInt(checksum);
+				header.flip();
+				ByteBuffer[] buffers = {header, payload.duplicate()};
+				while(buffers[1].hasRemaining())
+				{
+					channel.write(buffers);
+				}
+				// The move must not reach the disk before the tournament does
+				channel.force(true);
+			}
+			Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+
+	// Private data structures
+	private ArrayList<Player> players; // The roster
+	private Schedule schedule;         // The schedule (null if no schedule was saved)
+	private SwissPairer swissPairer;   // The Swiss pairer (null if the schedule is not Swiss)
+	private List<Player> entrants;     // The bracket's entrants in seed order (null if the schedule is not a bracket)
+
+	// Private attributes
+	private int numGamesEach;          // The number of games each player plays (The number of rounds for Swiss, 0 for a bracket)
+	private boolean doubleElimination; // True if the bracket is double elimination
+	private Bracket bracket = null;    // The bracket once it has been rebuilt (See getBracket)
+
+	/**
+	 * Private constructor (See load)
+	 * @param players The roster
+	 * @param schedule The schedule (null if no schedule was saved)
+	 * @param numGamesEach The number of games each player plays
+	 */
+	private TournamentFile(ArrayList<Player> players, Schedule schedule, int numGamesEach)
+	{
+		this.players = players;
+		this.schedule = schedule;
+		this.numGamesEach = numGamesEach;
+	}
+
+	/**
+	 * Getter for the roster
+	 * @return List of players in the order they were saved, with their stats
+	 */
+	public ArrayList<Player> getPlayers()
+	{
+		return players;
+	}
+
+	/**
+	 * Getter for the schedule
+	 * @return The schedule with every game marked played as it was saved (null if no schedule was saved)
+	 */
+	public Schedule getSchedule()
+	{
+		return schedule;
+	}
+
+	/**
+	 * Getter for the number of games each
+	 * @return The number of games each player plays in the schedule (The number of rounds for Swiss, 0 for a bracket or without a schedule)
+	 */
+	public int getNumGamesEach()
+	{
+		return numGamesEach;
+	}
+
+	/**
+	 * Getter for the Swiss pairer
+	 * @return The pairer with every pairing, bye and round of the saved schedule (null if the schedule is not Swiss)
+	 */
+	public SwissPairer getSwissPairer()
+	{
+		return swissPairer;
+	}
+
+	/**
+	 * Gets the bracket the saved schedule was handed out by
+	 * The bracket is rebuilt from the games of the schedule the first time this is called, so results replayed onto the schedule first are included (See ResultJournal)
+	 * Games the bracket made ready that are not in the schedule yet are left for Bracket.takeReadyGames
+	 * @return The bracket (null if the schedule is not a bracket)
+	 * @throws IOException If the schedule's games do not fit the bracket
+	 */
+	public Bracket getBracket() throws IOException
+	{
+		if(bracket == null && entrants != null)
+		{
+			ArrayList<Game> games = new ArrayList<>(schedule.getNumGames());
+			schedule.gameIterator().forEachRemaining(games::add);
+			try
+			{
+				bracket = Bracket.restore(entrants, doubleElimination, games);
+			}
+			catch(IllegalArgumentException e)
+			{
+				throw corrupt(e.getMessage());
+			}
+		}
+		return bracket;
+	}
+
+	/**
+	 * Takes a snapshot of a tournament so it can be saved
+	 * A streaming schedule generates every round first, so callers that want to keep streaming should snapshot the roster only (See Schedule.isStreaming)
+	 * @param players The roster
+	 * @param schedule The schedule (null to save the roster only)
+	 * @param numGamesEach The number of games each player plays in the schedule (The number of rounds for Swiss, 0 for a bracket)
+	 * @param swissPairer The Swiss pairer the schedule is paired by (null if the schedule is not Swiss)
+	 * @param bracket The bracket the schedule is handed out by (null if the schedule is not a bracket)
+	 * @return The snapshot
+	 */
+	public static Snapshot snapshot(List<Player> players, Schedule schedule, int numGamesEach, SwissPairer swissPairer, Bracket bracket)
+	{
+		// Players in games, the Swiss pairer or the bracket who have left the roster are saved after it
+		ArrayList<Player> savedPlayers = new ArrayList<>(players);
+		IdentityHashMap<Player, Integer> playerIds = new IdentityHashMap<>();
+		for(int i = 0; i < savedPlayers.size(); i++)
+		{
+			playerIds.put(savedPlayers.get(i), i);
+		}
+		ArrayList<Game> games = new ArrayList<>((schedule == null) ? 0 : schedule.getNumGames());
+		if(schedule != null)
+		{
+			for(Iterator<Game> iterator = schedule.gameIterator(); iterator.hasNext(); )
+			{
+				Game game = iterator.next();
+				games.add(game);
+				addPlayer(game.getPlayerA(), savedPlayers, playerIds);
+				addPlayer(game.getPlayerB(), savedPlayers, playerIds);
+			}
+		}
+		List<Player> stagePlayers = (swissPairer != null) ? swissPairer.getPlayers() : (bracket != null) ? bracket.getEntrants() : List.of();
+		for(Player player : stagePlayers)
+		{
+			addPlayer(player, savedPlayers, playerIds);
+		}
+
+		PayloadWriter out = new PayloadWriter();
+		// Players
+		out.putInt(savedPlayers.size());
+		for(int i = 0; i < savedPlayers.size(); i++)
+		{
+			Player player = savedPlayers.get(i);
+			Color colour = player.getColour();
+			out.putByte((byte) ((i < players.size() ? IN_ROSTER : 0) | (colour != null ? HAS_COLOUR : 0)));
+			out.putString(player.getName());
+			if(colour != null)
+			{
+				out.putDouble(colour.getRed());
+				out.putDouble(colour.getGreen());
+				out.putDouble(colour.getBlue());
+				out.putDouble(colour.getOpacity());
+			}
+			out.putInt(player.getWins());
+			out.putInt(player.getGamesPlayed());
+			out.putInt(player.getRalliesWon());
+			out.putInt(player.getRalliesLost());
+		}
+		// Schedule
+		byte kind = (schedule == null) ? NO_SCHEDULE : (swissPairer != null) ? SWISS : (bracket != null) ? ELIMINATION : ROUND_ROBIN;
+		out.putByte(kind);
+		if(schedule == null)
+			return new Snapshot(out.buffer.flip());
+		out.putInt(numGamesEach);
+		out.putInt(schedule.getNumGamesInFullRound());
+		out.putByte((byte) (schedule.hasSeed() ? 1 : 0));
+		out.putLong(schedule.getSeed());
+		out.putInt(schedule.getNumTables());
+		int numSlotStarts = (schedule.getNumTables() > 1) ? schedule.getNumSlots() + 1 : 0;
+		out.putInt(numSlotStarts);
+		for(int i = 0; i < numSlotStarts; i++)
+		{
+			out.putInt((i < numSlotStarts - 1) ? schedule.getSlotStartIndex(i) : games.size());
+		}
+		out.putInt(games.size());
+		for(Game game : games)
+		{
+			long packedGame = IndexedScheduleEngine.packMatch(playerIds.get(game.getPlayerA()), playerIds.get(game.getPlayerB()));
+			out.putLong(game.getPlayed() ? packedGame | PLAYED_BIT : packedGame);
+		}
+		for(Game game : games)
+		{
+			if(game.getPlayed())
+			{
+				out.putInt(game.getScoreA());
+				out.putInt(game.getScoreB());
+			}
+		}
+		// Swiss pairer (Every pairing is a game in the schedule, so only the byes and rounds are saved)
+		if(kind == SWISS)
+		{
+			out.putInt(stagePlayers.size());
+			for(Player player : stagePlayers)
+			{
+				out.putInt(playerIds.get(player));
+				out.putByte((byte) (swissPairer.hadBye(player) ? 1 : 0));
+			}
+			out.putInt(swissPairer.getNumRoundsPaired());
+			out.putInt((swissPairer.getBye() == null) ? -1 : playerIds.get(swissPairer.getBye()));
+		}
+		// Bracket (Its progress is rebuilt from the results of the games, so only the seeds are saved)
+		if(kind == ELIMINATION)
+		{
+			out.putByte((byte) (bracket.isDoubleElimination() ? 1 : 0));
+			out.putInt(stagePlayers.size());
+			for(Player player : stagePlayers)
+			{
+				out.putInt(playerIds.get(player));
+			}
+		}
+		return new Snapshot(out.buffer.flip());
+	}
+
+	/**
+	 * Loads a tournament from a file
+	 * The file is memory mapped and its checksum is checked before anything is read from it
+	 * @param file The file
+	 * @return The loaded tournament
+	 * @throws IOException If the file cannot be read, is not a tournament file, is a different version, or fails its checksum or validation
+	 */
+	public static TournamentFile load(Path file) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+		{
+			long size = channel.size();
+			if(size < HEADER_SIZE || size > Integer.MAX_VALUE)
+				throw corrupt("File is " + size + " bytes");
+			MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if(in.getInt() != FILE_MAGIC)
+				throw corrupt("Not a tournament file");
+			int version = in.getInt();
+			if(version != VERSION)
+				throw corrupt("Unsupported version " + version);
+			long payloadLength = in.getLong();
+			int expectedChecksum = in.getInt();
+			if(payloadLength != size - HEADER_SIZE)
+				throw corrupt("Payload is " + (size - HEADER_SIZE) + " bytes, header says " + payloadLength);
+			CRC32C checksum = new CRC32C();
+			checksum.update(in.slice(HEADER_SIZE, (int) payloadLength));
+			if((int) checksum.getValue() != expectedChecksum)
+				throw corrupt("Checksum does not match");
+			return readPayload(in);
+		}
+	}
+
+	/**
+	 * Private helper to read the payload once the header and checksum have been checked
+	 * @param in The mapped file (Positioned at the start of the payload)
+	 * @return The loaded tournament
+	 * @throws IOException If the payload is not a valid tournament
+	 */
+	private static TournamentFile readPayload(ByteBuffer in) throws IOException
+	{
+		try
+		{
+			// Players
+			int numPlayers = in.getInt();
+			if(numPlayers < 0 || numPlayers > in.remaining())
+				throw corrupt("Invalid number of players " + numPlayers);
+			Player[] savedPlayers = new Player[numPlayers];
+			ArrayList<Player> players = new ArrayList<>();
+			for(int i = 0; i < numPlayers; i++)
+			{
+				byte flags = in.get();
+				int nameLength = in.getInt();
+				if(nameLength < 0 || nameLength > in.remaining())
+					throw corrupt("Invalid name length " + nameLength);
+				byte[] name = new byte[nameLength];
+				in.get(name);
+				Color colour = null;
+				if((flags & HAS_COLOUR) != 0)
+					colour = Color.color(in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble());
+				savedPlayers[i] = new Player(new String(name, StandardCharsets.UTF_8), colour);
+				savedPlayers[i].restoreStats(in.getInt(), in.getInt(), in.getInt(), in.getInt());
+				if((flags & IN_ROSTER) != 0)
+					players.add(savedPlayers[i]);
+			}
+			// Schedule
+			byte kind = in.get();
+			if(kind == NO_SCHEDULE)
+			{
+				if(in.hasRemaining())
+					throw corrupt("Unexpected data after the roster");
+				return new TournamentFile(players, null, 0);
+			}
+			if(kind != ROUND_ROBIN && kind != SWISS && kind != ELIMINATION)
+				throw corrupt("Invalid kind of schedule " + kind);
+			int numGamesEach = in.getInt();
+			int numGamesInFullRound = in.getInt();
+			boolean hasSeed = in.get() != 0;
+			long seed = in.getLong();
+			int numTables = in.getInt();
+			int numSlotStarts = in.getInt();
+			if(numGamesEach < 0 || numGamesInFullRound < 1 || numTables < 1 || numSlotStarts < 0 || numSlotStarts > in.remaining() / Integer.BYTES)
+				throw corrupt("Invalid schedule settings");
+			int[] slotStarts = (numSlotStarts == 0) ? null : new int[numSlotStarts];
+			for(int i = 0; i < numSlotStarts; i++)
+			{
+				slotStarts[i] = in.getInt();
+			}
+			int numGames = in.getInt();
+			if(numGames < 0 || numGames > in.remaining() / Long.BYTES)
+				throw corrupt("Invalid number of games " + numGames);
+			if(slotStarts != null && (slotStarts[0] != 0 || slotStarts[numSlotStarts - 1] != numGames))
+				throw corrupt("Invalid time slots");
+			for(int i = 1; i < numSlotStarts; i++)
+			{
+				if(slotStarts[i] <= slotStarts[i - 1] && numGames > 0)
+					throw corrupt("Invalid time slots");
+			}
+			ArrayList<Game> games = new ArrayList<>(numGames);
+			for(int i = 0; i < numGames; i++)
+			{
+				long packedGame = in.getLong();
+				Player playerA = readPlayer(IndexedScheduleEngine.playerA(packedGame & ~PLAYED_BIT), savedPlayers);
+				Player playerB = readPlayer(IndexedScheduleEngine.playerB(packedGame), savedPlayers);
+				if(playerA == playerB)
+					throw corrupt("Invalid game " + i);
+				games.add(new Game(playerA, playerB, (packedGame & PLAYED_BIT) != 0));
+			}
+			for(Game game : games)
+			{
+				if(game.getPlayed())
+					game.setScores(in.getInt(), in.getInt());
+			}
+			Schedule schedule;
+			if(!hasSeed)
+				schedule = new Schedule(games, numGamesInFullRound);
+			else if(slotStarts == null)
+				schedule = new Schedule(games, numGamesInFullRound, seed);
+			else
+				schedule = new Schedule(games, numGamesInFullRound, seed, numTables, slotStarts);
+			TournamentFile tournament = new TournamentFile(players, schedule, numGamesEach);
+
+			// Swiss pairer
+			if(kind == SWISS)
+			{
+				int numPairerPlayers = in.getInt();
+				if(numPairerPlayers < 2 || numPairerPlayers > numPlayers)
+					throw corrupt("Invalid number of Swiss players " + numPairerPlayers);
+				ArrayList<Player> pairerPlayers = new ArrayList<>(numPairerPlayers);
+				boolean[] hadBye = new boolean[numPairerPlayers];
+				for(int i = 0; i < numPairerPlayers; i++)
+				{
+					pairerPlayers.add(readPlayer(in.getInt(), savedPlayers));
+					hadBye[i] = in.get() != 0;
+				}
+				int numRoundsPaired = in.getInt();
+				int byeId = in.getInt();
+				if(numRoundsPaired < 0)
+					throw corrupt("Invalid number of Swiss rounds " + numRoundsPaired);
+				Player bye = (byeId == -1) ? null : readPlayer(byeId, savedPlayers);
+				tournament.swissPairer = new SwissPairer(pairerPlayers, hadBye, numRoundsPaired, bye, games);
+			}
+			// Bracket (Rebuilt on demand, see getBracket)
+			if(kind == ELIMINATION)
+			{
+				tournament.doubleElimination = in.get() != 0;
+				int numEntrants = in.getInt();
+				if(numEntrants < 2 || numEntrants > numPlayers)
+					throw corrupt("Invalid number of entrants " + numEntrants);
+				ArrayList<Player> entrants = new ArrayList<>(numEntrants);
+				for(int i = 0; i < numEntrants; i++)
+				{
+					entrants.add(readPlayer(in.getInt(), savedPlayers));
+				}
+				tournament.entrants = entrants;
+			}
+			if(in.hasRemaining())
+				throw corrupt("Unexpected data after the schedule");
+			return tournament;
+		}
+		catch(BufferUnderflowException e)
+		{
+			throw corrupt("Payload ends early");
+		}
+	}
+
+	/**
+	 * Private helper to give a player an id if they do not have one yet
+	 * @param player The player
+	 * @param savedPlayers List of players with ids (The player is added to the end)
+	 * @param playerIds The id of each player in the list
+	 */
+	private static void addPlayer(Player player, ArrayList<Player> savedPlayers, IdentityHashMap<Player, Integer> playerIds)
+	{
+		if(playerIds.containsKey(player))
+			return;
+		playerIds.put(player, savedPlayers.size());
+		savedPlayers.add(player);
+	}
+
+	/**
+	 * Private helper to look up a player by the id read from the payload
+	 * @param id The id
+	 * @param savedPlayers The saved players
+	 * @return The player
+	 * @throws IOException If there is no player with the id
+	 */
+	private static Player readPlayer(int id, Player[] savedPlayers) throws IOException
+	{
+		if(id < 0 || id >= savedPlayers.length)
+			throw corrupt("Invalid player id " + id);
+		return savedPlayers[id];
+	}
+
+	/**
+	 * Private helper to create the exception thrown for a file that is not a valid tournament
+	 * @param reason Why the file is not valid
+	 * @return The exception
+	 */
+	private static IOException corrupt(String reason)
+	{
+		return new IOException("Cannot load tournament: " + reason);
+	}
+}
@@ -0,0 +1,800 @@
+package data_classes;
+
+import java.util.Arrays;
+
+/**
+ * This class finds a maximum weight matching in a general graph (Edmonds' blossom algorithm with dual variables)
+ * It is used by the Swiss pairer to pair every player in a round at once, instead of trying pairings one by one
+ * The graph is given as a list of edges between vertex ids with integer weights
+ * Odd cycles of tight edges are shrunk into blossoms, so the search never has to backtrack. It runs in O(n^3) in the worst case
+ * Only integer arithmetic is used, so the result does not depend on rounding
+ * @author William Shaw
+ */
+class WeightedMatching
+{
+	private int numVertices;             // The number of vertices
+	private int numEdges;                // The number of edges
+	private int[] edgeEndpoints;         // Both ends of each edge (Endpoint p of edge k is 2k or 2k+1)
+	private long[] edgeWeights;          // The weight of each edge
+	private int[][] neighbourEndpoints;  // The far endpoints of every edge at each vertex
+
+	// Matching state (Blossom ids start at the number of vertices)
+	private int[] mate;                  // The far endpoint of the edge each vertex is matched by (-1 if unmatched)
+	private int[] label;                 // 0 free, 1 S (Outer), 2 T (Inner) for each vertex and top level blossom (Bit 4 marks a scanned blossom)
+	private int[] labelEnd;              // The endpoint the label came through (-1 for a root)
+	private int[] inBlossom;             // The top level blossom each vertex is in
+	private int[] blossomParent;         // The blossom each blossom is directly inside (-1 for top level)
+	private int[][] blossomChilds;       // The sub-blossoms of each blossom, going round the odd cycle from the base
+	private int[] blossomBase;           // The base vertex of each blossom (-1 for an unused blossom id)
+	private int[][] blossomEndpoints;    // The endpoints of the edges joining the sub-blossoms of each blossom
+	private int[] bestEdge;              // The least slack edge from each vertex or S blossom to another S blossom or free vertex
+	private int[][] blossomBestEdges;    // The least slack edges from an S blossom to each other S blossom
+	private int[] unusedBlossoms;        // Stack of unused blossom ids
+	private int numUnusedBlossoms;       // The number of unused blossom ids
+	private long[] dualVariables;        // Dual variable of each vertex and blossom
+	private boolean[] allowedEdges;      // True if an edge has zero slack and can be used by the search
+	private int[] queue;                 // S vertices whose edges have not been scanned yet
+	private int queueSize;               // The number of vertices in the queue
+	private int[] leaves;                // Buffer the leaves of a blossom are collected into
+	private int[] scanPath;              // Buffer the blossoms visited by a blossom scan are collected into
+
+	/**
+	 * Constructor
+	 * @param numVertices The number of vertices
+	 * @param edgeFrom One end of each edge
+	 * @param edgeTo The other end of each edge
+	 * @param edgeWeights The weight of each edge
+	 */
+	WeightedMatching(int numVertices, int[] edgeFrom, int[] edgeTo, long[] edgeWeights)
+	{
+		this.numVertices = numVertices;
+		this.numEdges = edgeWeights.length;
+		this.edgeWeights = edgeWeights;
+		edgeEndpoints = new int[2 * numEdges];
+		int[] degree = new int[numVertices];
+		for(int k = 0; k < numEdges; k++)
+		{
+			edgeEndpoints[2 * k] = edgeFrom[k];
+			edgeEndpoints[2 * k + 1] = edgeTo[k];
+			degree[edgeFrom[k]]++;
+			degree[edgeTo[k]]++;
+		}
+		neighbourEndpoints = new int[numVertices][];
+		for(int v = 0; v < numVertices; v++)
+		{
+			neighbourEndpoints[v] = new int[degree[v]];
+		}
+		Arrays.fill(degree, 0);
+		for(int k = 0; k < numEdges; k++)
+		{
+			neighbourEndpoints[edgeFrom[k]][degree[edgeFrom[k]]++] = 2 * k + 1;
+			neighbourEndpoints[edgeTo[k]][degree[edgeTo[k]]++] = 2 * k;
+		}
+	}
+
+	/**
+	 * Finds a maximum weight matching
+	 * @param maxCardinality True to only consider matchings with as many edges as possible (The heaviest of those is returned)
+	 * @return The vertex each vertex is matched to (-1 if unmatched)
+	 */
+	int[] solve(boolean maxCardinality)
+	{
+		int n = numVertices;
+		long maxWeight = 0;
+		for(long weight : edgeWeights)
+		{
+			maxWeight = Math.max(maxWeight, weight);
+		}
+		mate = new int[n];
+		Arrays.fill(mate, -1);
+		label = new int[2 * n];
+		labelEnd = new int[2 * n];
+		Arrays.fill(labelEnd, -1);
+		inBlossom = new int[n];
+		blossomParent = new int[2 * n];
+		Arrays.fill(blossomParent, -1);
+		blossomChilds = new int[2 * n][];
+		blossomBase = new int[2 * n];
+		Arrays.fill(blossomBase, -1);
+		blossomEndpoints = new int[2 * n][];
+		bestEdge = new int[2 * n];
+		Arrays.fill(bestEdge, -1);
+		blossomBestEdges = new int[2 * n][];
+		unusedBlossoms = new int[n];
+		numUnusedBlossoms = 0;
+		for(int b = 2 * n - 1; b >= n; b--)
+		{
+			unusedBlossoms[numUnusedBlossoms++] = b;
+		}
+		dualVariables = new long[2 * n];
+		allowedEdges = new boolean[numEdges];
+		queue = new int[n];
+		leaves = new int[n];
+		scanPath = new int[2 * n];
+		for(int v = 0; v < n; v++)
+		{
+			inBlossom[v] = v;
+			blossomBase[v] = v;
+			dualVariables[v] = maxWeight;
+		}
+
+		// Each stage grows alternating trees from every free vertex until it finds an augmenting path
+		for(int stage = 0; stage < n; stage++)
+		{
+			Arrays.fill(label, 0);
+			Arrays.fill(bestEdge, -1);
+			Arrays.fill(blossomBestEdges, n, 2 * n, null);
+			Arrays.fill(allowedEdges, false);
+			queueSize = 0;
+			for(int v = 0; v < n; v++)
+			{
+				if(mate[v] == -1 && label[inBlossom[v]] == 0)
+					assignLabel(v, 1, -1);
+			}
+			boolean augmented = false;
+			while(true)
+			{
+				// Scans the edges of S vertices for tight edges
+				while(queueSize > 0 && !augmented)
+				{
+					int v = queue[--queueSize];
+					for(int p : neighbourEndpoints[v])
+					{
+						int k = p / 2;
+						int w = edgeEndpoints[p];
+						if(inBlossom[v] == inBlossom[w])
+							continue;
+						long kSlack = 0;
+						if(!allowedEdges[k])
+						{
+							kSlack = slack(k);
+							if(kSlack <= 0)
+								allowedEdges[k] = true;
+						}
+						if(allowedEdges[k])
+						{
+							if(label[inBlossom[w]] == 0)
+							{
+								// Grows the tree: w becomes T and its mate becomes S
+								assignLabel(w, 2, p ^ 1);
+							}
+							else if(label[inBlossom[w]] == 1)
+							{
+								// Two S vertices: either a new blossom or an augmenting path
+								int base = scanBlossom(v, w);
+								if(base >= 0)
+									addBlossom(base, k);
+								else
+								{
+									augmentMatching(k);
+									augmented = true;
+									break;
+								}
+							}
+							else if(label[w] == 0)
+							{
+								// w is inside a T blossom but has not been labelled yet
+								label[w] = 2;
+								labelEnd[w] = p ^ 1;
+							}
+						}
+						else if(label[inBlossom[w]] == 1)
+						{
+							int b = inBlossom[v];
+							if(bestEdge[b] == -1 || kSlack < slack(bestEdge[b]))
+								bestEdge[b] = k;
+						}
+						else if(label[w] == 0)
+						{
+							if(bestEdge[w] == -1 || kSlack < slack(bestEdge[w]))
+								bestEdge[w] = k;
+						}
+					}
+				}
+				if(augmented)
+					break;
+
+				// No tight edge left to use, so the dual variables are changed to make one
+				int deltaType = -1;
+				long delta = 0;
+				int deltaEdge = -1;
+				int deltaBlossom = -1;
+				if(!maxCardinality)
+				{
+					deltaType = 1;
+					delta = minVertexDual();
+				}
+				for(int v = 0; v < n; v++)
+				{
+					if(label[inBlossom[v]] == 0 && bestEdge[v] != -1)
+					{
+						long d = slack(bestEdge[v]);
+						if(deltaType == -1 || d < delta)
+						{
+							delta = d;
+							deltaType = 2;
+							deltaEdge = bestEdge[v];
+						}
+					}
+				}
+				for(int b = 0; b < 2 * n; b++)
+				{
+					if(blossomParent[b] == -1 && label[b] == 1 && bestEdge[b] != -1)
+					{
+						long d = slack(bestEdge[b]) / 2;
+						if(deltaType == -1 || d < delta)
+						{
+							delta = d;
+							deltaType = 3;
+							deltaEdge = bestEdge[b];
+						}
+					}
+				}
+				for(int b = n; b < 2 * n; b++)
+				{
+					if(blossomBase[b] >= 0 && blossomParent[b] == -1 && label[b] == 2 && (deltaType == -1 || dualVariables[b] < delta))
+					{
+						delta = dualVariables[b];
+						deltaType = 4;
+						deltaBlossom = b;
+					}
+				}
+				if(deltaType == -1)
+				{
+					// No more progress is possible (Max cardinality only)
+					deltaType = 1;
+					delta = Math.max(0, minVertexDual());
+				}
+
+				// Updates the dual variables
+				for(int v = 0; v < n; v++)
+				{
+					if(label[inBlossom[v]] == 1)
+						dualVariables[v] -= delta;
+					else if(label[inBlossom[v]] == 2)
+						dualVariables[v] += delta;
+				}
+				for(int b = n; b < 2 * n; b++)
+				{
+					if(blossomBase[b] >= 0 && blossomParent[b] == -1)
+					{
+						if(label[b] == 1)
+							dualVariables[b] += delta;
+						else if(label[b] == 2)
+							dualVariables[b] -= delta;
+					}
+				}
+
+				if(deltaType == 1)
+					break;
+				else if(deltaType == 2)
+				{
+					allowedEdges[deltaEdge] = true;
+					int i = edgeEndpoints[2 * deltaEdge];
+					if(label[inBlossom[i]] == 0)
+						i = edgeEndpoints[2 * deltaEdge + 1];
+					push(i);
+				}
+				else if(deltaType == 3)
+				{
+					allowedEdges[deltaEdge] = true;
+					push(edgeEndpoints[2 * deltaEdge]);
+				}
+				else
+					expandBlossom(deltaBlossom, false);
+			}
+			if(!augmented)
+				break;
+
+			// Expands S blossoms whose dual variable dropped to zero
+			for(int b = n; b < 2 * n; b++)
+			{
+				if(blossomParent[b] == -1 && blossomBase[b] >= 0 && label[b] == 1 && dualVariables[b] == 0)
+					expandBlossom(b, true);
+			}
+		}
+
+		int[] matchedTo = new int[n];
+		for(int v = 0; v < n; v++)
+		{
+			matchedTo[v] = (mate[v] >= 0) ? edgeEndpoints[mate[v]] : -1;
+		}
+		return matchedTo;
+	}
+
+	/**
+	 * Private helper to add a vertex to the queue of S vertices to scan
+	 * @param v The vertex
+	 */
+	private void push(int v)
+	{
+		if(queueSize == queue.length)
+			queue = Arrays.copyOf(queue, 2 * queue.length);
+		queue[queueSize++] = v;
+	}
+
+	/**
+	 * Private helper to get the slack of an edge (Zero when the edge is tight)
+	 * @param k The edge
+	 * @return The slack of the edge
+	 */
+	private long slack(int k)
+	{
+		return dualVariables[edgeEndpoints[2 * k]] + dualVariables[edgeEndpoints[2 * k + 1]] - 2 * edgeWeights[k];
+	}
+
+	/**
+	 * Private helper to get the smallest dual variable of any vertex
+	 * @return The smallest vertex dual variable
+	 */
+	private long minVertexDual()
+	{
+		long min = Long.MAX_VALUE;
+		for(int v = 0; v < numVertices; v++)
+		{
+			min = Math.min(min, dualVariables[v]);
+		}
+		return min;
+	}
+
+	/**
+	 * Private helper to collect the vertices inside a blossom
+	 * @param b The blossom (Or a single vertex)
+	 * @return The number of vertices collected at the start of the leaves buffer
+	 */
+	private int collectLeaves(int b)
+	{
+		return collectLeaves(b, 0);
+	}
+
+	/**
+	 * Private helper to collect the vertices inside a blossom after the ones already collected
+	 * @param b The blossom (Or a single vertex)
+	 * @param numLeaves The number of vertices already collected
+	 * @return The number of vertices collected
+	 */
+	private int collectLeaves(int b, int numLeaves)
+	{
+		if(b < numVertices)
+		{
+			leaves[numLeaves] = b;
+			return numLeaves + 1;
+		}
+		for(int child : blossomChilds[b])
+		{
+			numLeaves = collectLeaves(child, numLeaves);
+		}
+		return numLeaves;
+	}
+
+	/**
+	 * Private helper to label a vertex and its top level blossom, and the mate of a T blossom's base
+	 * @param w The vertex
+	 * @param t The label (1 for S, 2 for T)
+	 * @param p The endpoint the label comes through
+	 */
+	private void assignLabel(int w, int t, int p)
+	{
+		int b = inBlossom[w];
+		label[w] = t;
+		label[b] = t;
+		labelEnd[w] = p;
+		labelEnd[b] = p;
+		bestEdge[w] = -1;
+		bestEdge[b] = -1;
+		if(t == 1)
+		{
+			int numLeaves = collectLeaves(b);
+			for(int i = 0; i < numLeaves; i++)
+			{
+				push(leaves[i]);
+			}
+		}
+		else
+		{
+			int base = blossomBase[b];
+			assignLabel(edgeEndpoints[mate[base]], 1, mate[base] ^ 1);
+		}
+	}
+
+	/**
+	 * Private helper to trace back from two S vertices to find a new blossom or an augmenting path
+	 * @param v One S vertex
+	 * @param w The other S vertex
+	 * @return The base of the new blossom, or -1 if the vertices are in different trees (Augmenting path)
+	 */
+	private int scanBlossom(int v, int w)
+	{
+		int pathLength = 0;
+		int base = -1;
+		while(v != -1 || w != -1)
+		{
+			int b = inBlossom[v];
+			if((label[b] & 4) != 0)
+			{
+				base = blossomBase[b];
+				break;
+			}
+			scanPath[pathLength++] = b;
+			label[b] = 5;
+			if(labelEnd[b] == -1)
+				v = -1;
+			else
+			{
+				v = edgeEndpoints[labelEnd[b]];
+				b = inBlossom[v];
+				v = edgeEndpoints[labelEnd[b]];
+			}
+			if(w != -1)
+			{
+				int swap = v;
+				v = w;
+				w = swap;
+			}
+		}
+		for(int i = 0; i < pathLength; i++)
+		{
+			label[scanPath[i]] = 1;
+		}
+		return base;
+	}
+
+	/**
+	 * Private helper to shrink the odd cycle closed by an edge into a new S blossom
+	 * @param base The base vertex of the blossom
+	 * @param k The edge between two S vertices that closes the cycle
+	 */
+	private void addBlossom(int base, int k)
+	{
+		int v = edgeEndpoints[2 * k];
+		int w = edgeEndpoints[2 * k + 1];
+		int bb = inBlossom[base];
+		int bv = inBlossom[v];
+		int bw = inBlossom[w];
+		int b = unusedBlossoms[--numUnusedBlossoms];
+		blossomBase[b] = base;
+		blossomParent[b] = -1;
+		blossomParent[bb] = b;
+
+		// Traces the cycle from v back to the base, then from the base out to w
+		int[] path = new int[2 * numVertices + 1];
+		int[] endpoints = new int[2 * numVertices + 1];
+		int pathLength = 0;
+		while(bv != bb)
+		{
+			blossomParent[bv] = b;
+			path[pathLength] = bv;
+			endpoints[pathLength] = labelEnd[bv];
+			pathLength++;
+			v = edgeEndpoints[labelEnd[bv]];
+			bv = inBlossom[v];
+		}
+		path[pathLength] = bb;
+		pathLength++;
+		reverse(path, pathLength);
+		reverse(endpoints, pathLength - 1);
+		endpoints[pathLength - 1] = 2 * k;
+		int numEndpoints = pathLength;
+		while(bw != bb)
+		{
+			blossomParent[bw] = b;
+			path[pathLength++] = bw;
+			endpoints[numEndpoints++] = labelEnd[bw] ^ 1;
+			w = edgeEndpoints[labelEnd[bw]];
+			bw = inBlossom[w];
+		}
+		blossomChilds[b] = Arrays.copyOf(path, pathLength);
+		blossomEndpoints[b] = Arrays.copyOf(endpoints, numEndpoints);
+		label[b] = 1;
+		labelEnd[b] = labelEnd[bb];
+		dualVariables[b] = 0;
+		int numLeaves = collectLeaves(b);
+		for(int i = 0; i < numLeaves; i++)
+		{
+			int leaf = leaves[i];
+			if(label[inBlossom[leaf]] == 2)
+				push(leaf);
+			inBlossom[leaf] = b;
+		}
+
+		// Works out the least slack edges from the new blossom to every other S blossom
+		int[] bestEdgeTo = new int[2 * numVertices];
+		Arrays.fill(bestEdgeTo, -1);
+		for(int child : blossomChilds[b])
+		{
+			if(blossomBestEdges[child] == null)
+			{
+				int numChildLeaves = collectLeaves(child);
+				for(int i = 0; i < numChildLeaves; i++)
+				{
+					for(int p : neighbourEndpoints[leaves[i]])
+					{
+						considerBestEdge(p / 2, b, bestEdgeTo);
+					}
+				}
+			}
+			else
+			{
+				for(int edge : blossomBestEdges[child])
+				{
+					considerBestEdge(edge, b, bestEdgeTo);
+				}
+			}
+			blossomBestEdges[child] = null;
+			bestEdge[child] = -1;
+		}
+		int numBestEdges = 0;
+		for(int edge : bestEdgeTo)
+		{
+			if(edge != -1)
+				numBestEdges++;
+		}
+		blossomBestEdges[b] = new int[numBestEdges];
+		numBestEdges = 0;
+		bestEdge[b] = -1;
+		for(int edge : bestEdgeTo)
+		{
+			if(edge == -1)
+				continue;
+			blossomBestEdges[b][numBestEdges++] = edge;
+			if(bestEdge[b] == -1 || slack(edge) < slack(bestEdge[b]))
+				bestEdge[b] = edge;
+		}
+	}
+
+	/**
+	 * Private helper to keep an edge if it is the least slack edge from a new blossom to an S blossom so far
+	 * @param k The edge
+	 * @param b The new blossom
+	 * @param bestEdgeTo The least slack edge to each S blossom so far
+	 */
+	private void considerBestEdge(int k, int b, int[] bestEdgeTo)
+	{
+		int j = edgeEndpoints[2 * k + 1];
+		if(inBlossom[j] == b)
+			j = edgeEndpoints[2 * k];
+		int bj = inBlossom[j];
+		if(bj != b && label[bj] == 1 && (bestEdgeTo[bj] == -1 || slack(k) < slack(bestEdgeTo[bj])))
+			bestEdgeTo[bj] = k;
+	}
+
+	/**
+	 * Private helper to expand a blossom back into its sub-blossoms
+	 * @param b The blossom
+	 * @param endStage True at the end of a stage (Sub-blossoms with a zero dual variable are expanded too)
+	 */
+	private void expandBlossom(int b, boolean endStage)
+	{
+		for(int s : blossomChilds[b])
+		{
+			blossomParent[s] = -1;
+			if(s < numVertices)
+				inBlossom[s] = s;
+			else if(endStage && dualVariables[s] == 0)
+				expandBlossom(s, endStage);
+			else
+			{
+				int numLeaves = collectLeaves(s);
+				for(int i = 0; i < numLeaves; i++)
+				{
+					inBlossom[leaves[i]] = s;
+				}
+			}
+		}
+
+		// Relabels the sub-blossoms of a T blossom expanded during a stage
+		if(!endStage && label[b] == 2)
+		{
+			int[] childs = blossomChilds[b];
+			int[] endpoints = blossomEndpoints[b];
+			int entryChild = inBlossom[edgeEndpoints[labelEnd[b] ^ 1]];
+			int j = indexOf(childs, entryChild);
+			int jStep;
+			int endpointTrick;
+			if((j & 1) != 0)
+			{
+				j -= childs.length;
+				jStep = 1;
+				endpointTrick = 0;
+			}
+			else
+			{
+				jStep = -1;
+				endpointTrick = 1;
+			}
+			int p = labelEnd[b];
+			while(j != 0)
+			{
+				label[edgeEndpoints[p ^ 1]] = 0;
+				label[edgeEndpoints[endpoints[wrap(j - endpointTrick, endpoints.length)] ^ endpointTrick ^ 1]] = 0;
+				assignLabel(edgeEndpoints[p ^ 1], 2, p);
+				allowedEdges[endpoints[wrap(j - endpointTrick, endpoints.length)] / 2] = true;
+				j += jStep;
+				p = endpoints[wrap(j - endpointTrick, endpoints.length)] ^ endpointTrick;
+				allowedEdges[p / 2] = true;
+				j += jStep;
+			}
+			int bv = childs[wrap(j, childs.length)];
+			label[edgeEndpoints[p ^ 1]] = 2;
+			label[bv] = 2;
+			labelEnd[edgeEndpoints[p ^ 1]] = p;
+			labelEnd[bv] = p;
+			bestEdge[bv] = -1;
+			j += jStep;
+			while(childs[wrap(j, childs.length)] != entryChild)
+			{
+				bv = childs[wrap(j, childs.length)];
+				if(label[bv] == 1)
+				{
+					j += jStep;
+					continue;
+				}
+				int numLeaves = collectLeaves(bv);
+				int labelledLeaf = -1;
+				for(int i = 0; i < numLeaves; i++)
+				{
+					if(label[leaves[i]] != 0)
+					{
+						labelledLeaf = leaves[i];
+						break;
+					}
+				}
+				if(labelledLeaf != -1)
+				{
+					label[labelledLeaf] = 0;
+					label[edgeEndpoints[mate[blossomBase[bv]]]] = 0;
+					assignLabel(labelledLeaf, 2, labelEnd[labelledLeaf]);
+				}
+				j += jStep;
+			}
+		}
+
+		// Recycles the blossom id
+		label[b] = -1;
+		labelEnd[b] = -1;
+		blossomChilds[b] = null;
+		blossomEndpoints[b] = null;
+		blossomBase[b] = -1;
+		blossomBestEdges[b] = null;
+		bestEdge[b] = -1;
+		unusedBlossoms[numUnusedBlossoms++] = b;
+	}
+
+	/**
+	 * Private helper to flip the matched edges along the even path from a vertex to the base of a blossom
+	 * The vertex becomes the new base of the blossom
+	 * @param b The blossom
+	 * @param v The vertex inside the blossom
+	 */
+	private void augmentBlossom(int b, int v)
+	{
+		int t = v;
+		while(blossomParent[t] != b)
+		{
+			t = blossomParent[t];
+		}
+		if(t >= numVertices)
+			augmentBlossom(t, v);
+		int[] childs = blossomChilds[b];
+		int[] endpoints = blossomEndpoints[b];
+		int i = indexOf(childs, t);
+		int j = i;
+		int jStep;
+		int endpointTrick;
+		if((i & 1) != 0)
+		{
+			j -= childs.length;
+			jStep = 1;
+			endpointTrick = 0;
+		}
+		else
+		{
+			jStep = -1;
+			endpointTrick = 1;
+		}
+		while(j != 0)
+		{
+			j += jStep;
+			t = childs[wrap(j, childs.length)];
+			int p = endpoints[wrap(j - endpointTrick, endpoints.length)] ^ endpointTrick;
+			if(t >= numVertices)
+				augmentBlossom(t, edgeEndpoints[p]);
+			j += jStep;
+			t = childs[wrap(j, childs.length)];
+			if(t >= numVertices)
+				augmentBlossom(t, edgeEndpoints[p ^ 1]);
+			mate[edgeEndpoints[p]] = p ^ 1;
+			mate[edgeEndpoints[p ^ 1]] = p;
+		}
+		// Rotates the sub-blossoms so the new base comes first
+		blossomChilds[b] = rotate(childs, i);
+		blossomEndpoints[b] = rotate(endpoints, i);
+		blossomBase[b] = blossomBase[blossomChilds[b][0]];
+	}
+
+	/**
+	 * Private helper to flip the matched edges along the augmenting path through an edge between two trees
+	 * @param k The edge joining the two trees
+	 */
+	private void augmentMatching(int k)
+	{
+		for(int side = 0; side < 2; side++)
+		{
+			int s = edgeEndpoints[2 * k + side];
+			int p = 2 * k + 1 - side;
+			while(true)
+			{
+				int bs = inBlossom[s];
+				if(bs >= numVertices)
+					augmentBlossom(bs, s);
+				mate[s] = p;
+				if(labelEnd[bs] == -1)
+					break;
+				int t = edgeEndpoints[labelEnd[bs]];
+				int bt = inBlossom[t];
+				s = edgeEndpoints[labelEnd[bt]];
+				int j = edgeEndpoints[labelEnd[bt] ^ 1];
+				if(bt >= numVertices)
+					augmentBlossom(bt, j);
+				mate[j] = labelEnd[bt];
+				p = labelEnd[bt] ^ 1;
+			}
+		}
+	}
+
+	/**
+	 * Private helper to find a value in an array
+	 * @param array The array
+	 * @param value The value
+	 * @return The index of the value
+	 */
+	private static int indexOf(int[] array, int value)
+	{
+		for(int i = 0; i < array.length; i++)
+		{
+			if(array[i] == value)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Private helper to wrap a possibly negative index into an array (Like a negative index in Python)
+	 * @param index The index
+	 * @param length The length of the array
+	 * @return The wrapped index
+	 */
+	private static int wrap(int index, int length)
+	{
+		return (index < 0) ? index + length : index;
+	}
+
+	/**
+	 * Private helper to rotate an array so the element at an index comes first
+	 * @param array The array
+	 * @param index The index of the new first element
+	 * @return The rotated array
+	 */
+	private static int[] rotate(int[] array, int index)
+	{
+		int[] rotated = new int[array.length];
+		System.arraycopy(array, index, rotated, 0, array.length - index);
+		System.arraycopy(array, 0, rotated, array.length - index, index);
+		return rotated;
+	}
+
+	/**
+	 * Private helper to reverse the start of an array in place
+	 * @param array The array
+	 * @param length The number of elements to reverse
+	 */
+	private static void reverse(int[] array, int length)
+	{
+		for(int i = 0, j = length - 1; i < j; i++, j--)
+		{
+			int swap = array[i];
+			array[i] = array[j];
+			array[j] = swap;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package terminal_testing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import data_classes.Player;
+import data_classes.Schedule;
+import data_classes.ScheduleBuilder;
+import data_classes.TournamentExporter;
+import data_classes.TournamentFile;
+
+/**
+ * This class can be used to export a tournament from the terminal without the UI
+ * Usage: TournamentExporterTesting [schedule_csv | standings_csv | json] [tournament file]
+ * The export is streamed to standard output. Without a tournament file it exports a freshly built schedule
+ * @author William Shaw
+ */
+public class TournamentExporterTesting 
+{
+    /**
+     * Standard java main function
+     * @param args Command line arguments (The format, then the tournament file)
+     * @throws IOException If the tournament file cannot be loaded or the export cannot be written
+     */
+    public static void main(String[] args) throws IOException
+    {
+        TournamentExporter.Format format = (args.length > 0) ? TournamentExporter.Format.valueOf(args[0].toUpperCase()) : TournamentExporter.Format.JSON;
+
+        ArrayList<Player> players;
+        Schedule schedule;
+        if(args.length > 1)
+        {
+            TournamentFile tournament = TournamentFile.load(Path.of(args[1]));
+            players = tournament.getPlayers();
+            schedule = tournament.getSchedule();
+        }
+        else
+        {
+            players = new ArrayList<>();
+            for(int i = 1; i <= 5; i++)
+            {
+                players.add(new Player("Player " + i, null));
+            }
+            schedule = new ScheduleBuilder(players, 4).build();
+        }
+
+        BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        TournamentExporter.export(out, format, players, schedule);
+    }
+}
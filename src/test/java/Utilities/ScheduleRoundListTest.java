@@ -0,0 +1,142 @@
+package utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import data_classes.Game;
+import data_classes.Player;
+import data_classes.Schedule;
+import data_classes.ScheduleBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import javafx.collections.ListChangeListener;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for ScheduleRoundList
+ * Every change event is recorded, and the list-view's copy of the round is rebuilt from them to check it always matches the round shown
+ */
+public class ScheduleRoundListTest
+{
+    private ScheduleRoundList roundList;
+    private ArrayList<Game> listViewGames;  // What a list-view following the change events would show
+    private ArrayList<String> events;       // Each change the list sent (Kind, from and to)
+
+    /**
+     * Creates the round list and a listener that applies its changes to a copy of the games, as a list-view would
+     */
+    @Before
+    public void setUp()
+    {
+        roundList = new ScheduleRoundList();
+        listViewGames = new ArrayList<>();
+        events = new ArrayList<>();
+        roundList.addListener((ListChangeListener<Game>) change -> {
+            while(change.next())
+            {
+                if(change.wasPermutated())
+                {
+                    events.add("permutation " + change.getFrom() + " " + change.getTo());
+                    ArrayList<Game> permuted = new ArrayList<>(listViewGames);
+                    for(int i = change.getFrom(); i < change.getTo(); i++)
+                    {
+                        permuted.set(change.getPermutation(i), listViewGames.get(i));
+                    }
+                    listViewGames = permuted;
+                }
+                else if(change.wasUpdated())
+                {
+                    events.add("update " + change.getFrom());
+                }
+                else
+                {
+                    events.add("replace " + change.getFrom() + " " + change.getTo() + " removed " + change.getRemovedSize());
+                    // The removed games must be the ones the list-view was showing
+                    List<Game> shown = listViewGames.subList(change.getFrom(), change.getFrom() + change.getRemovedSize());
+                    assertEquals(shown, new ArrayList<>(change.getRemoved()));
+                    shown.clear();
+                    listViewGames.addAll(change.getFrom(), roundList.subList(change.getFrom(), change.getTo()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Changing the page replaces the games shown, and reports the previous round as removed
+     */
+    @Test
+    public void showRoundReplacesPreviousRound()
+    {
+        Schedule schedule = new ScheduleBuilder(createPlayers(6), 10).setSeed(3).build();
+        roundList.showRound(schedule.getRoundView(0));
+        roundList.showRound(schedule.getRoundView(1));
+        assertEquals(List.of("replace 0 15 removed 0", "replace 0 15 removed 15"), events);
+        assertEquals(schedule.getGamesInRound(1), listViewGames);
+        roundList.clearRound();
+        assertEquals("replace 0 0 removed 15", events.get(2));
+        assertTrue(listViewGames.isEmpty());
+        // Clearing an empty list sends nothing
+        roundList.clearRound();
+        assertEquals(3, events.size());
+    }
+
+    /**
+     * Reordering sends a permutation of the games between the old and new index only
+     */
+    @Test
+    public void gameMovedPermutesGames()
+    {
+        Schedule schedule = new ScheduleBuilder(createPlayers(6), 5).setSeed(3).build();
+        roundList.showRound(schedule.getRoundView(0));
+        schedule.changeGameIndex(2, 9);
+        roundList.gameMoved(2, 8);
+        schedule.changeGameIndex(12, 4);
+        roundList.gameMoved(12, 4);
+        assertEquals(List.of("replace 0 15 removed 0", "permutation 2 9", "permutation 4 13"), events);
+        assertEquals(schedule.getGamesInRound(0), listViewGames);
+        // The old round view is still right after the moves, so changing the page removes what is shown
+        roundList.showRound(schedule.getRoundView(0));
+        assertEquals(schedule.getGamesInRound(0), listViewGames);
+    }
+
+    /**
+     * Appending adds the games that land in the round being shown, and nothing for games that start a new round
+     */
+    @Test
+    public void gamesAppendedAddsToLastRound()
+    {
+        ArrayList<Player> players = createPlayers(8);
+        ArrayList<Game> games = new ArrayList<>();
+        games.add(new Game(players.get(0), players.get(1)));
+        games.add(new Game(players.get(2), players.get(3)));
+        Schedule schedule = new Schedule(games, 4);
+        roundList.showRound(schedule.getRoundView(0));
+        schedule.appendGames(List.of(new Game(players.get(4), players.get(5)), new Game(players.get(6), players.get(7)), new Game(players.get(0), players.get(2))));
+        roundList.gamesAppended();
+        assertEquals(List.of("replace 0 2 removed 0", "replace 2 4 removed 0"), events);
+        assertEquals(schedule.getGamesInRound(0), listViewGames);
+        schedule.appendGames(List.of(new Game(players.get(1), players.get(3))));
+        roundList.gamesAppended();
+        assertEquals(2, events.size());
+        roundList.gamesUpdated();
+        assertEquals(List.of("update 0", "update 1", "update 2", "update 3"), events.subList(2, 6));
+    }
+
+    /**
+     * Helper to create a roster
+     * @param numPlayers The number of players
+     * @return List of players named P0, P1, ...
+     */
+    private static ArrayList<Player> createPlayers(int numPlayers)
+    {
+        ArrayList<Player> players = new ArrayList<>();
+        for(int i = 0; i < numPlayers; i++)
+        {
+            players.add(new Player("P" + i, null));
+        }
+        return players;
+    }
+}
@@ -0,0 +1,181 @@
+package data_classes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for Bracket
+ * Brackets of every size are played to a champion with random winners, then checked for byes that meet and for the number of losses of each entrant
+ */
+public class BracketTest
+{
+    /**
+     * Single elimination brackets of 2 to 40 entrants finish with one champion and exactly one loss for everyone else
+     */
+    @Test
+    public void singleEliminationPlaysToChampion()
+    {
+        Random random = new Random(1);
+        for(int numPlayers = 2; numPlayers <= 40; numPlayers++)
+        {
+            playToChampion(numPlayers, false, random, false);
+        }
+    }
+
+    /**
+     * Double elimination brackets of 2 to 40 entrants finish with one champion and exactly two losses for everyone else
+     */
+    @Test
+    public void doubleEliminationPlaysToChampion()
+    {
+        Random random = new Random(2);
+        for(int numPlayers = 2; numPlayers <= 40; numPlayers++)
+        {
+            playToChampion(numPlayers, true, random, false);
+        }
+    }
+
+    /**
+     * The losers bracket champion winning the grand final forces a replay, which decides the champion
+     */
+    @Test
+    public void grandFinalReplayDecidesChampion()
+    {
+        Random random = new Random(3);
+        for(int numPlayers = 2; numPlayers <= 40; numPlayers++)
+        {
+            playToChampion(numPlayers, true, random, true);
+        }
+    }
+
+    /**
+     * Results for games the bracket is not waiting on are rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownGameIsRejected()
+    {
+        ArrayList<Player> players = createPlayers(4);
+        Bracket bracket = new Bracket(players, false);
+        bracket.recordResult(new Game(players.get(0), players.get(1)), players.get(0));
+    }
+
+    /**
+     * Helper to play a bracket to a champion with random winners and check it along the way
+     * @param numPlayers The number of entrants
+     * @param doubleElimination True for a double elimination bracket, false for single elimination
+     * @param random Picks the winners
+     * @param forceReplay True to have the losers bracket champion win the grand final
+     */
+    private static void playToChampion(int numPlayers, boolean doubleElimination, Random random, boolean forceReplay)
+    {
+        ArrayList<Player> players = createPlayers(numPlayers);
+        Bracket bracket = new Bracket(players, doubleElimination);
+        int maxLosses = doubleElimination ? 2 : 1;
+        assertNoByesMeet(bracket);
+        assertEquals(maxLosses * (numPlayers - 1), bracket.getNumGamesRemaining());
+
+        IdentityHashMap<Player, Integer> losses = new IdentityHashMap<>();
+        ArrayDeque<Game> waiting = new ArrayDeque<>(bracket.takeReadyGames());
+        boolean replayed = false;
+        while(!waiting.isEmpty())
+        {
+            assertFalse(bracket.isFinished());
+            Game game = waiting.poll();
+            Player a = game.getPlayerA();
+            Player b = game.getPlayerB();
+            assertNotNull(a);
+            assertNotNull(b);
+            assertNotSame(a, b);
+            assertTrue(losses.getOrDefault(a, 0) < maxLosses);
+            assertTrue(losses.getOrDefault(b, 0) < maxLosses);
+            Player winner = random.nextBoolean() ? a : b;
+            String roundName = roundName(bracket, game);
+            if(roundName.equals("Grand Final Replay"))
+                replayed = true;
+            // The losers bracket champion is the one with a loss
+            if(forceReplay && roundName.equals("Grand Final"))
+                winner = (losses.getOrDefault(a, 0) == 1) ? a : b;
+            Player loser = (winner == a) ? b : a;
+            boolean replay = roundName.equals("Grand Final") && losses.getOrDefault(winner, 0) == 1;
+            int numGamesRemaining = bracket.getNumGamesRemaining();
+            bracket.recordResult(game, winner);
+            game.markPlayed();
+            losses.merge(loser, 1, Integer::sum);
+            waiting.addAll(bracket.takeReadyGames());
+            // A replay adds the game the result took off
+            assertEquals(replay ? numGamesRemaining : numGamesRemaining - 1, bracket.getNumGamesRemaining());
+        }
+
+        assertTrue(bracket.isFinished());
+        assertEquals(0, bracket.getNumGamesRemaining());
+        Player champion = bracket.getChampion();
+        assertNotNull(champion);
+        if(forceReplay)
+            assertTrue(replayed);
+        for(Player player : players)
+        {
+            int numLosses = losses.getOrDefault(player, 0);
+            if(player == champion)
+                assertTrue(numLosses < maxLosses);
+            else
+                assertEquals(maxLosses, numLosses);
+        }
+        if(!doubleElimination)
+            assertEquals(0, (int) losses.getOrDefault(champion, 0));
+    }
+
+    /**
+     * Helper to check no first round match is between two byes, so every bye is given to an entrant
+     * @param bracket The bracket before any game was played
+     */
+    private static void assertNoByesMeet(Bracket bracket)
+    {
+        for(int match = 0; match < bracket.getNumMatches(); match++)
+        {
+            String roundName = bracket.getRoundName(match);
+            if(roundName.equals("Round 1") || roundName.equals("Winners Round 1") || (roundName.equals("Final") && bracket.getNumMatches() == 1))
+                assertTrue(bracket.getEntrant(match, false) != null || bracket.getEntrant(match, true) != null);
+        }
+    }
+
+    /**
+     * Helper to find the name of the round a game is in
+     * @param bracket The bracket
+     * @param game The game
+     * @return The name of the match's round
+     */
+    private static String roundName(Bracket bracket, Game game)
+    {
+        for(int match = 0; match < bracket.getNumMatches(); match++)
+        {
+            if(bracket.getGame(match) == game)
+                return bracket.getRoundName(match);
+        }
+        throw new AssertionError("Game is not in the bracket");
+    }
+
+    /**
+     * Helper to create a roster
+     * @param numPlayers The number of players
+     * @return List of players named P0, P1, ...
+     */
+    private static ArrayList<Player> createPlayers(int numPlayers)
+    {
+        ArrayList<Player> players = new ArrayList<>();
+        for(int i = 0; i < numPlayers; i++)
+        {
+            players.add(new Player("P" + i, null));
+        }
+        return players;
+    }
+}
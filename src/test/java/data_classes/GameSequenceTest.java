@@ -0,0 +1,132 @@
+package data_classes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for GameSequence
+ * Every operation on the treap is repeated on an array list, and the two are compared after every step
+ */
+public class GameSequenceTest
+{
+    /**
+     * Random inserts, removals, replacements, moves and played games keep the sequence equal to the list
+     */
+    @Test
+    public void matchesArrayList()
+    {
+        Random random = new Random(3);
+        Player[] players = {new Player("A", null), new Player("B", null), new Player("C", null)};
+        ArrayList<Game> expected = new ArrayList<>();
+        for(int i = 0; i < 20; i++)
+        {
+            expected.add(new Game(players[i % 3], players[(i + 1) % 3]));
+        }
+        GameSequence games = new GameSequence(expected);
+        for(int step = 0; step < 3000; step++)
+        {
+            int size = expected.size();
+            switch(random.nextInt(7))
+            {
+                case 0:
+                    int insertIndex = random.nextInt(size + 1);
+                    Game game = new Game(players[0], players[1 + random.nextInt(2)]);
+                    expected.add(insertIndex, game);
+                    games.add(insertIndex, game);
+                    break;
+                case 1:
+                    if(size > 0)
+                    {
+                        int removeIndex = random.nextInt(size);
+                        assertSame(expected.remove(removeIndex), games.remove(removeIndex));
+                    }
+                    break;
+                case 2:
+                    if(size > 0)
+                    {
+                        int setIndex = random.nextInt(size);
+                        Game newGame = new Game(players[1], players[2]);
+                        assertSame(expected.set(setIndex, newGame), games.set(setIndex, newGame));
+                    }
+                    break;
+                case 3:
+                    if(size > 0)
+                    {
+                        int oldIndex = random.nextInt(size);
+                        int newIndex = random.nextInt(size);
+                        expected.add(newIndex, expected.remove(oldIndex));
+                        games.move(oldIndex, newIndex);
+                    }
+                    break;
+                case 4:
+                    int fromIndex = random.nextInt(size + 1);
+                    int toIndex = fromIndex + random.nextInt(size - fromIndex + 1);
+                    int newIndex = random.nextInt(size - (toIndex - fromIndex) + 1);
+                    ArrayList<Game> block = new ArrayList<>(expected.subList(fromIndex, toIndex));
+                    expected.subList(fromIndex, toIndex).clear();
+                    expected.addAll(newIndex, block);
+                    games.moveRange(fromIndex, toIndex, newIndex);
+                    break;
+                case 5:
+                    if(size > 0)
+                    {
+                        int playedIndex = random.nextInt(size);
+                        expected.get(playedIndex).markPlayed();
+                        games.refresh(playedIndex);
+                    }
+                    break;
+                default:
+                    int from = random.nextInt(size + 1);
+                    int to = from + random.nextInt(size - from + 1);
+                    assertEquals(expected.subList(from, to), games.copyRange(from, to));
+                    break;
+            }
+            assertSameGames(expected, games, random);
+        }
+    }
+
+    /**
+     * Helper to compare the sequence against the list through every way of reading it
+     * @param expected The list
+     * @param games The sequence
+     * @param random Picks the index the partial iteration and unplayed count start from
+     */
+    private static void assertSameGames(ArrayList<Game> expected, GameSequence games, Random random)
+    {
+        assertEquals(expected.size(), games.size());
+        int numUnplayed = 0;
+        int firstUnplayed = expected.size();
+        for(int i = 0; i < expected.size(); i++)
+        {
+            assertSame(expected.get(i), games.get(i));
+            if(!expected.get(i).getPlayed())
+            {
+                numUnplayed++;
+                firstUnplayed = Math.min(firstUnplayed, i);
+            }
+        }
+        assertEquals(numUnplayed, games.getNumUnplayed());
+        assertEquals(firstUnplayed, games.firstUnplayedIndex());
+
+        int index = random.nextInt(expected.size() + 1);
+        int numUnplayedBefore = 0;
+        for(int i = 0; i < index; i++)
+        {
+            numUnplayedBefore += expected.get(i).getPlayed() ? 0 : 1;
+        }
+        assertEquals(numUnplayedBefore, games.countUnplayedBefore(index));
+        Iterator<Game> iterator = games.iterator(index);
+        for(int i = index; i < expected.size(); i++)
+        {
+            assertSame(expected.get(i), iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+    }
+}
@@ -0,0 +1,139 @@
+package data_classes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for ResultJournal
+ * Journals are damaged the way a crash can leave them, then reopened, replayed and appended to
+ */
+public class ResultJournalTest
+{
+    private static final int HEADER_SIZE = 8;  // Magic and version
+    private static final int RECORD_SIZE = 24; // Game index, scores and end time, then the checksum
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Results survive the journal being closed and are replayed onto the schedule they were recorded on
+     * @throws IOException If the journal cannot be used
+     */
+    @Test
+    public void resultsAreReplayed() throws IOException
+    {
+        Path file = writeJournal(3);
+        Schedule schedule = createSchedule();
+        try(ResultJournal journal = new ResultJournal(file))
+        {
+            assertEquals(3, journal.getNumRecords());
+            assertEquals(3, journal.replay(schedule));
+            // Replaying again skips the games that are already played
+            assertEquals(0, journal.replay(schedule));
+        }
+        for(int i = 0; i < 3; i++)
+        {
+            assertTrue(schedule.getGame(i).getPlayed());
+            assertEquals(11, schedule.getGame(i).getScoreA());
+            assertEquals(i, schedule.getGame(i).getScoreB());
+        }
+        assertFalse(schedule.getGame(3).getPlayed());
+    }
+
+    /**
+     * A record cut off by a crash is dropped when the journal is opened, and the next record is appended where it started
+     * @throws IOException If the journal cannot be used
+     */
+    @Test
+    public void tornTailIsDropped() throws IOException
+    {
+        Path file = writeJournal(3);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - RECORD_SIZE / 2));
+        try(ResultJournal journal = new ResultJournal(file))
+        {
+            assertEquals(2, journal.getNumRecords());
+            journal.append(3, 11, 3);
+        }
+        assertEquals(HEADER_SIZE + 3 * RECORD_SIZE, Files.size(file));
+        Schedule schedule = createSchedule();
+        try(ResultJournal journal = new ResultJournal(file))
+        {
+            assertEquals(3, journal.replay(schedule));
+        }
+        assertTrue(schedule.getGame(1).getPlayed());
+        assertFalse(schedule.getGame(2).getPlayed());
+        assertTrue(schedule.getGame(3).getPlayed());
+    }
+
+    /**
+     * A record that fails its checksum cuts the journal there, so new records are not appended behind it
+     * @throws IOException If the journal cannot be used
+     */
+    @Test
+    public void corruptRecordCutsJournal() throws IOException
+    {
+        Path file = writeJournal(4);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[HEADER_SIZE + RECORD_SIZE + 5] ^= 1;
+        Files.write(file, bytes);
+        try(ResultJournal journal = new ResultJournal(file))
+        {
+            assertEquals(1, journal.getNumRecords());
+            journal.append(4, 11, 4);
+        }
+        Schedule schedule = createSchedule();
+        try(ResultJournal journal = new ResultJournal(file))
+        {
+            assertEquals(2, journal.getNumRecords());
+            assertEquals(2, journal.replay(schedule));
+        }
+        assertTrue(schedule.getGame(0).getPlayed());
+        assertFalse(schedule.getGame(1).getPlayed());
+        assertTrue(schedule.getGame(4).getPlayed());
+    }
+
+    /**
+     * Helper to write a journal with a result for each of the first games
+     * @param numResults The number of results (Game i ends 11 to i)
+     * @return The journal file
+     * @throws IOException If the journal cannot be written
+     */
+    private Path writeJournal(int numResults) throws IOException
+    {
+        Path file = folder.getRoot().toPath().resolve("results.journal");
+        try(ResultJournal journal = new ResultJournal(file))
+        {
+            for(int i = 0; i < numResults; i++)
+            {
+                journal.append(i, 11, i);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Helper to create a schedule for the results to be replayed onto
+     * @return A seeded schedule of 6 players
+     */
+    private static Schedule createSchedule()
+    {
+        ArrayList<Player> players = new ArrayList<>();
+        for(int i = 0; i < 6; i++)
+        {
+            players.add(new Player("P" + i, null));
+        }
+        return new ScheduleBuilder(players, 5).setSeed(1).build();
+    }
+}
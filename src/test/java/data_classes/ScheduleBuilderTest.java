@@ -0,0 +1,213 @@
+package data_classes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for ScheduleBuilder
+ * Every engine is checked for the number of games each player gets and for pairs repeated within a round
+ * Seeded builds are rebuilt from the same seed, and streaming schedules are checked against the schedules build() makes from the same seed
+ */
+public class ScheduleBuilderTest
+{
+    // Roster sizes and games each: Partial rounds only, a single full round, and several full rounds with and without a partial round (Odd and even rosters)
+    private static final int[][] VALIDITY_CASES = {{2, 1}, {3, 2}, {4, 5}, {6, 3}, {7, 4}, {8, 7}, {9, 8}, {10, 23}, {11, 24}, {12, 33}, {13, 30}, {16, 9}, {17, 6}};
+
+    /**
+     * The object engine gives every player exactly the games asked for, with no pair repeated within a round
+     */
+    @Test
+    public void objectEngineBuildsValidSchedules()
+    {
+        for(int[] c : VALIDITY_CASES)
+        {
+            assertValidSchedule(c[0], c[1], ScheduleBuilder.Engine.OBJECT);
+        }
+    }
+
+    /**
+     * The indexed engine gives every player exactly the games asked for, with no pair repeated within a round
+     */
+    @Test
+    public void indexedEngineBuildsValidSchedules()
+    {
+        for(int[] c : VALIDITY_CASES)
+        {
+            assertValidSchedule(c[0], c[1], ScheduleBuilder.Engine.INDEXED);
+        }
+    }
+
+    /**
+     * The constructive engine gives every player exactly the games asked for, with no pair repeated within a round
+     * Full rounds come from the circle method and the partial round from the circulant regular subgraph
+     */
+    @Test
+    public void constructiveEngineBuildsValidSchedules()
+    {
+        for(int[] c : VALIDITY_CASES)
+        {
+            assertValidSchedule(c[0], c[1], ScheduleBuilder.Engine.CONSTRUCTIVE);
+        }
+    }
+
+    /**
+     * The same seed rebuilds an identical schedule on every engine, with a single start and with best of N starts
+     * Covers odd and even rosters, partial rounds and several rounds
+     */
+    @Test
+    public void sameSeedRebuildsSameSchedule()
+    {
+        int[][] cases = {{5, 4}, {6, 3}, {7, 10}, {10, 12}};
+        for(ScheduleBuilder.Engine engine : ScheduleBuilder.Engine.values())
+        {
+            for(int numStarts : new int[] {1, 4})
+            {
+                for(int[] c : cases)
+                {
+                    ArrayList<Player> players = createPlayers(c[0]);
+                    Schedule first = new ScheduleBuilder(players, c[1]).setEngine(engine).setNumStarts(numStarts).setSeed(7).build();
+                    Schedule second = new ScheduleBuilder(players, c[1]).setEngine(engine).setNumStarts(numStarts).setSeed(7).build();
+                    assertSameGames(first, second);
+                }
+            }
+        }
+    }
+
+    /**
+     * A seeded streaming schedule streams the same games in the same order and orientation as build() on the constructive engine
+     * Covers odd and even rosters, a lone partial round, full rounds only, and full rounds followed by a partial round
+     */
+    @Test
+    public void seededStreamEqualsBuild()
+    {
+        int[][] cases = {{7, 4}, {8, 3}, {9, 8}, {10, 9}, {11, 14}, {12, 25}, {30, 7}};
+        for(int[] c : cases)
+        {
+            ArrayList<Player> players = createPlayers(c[0]);
+            Schedule built = new ScheduleBuilder(players, c[1]).setEngine(ScheduleBuilder.Engine.CONSTRUCTIVE).setSeed(42).build();
+            Schedule streamed = new ScheduleBuilder(players, c[1]).setSeed(42).buildStreaming();
+            assertSameGames(built, streamed);
+            assertFalse(streamed.isStreaming());
+        }
+    }
+
+    /**
+     * A large streaming schedule has its first game ready sooner than a full build, and only generates a few chunks of about n/2 games ahead of the games asked for
+     * Checked with fewer games each than a round, and with the default n - 1 games each (A single full round)
+     */
+    @Test
+    public void firstGameIsReadyBeforeTheRest()
+    {
+        ArrayList<Player> players = createPlayers(300);
+        for(int numGamesEach : new int[] {20, 299})
+        {
+            long buildStart = System.nanoTime();
+            new ScheduleBuilder(players, numGamesEach).setEngine(ScheduleBuilder.Engine.CONSTRUCTIVE).setSeed(1).build();
+            long buildNanos = System.nanoTime() - buildStart;
+
+            long streamStart = System.nanoTime();
+            Schedule streamed = new ScheduleBuilder(players, numGamesEach).setSeed(1).buildStreaming();
+            assertNotNull(streamed.getGame(0));
+            long firstGameNanos = System.nanoTime() - streamStart;
+            assertTrue(firstGameNanos < buildNanos);
+            assertTrue(streamed.isStreaming());
+            assertNotNull(streamed.getGame(1000));
+            assertTrue(streamed.isStreaming());
+            assertEquals(300 * numGamesEach / 2, streamed.getNumGames());
+        }
+    }
+
+    /**
+     * Helper to build a schedule and check every player gets exactly their games, every full round has every pair once, and the partial round repeats no pair
+     * @param numPlayers The number of players
+     * @param numGamesEach The number of games each player plays
+     * @param engine The engine to build the schedule on
+     */
+    private static void assertValidSchedule(int numPlayers, int numGamesEach, ScheduleBuilder.Engine engine)
+    {
+        ArrayList<Player> players = createPlayers(numPlayers);
+        Schedule schedule = new ScheduleBuilder(players, numGamesEach).setEngine(engine).build();
+        int numGamesInFullRound = numPlayers * (numPlayers - 1) / 2;
+        int numFullRounds = numGamesEach / (numPlayers - 1);
+        int numPartialGames = numPlayers * (numGamesEach % (numPlayers - 1)) / 2;
+        assertEquals(numFullRounds + (numPartialGames > 0 ? 1 : 0), schedule.getNumRounds());
+
+        IdentityHashMap<Player, Integer> numGames = new IdentityHashMap<>();
+        for(int round = 0; round < schedule.getNumRounds(); round++)
+        {
+            List<Game> games = schedule.getGamesInRound(round);
+            assertEquals(round < numFullRounds ? numGamesInFullRound : numPartialGames, games.size());
+            HashSet<String> pairings = new HashSet<>();
+            for(Game game : games)
+            {
+                assertNotSame(game.getPlayerA(), game.getPlayerB());
+                assertTrue(pairings.add(pairing(game)));
+                numGames.merge(game.getPlayerA(), 1, Integer::sum);
+                numGames.merge(game.getPlayerB(), 1, Integer::sum);
+            }
+        }
+        for(Player player : players)
+        {
+            assertEquals(numGamesEach, (int) numGames.getOrDefault(player, 0));
+        }
+    }
+
+    /**
+     * Helper to name the pairing of a game the same way whichever player is player A
+     * @param game The game
+     * @return The players' names in order
+     */
+    private static String pairing(Game game)
+    {
+        String nameA = game.getPlayerA().getName();
+        String nameB = game.getPlayerB().getName();
+        return (nameA.compareTo(nameB) < 0) ? nameA + " " + nameB : nameB + " " + nameA;
+    }
+
+    /**
+     * Helper to check two schedules have the same games in the same order and orientation
+     * @param expected The first schedule
+     * @param actual The schedule to compare with it
+     */
+    private static void assertSameGames(Schedule expected, Schedule actual)
+    {
+        assertEquals(expected.getNumRounds(), actual.getNumRounds());
+        for(int round = 0; round < expected.getNumRounds(); round++)
+        {
+            List<Game> expectedGames = expected.getGamesInRound(round);
+            List<Game> actualGames = actual.getGamesInRound(round);
+            assertEquals(expectedGames.size(), actualGames.size());
+            for(int i = 0; i < expectedGames.size(); i++)
+            {
+                assertSame(expectedGames.get(i).getPlayerA(), actualGames.get(i).getPlayerA());
+                assertSame(expectedGames.get(i).getPlayerB(), actualGames.get(i).getPlayerB());
+            }
+        }
+    }
+
+    /**
+     * Helper to create a roster
+     * @param numPlayers The number of players
+     * @return List of players named P0, P1, ...
+     */
+    private static ArrayList<Player> createPlayers(int numPlayers)
+    {
+        ArrayList<Player> players = new ArrayList<>();
+        for(int i = 0; i < numPlayers; i++)
+        {
+            players.add(new Player("P" + i, null));
+        }
+        return players;
+    }
+}
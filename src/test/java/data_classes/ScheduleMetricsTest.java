@@ -0,0 +1,225 @@
+package data_classes;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for ScheduleMetrics
+ * The metrics are updated as games are moved and played, so after every change they are checked against metrics built from scratch
+ */
+public class ScheduleMetricsTest
+{
+    /**
+     * Random moves and played games on schedules of different sizes keep the metrics equal to a full rebuild
+     */
+    @Test
+    public void incrementalMetricsMatchFullRebuild()
+    {
+        Random random = new Random(1);
+        for(int trial = 0; trial < 30; trial++)
+        {
+            int numPlayers = 2 + random.nextInt(9);
+            int numGamesEach = 1 + random.nextInt(10);
+            if(numPlayers % 2 == 1 && numGamesEach % 2 == 1)
+                numGamesEach++;
+            ArrayList<Player> players = createPlayers(numPlayers);
+            Schedule schedule = new ScheduleBuilder(players, numGamesEach).setSeed(trial).build();
+            int numGames = schedule.getNumGames();
+            for(int step = 0; step < 200; step++)
+            {
+                if(random.nextInt(10) == 0)
+                    schedule.markGamePlayed(random.nextInt(numGames));
+                else
+                    schedule.changeGameIndex(random.nextInt(numGames), random.nextInt(numGames + 1));
+                assertSameMetrics(players, schedule);
+            }
+        }
+    }
+
+    /**
+     * Moving a game across several rounds keeps the round balance equal to a full rebuild
+     */
+    @Test
+    public void longMovesAcrossRoundsMatchFullRebuild()
+    {
+        ArrayList<Player> players = createPlayers(12);
+        Schedule schedule = new ScheduleBuilder(players, 8).setSeed(3).build();
+        int numGames = schedule.getNumGames();
+        schedule.changeGameIndex(0, numGames);
+        assertSameMetrics(players, schedule);
+        schedule.changeGameIndex(numGames - 1, 0);
+        assertSameMetrics(players, schedule);
+        schedule.changeGameIndex(5, numGames - 7);
+        assertSameMetrics(players, schedule);
+    }
+
+    /**
+     * Random block moves of any length, in either direction and across rounds, keep the metrics equal to a full rebuild
+     */
+    @Test
+    public void blockMovesMatchFullRebuild()
+    {
+        Random random = new Random(2);
+        for(int trial = 0; trial < 30; trial++)
+        {
+            int numPlayers = 2 + random.nextInt(9);
+            int numGamesEach = 2 * (1 + random.nextInt(6));
+            ArrayList<Player> players = createPlayers(numPlayers);
+            Schedule schedule = new ScheduleBuilder(players, numGamesEach).setSeed(trial).build();
+            int numGames = schedule.getNumGames();
+            for(int step = 0; step < 100; step++)
+            {
+                if(random.nextInt(5) == 0)
+                {
+                    schedule.markGamePlayed(random.nextInt(numGames));
+                }
+                else
+                {
+                    int fromIndex = random.nextInt(numGames);
+                    int toIndex = fromIndex + random.nextInt(numGames - fromIndex + 1);
+                    schedule.moveGames(fromIndex, toIndex, random.nextInt(numGames - (toIndex - fromIndex) + 1));
+                }
+                assertSameMetrics(players, schedule);
+            }
+        }
+    }
+
+    /**
+     * Appending games in batches of any size, including games that fill the last round and start new ones, keeps the metrics equal to a full rebuild
+     */
+    @Test
+    public void appendedGamesMatchFullRebuild()
+    {
+        Random random = new Random(4);
+        ArrayList<Player> players = createPlayers(9);
+        Schedule schedule = new Schedule(new ArrayList<>(), 4);
+        for(int step = 0; step < 40; step++)
+        {
+            List<Game> newGames = new ArrayList<>();
+            int numNewGames = random.nextInt(7);
+            for(int i = 0; i < numNewGames; i++)
+            {
+                int a = random.nextInt(players.size());
+                int b = (a + 1 + random.nextInt(players.size() - 1)) % players.size();
+                newGames.add(new Game(players.get(a), players.get(b)));
+            }
+            schedule.appendGames(newGames);
+            if(schedule.getNumGames() > 0 && random.nextInt(3) == 0)
+                schedule.markGamePlayed(random.nextInt(schedule.getNumGames()));
+            assertSameMetrics(players, schedule);
+        }
+    }
+
+    /**
+     * Playing a player's second game before their first leaves the first game as their next game
+     */
+    @Test
+    public void nextGameSkipsGamesPlayedOutOfOrder()
+    {
+        ArrayList<Player> players = createPlayers(6);
+        Schedule schedule = new ScheduleBuilder(players, 5).setSeed(1).build();
+        Player player = players.get(0);
+        int[] positions = schedule.getMetrics().getGamePositions(player);
+        schedule.markGamePlayed(positions[1], 11, 5);
+        assertEquals(positions[0], schedule.getMetrics().getNextGameIndex(player));
+        assertEquals(positions[0], schedule.getMetrics().getNumGamesUntilNextGame(player));
+        schedule.markGamePlayed(positions[0], 11, 5);
+        assertEquals(positions[2], schedule.getMetrics().getNextGameIndex(player));
+        assertEquals(positions[2] - 2, schedule.getMetrics().getNumGamesUntilNextGame(player));
+    }
+
+    /**
+     * Games played in a random order keep every player's next game and the first unplayed game equal to a scan of the schedule
+     */
+    @Test
+    public void nextGameMatchesScanWhenPlayedInAnyOrder()
+    {
+        Random random = new Random(2);
+        ArrayList<Player> players = createPlayers(9);
+        Schedule schedule = new ScheduleBuilder(players, 8).setSeed(4).build();
+        int numGames = schedule.getNumGames();
+        for(int step = 0; step < 300; step++)
+        {
+            if(random.nextInt(3) == 0)
+                schedule.markGamePlayed(random.nextInt(numGames));
+            else
+                schedule.changeGameIndex(random.nextInt(numGames), random.nextInt(numGames + 1));
+            int firstUnplayed = 0;
+            while(firstUnplayed < numGames && schedule.getGame(firstUnplayed).getPlayed())
+            {
+                firstUnplayed++;
+            }
+            assertEquals(firstUnplayed, schedule.getFirstUnplayedIndex());
+            for(Player player : players)
+            {
+                int next = -1;
+                int numUnplayedBefore = 0;
+                for(int i = 0; i < numGames && next == -1; i++)
+                {
+                    Game game = schedule.getGame(i);
+                    if(!game.getPlayed() && (game.getPlayerA() == player || game.getPlayerB() == player))
+                        next = i;
+                    else if(!game.getPlayed())
+                        numUnplayedBefore++;
+                }
+                assertEquals(next, schedule.getMetrics().getNextGameIndex(player));
+                assertEquals((next == -1) ? -1 : numUnplayedBefore, schedule.getMetrics().getNumGamesUntilNextGame(player));
+            }
+        }
+    }
+
+    /**
+     * Helper to create a roster
+     * @param numPlayers The number of players
+     * @return List of players named P0, P1, ...
+     */
+    private static ArrayList<Player> createPlayers(int numPlayers)
+    {
+        ArrayList<Player> players = new ArrayList<>();
+        for(int i = 0; i < numPlayers; i++)
+        {
+            players.add(new Player("P" + i, null));
+        }
+        return players;
+    }
+
+    /**
+     * Helper to check a schedule's metrics against metrics built from its games (Also used by ScheduleRepairerTest)
+     * @param players The roster
+     * @param schedule The schedule
+     */
+    static void assertSameMetrics(List<Player> players, Schedule schedule)
+    {
+        List<Game> games = new ArrayList<>();
+        for(int i = 0; i < schedule.getNumGames(); i++)
+        {
+            games.add(schedule.getGame(i));
+        }
+        ScheduleMetrics expected = new ScheduleMetrics(new GameSequence(games), schedule.getNumGamesInFullRound());
+        ScheduleMetrics actual = schedule.getMetrics();
+        assertEquals(expected.getMinRestGap(), actual.getMinRestGap());
+        assertEquals(expected.getMeanRestGap(), actual.getMeanRestGap(), 1e-9);
+        assertEquals(expected.getMaxRestGap(), actual.getMaxRestGap());
+        assertEquals(expected.getNumBackToBack(), actual.getNumBackToBack());
+        assertEquals(expected.getLongestIdleStretch(), actual.getLongestIdleStretch());
+        assertEquals(expected.getRoundBalance(), actual.getRoundBalance());
+        assertEquals(expected.getPlayedBalance(), actual.getPlayedBalance());
+        for(Player player : players)
+        {
+            assertEquals(expected.getMinRestGap(player), actual.getMinRestGap(player));
+            assertEquals(expected.getMeanRestGap(player), actual.getMeanRestGap(player), 1e-9);
+            assertEquals(expected.getMaxRestGap(player), actual.getMaxRestGap(player));
+            assertEquals(expected.getNumBackToBack(player), actual.getNumBackToBack(player));
+            assertEquals(expected.getLongestIdleStretch(player), actual.getLongestIdleStretch(player));
+            assertEquals(expected.getNumGamesPlayed(player), actual.getNumGamesPlayed(player));
+            assertEquals(expected.getNextGameIndex(player), actual.getNextGameIndex(player));
+            assertArrayEquals(expected.getGamePositions(player), actual.getGamePositions(player));
+        }
+    }
+}
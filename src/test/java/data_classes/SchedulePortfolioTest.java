@@ -0,0 +1,50 @@
+package data_classes;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for SchedulePortfolio
+ * Without a threshold the portfolio must keep the fairest schedule of every strategy, not the one that finished first
+ */
+public class SchedulePortfolioTest
+{
+    /**
+     * The portfolio's schedule is as fair as the fairest schedule its strategies build on their own
+     */
+    @Test
+    public void keepsFairestStrategy()
+    {
+        for(long seed = 0; seed < 10; seed++)
+        {
+            ArrayList<Player> players = new ArrayList<>();
+            for(int i = 0; i < 14; i++)
+            {
+                players.add(new Player("P" + i, null));
+            }
+            ScheduleBuilder.Engine[] engines = {ScheduleBuilder.Engine.CONSTRUCTIVE, ScheduleBuilder.Engine.INDEXED, ScheduleBuilder.Engine.OBJECT};
+            SchedulePortfolio portfolio = new SchedulePortfolio(players, 6).setSeed(seed);
+            for(ScheduleBuilder.Engine engine : engines)
+            {
+                portfolio.addStrategy(engine, 0);
+            }
+            Schedule schedule = portfolio.build();
+
+            // Rebuilds every strategy on its own with the seed the portfolio gives it
+            SplittableRandom random = new SplittableRandom(seed);
+            FairnessScore bestScore = null;
+            for(ScheduleBuilder.Engine engine : engines)
+            {
+                Schedule strategySchedule = new ScheduleBuilder(players, 6).setEngine(engine).setSeed(random.nextLong()).build();
+                FairnessScore score = FairnessScore.of(strategySchedule.packMatches(players), players.size());
+                if(bestScore == null || score.compareTo(bestScore) < 0)
+                    bestScore = score;
+            }
+            assertEquals(0, FairnessScore.of(schedule.packMatches(players), players.size()).compareTo(bestScore));
+        }
+    }
+}
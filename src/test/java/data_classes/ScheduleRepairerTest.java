@@ -0,0 +1,192 @@
+package data_classes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for ScheduleRepairer
+ * Repairs must keep game counts balanced, never repeat a pair more often than the schedule allows, leave played games alone and keep the metrics in step
+ */
+public class ScheduleRepairerTest
+{
+    /**
+     * Removing a player from a single round robin drops their games instead of repeating pairs
+     */
+    @Test
+    public void removingFromFullRoundRobinDropsGames()
+    {
+        ArrayList<Player> players = createPlayers(6);
+        Schedule schedule = new ScheduleBuilder(players, 5).setSeed(1).build();
+        Player removed = players.remove(0);
+        int numShort = new ScheduleRepairer(schedule, players).removePlayer(removed);
+        assertEquals(5, numShort);
+        HashMap<Player, Integer> counts = countGames(schedule);
+        for(Player player : players)
+        {
+            assertEquals(4, (int) counts.get(player));
+        }
+        assertEquals(1, maxMeetings(schedule));
+        ScheduleMetricsTest.assertSameMetrics(players, schedule);
+    }
+
+    /**
+     * Removing a player from a partial round robin only pairs opponents who have not met
+     */
+    @Test
+    public void removingFromPartialRoundRobinPairsOnlyNewOpponents()
+    {
+        for(long seed = 0; seed < 20; seed++)
+        {
+            ArrayList<Player> players = createPlayers(10);
+            Schedule schedule = new ScheduleBuilder(players, 4).setSeed(seed).build();
+            Player removed = players.remove(3);
+            int numShort = new ScheduleRepairer(schedule, players).removePlayer(removed);
+            assertEquals(1, maxMeetings(schedule));
+            HashMap<Player, Integer> counts = countGames(schedule);
+            int numBelow = 0;
+            for(Player player : players)
+            {
+                assertTrue(counts.get(player) == 4 || counts.get(player) == 3);
+                if(counts.get(player) == 3)
+                    numBelow++;
+            }
+            assertEquals(numShort, numBelow);
+            ScheduleMetricsTest.assertSameMetrics(players, schedule);
+        }
+    }
+
+    /**
+     * Adding a player keeps every other player's game count and gives the new player their games
+     */
+    @Test
+    public void addingPlayerKeepsGameCounts()
+    {
+        ArrayList<Player> players = createPlayers(8);
+        Schedule schedule = new ScheduleBuilder(players, 6).setSeed(2).build();
+        int numGamesInFullRound = schedule.getNumGamesInFullRound();
+        Player added = new Player("New", null);
+        players.add(added);
+        new ScheduleRepairer(schedule, players).addPlayer(added, 6);
+        HashMap<Player, Integer> counts = countGames(schedule);
+        for(Player player : players)
+        {
+            assertEquals(6, (int) counts.get(player));
+        }
+        assertEquals(numGamesInFullRound, schedule.getNumGamesInFullRound());
+        ScheduleMetricsTest.assertSameMetrics(players, schedule);
+    }
+
+    /**
+     * Random additions and removals part way through a tournament leave the played games alone and keep the metrics equal to a full rebuild
+     */
+    @Test
+    public void randomRepairsKeepPlayedGamesAndMetrics()
+    {
+        Random random = new Random(7);
+        for(int trial = 0; trial < 40; trial++)
+        {
+            ArrayList<Player> players = createPlayers(4 + random.nextInt(8));
+            int numGamesEach = 2 * (1 + random.nextInt(5));
+            Schedule schedule = new ScheduleBuilder(players, numGamesEach).setSeed(trial).build();
+            int numPlayed = random.nextInt(schedule.getNumGames() / 2);
+            for(int i = 0; i < numPlayed; i++)
+            {
+                schedule.markGamePlayed(i);
+            }
+            ArrayList<Game> playedGames = new ArrayList<>();
+            for(int i = 0; i < numPlayed; i++)
+            {
+                playedGames.add(schedule.getGame(i));
+            }
+            for(int step = 0; step < 3; step++)
+            {
+                if(random.nextBoolean())
+                {
+                    Player added = new Player("New" + step, null);
+                    players.add(added);
+                    try
+                    {
+                        new ScheduleRepairer(schedule, players).addPlayer(added, 2);
+                    }
+                    catch(ScheduleBuildException e)
+                    {
+                        assertEquals(ScheduleBuildException.Reason.NO_SCHEDULE_FOUND, e.getReason());
+                    }
+                }
+                else if(players.size() > 3)
+                {
+                    Player removed = players.remove(random.nextInt(players.size()));
+                    new ScheduleRepairer(schedule, players).removePlayer(removed);
+                }
+                ScheduleMetricsTest.assertSameMetrics(players, schedule);
+            }
+            for(int i = 0; i < numPlayed; i++)
+            {
+                assertSame(playedGames.get(i), schedule.getGame(i));
+            }
+            for(int i = 0; i < schedule.getNumGames(); i++)
+            {
+                assertNotSame(schedule.getGame(i).getPlayerA(), schedule.getGame(i).getPlayerB());
+            }
+        }
+    }
+
+    /**
+     * Helper to create a roster
+     * @param numPlayers The number of players
+     * @return List of players named P0, P1, ...
+     */
+    private static ArrayList<Player> createPlayers(int numPlayers)
+    {
+        ArrayList<Player> players = new ArrayList<>();
+        for(int i = 0; i < numPlayers; i++)
+        {
+            players.add(new Player("P" + i, null));
+        }
+        return players;
+    }
+
+    /**
+     * Helper to count the games of every player in a schedule
+     * @param schedule The schedule
+     * @return The number of games of each player
+     */
+    private static HashMap<Player, Integer> countGames(Schedule schedule)
+    {
+        HashMap<Player, Integer> counts = new HashMap<>();
+        for(int i = 0; i < schedule.getNumGames(); i++)
+        {
+            counts.merge(schedule.getGame(i).getPlayerA(), 1, Integer::sum);
+            counts.merge(schedule.getGame(i).getPlayerB(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Helper to find how often the pair that meets most often meets
+     * @param schedule The schedule
+     * @return The most games between the same two players
+     */
+    private static int maxMeetings(Schedule schedule)
+    {
+        HashMap<List<Player>, Integer> meetings = new HashMap<>();
+        int max = 0;
+        for(int i = 0; i < schedule.getNumGames(); i++)
+        {
+            Game game = schedule.getGame(i);
+            boolean aFirst = System.identityHashCode(game.getPlayerA()) < System.identityHashCode(game.getPlayerB());
+            List<Player> pair = aFirst ? List.of(game.getPlayerA(), game.getPlayerB()) : List.of(game.getPlayerB(), game.getPlayerA());
+            max = Math.max(max, meetings.merge(pair, 1, Integer::sum));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,50 @@
+package data_classes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for ScheduleTemplateCache
+ * Templates are written to disk, so they are checked to survive a new cache and to relabel into schedules as fair as the template
+ */
+public class ScheduleTemplateCacheTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * A template offered to one cache is read back from disk by a new cache and relabels into an equally fair schedule without a seed
+     * @throws IOException If the temporary folder cannot be created
+     */
+    @Test
+    public void templateOutlivesCache() throws IOException
+    {
+        ArrayList<Player> players = new ArrayList<>();
+        for(int i = 0; i < 12; i++)
+        {
+            players.add(new Player("P" + i, null));
+        }
+        Schedule schedule = new ScheduleBuilder(players, 6).setSeed(1).build();
+        assertTrue(schedule.hasSeed());
+        ScheduleTemplateCache cache = new ScheduleTemplateCache(folder.newFolder("templates").toPath(), 4);
+        assertTrue(cache.offer(players, 6, schedule));
+        assertFalse(cache.offer(players, 6, schedule));
+
+        ScheduleTemplateCache reopenedCache = new ScheduleTemplateCache(folder.getRoot().toPath().resolve("templates"), 4);
+        Schedule templateSchedule = reopenedCache.build(players, 6, 2);
+        assertNotNull(templateSchedule);
+        assertFalse(templateSchedule.hasSeed());
+        assertEquals(schedule.getNumGames(), templateSchedule.getNumGames());
+        assertEquals(0, FairnessScore.of(templateSchedule.packMatches(players), players.size())
+            .compareTo(FairnessScore.of(schedule.packMatches(players), players.size())));
+    }
+}
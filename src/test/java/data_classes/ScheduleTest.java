@@ -0,0 +1,101 @@
+package data_classes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for Schedule
+ * The time slots are repacked from the changed game after every drag or repair, so after every change they are checked to still be valid
+ */
+public class ScheduleTest
+{
+    /**
+     * Random drags, block moves and repairs keep every slot within the tables, inside one round and free of players in two games
+     */
+    @Test
+    public void slotsStayValidAfterChanges()
+    {
+        Random random = new Random(5);
+        for(int trial = 0; trial < 50; trial++)
+        {
+            int numPlayers = 4 + random.nextInt(13);
+            int numTables = 2 + random.nextInt(numPlayers / 2);
+            ArrayList<Player> players = createPlayers(numPlayers);
+            Schedule schedule = new ScheduleBuilder(players, 2 * (1 + random.nextInt(5))).setNumTables(numTables).setSeed(trial).build();
+            assertValidSlots(schedule, numTables);
+            for(int step = 0; step < 20; step++)
+            {
+                int numGames = schedule.getNumGames();
+                if(step % 5 == 4)
+                {
+                    int fromIndex = random.nextInt(numGames);
+                    int toIndex = fromIndex + random.nextInt(numGames - fromIndex + 1);
+                    schedule.moveGames(fromIndex, toIndex, random.nextInt(numGames - (toIndex - fromIndex) + 1));
+                }
+                else
+                {
+                    schedule.changeGameIndex(random.nextInt(numGames), random.nextInt(numGames + 1));
+                }
+                assertValidSlots(schedule, numTables);
+            }
+            Player added = new Player("New", null);
+            players.add(added);
+            new ScheduleRepairer(schedule, players).addPlayer(added, 2);
+            assertValidSlots(schedule, numTables);
+            Player removed = players.remove(0);
+            new ScheduleRepairer(schedule, players).removePlayer(removed);
+            assertValidSlots(schedule, numTables);
+        }
+    }
+
+    /**
+     * Helper to check the slots of a schedule cover its games in order and could each be played at once
+     * @param schedule The schedule
+     * @param numTables The number of tables
+     */
+    private static void assertValidSlots(Schedule schedule, int numTables)
+    {
+        int numGamesInFullRound = schedule.getNumGamesInFullRound();
+        int index = 0;
+        for(int slot = 0; slot < schedule.getNumSlots(); slot++)
+        {
+            assertEquals(index, schedule.getSlotStartIndex(slot));
+            List<Game> games = schedule.getGamesInSlot(slot);
+            assertFalse(games.isEmpty());
+            assertTrue(games.size() <= numTables);
+            assertEquals(index / numGamesInFullRound, (index + games.size() - 1) / numGamesInFullRound);
+            HashSet<Player> playersInSlot = new HashSet<>();
+            for(Game game : games)
+            {
+                assertTrue(playersInSlot.add(game.getPlayerA()));
+                assertTrue(playersInSlot.add(game.getPlayerB()));
+                assertEquals(slot, schedule.getSlotOfGame(index));
+                index++;
+            }
+        }
+        assertEquals(schedule.getNumGames(), index);
+    }
+
+    /**
+     * Helper to create a roster
+     * @param numPlayers The number of players
+     * @return List of players named P0, P1, ...
+     */
+    private static ArrayList<Player> createPlayers(int numPlayers)
+    {
+        ArrayList<Player> players = new ArrayList<>();
+        for(int i = 0; i < numPlayers; i++)
+        {
+            players.add(new Player("P" + i, null));
+        }
+        return players;
+    }
+}
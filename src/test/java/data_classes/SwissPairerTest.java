@@ -0,0 +1,186 @@
+package data_classes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for SwissPairer
+ * Rounds are paired and played with random results, then checked for repeated pairings, players in two games and byes
+ */
+public class SwissPairerTest
+{
+    /**
+     * No pairing is repeated across rounds, and every player is in exactly one game a round
+     */
+    @Test
+    public void noRepeatPairingsAcrossRounds()
+    {
+        Random random = new Random(1);
+        for(int numPlayers : new int[] {2, 4, 10, 24, 60})
+        {
+            ArrayList<Player> players = createPlayers(numPlayers);
+            SwissPairer pairer = new SwissPairer(players);
+            HashSet<String> pairings = new HashSet<>();
+            for(int round = 0; round < Math.min(numPlayers - 1, 6); round++)
+            {
+                ArrayList<Game> games = pairer.pairNextRound();
+                assertEquals(numPlayers / 2, games.size());
+                assertNull(pairer.getBye());
+                assertPlayersInOneGame(games, players, null);
+                for(Game game : games)
+                {
+                    assertTrue(pairings.add(pairing(game)));
+                    assertTrue(pairer.havePlayed(game.getPlayerA(), game.getPlayerB()));
+                }
+                playRound(games, random);
+            }
+            assertEquals(Math.min(numPlayers - 1, 6), pairer.getNumRoundsPaired());
+        }
+    }
+
+    /**
+     * With an odd number of players a different player sits out each round until everyone has had a bye
+     */
+    @Test
+    public void byeRotatesForOddFields()
+    {
+        Random random = new Random(2);
+        for(int numPlayers : new int[] {3, 9, 21})
+        {
+            ArrayList<Player> players = createPlayers(numPlayers);
+            SwissPairer pairer = new SwissPairer(players);
+            HashSet<Player> byes = new HashSet<>();
+            for(int round = 0; round < Math.min(numPlayers, 5); round++)
+            {
+                ArrayList<Game> games = pairer.pairNextRound();
+                Player bye = pairer.getBye();
+                assertNotNull(bye);
+                assertTrue(byes.add(bye));
+                assertTrue(pairer.hadBye(bye));
+                assertEquals(numPlayers / 2, games.size());
+                assertPlayersInOneGame(games, players, bye);
+                playRound(games, random);
+            }
+        }
+    }
+
+    /**
+     * Once every likely pairing has been played the pairer falls back to every pairing left instead of failing
+     * Forty level players have the players up to 8 ranks away and 12 to 28 ranks away (Around their ideal opponent 20 ranks away) marked as played,
+     * so the sparse graph has no pairing left but every player can still play someone 9 to 11 ranks away
+     */
+    @Test
+    public void fallsBackToFullPairing()
+    {
+        ArrayList<Player> players = createPlayers(40);
+        ArrayList<Game> played = new ArrayList<>();
+        for(int i = 0; i < players.size(); i++)
+        {
+            for(int j = i + 1; j < players.size(); j++)
+            {
+                if(j - i <= 8 || (j - i >= 12 && j - i <= 28))
+                    played.add(new Game(players.get(i), players.get(j)));
+            }
+        }
+        SwissPairer pairer = new SwissPairer(players, new boolean[players.size()], 3, null, played);
+        HashSet<String> playedPairings = new HashSet<>();
+        for(Game game : played)
+        {
+            playedPairings.add(pairing(game));
+        }
+        ArrayList<Game> games = pairer.pairNextRound();
+        assertEquals(20, games.size());
+        assertPlayersInOneGame(games, players, null);
+        for(Game game : games)
+        {
+            assertFalse(playedPairings.contains(pairing(game)));
+        }
+        assertEquals(4, pairer.getNumRoundsPaired());
+    }
+
+    /**
+     * Every pairing left would repeat a game, so the round cannot be paired
+     */
+    @Test(expected = ScheduleBuildException.class)
+    public void failsWhenEveryPairingWasPlayed()
+    {
+        ArrayList<Player> players = createPlayers(4);
+        SwissPairer pairer = new SwissPairer(players);
+        for(int round = 0; round < 4; round++)
+        {
+            pairer.pairNextRound();
+        }
+    }
+
+    /**
+     * Helper to check every player is in exactly one game of a round, apart from the player with the bye
+     * @param games The games of the round
+     * @param players The roster
+     * @param bye The player with the bye (null if there is none)
+     */
+    private static void assertPlayersInOneGame(List<Game> games, List<Player> players, Player bye)
+    {
+        HashSet<Player> playersInRound = new HashSet<>();
+        for(Game game : games)
+        {
+            assertTrue(playersInRound.add(game.getPlayerA()));
+            assertTrue(playersInRound.add(game.getPlayerB()));
+        }
+        assertEquals(players.size() - (bye == null ? 0 : 1), playersInRound.size());
+        assertFalse(playersInRound.contains(bye));
+    }
+
+    /**
+     * Helper to play every game of a round with a random winner
+     * @param games The games of the round
+     * @param random Picks the winners and the losing scores
+     */
+    private static void playRound(List<Game> games, Random random)
+    {
+        for(Game game : games)
+        {
+            int losingScore = random.nextInt(11);
+            boolean aWins = random.nextBoolean();
+            game.getPlayerA().updateStats(aWins ? 11 : losingScore, aWins ? losingScore : 11);
+            game.getPlayerB().updateStats(aWins ? losingScore : 11, aWins ? 11 : losingScore);
+            game.markPlayed();
+        }
+    }
+
+    /**
+     * Helper to name the pairing of a game the same way whichever player is player A
+     * @param game The game
+     * @return The players' names in order
+     */
+    private static String pairing(Game game)
+    {
+        String nameA = game.getPlayerA().getName();
+        String nameB = game.getPlayerB().getName();
+        return (nameA.compareTo(nameB) < 0) ? nameA + " " + nameB : nameB + " " + nameA;
+    }
+
+    /**
+     * Helper to create a roster
+     * @param numPlayers The number of players
+     * @return List of players named P0, P1, ...
+     */
+    private static ArrayList<Player> createPlayers(int numPlayers)
+    {
+        ArrayList<Player> players = new ArrayList<>();
+        for(int i = 0; i < numPlayers; i++)
+        {
+            players.add(new Player("P" + i, null));
+        }
+        return players;
+    }
+}
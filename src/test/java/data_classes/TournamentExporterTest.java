@@ -0,0 +1,145 @@
+package data_classes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for TournamentExporter
+ * Tournaments with awkward player names are exported to a string and checked against the expected documents
+ */
+public class TournamentExporterTest
+{
+    /**
+     * Names with commas, quotes and line breaks are quoted in the schedule CSV, and unplayed games leave their result empty
+     * @throws IOException If the export fails
+     */
+    @Test
+    public void csvQuotesCommasQuotesAndLineBreaks() throws IOException
+    {
+        List<Player> players = createPlayers("Smith, J", "The \"Ace\"", "Line\nBreak", "Carriage\rReturn");
+        Schedule schedule = createSchedule(players);
+        schedule.markGamePlayed(0, 11, 7);
+        String expected = "game,round,slot,table,player_a,player_b,played,score_a,score_b,winner\n"
+            + "1,1,1,1,\"Smith, J\",\"The \"\"Ace\"\"\",true,11,7,\"Smith, J\"\n"
+            + "2,1,2,1,\"Line\nBreak\",\"Carriage\rReturn\",false,,,\n";
+        assertEquals(expected, export(TournamentExporter.Format.SCHEDULE_CSV, players, schedule));
+    }
+
+    /**
+     * Plain names are written as they are, and the standings are in ranking order
+     * @throws IOException If the export fails
+     */
+    @Test
+    public void standingsCsvIsInRankingOrder() throws IOException
+    {
+        List<Player> players = createPlayers("Low", "High, Seed");
+        players.get(1).updateStats(11, 5);
+        players.get(0).updateStats(5, 11);
+        String expected = "rank,name,wins,played,ratio\n"
+            + "1,\"High, Seed\",1,1,2.2\n"
+            + "2,Low,0,1,0.45\n";
+        assertEquals(expected, export(TournamentExporter.Format.STANDINGS_CSV, players, null));
+    }
+
+    /**
+     * Quotes, backslashes and control characters are escaped in JSON strings, and unplayed games have no result
+     * @throws IOException If the export fails
+     */
+    @Test
+    public void jsonEscapesQuotesAndControlCharacters() throws IOException
+    {
+        List<Player> players = createPlayers("Quote\"d", "Back\\slash", "Tab\there", "Bell\u0007");
+        Schedule schedule = createSchedule(players);
+        schedule.markGamePlayed(0, 7, 11);
+        String json = export(TournamentExporter.Format.JSON, players, schedule);
+        assertTrue(json.contains("\"playerA\": \"Quote\\\"d\", \"playerB\": \"Back\\\\slash\", \"played\": true, \"scoreA\": 7, \"scoreB\": 11, \"winner\": \"Back\\\\slash\"}"));
+        assertTrue(json.contains("\"playerA\": \"Tab\\u0009here\", \"playerB\": \"Bell\\u0007\", \"played\": false}"));
+        // No raw control character is left in the document apart from the line breaks between values
+        for(char c : json.toCharArray())
+        {
+            assertTrue(c >= 0x20 || c == '\n');
+        }
+    }
+
+    /**
+     * A played game with tied scores has no winner
+     * @throws IOException If the export fails
+     */
+    @Test
+    public void tiedGameHasNoWinner() throws IOException
+    {
+        List<Player> players = createPlayers("A", "B", "C", "D");
+        Schedule schedule = createSchedule(players);
+        schedule.markGamePlayed(1, 0, 0);
+        assertTrue(export(TournamentExporter.Format.SCHEDULE_CSV, players, schedule).endsWith("2,1,2,1,C,D,true,0,0,\n"));
+        assertTrue(export(TournamentExporter.Format.JSON, players, schedule).contains("\"scoreA\": 0, \"scoreB\": 0, \"winner\": null}"));
+    }
+
+    /**
+     * A missing or empty schedule and an empty roster export headers and empty arrays only
+     * @throws IOException If the export fails
+     */
+    @Test
+    public void emptyTournamentExportsHeadersOnly() throws IOException
+    {
+        String header = "game,round,slot,table,player_a,player_b,played,score_a,score_b,winner\n";
+        assertEquals(header, export(TournamentExporter.Format.SCHEDULE_CSV, new ArrayList<>(), null));
+        assertEquals(header, export(TournamentExporter.Format.SCHEDULE_CSV, new ArrayList<>(), new Schedule(new ArrayList<>(), 1)));
+        assertEquals("rank,name,wins,played,ratio\n", export(TournamentExporter.Format.STANDINGS_CSV, new ArrayList<>(), null));
+        assertEquals("{\n  \"standings\": [],\n  \"games\": []\n}\n", export(TournamentExporter.Format.JSON, new ArrayList<>(), null));
+        String json = export(TournamentExporter.Format.JSON, createPlayers("Solo"), new Schedule(new ArrayList<>(), 1));
+        assertEquals("{\n  \"standings\": [\n    {\"rank\": 1, \"name\": \"Solo\", \"wins\": 0, \"played\": 0, \"ratio\": 1.0}\n  ],\n  \"games\": []\n}\n", json);
+        assertFalse(json.contains(",\n  ]"));
+    }
+
+    /**
+     * Helper to export a tournament to a string
+     * @param format The document to export
+     * @param players The roster
+     * @param schedule The schedule (null if there is no schedule)
+     * @return The exported document
+     * @throws IOException If the export fails
+     */
+    private static String export(TournamentExporter.Format format, List<Player> players, Schedule schedule) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        TournamentExporter.export(out, format, players, schedule);
+        return out.toString();
+    }
+
+    /**
+     * Helper to create a schedule of two games, the first two players then the last two (Kept in that orientation)
+     * @param players A roster of four players
+     * @return The schedule
+     */
+    private static Schedule createSchedule(List<Player> players)
+    {
+        ArrayList<Game> games = new ArrayList<>();
+        games.add(new Game(players.get(0), players.get(1), false));
+        games.add(new Game(players.get(2), players.get(3), false));
+        return new Schedule(games, 6);
+    }
+
+    /**
+     * Helper to create a roster
+     * @param names The names of the players
+     * @return List of players with those names
+     */
+    private static List<Player> createPlayers(String... names)
+    {
+        ArrayList<Player> players = new ArrayList<>();
+        for(String name : names)
+        {
+            players.add(new Player(name, null));
+        }
+        return players;
+    }
+}
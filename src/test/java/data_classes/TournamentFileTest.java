@@ -0,0 +1,340 @@
+package data_classes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javafx.scene.paint.Color;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for TournamentFile
+ * Tournaments are saved and loaded again, and everything loaded is checked against what was saved (Players are matched by name)
+ */
+public class TournamentFileTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * A multi-table round robin with played games keeps its players, games, scores, slots, seed and games each
+     * @throws IOException If the tournament cannot be saved or loaded
+     */
+    @Test
+    public void roundRobinRoundTrip() throws IOException
+    {
+        ArrayList<Player> players = createPlayers(9);
+        Schedule schedule = new ScheduleBuilder(players, 4).setNumTables(3).setSeed(5).build();
+        for(int i = 0; i < schedule.getNumGames(); i += 3)
+        {
+            playGame(schedule, i, 11, i % 11);
+        }
+        // A player who left the roster is still in their played games
+        Player removedPlayer = schedule.getGame(0).getPlayerA();
+        ArrayList<Player> roster = new ArrayList<>(players);
+        roster.remove(removedPlayer);
+
+        TournamentFile loaded = saveAndLoad(roster, schedule, 4, null, null);
+        assertSamePlayers(roster, loaded.getPlayers());
+        assertEquals(4, loaded.getNumGamesEach());
+        assertNull(loaded.getSwissPairer());
+        assertNull(loaded.getBracket());
+        Schedule loadedSchedule = loaded.getSchedule();
+        assertSameGames(schedule, loadedSchedule);
+        assertTrue(loadedSchedule.hasSeed());
+        assertEquals(schedule.getSeed(), loadedSchedule.getSeed());
+        assertEquals(schedule.getNumTables(), loadedSchedule.getNumTables());
+        assertEquals(schedule.getNumSlots(), loadedSchedule.getNumSlots());
+        for(int i = 0; i < schedule.getNumSlots(); i++)
+        {
+            assertEquals(schedule.getSlotStartIndex(i), loadedSchedule.getSlotStartIndex(i));
+        }
+        assertEquals(schedule.getFirstUnplayedIndex(), loadedSchedule.getFirstUnplayedIndex());
+        assertEquals(schedule.getNumGamesUnplayed(), loadedSchedule.getNumGamesUnplayed());
+    }
+
+    /**
+     * A schedule without a seed is loaded without one, and a roster saved without a schedule keeps its colours
+     * @throws IOException If the tournament cannot be saved or loaded
+     */
+    @Test
+    public void seedAndRosterRoundTrip() throws IOException
+    {
+        ArrayList<Player> players = createPlayers(4);
+        players.add(new Player("Coloured", Color.color(0.25, 0.5, 0.75, 1)));
+        ArrayList<Game> games = new ArrayList<>();
+        games.add(new Game(players.get(0), players.get(1)));
+        games.add(new Game(players.get(2), players.get(4)));
+        Schedule schedule = new Schedule(games, 2);
+        playGame(schedule, 1, 3, 11);
+
+        TournamentFile loaded = saveAndLoad(players, schedule, 1, null, null);
+        assertFalse(loaded.getSchedule().hasSeed());
+        assertSameGames(schedule, loaded.getSchedule());
+
+        TournamentFile roster = saveAndLoad(players, null, 0, null, null);
+        assertNull(roster.getSchedule());
+        assertSamePlayers(players, roster.getPlayers());
+        Color colour = roster.getPlayers().get(4).getColour();
+        assertNotNull(colour);
+        assertEquals(0.5, colour.getGreen(), 0);
+        assertNull(roster.getPlayers().get(0).getColour());
+    }
+
+    /**
+     * A Swiss tournament keeps its byes and pairings, so the loaded pairer pairs the same next round
+     * @throws IOException If the tournament cannot be saved or loaded
+     */
+    @Test
+    public void swissRoundTrip() throws IOException
+    {
+        ArrayList<Player> players = createPlayers(7);
+        SwissPairer pairer = new SwissPairer(players);
+        Schedule schedule = new Schedule(pairer.pairNextRound(), pairer.getNumGamesInRound());
+        for(int round = 0; round < 2; round++)
+        {
+            for(int i = round * pairer.getNumGamesInRound(); i < schedule.getNumGames(); i++)
+            {
+                playGame(schedule, i, 11, 2 * i);
+            }
+            schedule.appendGames(pairer.pairNextRound());
+        }
+
+        TournamentFile loaded = saveAndLoad(players, schedule, 5, pairer, null);
+        assertEquals(5, loaded.getNumGamesEach());
+        SwissPairer loadedPairer = loaded.getSwissPairer();
+        assertNotNull(loadedPairer);
+        assertEquals(pairer.getNumRoundsPaired(), loadedPairer.getNumRoundsPaired());
+        assertEquals(pairer.getBye().getName(), loadedPairer.getBye().getName());
+        for(Player player : loaded.getPlayers())
+        {
+            assertEquals(pairer.hadBye(find(players, player.getName())), loadedPairer.hadBye(player));
+        }
+        // The last round has not been played, so both pairers see the same standings
+        assertEquals(names(pairer.pairNextRound()), names(loadedPairer.pairNextRound()));
+    }
+
+    /**
+     * A double elimination bracket with games played out of order picks up with the same ready games and games left
+     * @throws IOException If the tournament cannot be saved or loaded
+     */
+    @Test
+    public void bracketRoundTrip() throws IOException
+    {
+        ArrayList<Player> players = createPlayers(6);
+        Bracket bracket = new Bracket(players, true);
+        Schedule schedule = new Schedule(bracket.takeReadyGames(), 3);
+        // Plays the last game first, then the first game
+        schedule.changeGameIndex(schedule.getNumGames() - 1, 0);
+        playBracketGame(schedule, bracket, 0, 11, 4);
+        playBracketGame(schedule, bracket, 1, 6, 11);
+        // Leaves one ready game out of the schedule, as if the app closed before it was added
+        ArrayList<Game> readyGames = bracket.takeReadyGames();
+        schedule.appendGames(readyGames.subList(0, readyGames.size() - 1));
+
+        TournamentFile loaded = saveAndLoad(players, schedule, 0, null, bracket);
+        Bracket loadedBracket = loaded.getBracket();
+        assertNotNull(loadedBracket);
+        assertTrue(loadedBracket.isDoubleElimination());
+        assertEquals(bracket.getNumGamesRemaining(), loadedBracket.getNumGamesRemaining());
+        assertEquals(names(readyGames.subList(readyGames.size() - 1, readyGames.size())), names(loadedBracket.takeReadyGames()));
+        for(Player player : loaded.getPlayers())
+        {
+            assertEquals(bracket.getSeed(find(players, player.getName())), loadedBracket.getSeed(player));
+        }
+        // The next game played on both brackets makes the same games ready
+        Schedule loadedSchedule = loaded.getSchedule();
+        int index = schedule.getFirstUnplayedIndex();
+        playBracketGame(schedule, bracket, index, 11, 9);
+        playBracketGame(loadedSchedule, loadedBracket, index, 11, 9);
+        assertEquals(names(bracket.takeReadyGames()), names(loadedBracket.takeReadyGames()));
+        assertEquals(bracket.getNumGamesRemaining(), loadedBracket.getNumGamesRemaining());
+    }
+
+    /**
+     * A file with a changed byte fails its checksum
+     * @throws IOException If the file fails to load, as expected
+     */
+    @Test(expected = IOException.class)
+    public void corruptFileIsRejected() throws IOException
+    {
+        Path file = saveRoundRobin();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+        TournamentFile.load(file);
+    }
+
+    /**
+     * A file cut short is rejected before its payload is read
+     * @throws IOException If the file fails to load, as expected
+     */
+    @Test(expected = IOException.class)
+    public void truncatedFileIsRejected() throws IOException
+    {
+        Path file = saveRoundRobin();
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 5));
+        TournamentFile.load(file);
+    }
+
+    /**
+     * Helper to save a small round robin
+     * @return The file it was saved to
+     * @throws IOException If the tournament cannot be saved
+     */
+    private Path saveRoundRobin() throws IOException
+    {
+        ArrayList<Player> players = createPlayers(6);
+        Schedule schedule = new ScheduleBuilder(players, 5).setSeed(1).build();
+        playGame(schedule, 0, 11, 7);
+        Path file = folder.getRoot().toPath().resolve("tournament.tmf");
+        TournamentFile.snapshot(players, schedule, 5, null, null).write(file);
+        return file;
+    }
+
+    /**
+     * Helper to save a tournament and load it again
+     * @param players The roster
+     * @param schedule The schedule (null to save the roster only)
+     * @param numGamesEach The number of games each
+     * @param pairer The Swiss pairer (null if there is none)
+     * @param bracket The bracket (null if there is none)
+     * @return The loaded tournament
+     * @throws IOException If the tournament cannot be saved or loaded
+     */
+    private TournamentFile saveAndLoad(List<Player> players, Schedule schedule, int numGamesEach, SwissPairer pairer, Bracket bracket) throws IOException
+    {
+        Path file = folder.getRoot().toPath().resolve("saves").resolve("tournament.tmf");
+        TournamentFile.snapshot(players, schedule, numGamesEach, pairer, bracket).write(file);
+        return TournamentFile.load(file);
+    }
+
+    /**
+     * Helper to create a roster
+     * @param numPlayers The number of players
+     * @return List of players named P0, P1, ...
+     */
+    private static ArrayList<Player> createPlayers(int numPlayers)
+    {
+        ArrayList<Player> players = new ArrayList<>();
+        for(int i = 0; i < numPlayers; i++)
+        {
+            players.add(new Player("P" + i, null));
+        }
+        return players;
+    }
+
+    /**
+     * Helper to play a game the way ending a game does
+     * @param schedule The schedule
+     * @param index The index of the game
+     * @param scoreA The score of player A
+     * @param scoreB The score of player B
+     */
+    private static void playGame(Schedule schedule, int index, int scoreA, int scoreB)
+    {
+        Game game = schedule.getGame(index);
+        game.getPlayerA().updateStats(scoreA, scoreB);
+        game.getPlayerB().updateStats(scoreB, scoreA);
+        schedule.markGamePlayed(index, scoreA, scoreB);
+    }
+
+    /**
+     * Helper to play a bracket game and record its winner in the bracket
+     * @param schedule The schedule
+     * @param bracket The bracket
+     * @param index The index of the game
+     * @param scoreA The score of player A
+     * @param scoreB The score of player B
+     */
+    private static void playBracketGame(Schedule schedule, Bracket bracket, int index, int scoreA, int scoreB)
+    {
+        playGame(schedule, index, scoreA, scoreB);
+        Game game = schedule.getGame(index);
+        bracket.recordResult(game, (scoreA > scoreB) ? game.getPlayerA() : game.getPlayerB());
+    }
+
+    /**
+     * Helper to check loaded players against the saved players
+     * @param expected The saved players
+     * @param actual The loaded players
+     */
+    private static void assertSamePlayers(List<Player> expected, List<Player> actual)
+    {
+        assertEquals(expected.size(), actual.size());
+        for(int i = 0; i < expected.size(); i++)
+        {
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getWins(), actual.get(i).getWins());
+            assertEquals(expected.get(i).getGamesPlayed(), actual.get(i).getGamesPlayed());
+            assertEquals(expected.get(i).getRatio(), actual.get(i).getRatio(), 0);
+        }
+    }
+
+    /**
+     * Helper to check a loaded schedule's games against the saved schedule's games
+     * @param expected The saved schedule
+     * @param actual The loaded schedule
+     */
+    private static void assertSameGames(Schedule expected, Schedule actual)
+    {
+        assertEquals(expected.getNumGames(), actual.getNumGames());
+        assertEquals(expected.getNumGamesInFullRound(), actual.getNumGamesInFullRound());
+        for(int i = 0; i < expected.getNumGames(); i++)
+        {
+            Game expectedGame = expected.getGame(i);
+            Game actualGame = actual.getGame(i);
+            assertEquals(expectedGame.getPlayerA().getName(), actualGame.getPlayerA().getName());
+            assertEquals(expectedGame.getPlayerB().getName(), actualGame.getPlayerB().getName());
+            assertEquals(expectedGame.getPlayed(), actualGame.getPlayed());
+            assertEquals(expectedGame.getScoreA(), actualGame.getScoreA());
+            assertEquals(expectedGame.getScoreB(), actualGame.getScoreB());
+        }
+    }
+
+    /**
+     * Helper to find a player by name
+     * @param players The players
+     * @param name The name
+     * @return The player with the name
+     */
+    private static Player find(List<Player> players, String name)
+    {
+        for(Player player : players)
+        {
+            if(player.getName().equals(name))
+                return player;
+        }
+        throw new AssertionError("No player named " + name);
+    }
+
+    /**
+     * Helper to describe games by their players' names (Games are randomly oriented, so the names are in alphabetical order)
+     * @param games The games
+     * @return List of "A-B" for each game
+     */
+    private static List<String> names(List<Game> games)
+    {
+        List<String> names = new ArrayList<>();
+        for(Game game : games)
+        {
+            String nameA = game.getPlayerA().getName();
+            String nameB = game.getPlayerB().getName();
+            names.add((nameA.compareTo(nameB) < 0) ? nameA + "-" + nameB : nameB + "-" + nameA);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,139 @@
+package data_classes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for WeightedMatching
+ * On small random graphs the blossom algorithm is checked against trying every matching
+ */
+public class WeightedMatchingTest
+{
+    /**
+     * The matching found has the same weight as the heaviest matching found by brute force
+     */
+    @Test
+    public void maxWeightMatchesBruteForce()
+    {
+        checkRandomGraphs(false, 11);
+    }
+
+    /**
+     * With maximum cardinality, the matching found has as many edges and the same weight as the heaviest largest matching found by brute force
+     */
+    @Test
+    public void maxCardinalityMatchesBruteForce()
+    {
+        checkRandomGraphs(true, 12);
+    }
+
+    /**
+     * A triangle with a pendant edge needs its odd cycle shrunk into a blossom to find the perfect matching
+     */
+    @Test
+    public void oddCycleIsMatchedThroughBlossom()
+    {
+        int[] edgeFrom = {0, 1, 2, 2};
+        int[] edgeTo = {1, 2, 0, 3};
+        long[] edgeWeights = {10, 10, 10, 1};
+        int[] mate = new WeightedMatching(4, edgeFrom, edgeTo, edgeWeights).solve(true);
+        assertEquals(3, mate[2]);
+        assertEquals(1, mate[0]);
+    }
+
+    /**
+     * Helper to compare the algorithm against brute force on random graphs of up to ten vertices
+     * @param maxCardinality True to only consider matchings with as many edges as possible
+     * @param seed Seed for the random graphs
+     */
+    private static void checkRandomGraphs(boolean maxCardinality, long seed)
+    {
+        Random random = new Random(seed);
+        for(int trial = 0; trial < 500; trial++)
+        {
+            int numVertices = 1 + random.nextInt(10);
+            long[][] weights = new long[numVertices][numVertices];
+            int numEdges = 0;
+            int[] edgeFrom = new int[numVertices * numVertices];
+            int[] edgeTo = new int[numVertices * numVertices];
+            long[] edgeWeights = new long[numVertices * numVertices];
+            int density = 1 + random.nextInt(4);
+            for(int i = 0; i < numVertices; i++)
+            {
+                for(int j = i + 1; j < numVertices; j++)
+                {
+                    if(random.nextInt(4) >= density)
+                        continue;
+                    long weight = 1 + random.nextInt((random.nextBoolean()) ? 5 : 100);
+                    weights[i][j] = weight;
+                    weights[j][i] = weight;
+                    edgeFrom[numEdges] = i;
+                    edgeTo[numEdges] = j;
+                    edgeWeights[numEdges] = weight;
+                    numEdges++;
+                }
+            }
+            int[] mate = new WeightedMatching(numVertices, Arrays.copyOf(edgeFrom, numEdges), Arrays.copyOf(edgeTo, numEdges),
+                Arrays.copyOf(edgeWeights, numEdges)).solve(maxCardinality);
+
+            // Checks the matching only uses edges of the graph and is symmetric
+            assertEquals(numVertices, mate.length);
+            long weight = 0;
+            int numEdgesMatched = 0;
+            for(int i = 0; i < numVertices; i++)
+            {
+                if(mate[i] == -1)
+                    continue;
+                assertEquals(i, mate[mate[i]]);
+                assertTrue(weights[i][mate[i]] > 0);
+                if(i < mate[i])
+                {
+                    weight += weights[i][mate[i]];
+                    numEdgesMatched++;
+                }
+            }
+            long[] best = bestMatching(weights, new boolean[numVertices], 0, maxCardinality);
+            if(maxCardinality)
+                assertEquals(best[0], numEdgesMatched);
+            assertEquals(best[1], weight);
+        }
+    }
+
+    /**
+     * Helper to find the best matching by trying every matching
+     * @param weights The weight of each edge (0 if there is no edge)
+     * @param used Which vertices are already matched or left unmatched
+     * @param vertex The first vertex not yet decided
+     * @param maxCardinality True to compare matchings by number of edges first
+     * @return The number of edges and the weight of the best matching of the undecided vertices
+     */
+    private static long[] bestMatching(long[][] weights, boolean[] used, int vertex, boolean maxCardinality)
+    {
+        while(vertex < used.length && used[vertex])
+        {
+            vertex++;
+        }
+        if(vertex == used.length)
+            return new long[] {0, 0};
+        used[vertex] = true;
+        long[] best = bestMatching(weights, used, vertex + 1, maxCardinality);
+        for(int other = vertex + 1; other < used.length; other++)
+        {
+            if(used[other] || weights[vertex][other] == 0)
+                continue;
+            used[other] = true;
+            long[] rest = bestMatching(weights, used, vertex + 1, maxCardinality);
+            long[] candidate = {rest[0] + 1, rest[1] + weights[vertex][other]};
+            if((maxCardinality && candidate[0] > best[0]) || ((!maxCardinality || candidate[0] == best[0]) && candidate[1] > best[1]))
+                best = candidate;
+            used[other] = false;
+        }
+        used[vertex] = false;
+        return best;
+    }
+}